@@ -0,0 +1,61 @@
+import java.io.*;
+import java.util.*;
+
+// Counters of the classes compiled with profileGenerate, written to the profile file when the program exits.
+// Each line of the file is "key counter count"; the counts of earlier runs in the file are added to the new ones.
+public class JmmProfile {
+
+	static Map<Integer, long[]> counters = new HashMap<Integer, long[]>();
+
+	static {
+		Runtime.getRuntime().addShutdownHook(new Thread(JmmProfile::write));
+	}
+
+	public static synchronized void count(int key, int counter) {
+		long[] counts = counters.get(key);
+		if (counts == null) {
+			counts = new long[0];
+		}
+		if (counter >= counts.length) {
+			counts = Arrays.copyOf(counts, Math.max(counter + 1, 2 * counts.length + 16));
+			counters.put(key, counts);
+		}
+		counts[counter]++;
+	}
+
+	static synchronized void write() {
+		File file = new File(System.getProperty("jmm.profile", "jmm.profile"));
+		Map<String, Long> counts = new TreeMap<String, Long>();
+
+		if (file.isFile()) {
+			try (BufferedReader reader = new BufferedReader(new FileReader(file))) {
+				String line;
+				while ((line = reader.readLine()) != null) {
+					String[] fields = line.trim().split("\\s+");
+					if (fields.length == 3) {
+						counts.merge(fields[0] + " " + fields[1], Long.parseLong(fields[2]), Long::sum);
+					}
+				}
+			} catch (IOException | NumberFormatException e) {
+				System.err.println("Could not read profile " + file + ": " + e.getMessage());
+			}
+		}
+
+		for (Map.Entry<Integer, long[]> entry : counters.entrySet()) {
+			long[] values = entry.getValue();
+			for (int counter = 0; counter < values.length; counter++) {
+				if (values[counter] > 0) {
+					counts.merge(entry.getKey() + " " + counter, values[counter], Long::sum);
+				}
+			}
+		}
+
+		try (PrintWriter writer = new PrintWriter(new FileWriter(file))) {
+			for (Map.Entry<String, Long> entry : counts.entrySet()) {
+				writer.println(entry.getKey() + " " + entry.getValue());
+			}
+		} catch (IOException e) {
+			System.err.println("Could not write profile " + file + ": " + e.getMessage());
+		}
+	}
+}
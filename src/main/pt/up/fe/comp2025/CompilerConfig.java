@@ -10,6 +10,8 @@ public class CompilerConfig {
     private static final String INPUT_FILE = "inputFile";
     private static final String OPTIMIZE = "optimize";
     private static final String REGISTER = "registerAllocation";
+    private static final String OPT_LEVEL = "optLevel";
+    private static final String PASSES = "passes";
 
 
     static Map<String, String> shortToLong = new HashMap<>();
@@ -18,6 +20,8 @@ public class CompilerConfig {
         shortToLong.put("i", CompilerConfig.INPUT_FILE);
         shortToLong.put("o", CompilerConfig.OPTIMIZE);
         shortToLong.put("r", CompilerConfig.REGISTER);
+        shortToLong.put("O", CompilerConfig.OPT_LEVEL);
+        shortToLong.put("p", CompilerConfig.PASSES);
     }
 
 
@@ -77,12 +81,15 @@ public class CompilerConfig {
                 throw new RuntimeException("Unrecognized option '-" + shortOption + "'");
             }
 
-            String value = "true";
+            // -O alone is -O2, and the level may follow it directly, as in -O3
+            String value = shortOption.equals("O") ? "2" : "true";
             if (arg.length() > 2) {
                 String equalSign = arg.substring(2, 3);
                 if (equalSign.equals("=")) {
 
                     value = arg.substring(3);
+                } else if (shortOption.equals("O")) {
+                    value = arg.substring(2);
                 }
             }
 
@@ -106,6 +113,7 @@ public class CompilerConfig {
         // Verify if values are valid
         getOptimize(config);
         getRegisterAllocation(config);
+        ConfigOptions.getOptLevel(config);
 
         return config;
     }
@@ -1,6 +1,8 @@
 package pt.up.fe.comp2025;
 
 import java.io.File;
+import java.util.ArrayList;
+import java.util.List;
 import java.util.Map;
 import java.util.Optional;
 
@@ -11,6 +13,20 @@ public class ConfigOptions {
     private static final String OPTIMIZE = "optimize";
     private static final String REGISTER = "registerAllocation";
     private static final String EXTRA = "extra";
+    private static final String PARALLEL_ANALYSIS = "parallelAnalysis";
+    private static final String OUTPUT_DIR = "outputDir";
+    private static final String INTERFACE_PATH = "interfacePath";
+    private static final String INLINE_BUDGET = "inlineBudget";
+    private static final String UNROLL_GROWTH = "unrollGrowth";
+    private static final String SPECIALIZE_BUDGET = "specializeBudget";
+    private static final String PURE_METHODS = "pureMethods";
+    private static final String OPT_LEVEL = "optLevel";
+    private static final String PASSES = "passes";
+    private static final String PASS_TIME_BUDGET = "passTimeBudget";
+    private static final String PASS_ITERATIONS = "passIterations";
+    private static final String VERIFY_IR = "verifyIr";
+    private static final String PROFILE_GENERATE = "profileGenerate";
+    private static final String PROFILE_USE = "profileUse";
 
     // These methods should be on CompilerConfig, but to avoid rewriting a file
     // that is in the src folder, this new class was added
@@ -31,6 +47,62 @@ public class ConfigOptions {
         return EXTRA;
     }
 
+    public static String getParallelAnalysis() {
+        return PARALLEL_ANALYSIS;
+    }
+
+    public static String getOutputDir() {
+        return OUTPUT_DIR;
+    }
+
+    public static String getInterfacePath() {
+        return INTERFACE_PATH;
+    }
+
+    public static String getInlineBudget() {
+        return INLINE_BUDGET;
+    }
+
+    public static String getUnrollGrowth() {
+        return UNROLL_GROWTH;
+    }
+
+    public static String getSpecializeBudget() {
+        return SPECIALIZE_BUDGET;
+    }
+
+    public static String getPureMethods() {
+        return PURE_METHODS;
+    }
+
+    public static String getOptLevel() {
+        return OPT_LEVEL;
+    }
+
+    public static String getPasses() {
+        return PASSES;
+    }
+
+    public static String getPassTimeBudget() {
+        return PASS_TIME_BUDGET;
+    }
+
+    public static String getPassIterations() {
+        return PASS_ITERATIONS;
+    }
+
+    public static String getVerifyIr() {
+        return VERIFY_IR;
+    }
+
+    public static String getProfileGenerate() {
+        return PROFILE_GENERATE;
+    }
+
+    public static String getProfileUse() {
+        return PROFILE_USE;
+    }
+
     public static Optional<File> getInputFile(Map<String, String> config) {
         var inputFile = config.get(INPUT_FILE);
 
@@ -54,4 +126,164 @@ public class ConfigOptions {
     public static boolean getExtra(Map<String, String> config) {
         return Boolean.parseBoolean(config.getOrDefault(EXTRA, "false"));
     }
+
+    /**
+     * Whether independent semantic analysis passes may run in parallel (default: true).
+     */
+    public static boolean getParallelAnalysis(Map<String, String> config) {
+        return Boolean.parseBoolean(config.getOrDefault(PARALLEL_ANALYSIS, "true"));
+    }
+
+    /**
+     * Number of instructions the inliner may add to each method, when optimizations are enabled (default: 64 at -O3,
+     * 32 below it; 0 disables inlining).
+     */
+    public static int getInlineBudget(Map<String, String> config) {
+        return Integer.parseInt(config.getOrDefault(INLINE_BUDGET, getOptLevel(config) >= 3 ? "64" : "32"));
+    }
+
+    /**
+     * Number of instructions unrolling may add to each loop, about as many bytecode instructions, when optimizations
+     * are enabled (default: 64 at -O3, 0 below it, which disables unrolling).
+     */
+    public static int getUnrollGrowth(Map<String, String> config) {
+        return Integer.parseInt(config.getOrDefault(UNROLL_GROWTH, getOptLevel(config) >= 3 ? "64" : "0"));
+    }
+
+    /**
+     * Number of instructions the copies of methods specialized for constant arguments may add to the class, when
+     * optimizations are enabled (default: 128 at -O3, 64 below it; 0 disables specialization).
+     */
+    public static int getSpecializeBudget(Map<String, String> config) {
+        return Integer.parseInt(config.getOrDefault(SPECIALIZE_BUDGET, getOptLevel(config) >= 3 ? "128" : "64"));
+    }
+
+    /**
+     * Imported methods that have no effects, never throw and always return, as {@code Class.method} or
+     * {@code Class.*} separated by commas, so that optimizations may remove or reuse their calls (default: none).
+     */
+    public static List<String> getPureMethods(Map<String, String> config) {
+        List<String> methods = new ArrayList<>();
+        for (String method : config.getOrDefault(PURE_METHODS, "").split(",")) {
+            if (!method.isBlank()) {
+                methods.add(method.strip());
+            }
+        }
+        return methods;
+    }
+
+    /**
+     * Optimization level, from 0 to 3 (default: 2 with {@code optimize}, 0 otherwise).
+     */
+    public static int getOptLevel(Map<String, String> config) {
+        var optLevel = config.get(OPT_LEVEL);
+        if (optLevel == null) {
+            return getOptimize(config) ? 2 : 0;
+        }
+
+        int level = Integer.parseInt(optLevel);
+        if (level < 0 || level > 3) {
+            throw new RuntimeException("Expected an optimization level from 0 to 3, got " + level);
+        }
+        return level;
+    }
+
+    /**
+     * Optimization passes enabled ({@code name} or {@code +name}) or disabled ({@code -name}) regardless of the
+     * optimization level, separated by commas (default: none).
+     */
+    public static List<String> getPasses(Map<String, String> config) {
+        List<String> passes = new ArrayList<>();
+        for (String pass : config.getOrDefault(PASSES, "").split(",")) {
+            if (!pass.isBlank()) {
+                passes.add(pass.strip());
+            }
+        }
+        return passes;
+    }
+
+    /**
+     * Milliseconds each optimization pass may spend over the compilation, after which it is skipped (default: 0, no
+     * limit).
+     */
+    public static int getPassTimeBudget(Map<String, String> config) {
+        return Integer.parseInt(config.getOrDefault(PASS_TIME_BUDGET, "0"));
+    }
+
+    /**
+     * Rounds a group of optimization passes may run on a method while looking for a fixed point (default: one more
+     * than the optimization level).
+     */
+    public static int getPassIterations(Map<String, String> config) {
+        return Integer.parseInt(config.getOrDefault(PASS_ITERATIONS, String.valueOf(getOptLevel(config) + 1)));
+    }
+
+    /**
+     * Whether the IR is verified after each optimization pass (default: true when the {@code debug.ir} system
+     * property is set, as in the test builds).
+     */
+    public static boolean getVerifyIr(Map<String, String> config) {
+        var verifyIr = config.get(VERIFY_IR);
+        if (verifyIr == null) {
+            return System.getProperty("debug.ir") != null;
+        }
+        return Boolean.parseBoolean(verifyIr);
+    }
+
+    /**
+     * Whether the generated code counts how many times the methods lowered through the IR, and the branches and
+     * joins of their if and while statements, run, and writes the counts to a profile file when the program exits
+     * (default: false). The file is the one in the {@code jmm.profile} system property of the program, or
+     * {@code jmm.profile} in its working folder.
+     */
+    public static boolean getProfileGenerate(Map<String, String> config) {
+        return Boolean.parseBoolean(config.getOrDefault(PROFILE_GENERATE, "false"));
+    }
+
+    /**
+     * Profile file written by a run of the class compiled with {@code profileGenerate}, at any optimization level,
+     * whose counts guide the block layout, inlining, loop unrolling and register order (default: none).
+     */
+    public static Optional<File> getProfileUse(Map<String, String> config) {
+        var profileUse = config.get(PROFILE_USE);
+        if (profileUse == null || profileUse.isBlank()) {
+            return Optional.empty();
+        }
+        return Optional.of(new File(profileUse));
+    }
+
+    /**
+     * Folder where the outputs of the compilation, such as the interface file of the class, are written (default:
+     * none, nothing is written).
+     */
+    public static Optional<File> getOutputDir(Map<String, String> config) {
+        var outputDir = config.get(OUTPUT_DIR);
+        if (outputDir == null || outputDir.isBlank()) {
+            return Optional.empty();
+        }
+
+        return Optional.of(new File(outputDir));
+    }
+
+    /**
+     * Folders searched for interface files of imported Java-- classes: the folders in the option (separated by
+     * {@link File#pathSeparator}), followed by the output folder and the folder of the input file.
+     */
+    public static List<File> getInterfacePath(Map<String, String> config) {
+        List<File> folders = new ArrayList<>();
+
+        var interfacePath = config.get(INTERFACE_PATH);
+        if (interfacePath != null) {
+            for (String folder : interfacePath.split(File.pathSeparator)) {
+                if (!folder.isBlank()) {
+                    folders.add(new File(folder));
+                }
+            }
+        }
+
+        getOutputDir(config).ifPresent(folders::add);
+        getInputFile(config).map(File::getAbsoluteFile).map(File::getParentFile).ifPresent(folders::add);
+
+        return folders;
+    }
 }
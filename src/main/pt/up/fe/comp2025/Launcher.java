@@ -9,6 +9,8 @@ import pt.up.fe.comp2025.analysis.JmmAnalysisImpl;
 import pt.up.fe.comp2025.backend.JasminBackendImpl;
 import pt.up.fe.comp2025.optimization.JmmOptimizationImpl;
 import pt.up.fe.comp2025.parser.JmmParserImpl;
+import pt.up.fe.comp2025.symboltable.InterfaceFile;
+import pt.up.fe.comp2025.symboltable.JmmSymbolTable;
 import pt.up.fe.specs.util.SpecsIo;
 import pt.up.fe.specs.util.SpecsSystem;
 
@@ -42,6 +44,11 @@ public class Launcher {
         JmmSemanticsResult semanticsResult = sema.semanticAnalysis(parserResult);
         TestUtils.noErrors(semanticsResult.getReports());
 
+        // Interface file, so that classes that import this one do not need its source (only with an output folder)
+        var outputDir = ConfigOptions.getOutputDir(config);
+        if (outputDir.isPresent()) {
+            InterfaceFile.write((JmmSymbolTable) semanticsResult.getSymbolTable(), outputDir.get().toPath());
+        }
 
         // Optimization stage
         JmmOptimizationImpl ollirGen = new JmmOptimizationImpl();
@@ -0,0 +1,35 @@
+package pt.up.fe.comp2025.analysis;
+
+/**
+ * Facts about the program that analysis passes establish (produce) or rely on (need).
+ * <p>
+ * A fact is established once every pass that produces it ran without reporting errors. Passes that need a fact
+ * are only scheduled after all of its producers.
+ */
+public enum AnalysisFact {
+
+    /**
+     * Classes, fields, methods, parameters and locals are declared at most once.
+     */
+    UNIQUE_DECLARATIONS,
+
+    /**
+     * Declared types are well-formed (no void variables, varargs only where allowed).
+     */
+    WELL_FORMED_TYPES,
+
+    /**
+     * Every identifier used in a method body resolves to a declaration that precedes it.
+     */
+    RESOLVED_NAMES,
+
+    /**
+     * Operators, conditions, array accesses and assignments are applied to values of the right type.
+     */
+    TYPED_EXPRESSIONS,
+
+    /**
+     * Method calls target existing methods with matching arguments.
+     */
+    VALID_CALLS
+}
@@ -3,8 +3,10 @@ package pt.up.fe.comp2025.analysis;
 import pt.up.fe.comp.jmm.analysis.table.SymbolTable;
 import pt.up.fe.comp.jmm.ast.JmmNode;
 import pt.up.fe.comp.jmm.report.Report;
+import pt.up.fe.comp2025.ast.Kind;
 
 import java.util.List;
+import java.util.Set;
 
 /**
  * Represents an analysis pass.
@@ -20,4 +22,35 @@ public interface AnalysisPass {
      */
     List<Report> analyze(JmmNode root, SymbolTable table);
 
-}
\ No newline at end of file
+    /**
+     * @return the name used when reporting on this pass
+     */
+    default String getName() {
+        return getClass().getSimpleName();
+    }
+
+    /**
+     * @return the facts this pass establishes when it reports no errors
+     */
+    default Set<AnalysisFact> produces() {
+        return Set.of();
+    }
+
+    /**
+     * @return the facts that must hold before this pass can run
+     */
+    default Set<AnalysisFact> needs() {
+        return Set.of();
+    }
+
+    /**
+     * The node kinds this pass inspects. If none of them appears in the AST the pass has nothing to check and is
+     * skipped. An empty set means the pass always runs.
+     *
+     * @return the node kinds this pass reads
+     */
+    default Set<Kind> reads() {
+        return Set.of();
+    }
+
+}
@@ -0,0 +1,316 @@
+package pt.up.fe.comp2025.analysis;
+
+import pt.up.fe.comp.jmm.analysis.table.Symbol;
+import pt.up.fe.comp.jmm.analysis.table.SymbolTable;
+import pt.up.fe.comp.jmm.ast.JmmNode;
+import pt.up.fe.comp.jmm.report.Report;
+import pt.up.fe.comp2025.ast.Kind;
+import pt.up.fe.comp2025.symboltable.JmmSymbolTable;
+import pt.up.fe.comp2025.symboltable.LibraryClass;
+import pt.up.fe.comp2025.symboltable.LibraryMethod;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.EnumSet;
+import java.util.HashMap;
+import java.util.HexFormat;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.function.Supplier;
+
+/**
+ * Semantic analysis that reuses the results of previous runs over the same class.
+ * <p>
+ * A class is analysed as separate units: the class declarations (imports, class header and fields, together with
+ * the symbol table) and one unit per method. Each method unit is identified by a fingerprint of its body and of
+ * everything outside the body that its analysis depends on: the fields and imported names it refers to, the
+ * signatures of the methods it calls (in the class, and in the imported and super classes read from class or
+ * interface files), the class header and the facts that failed for the declarations. When a class is analysed
+ * again, only the units whose fingerprint changed are re-analysed, and the cached reports are reused for the others.
+ * <p>
+ * The cache lives in the instance, so a long-running driver (e.g. a watch mode) should give the same one to every
+ * {@link JmmAnalysisImpl} it creates.
+ */
+public class IncrementalAnalysis {
+
+    private final Map<String, ClassState> classes;
+
+    private int lastAnalyzedMethods;
+    private int lastReusedMethods;
+
+    public IncrementalAnalysis() {
+        this.classes = new HashMap<>();
+    }
+
+    /**
+     * @return how many methods were analysed in the last call to {@link #analyze}
+     */
+    public int getLastAnalyzedMethods() {
+        return lastAnalyzedMethods;
+    }
+
+    /**
+     * @return how many methods reused cached reports in the last call to {@link #analyze}
+     */
+    public int getLastReusedMethods() {
+        return lastReusedMethods;
+    }
+
+    /**
+     * Analyses the program, re-running the passes only on the units that changed since the last analysis of the
+     * same class.
+     *
+     * @param passes creates a fresh set of passes (passes keep state, so each unit needs its own instances)
+     */
+    public synchronized List<Report> analyze(JmmNode root, SymbolTable table,
+                                             Supplier<List<? extends AnalysisPass>> passes, boolean parallel) {
+
+        ClassState state = classes.computeIfAbsent(table.getClassName(), name -> new ClassState());
+        lastAnalyzedMethods = 0;
+        lastReusedMethods = 0;
+
+        // Class declarations
+        JmmNode declarations = buildDeclarationsUnit(root);
+        String declarationsKey = fingerprint(serialize(declarations) + table.print());
+        if (!declarationsKey.equals(state.declarationsKey)) {
+            Set<AnalysisFact> failedFacts = EnumSet.noneOf(AnalysisFact.class);
+            state.declarationsReports = new PassScheduler(passes.get(), parallel)
+                    .run(declarations, table, failedFacts);
+            state.declarationsFailedFacts = failedFacts;
+            state.declarationsKey = declarationsKey;
+        }
+
+        List<Report> reports = new ArrayList<>(state.declarationsReports);
+
+        // Methods
+        Map<String, MethodState> methods = new HashMap<>();
+        List<JmmNode> classDecls = root.getChildren(Kind.CLASS_DECL);
+        List<JmmNode> methodDecls = classDecls.isEmpty() ? List.of() : classDecls.get(0).getChildren(Kind.METHOD_DECL);
+
+        for (int i = 0; i < methodDecls.size(); i++) {
+            JmmNode methodDecl = methodDecls.get(i);
+            String methodName = getMethodName(methodDecl);
+
+            String key = fingerprint(serialize(methodDecl)) + ":"
+                    + fingerprint(describeDependencies(methodDecl, methodName, table, state.declarationsFailedFacts));
+
+            // Methods are cached by position, duplicated names are reported by the declarations unit
+            String cacheKey = i + ":" + methodName;
+            MethodState method = state.methods.get(cacheKey);
+
+            if (method != null && method.key.equals(key)) {
+                lastReusedMethods++;
+            } else {
+                Set<AnalysisFact> failedFacts = EnumSet.noneOf(AnalysisFact.class);
+                failedFacts.addAll(state.declarationsFailedFacts);
+
+                method = new MethodState(key, new PassScheduler(passes.get(), parallel)
+                        .run(methodDecl, table, failedFacts));
+                lastAnalyzedMethods++;
+            }
+
+            methods.put(cacheKey, method);
+            reports.addAll(method.reports);
+        }
+
+        // Drop methods that no longer exist
+        state.methods = methods;
+
+        if (lastReusedMethods > 0) {
+            System.out.println("[IncrementalAnalysis] " + table.getClassName() + ": analysed " + lastAnalyzedMethods
+                    + " method(s), reused " + lastReusedMethods);
+        }
+
+        return reports;
+    }
+
+    /**
+     * Builds a copy of the AST without the methods: imports, the class declaration and its fields.
+     */
+    private static JmmNode buildDeclarationsUnit(JmmNode root) {
+        JmmNode program = root.copy(root.getHierarchy());
+
+        for (JmmNode child : root.getChildren()) {
+            if (!Kind.CLASS_DECL.check(child)) {
+                program.add(copyTree(child));
+                continue;
+            }
+
+            JmmNode classDecl = child.copy(child.getHierarchy());
+            for (JmmNode member : child.getChildren()) {
+                if (!Kind.METHOD_DECL.check(member)) {
+                    classDecl.add(copyTree(member));
+                }
+            }
+            program.add(classDecl);
+        }
+
+        return program;
+    }
+
+    private static JmmNode copyTree(JmmNode node) {
+        JmmNode copy = node.copy(node.getHierarchy());
+        for (JmmNode child : node.getChildren()) {
+            copy.add(copyTree(child));
+        }
+        return copy;
+    }
+
+    /**
+     * Describes what the analysis of a method depends on, besides its own body (parameters and locals are part of
+     * the body).
+     */
+    private static String describeDependencies(JmmNode methodDecl, String methodName, SymbolTable table,
+                                               Set<AnalysisFact> declarationsFailedFacts) {
+
+        Set<String> names = new TreeSet<>();
+        Set<String> calledMethods = new TreeSet<>();
+
+        methodDecl.getDescendantsStream().forEach(node -> {
+            if (Kind.VAR_REF_EXPR.check(node) || Kind.POSTFIX_EXPR.check(node)) {
+                names.add(node.get("value"));
+            } else if (Kind.METHOD_CALL_EXPR.check(node)) {
+                calledMethods.add(node.get("method"));
+            }
+        });
+
+        JmmSymbolTable jmmTable = table instanceof JmmSymbolTable symbolTable ? symbolTable : null;
+        List<LibraryClass> libraryClasses = jmmTable != null ? getLibraryClasses(jmmTable) : List.of();
+
+        StringBuilder description = new StringBuilder();
+        description.append("failed ").append(declarationsFailedFacts).append("\n");
+        description.append("class ").append(table.getClassName()).append(" extends ").append(table.getSuper()).append("\n");
+        description.append("imports ").append(table.getImports()).append("\n");
+        description.append("methods ").append(table.getMethods()).append("\n");
+
+        for (String name : names) {
+            if (isDeclaredIn(name, table.getParameters(methodName)) || isDeclaredIn(name, table.getLocalVariables(methodName))) {
+                continue;
+            }
+
+            description.append("name ").append(name);
+            for (Symbol field : table.getFields()) {
+                if (field.getName().equals(name)) {
+                    description.append(" field ").append(field.getType().print());
+                }
+            }
+            if (jmmTable != null) {
+                jmmTable.getLibraryClass(name)
+                        .ifPresent(libraryClass -> description.append(" class ").append(libraryClass.getName()));
+                for (LibraryClass libraryClass : libraryClasses) {
+                    jmmTable.getClassIndex().findField(libraryClass.getName(), name)
+                            .ifPresent(field -> description.append(" library field ").append(field));
+                }
+            }
+            description.append("\n");
+        }
+
+        for (String calledMethod : calledMethods) {
+            description.append("call ").append(calledMethod);
+            if (table.getMethods().contains(calledMethod)) {
+                description.append(" (");
+                for (Symbol param : table.getParameters(calledMethod)) {
+                    description.append(param.getType().print()).append(" ");
+                }
+                description.append(") ").append(table.getReturnType(calledMethod).print());
+            }
+            // Overloads of the imported and super classes the call may resolve to
+            if (jmmTable != null) {
+                for (LibraryClass libraryClass : libraryClasses) {
+                    for (LibraryMethod method : jmmTable.getClassIndex().findMethods(libraryClass.getName(), calledMethod)) {
+                        description.append(" ").append(libraryClass.getName()).append(".").append(method);
+                        if (method.isVarargs()) {
+                            description.append(" varargs");
+                        }
+                    }
+                }
+            }
+            description.append("\n");
+        }
+
+        return description.toString();
+    }
+
+    /**
+     * @return the imported classes and the super class that were found as class or interface files
+     */
+    private static List<LibraryClass> getLibraryClasses(JmmSymbolTable table) {
+        Set<String> classNames = new TreeSet<>();
+        for (String imported : table.getImports()) {
+            classNames.add(imported.substring(imported.lastIndexOf('.') + 1));
+        }
+        if (table.getSuper() != null && !table.getSuper().isEmpty()) {
+            classNames.add(table.getSuper());
+        }
+
+        List<LibraryClass> libraryClasses = new ArrayList<>();
+        for (String className : classNames) {
+            table.getLibraryClass(className).ifPresent(libraryClasses::add);
+        }
+        return libraryClasses;
+    }
+
+    private static boolean isDeclaredIn(String name, List<Symbol> symbols) {
+        for (Symbol symbol : symbols) {
+            if (symbol.getName().equals(name)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static String getMethodName(JmmNode methodDecl) {
+        String name = methodDecl.get("name");
+        return name.equals("args") ? "main" : name;
+    }
+
+    /**
+     * Serializes a subtree, including all attributes (and so the positions of the nodes, which appear in reports).
+     */
+    private static String serialize(JmmNode node) {
+        StringBuilder builder = new StringBuilder();
+        serialize(node, builder);
+        return builder.toString();
+    }
+
+    private static void serialize(JmmNode node, StringBuilder builder) {
+        builder.append(node.getKind()).append('{');
+        for (String attribute : new TreeSet<>(node.getAttributes())) {
+            builder.append(attribute).append('=').append(node.get(attribute)).append(';');
+        }
+        for (JmmNode child : node.getChildren()) {
+            serialize(child, builder);
+        }
+        builder.append('}');
+    }
+
+    private static String fingerprint(String contents) {
+        try {
+            MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            return HexFormat.of().formatHex(digest.digest(contents.getBytes(StandardCharsets.UTF_8)));
+        } catch (NoSuchAlgorithmException e) {
+            throw new RuntimeException(e);
+        }
+    }
+
+    private static class ClassState {
+        private String declarationsKey;
+        private List<Report> declarationsReports = List.of();
+        private Set<AnalysisFact> declarationsFailedFacts = EnumSet.noneOf(AnalysisFact.class);
+        private Map<String, MethodState> methods = new HashMap<>();
+    }
+
+    private static class MethodState {
+        private final String key;
+        private final List<Report> reports;
+
+        private MethodState(String key, List<Report> reports) {
+            this.key = key;
+            this.reports = reports;
+        }
+    }
+}
@@ -8,14 +8,15 @@ import pt.up.fe.comp.jmm.ast.JmmNodeImpl;
 import pt.up.fe.comp.jmm.parser.JmmParserResult;
 import pt.up.fe.comp.jmm.report.Report;
 import pt.up.fe.comp.jmm.report.ReportType;
-import pt.up.fe.comp.jmm.report.Stage;
+import pt.up.fe.comp2025.ConfigOptions;
 import pt.up.fe.comp2025.analysis.passes.*;
 import pt.up.fe.comp2025.ast.Kind;
+import pt.up.fe.comp2025.symboltable.ClassFileIndex;
 import pt.up.fe.comp2025.symboltable.JmmSymbolTableBuilder;
 import pt.up.fe.comp2025.analysis.passes.MethodVerificationVisitor;
 
-
-import java.util.ArrayList;
+import java.io.File;
+import java.nio.file.Path;
 import java.util.List;
 
 /**
@@ -23,9 +24,31 @@ import java.util.List;
  */
 public class JmmAnalysisImpl implements JmmAnalysis {
 
+    /**
+     * Results of previous analyses, reused when a class is analysed again with the same cache, or null if there is
+     * no cache.
+     */
+    private final IncrementalAnalysis incremental;
+
+    /**
+     * Analysis without a cache of previous analyses: the passes run once over the whole class, and nothing is
+     * fingerprinted.
+     */
+    public JmmAnalysisImpl() {
+        this(null);
+    }
+
+    /**
+     * @param incremental the cache of previous analyses, which a driver compiling several times can share between
+     *                    the instances it creates
+     */
+    public JmmAnalysisImpl(IncrementalAnalysis incremental) {
+        this.incremental = incremental;
+    }
 
     /**
-     * Analysis passes that will be applied to the AST.
+     * Analysis passes that will be applied to the AST. The order of the list is only used to order the reports,
+     * the execution order comes from the facts each pass produces and needs.
      *
      * @param table
      * @return
@@ -55,8 +78,13 @@ public class JmmAnalysisImpl implements JmmAnalysis {
     public JmmSemanticsResult buildSymbolTable(JmmParserResult parserResult) {
         JmmNode rootNode = parserResult.getRootNode();
 
+        // Imported Java-- classes compiled earlier are resolved from their interface files, without their sources
+        List<Path> interfaceFolders = ConfigOptions.getInterfacePath(parserResult.getConfig()).stream()
+                .map(File::toPath)
+                .toList();
+
         JmmSymbolTableBuilder builder = new JmmSymbolTableBuilder();
-        SymbolTable table = builder.build(rootNode);
+        SymbolTable table = builder.build(rootNode, ClassFileIndex.withInterfaces(interfaceFolders));
 
         List<Report> reports = builder.getReports();
 
@@ -68,42 +96,24 @@ public class JmmAnalysisImpl implements JmmAnalysis {
 
         var table = semanticsResult.getSymbolTable();
 
-        var analysisVisitors = buildPasses(table);
-
         var rootNode = semanticsResult.getRootNode();
 
-        var reports = new ArrayList<Report>();
-
-        // This is a simple implementation that assumes all passes are implemented as visitors, each one making a full visit of the AST.
-        // There are other implementations that reduce the number of full AST visits, this is not required for the work, but a nice challenge if you want to try.
-        for (var analysisVisitor : analysisVisitors) {
-            try {
-                var passReports = analysisVisitor.analyze(rootNode, table);
-
-                var hasSymbolTableErrors = passReports.stream()
-                        .anyMatch(report -> report.getType() == ReportType.ERROR);
-
-
-                reports.addAll(passReports);
-
-                // Return early in case of error report
-                if (hasSymbolTableErrors) {
-                    System.out.println("Found errors: " + reports);
-                    return new JmmSemanticsResult(semanticsResult, reports);
-                }
-
-            } catch (Exception e) {
-                reports.add(Report.newError(Stage.SEMANTIC,
-                        -1,
-                        -1,
-                        "Problem while executing analysis pass '" + analysisVisitor.getClass() + "'",
-                        e)
-                );
-                System.out.println("Exception: " + reports);
-            }
-
+        // Passes declare the facts they produce and need, and the scheduler runs independent passes together.
+        // A pass is skipped when its input nodes are absent, or when a pass it depends on reported errors.
+        boolean parallel = ConfigOptions.getParallelAnalysis(semanticsResult.getConfig());
+        List<Report> reports;
+        if (incremental == null) {
+            reports = new PassScheduler(buildPasses(table), parallel).run(rootNode, table);
+        } else {
+            // Each method is analysed separately, and methods that did not change since the last analysis of the
+            // class (including what they depend on outside their body) reuse the previous reports
+            reports = incremental.analyze(rootNode, table, () -> buildPasses(table), parallel);
         }
 
+        boolean hasErrors = reports.stream().anyMatch(report -> report.getType() == ReportType.ERROR);
+        if (hasErrors) {
+            System.out.println("Found errors: " + reports);
+        }
 
         return new JmmSemanticsResult(semanticsResult, reports);
     }
@@ -0,0 +1,254 @@
+package pt.up.fe.comp2025.analysis;
+
+import pt.up.fe.comp.jmm.analysis.table.SymbolTable;
+import pt.up.fe.comp.jmm.ast.JmmNode;
+import pt.up.fe.comp.jmm.report.Report;
+import pt.up.fe.comp.jmm.report.ReportType;
+import pt.up.fe.comp.jmm.report.Stage;
+import pt.up.fe.comp2025.ast.Kind;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.EnumSet;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+/**
+ * Schedules analysis passes according to the facts they produce and need.
+ * <p>
+ * The passes form a DAG where a pass depends on every pass that produces one of the facts it needs. The DAG is
+ * split into waves (a pass is placed in the wave after the last of its dependencies), and the passes of a wave run
+ * in parallel. When running, a pass is skipped if none of the node kinds it reads appears in the AST, or if one of
+ * the facts it needs was not established because a producer reported errors (or was itself skipped for that reason).
+ */
+public class PassScheduler {
+
+    private final List<AnalysisPass> passes;
+    private final List<List<AnalysisPass>> waves;
+    private final boolean parallel;
+
+    public PassScheduler(List<? extends AnalysisPass> passes, boolean parallel) {
+        this.passes = new ArrayList<>(passes);
+        this.waves = buildWaves(this.passes);
+        this.parallel = parallel;
+    }
+
+    /**
+     * @return the waves of passes, in execution order
+     */
+    public List<List<AnalysisPass>> getWaves() {
+        return Collections.unmodifiableList(waves);
+    }
+
+    private static List<List<AnalysisPass>> buildWaves(List<AnalysisPass> passes) {
+        int numPasses = passes.size();
+
+        // dependencies.get(i) contains the indexes of the passes that produce something pass i needs
+        List<List<Integer>> dependencies = new ArrayList<>();
+        for (AnalysisPass pass : passes) {
+            List<Integer> producers = new ArrayList<>();
+            for (AnalysisFact fact : pass.needs()) {
+                boolean found = false;
+                for (int j = 0; j < numPasses; j++) {
+                    if (passes.get(j).produces().contains(fact)) {
+                        producers.add(j);
+                        found = true;
+                    }
+                }
+
+                if (!found) {
+                    throw new RuntimeException("Analysis pass '" + pass.getName() + "' needs " + fact
+                            + ", but no pass produces it");
+                }
+            }
+            dependencies.add(producers);
+        }
+
+        // Longest path from a source of the DAG, computed by relaxing until nothing changes
+        int[] level = new int[numPasses];
+        for (int iteration = 0; ; iteration++) {
+            if (iteration > numPasses) {
+                throw new RuntimeException("Cyclic dependency between analysis passes");
+            }
+
+            boolean changed = false;
+            for (int i = 0; i < numPasses; i++) {
+                for (int producer : dependencies.get(i)) {
+                    if (producer == i) {
+                        throw new RuntimeException("Analysis pass '" + passes.get(i).getName()
+                                + "' needs a fact it produces");
+                    }
+                    if (level[i] <= level[producer]) {
+                        level[i] = level[producer] + 1;
+                        changed = true;
+                    }
+                }
+            }
+
+            if (!changed) {
+                break;
+            }
+        }
+
+        List<List<AnalysisPass>> waves = new ArrayList<>();
+        for (int i = 0; i < numPasses; i++) {
+            while (waves.size() <= level[i]) {
+                waves.add(new ArrayList<>());
+            }
+            waves.get(level[i]).add(passes.get(i));
+        }
+
+        return waves;
+    }
+
+    /**
+     * Runs the passes over the given AST.
+     *
+     * @return the reports of every pass that ran, in the order the passes were given
+     */
+    public List<Report> run(JmmNode root, SymbolTable table) {
+        return run(root, table, EnumSet.noneOf(AnalysisFact.class));
+    }
+
+    /**
+     * Runs the passes over the given AST, knowing that some facts were already found not to hold (e.g. when the
+     * AST is one method of a class whose declarations were analysed separately).
+     *
+     * @param failedFacts the facts known not to hold; updated with the facts that fail during this run
+     * @return the reports of every pass that ran, in the order the passes were given
+     */
+    public List<Report> run(JmmNode root, SymbolTable table, Set<AnalysisFact> failedFacts) {
+        Set<String> presentKinds = collectKinds(root);
+        List<List<Report>> reportsPerPass = new ArrayList<>(Collections.nCopies(passes.size(), List.of()));
+
+        // Created on the first wave that has more than one pass to run
+        ExecutorService executor = null;
+
+        try {
+            for (List<AnalysisPass> wave : waves) {
+                List<AnalysisPass> runnable = new ArrayList<>();
+
+                for (AnalysisPass pass : wave) {
+                    if (!Collections.disjoint(pass.needs(), failedFacts)) {
+                        System.out.println("[PassScheduler] Skipping " + pass.getName()
+                                + ": a pass it depends on reported errors");
+                        failedFacts.addAll(pass.produces());
+                        continue;
+                    }
+
+                    if (!readsPresentKind(pass, presentKinds)) {
+                        continue;
+                    }
+
+                    runnable.add(pass);
+                }
+
+                if (parallel && executor == null && runnable.size() > 1) {
+                    executor = Executors.newFixedThreadPool(getNumThreads());
+                }
+
+                List<List<Report>> waveReports = runWave(runnable, root, table, executor);
+
+                for (int i = 0; i < runnable.size(); i++) {
+                    AnalysisPass pass = runnable.get(i);
+                    List<Report> passReports = waveReports.get(i);
+
+                    reportsPerPass.set(passes.indexOf(pass), passReports);
+
+                    boolean hasErrors = passReports.stream()
+                            .anyMatch(report -> report.getType() == ReportType.ERROR);
+                    if (hasErrors) {
+                        failedFacts.addAll(pass.produces());
+                    }
+                }
+            }
+        } finally {
+            if (executor != null) {
+                executor.shutdown();
+            }
+        }
+
+        List<Report> reports = new ArrayList<>();
+        reportsPerPass.forEach(reports::addAll);
+        return reports;
+    }
+
+    private List<List<Report>> runWave(List<AnalysisPass> wave, JmmNode root, SymbolTable table,
+                                       ExecutorService executor) {
+
+        List<Callable<List<Report>>> tasks = new ArrayList<>();
+        for (AnalysisPass pass : wave) {
+            tasks.add(() -> runPass(pass, root, table));
+        }
+
+        List<List<Report>> results = new ArrayList<>();
+
+        // A single pass is not worth the hand-off to another thread
+        if (executor == null || tasks.size() < 2) {
+            for (var task : tasks) {
+                try {
+                    results.add(task.call());
+                } catch (Exception e) {
+                    throw new RuntimeException(e);
+                }
+            }
+            return results;
+        }
+
+        try {
+            for (Future<List<Report>> future : executor.invokeAll(tasks)) {
+                results.add(future.get());
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new RuntimeException("Interrupted while running analysis passes", e);
+        } catch (ExecutionException e) {
+            throw new RuntimeException("Problem while running analysis passes", e.getCause());
+        }
+
+        return results;
+    }
+
+    private static List<Report> runPass(AnalysisPass pass, JmmNode root, SymbolTable table) {
+        try {
+            return new ArrayList<>(pass.analyze(root, table));
+        } catch (Exception e) {
+            return List.of(Report.newError(Stage.SEMANTIC,
+                    -1,
+                    -1,
+                    "Problem while executing analysis pass '" + pass.getClass() + "'",
+                    e));
+        }
+    }
+
+    private static boolean readsPresentKind(AnalysisPass pass, Set<String> presentKinds) {
+        Set<Kind> reads = pass.reads();
+        if (reads.isEmpty()) {
+            return true;
+        }
+
+        for (Kind kind : reads) {
+            if (presentKinds.contains(kind.getNodeName())) {
+                return true;
+            }
+        }
+
+        return false;
+    }
+
+    private static Set<String> collectKinds(JmmNode root) {
+        Set<String> kinds = new HashSet<>();
+        root.getDescendantsAndSelfStream().forEach(node -> kinds.addAll(node.getHierarchy()));
+        return kinds;
+    }
+
+    private static int getNumThreads() {
+        return Math.max(1, Runtime.getRuntime().availableProcessors());
+    }
+}
@@ -5,9 +5,11 @@ import pt.up.fe.comp.jmm.analysis.table.Type;
 import pt.up.fe.comp.jmm.ast.JmmNode;
 import pt.up.fe.comp.jmm.report.Report;
 import pt.up.fe.comp.jmm.report.Stage;
+import pt.up.fe.comp2025.analysis.AnalysisFact;
 import pt.up.fe.comp2025.analysis.AnalysisVisitor;
 import pt.up.fe.comp2025.ast.Kind;
 import pt.up.fe.comp2025.ast.TypeUtils;
+import java.util.Set;
 
 /**
  * Combined check for array access expressions.
@@ -32,6 +34,21 @@ public class ArrayAccessCombinedCheck extends AnalysisVisitor {
 
     }
 
+    @Override
+    public Set<AnalysisFact> produces() {
+        return Set.of(AnalysisFact.TYPED_EXPRESSIONS);
+    }
+
+    @Override
+    public Set<AnalysisFact> needs() {
+        return Set.of(AnalysisFact.RESOLVED_NAMES, AnalysisFact.WELL_FORMED_TYPES);
+    }
+
+    @Override
+    public Set<Kind> reads() {
+        return Set.of(Kind.ARRAY_ACCESS_EXPR, Kind.ARRAY_ASSIGN);
+    }
+
     private Void visitMethodDecl(JmmNode methodDecl, SymbolTable table) {
         String name = methodDecl.get("name");
         currentMethod = name.equals("args") ? "main" : name;
@@ -5,9 +5,11 @@ import pt.up.fe.comp.jmm.analysis.table.Type;
 import pt.up.fe.comp.jmm.ast.JmmNode;
 import pt.up.fe.comp.jmm.report.Report;
 import pt.up.fe.comp.jmm.report.Stage;
+import pt.up.fe.comp2025.analysis.AnalysisFact;
 import pt.up.fe.comp2025.analysis.AnalysisVisitor;
 import pt.up.fe.comp2025.ast.Kind;
 import pt.up.fe.comp2025.ast.TypeUtils;
+import java.util.Set;
 
 /**
  * This pass checks that arithmetic operators (e.g. +, -, *, /)
@@ -28,6 +30,21 @@ public class ArrayArithmeticCheck extends AnalysisVisitor {
         addVisit(Kind.BINARY_EXPR, this::visitBinaryExpr);
     }
 
+    @Override
+    public Set<AnalysisFact> produces() {
+        return Set.of(AnalysisFact.TYPED_EXPRESSIONS);
+    }
+
+    @Override
+    public Set<AnalysisFact> needs() {
+        return Set.of(AnalysisFact.RESOLVED_NAMES, AnalysisFact.WELL_FORMED_TYPES);
+    }
+
+    @Override
+    public Set<Kind> reads() {
+        return Set.of(Kind.BINARY_EXPR);
+    }
+
     private Void visitMethodDecl(JmmNode methodDecl, SymbolTable table) {
         String name = methodDecl.get("name");
         currentMethod = name.equals("args") ? "main" : name;
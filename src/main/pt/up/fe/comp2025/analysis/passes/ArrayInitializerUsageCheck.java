@@ -6,11 +6,13 @@ import pt.up.fe.comp.jmm.analysis.table.Type;
 import pt.up.fe.comp.jmm.ast.JmmNode;
 import pt.up.fe.comp.jmm.report.Report;
 import pt.up.fe.comp.jmm.report.Stage;
+import pt.up.fe.comp2025.analysis.AnalysisFact;
 import pt.up.fe.comp2025.analysis.AnalysisVisitor;
 import pt.up.fe.comp2025.ast.Kind;
 import pt.up.fe.comp2025.ast.TypeUtils;
 
 import java.util.List;
+import java.util.Set;
 
 public class ArrayInitializerUsageCheck extends AnalysisVisitor {
 
@@ -25,6 +27,21 @@ public class ArrayInitializerUsageCheck extends AnalysisVisitor {
         addVisit(Kind.METHOD_CALL_EXPR, this::visitMethodCallExpr);
     }
 
+    @Override
+    public Set<AnalysisFact> produces() {
+        return Set.of(AnalysisFact.TYPED_EXPRESSIONS);
+    }
+
+    @Override
+    public Set<AnalysisFact> needs() {
+        return Set.of(AnalysisFact.RESOLVED_NAMES, AnalysisFact.WELL_FORMED_TYPES);
+    }
+
+    @Override
+    public Set<Kind> reads() {
+        return Set.of(Kind.ARRAY_LITERAL_EXPR, Kind.RETURN_STMT);
+    }
+
     private Void visitMethodDecl(JmmNode methodDecl, SymbolTable table) {
         this.currentMethod = methodDecl.get("name").equals("args") ? "main" : methodDecl.get("name");
         this.typeUtils = new TypeUtils(table);
@@ -6,11 +6,14 @@ import pt.up.fe.comp.jmm.analysis.table.Type;
 import pt.up.fe.comp.jmm.ast.JmmNode;
 import pt.up.fe.comp.jmm.report.Report;
 import pt.up.fe.comp.jmm.report.Stage;
+import pt.up.fe.comp2025.analysis.AnalysisFact;
 import pt.up.fe.comp2025.analysis.AnalysisVisitor;
+import pt.up.fe.comp2025.ast.Kind;
 import pt.up.fe.comp2025.ast.TypeUtils;
 import pt.up.fe.comp2025.symboltable.JmmSymbolTable;
 
 import java.util.List;
+import java.util.Set;
 
 public class AssignmentTypeCheck extends AnalysisVisitor {
 
@@ -22,6 +25,21 @@ public class AssignmentTypeCheck extends AnalysisVisitor {
         addVisit(pt.up.fe.comp2025.ast.Kind.ASSIGN_STMT, this::visitAssignStmt);
     }
 
+    @Override
+    public Set<AnalysisFact> produces() {
+        return Set.of(AnalysisFact.TYPED_EXPRESSIONS);
+    }
+
+    @Override
+    public Set<AnalysisFact> needs() {
+        return Set.of(AnalysisFact.RESOLVED_NAMES, AnalysisFact.WELL_FORMED_TYPES);
+    }
+
+    @Override
+    public Set<Kind> reads() {
+        return Set.of(Kind.ASSIGN_STMT);
+    }
+
     private Void visitMethodDecl(JmmNode methodDecl, SymbolTable table) {
         String name = methodDecl.get("name");
         currentMethod = name.equals("args") ? "main" : name;
@@ -98,7 +116,7 @@ public class AssignmentTypeCheck extends AnalysisVisitor {
                     return null;
                 }
 
-                leftType = new Type(arrayType.getName(), false); // Element type
+                leftType = typeUtils.getInterner().elementType(arrayType); // Element type
                 rightType = typeUtils.getExprType(rhs, currentMethod);
                 
                 if (rightType == null) {
@@ -154,19 +172,14 @@ public class AssignmentTypeCheck extends AnalysisVisitor {
             return false;
         }
 
-        // Array types: both array flags and base types must match exactly
-        if (left.isArray() || right.isArray()) {
-            return left.getName().equals(right.getName()) && (left.isArray() == right.isArray());
-        }
-
-        // Primitive types: must match exactly (no implicit conversions)
-        if (isPrimitiveType(left) || isPrimitiveType(right)) {
-            return left.getName().equals(right.getName()) && left.isArray() == right.isArray();
+        // Types are interned, so an exact match is a reference check
+        if (left == right) {
+            return true;
         }
 
-        // Object types: exact match
-        if (left.getName().equals(right.getName())) {
-            return true;
+        // Array and primitive types must match exactly (no implicit conversions)
+        if (left.isArray() || right.isArray() || isPrimitiveType(left) || isPrimitiveType(right)) {
+            return false;
         }
 
         // Inheritance: check if right type extends left type
@@ -5,6 +5,7 @@ import pt.up.fe.comp.jmm.analysis.table.SymbolTable;
 import pt.up.fe.comp.jmm.ast.JmmNode;
 import pt.up.fe.comp.jmm.report.Report;
 import pt.up.fe.comp.jmm.report.Stage;
+import pt.up.fe.comp2025.analysis.AnalysisFact;
 import pt.up.fe.comp2025.analysis.AnalysisVisitor;
 
 import java.util.*;
@@ -17,6 +18,11 @@ public class DuplicateCheck extends AnalysisVisitor {
         addVisit("Program", this::checkDuplicates);
     }
 
+    @Override
+    public Set<AnalysisFact> produces() {
+        return Set.of(AnalysisFact.UNIQUE_DECLARATIONS);
+    }
+
     private Void checkDuplicates(JmmNode node, SymbolTable table) {
         // Check for duplicate methods
         checkDuplicateMethods(table);
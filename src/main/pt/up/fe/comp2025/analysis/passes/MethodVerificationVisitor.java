@@ -5,10 +5,17 @@ import pt.up.fe.comp.jmm.analysis.table.SymbolTable;
 import pt.up.fe.comp.jmm.analysis.table.Type;
 import pt.up.fe.comp.jmm.ast.JmmNode;
 import pt.up.fe.comp.jmm.report.Report;
+import pt.up.fe.comp2025.analysis.AnalysisFact;
 import pt.up.fe.comp2025.analysis.AnalysisVisitor;
+import pt.up.fe.comp2025.ast.Kind;
 import pt.up.fe.comp2025.ast.TypeUtils;
+import pt.up.fe.comp2025.symboltable.JmmSymbolTable;
+import pt.up.fe.comp2025.symboltable.LibraryClass;
+import pt.up.fe.comp2025.symboltable.LibraryMethod;
 
+import java.util.ArrayList;
 import java.util.List;
+import java.util.Set;
 import java.util.stream.Collectors;
 
 public class MethodVerificationVisitor extends AnalysisVisitor {
@@ -21,6 +28,21 @@ public class MethodVerificationVisitor extends AnalysisVisitor {
         addVisit("MethodCallExpr", this::checkMethodCall);
     }
 
+    @Override
+    public Set<AnalysisFact> produces() {
+        return Set.of(AnalysisFact.VALID_CALLS);
+    }
+
+    @Override
+    public Set<AnalysisFact> needs() {
+        return Set.of(AnalysisFact.RESOLVED_NAMES, AnalysisFact.WELL_FORMED_TYPES);
+    }
+
+    @Override
+    public Set<Kind> reads() {
+        return Set.of(Kind.METHOD_CALL_EXPR);
+    }
+
     private Void visitMethodDecl(JmmNode methodDecl, SymbolTable table) {
         String name = methodDecl.get("name");
         currentMethod = name.equals("args") ? "main" : name;
@@ -47,6 +69,19 @@ public class MethodVerificationVisitor extends AnalysisVisitor {
         boolean fromImport = table.getImports().stream().anyMatch(imp -> imp.endsWith("." + callerType.getName()) || imp.equals(callerType.getName()));
         boolean fromSuperclass = table.getSuper() != null && !table.getSuper().isEmpty();
 
+        // Calls on imported classes, and inherited calls, are checked against the compiled class when it is known
+        String libraryClassName = null;
+        if (fromImport && !callerType.getName().equals(table.getClassName())) {
+            libraryClassName = callerType.getName();
+        } else if (!declaredLocally && fromSuperclass && callerType.getName().equals(table.getClassName())) {
+            libraryClassName = table.getSuper();
+        }
+
+        if (libraryClassName != null && ((JmmSymbolTable) table).getLibraryClass(libraryClassName).isPresent()) {
+            checkLibraryCall(callNode, libraryClassName, typeUtils);
+            return null;
+        }
+
         if (!declaredLocally && (fromImport || fromSuperclass)) {
             return null; // Assume method is valid
         }
@@ -83,7 +118,7 @@ public class MethodVerificationVisitor extends AnalysisVisitor {
             for (int i = 0; i < fixedArgs; i++) {
                 Type expected = methodParams.get(i).getType();
                 Type actual = argTypes.get(i);
-                if (!expected.equals(actual)) {
+                if (expected != actual) {
                     addReport(newError(callNode, String.format("Arg %d type mismatch in '%s': expected %s, got %s",
                             i + 1, methodName, expected, actual)));
                 }
@@ -98,7 +133,7 @@ public class MethodVerificationVisitor extends AnalysisVisitor {
             for (int i = 0; i < methodParams.size(); i++) {
                 Type expected = methodParams.get(i).getType();
                 Type actual = argTypes.get(i);
-                if (!expected.equals(actual)) {
+                if (expected != actual) {
                     addReport(newError(callNode, String.format("Arg %d type mismatch in '%s': expected %s, got %s",
                             i + 1, methodName, expected, actual)));
                 }
@@ -109,4 +144,39 @@ public class MethodVerificationVisitor extends AnalysisVisitor {
     }
 
 
-}
\ No newline at end of file
+
+    private void checkLibraryCall(JmmNode callNode, String className, TypeUtils typeUtils) {
+        String methodName = callNode.get("method");
+        JmmSymbolTable table = typeUtils.getTable();
+        LibraryClass libraryClass = table.getLibraryClass(className).orElseThrow();
+
+        List<LibraryMethod> methods = table.getClassIndex().findMethods(libraryClass.getName(), methodName);
+        if (methods.isEmpty()) {
+            addReport(newError(callNode, "Method '" + methodName + "' not found in class '" + className + "'"));
+            return;
+        }
+
+        int numArgs = callNode.getNumChildren() - 1;
+        if (methods.stream().noneMatch(method -> method.acceptsArity(numArgs))) {
+            addReport(newError(callNode, "No overload of '" + className + "." + methodName + "' takes "
+                    + numArgs + " argument(s)"));
+            return;
+        }
+
+        List<Type> argTypes = new ArrayList<>();
+        for (int i = 1; i < callNode.getNumChildren(); i++) {
+            try {
+                argTypes.add(typeUtils.getExprType(callNode.getChild(i), currentMethod));
+            } catch (RuntimeException e) {
+                addReport(newError(callNode.getChild(i), "Could not determine argument type: " + e.getMessage()));
+                return;
+            }
+        }
+
+        if (methods.stream().noneMatch(method -> typeUtils.isApplicable(method, argTypes))) {
+            String found = argTypes.stream().map(Type::print).collect(Collectors.joining(", "));
+            addReport(newError(callNode, String.format("No overload of '%s.%s' accepts arguments (%s)",
+                    className, methodName, found)));
+        }
+    }
+}
@@ -5,9 +5,11 @@ import pt.up.fe.comp.jmm.analysis.table.Type;
 import pt.up.fe.comp.jmm.ast.JmmNode;
 import pt.up.fe.comp.jmm.report.Report;
 import pt.up.fe.comp.jmm.report.Stage;
+import pt.up.fe.comp2025.analysis.AnalysisFact;
 import pt.up.fe.comp2025.analysis.AnalysisVisitor;
 import pt.up.fe.comp2025.ast.Kind;
 import pt.up.fe.comp2025.ast.TypeUtils;
+import java.util.Set;
 
 /**
  * Verifica se o tipo de retorno dos métodos está correto.
@@ -26,6 +28,21 @@ public class ReturnTypeCheck extends AnalysisVisitor {
         addVisit(Kind.RETURN_STMT, this::visitReturnStmt);
     }
 
+    @Override
+    public Set<AnalysisFact> produces() {
+        return Set.of(AnalysisFact.TYPED_EXPRESSIONS);
+    }
+
+    @Override
+    public Set<AnalysisFact> needs() {
+        return Set.of(AnalysisFact.RESOLVED_NAMES, AnalysisFact.WELL_FORMED_TYPES);
+    }
+
+    @Override
+    public Set<Kind> reads() {
+        return Set.of(Kind.METHOD_DECL);
+    }
+
     private Void visitMethodDecl(JmmNode methodDecl, SymbolTable table) {
         String name = methodDecl.get("name");
         currentMethod = name.equals("args") ? "main" : name;
@@ -138,10 +155,14 @@ public class ReturnTypeCheck extends AnalysisVisitor {
      * Considera herança e imports.
      */
     private boolean isTypeCompatible(Type expected, Type actual, SymbolTable table) {
+        // Os tipos são internados: tipos iguais são a mesma instância
+        if (expected == actual) {
+            return true;
+        }
+
         // Tipos primitivos devem ser exatamente iguais
         if (isPrimitiveType(expected) && isPrimitiveType(actual)) {
-            return expected.getName().equals(actual.getName()) &&
-                    expected.isArray() == actual.isArray();
+            return false;
         }
 
         // Se o tipo atual é "unknown" (de imports), assumir compatível
@@ -151,13 +172,7 @@ public class ReturnTypeCheck extends AnalysisVisitor {
 
         // Arrays: tipos base devem ser compatíveis
         if (expected.isArray() || actual.isArray()) {
-            return expected.getName().equals(actual.getName()) &&
-                    expected.isArray() == actual.isArray();
-        }
-
-        // Tipos de objeto
-        if (expected.getName().equals(actual.getName())) {
-            return true;
+            return false;
         }
 
         // Verificar herança: se actual extends expected
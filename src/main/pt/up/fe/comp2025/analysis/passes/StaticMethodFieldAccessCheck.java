@@ -5,10 +5,12 @@ import pt.up.fe.comp.jmm.analysis.table.SymbolTable;
 import pt.up.fe.comp.jmm.ast.JmmNode;
 import pt.up.fe.comp.jmm.report.Report;
 import pt.up.fe.comp.jmm.report.Stage;
+import pt.up.fe.comp2025.analysis.AnalysisFact;
 import pt.up.fe.comp2025.analysis.AnalysisVisitor;
 import pt.up.fe.comp2025.ast.Kind;
 
 import java.util.List;
+import java.util.Set;
 
 /**
  * Checks that static methods do not access instance fields or use the "this" keyword.
@@ -27,6 +29,21 @@ public class StaticMethodFieldAccessCheck extends AnalysisVisitor {
         addVisit(Kind.THIS_EXPR, this::visitThisExpr);
     }
 
+    @Override
+    public Set<AnalysisFact> produces() {
+        return Set.of(AnalysisFact.RESOLVED_NAMES);
+    }
+
+    @Override
+    public Set<AnalysisFact> needs() {
+        return Set.of(AnalysisFact.UNIQUE_DECLARATIONS);
+    }
+
+    @Override
+    public Set<Kind> reads() {
+        return Set.of(Kind.VAR_REF_EXPR, Kind.THIS_EXPR);
+    }
+
     private Void visitMethodDecl(JmmNode methodDecl, SymbolTable table) {
         String name = methodDecl.get("name");
         currentMethod = name.equals("args") ? "main" : name;
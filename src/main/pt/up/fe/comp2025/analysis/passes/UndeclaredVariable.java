@@ -4,12 +4,14 @@ import pt.up.fe.comp.jmm.analysis.table.SymbolTable;
 import pt.up.fe.comp.jmm.ast.JmmNode;
 import pt.up.fe.comp.jmm.report.Report;
 import pt.up.fe.comp.jmm.report.Stage;
+import pt.up.fe.comp2025.analysis.AnalysisFact;
 import pt.up.fe.comp2025.analysis.AnalysisVisitor;
 import pt.up.fe.comp2025.ast.Kind;
 import pt.up.fe.specs.util.SpecsCheck;
 
 import java.util.Collections;
 import java.util.List;
+import java.util.Set;
 
 /**
  * Checks if an identifier used in the code is declared as either a local variable,
@@ -28,6 +30,21 @@ public class UndeclaredVariable extends AnalysisVisitor {
         addVisit(Kind.VAR_REF_EXPR, this::visitVarRefExpr);
     }
 
+    @Override
+    public Set<AnalysisFact> produces() {
+        return Set.of(AnalysisFact.RESOLVED_NAMES);
+    }
+
+    @Override
+    public Set<AnalysisFact> needs() {
+        return Set.of(AnalysisFact.UNIQUE_DECLARATIONS);
+    }
+
+    @Override
+    public Set<Kind> reads() {
+        return Set.of(Kind.VAR_REF_EXPR);
+    }
+
     private Void visitMethodDecl(JmmNode methodDecl, SymbolTable table) {
         // Set the current method context using the "name" attribute.
         String name = methodDecl.get("name");
@@ -4,10 +4,12 @@ import pt.up.fe.comp.jmm.analysis.table.SymbolTable;
 import pt.up.fe.comp.jmm.ast.JmmNode;
 import pt.up.fe.comp.jmm.report.Report;
 import pt.up.fe.comp.jmm.report.Stage;
+import pt.up.fe.comp2025.analysis.AnalysisFact;
 import pt.up.fe.comp2025.analysis.AnalysisVisitor;
 import pt.up.fe.comp2025.ast.Kind;
 
 import java.util.List;
+import java.util.Set;
 
 public class VarargsCheck extends AnalysisVisitor {
 
@@ -17,6 +19,16 @@ public class VarargsCheck extends AnalysisVisitor {
         addVisit(Kind.VAR_DECL, this::checkVarDecl);
     }
 
+    @Override
+    public Set<AnalysisFact> produces() {
+        return Set.of(AnalysisFact.WELL_FORMED_TYPES);
+    }
+
+    @Override
+    public Set<Kind> reads() {
+        return Set.of(Kind.VAR_ARGS);
+    }
+
     private Void checkMethodDecl(JmmNode methodDecl, SymbolTable table) {
         List<JmmNode> params = methodDecl.getChildren(Kind.PARAM);
         int varargCount = 0;
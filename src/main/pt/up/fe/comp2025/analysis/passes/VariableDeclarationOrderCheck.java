@@ -1,11 +1,15 @@
 package pt.up.fe.comp2025.analysis.passes;
 
+import pt.up.fe.comp.jmm.analysis.table.Symbol;
 import pt.up.fe.comp.jmm.analysis.table.SymbolTable;
 import pt.up.fe.comp.jmm.ast.JmmNode;
 import pt.up.fe.comp.jmm.report.Report;
 import pt.up.fe.comp.jmm.report.Stage;
+import pt.up.fe.comp2025.analysis.AnalysisFact;
 import pt.up.fe.comp2025.analysis.AnalysisVisitor;
 import pt.up.fe.comp2025.ast.Kind;
+import pt.up.fe.comp2025.ast.TypeUtils;
+import pt.up.fe.comp2025.symboltable.JmmInterner;
 
 import java.util.*;
 
@@ -16,8 +20,11 @@ import java.util.*;
 public class VariableDeclarationOrderCheck extends AnalysisVisitor {
 
     private String currentMethod;
-    private Map<String, Integer> variableDeclarationLines;
-    private Map<String, Integer> variableFirstUsageLines;
+    private JmmInterner interner;
+
+    // Line of the declaration and of the first usage of each local variable, indexed by symbol id (0 if none yet)
+    private int[] variableDeclarationLines;
+    private int[] variableFirstUsageLines;
     
     @Override
     public void buildVisitor() {
@@ -26,13 +33,29 @@ public class VariableDeclarationOrderCheck extends AnalysisVisitor {
         addVisit(Kind.VAR_REF_EXPR, this::visitVarRefExpr);
         addVisit(Kind.ASSIGN_STMT, this::visitAssignStmt);
     }
+
+    @Override
+    public Set<AnalysisFact> produces() {
+        return Set.of(AnalysisFact.RESOLVED_NAMES);
+    }
+
+    @Override
+    public Set<AnalysisFact> needs() {
+        return Set.of(AnalysisFact.UNIQUE_DECLARATIONS);
+    }
+
+    @Override
+    public Set<Kind> reads() {
+        return Set.of(Kind.VAR_REF_EXPR);
+    }
     
     private Void visitMethodDecl(JmmNode methodDecl, SymbolTable table) {
         // Initialize tracking for this method
         String name = methodDecl.get("name");
         currentMethod = name.equals("args") ? "main" : name;
-        variableDeclarationLines = new HashMap<>();
-        variableFirstUsageLines = new HashMap<>();
+        interner = new TypeUtils(table).getInterner();
+        variableDeclarationLines = new int[interner.symbolCount()];
+        variableFirstUsageLines = new int[interner.symbolCount()];
         
         return null;
     }
@@ -42,13 +65,15 @@ public class VariableDeclarationOrderCheck extends AnalysisVisitor {
         
         String varName = varDecl.get("name");
         int declarationLine = varDecl.getLine();
+        int id = getLocalId(varName, table);
+        if (id < 0) return null;
         
         // Record the declaration line for this variable
-        variableDeclarationLines.put(varName, declarationLine);
+        variableDeclarationLines[id] = declarationLine;
         
         // Check if this variable was used before being declared
-        if (variableFirstUsageLines.containsKey(varName)) {
-            int firstUsageLine = variableFirstUsageLines.get(varName);
+        if (variableFirstUsageLines[id] != 0) {
+            int firstUsageLine = variableFirstUsageLines[id];
             if (firstUsageLine < declarationLine) {
                 addReport(Report.newError(
                     Stage.SEMANTIC,
@@ -75,14 +100,20 @@ public class VariableDeclarationOrderCheck extends AnalysisVisitor {
             return null;
         }
         
+        // Undeclared variables are reported by another pass
+        int id = getLocalId(varName, table);
+        if (id < 0) {
+            return null;
+        }
+        
         // Record first usage if not already recorded
-        if (!variableFirstUsageLines.containsKey(varName)) {
-            variableFirstUsageLines.put(varName, usageLine);
+        if (variableFirstUsageLines[id] == 0) {
+            variableFirstUsageLines[id] = usageLine;
         }
         
         // If variable is already declared, check if usage comes after declaration
-        if (variableDeclarationLines.containsKey(varName)) {
-            int declarationLine = variableDeclarationLines.get(varName);
+        if (variableDeclarationLines[id] != 0) {
+            int declarationLine = variableDeclarationLines[id];
             if (usageLine < declarationLine) {
                 addReport(Report.newError(
                     Stage.SEMANTIC,
@@ -112,14 +143,20 @@ public class VariableDeclarationOrderCheck extends AnalysisVisitor {
                 return null;
             }
             
+            // Undeclared variables are reported by another pass
+            int id = getLocalId(varName, table);
+            if (id < 0) {
+                return null;
+            }
+            
             // Record first usage if not already recorded
-            if (!variableFirstUsageLines.containsKey(varName)) {
-                variableFirstUsageLines.put(varName, usageLine);
+            if (variableFirstUsageLines[id] == 0) {
+                variableFirstUsageLines[id] = usageLine;
             }
             
             // If variable is already declared, check if usage comes after declaration
-            if (variableDeclarationLines.containsKey(varName)) {
-                int declarationLine = variableDeclarationLines.get(varName);
+            if (variableDeclarationLines[id] != 0) {
+                int declarationLine = variableDeclarationLines[id];
                 if (usageLine < declarationLine) {
                     addReport(Report.newError(
                         Stage.SEMANTIC,
@@ -136,19 +173,35 @@ public class VariableDeclarationOrderCheck extends AnalysisVisitor {
         return null;
     }
     
+    /**
+     * Id of the local variable of the current method with the given name, or -1 if the method has none
+     */
+    private int getLocalId(String varName, SymbolTable table) {
+        List<Symbol> locals = table.getLocalVariables(currentMethod);
+        if (locals == null) {
+            return -1;
+        }
+        for (Symbol local : locals) {
+            if (local.getName().equals(varName)) {
+                return interner.idOf(local);
+            }
+        }
+        return -1;
+    }
+    
     /**
      * Check if a variable name corresponds to a method parameter, class field, or imported class
      */
     private boolean isParameterFieldOrImport(String varName, SymbolTable table) {
         // Check if it's a method parameter
-        List<pt.up.fe.comp.jmm.analysis.table.Symbol> parameters = table.getParameters(currentMethod);
+        List<Symbol> parameters = table.getParameters(currentMethod);
         if (parameters != null && parameters.stream()
                 .anyMatch(param -> param.getName().equals(varName))) {
             return true;
         }
         
         // Check if it's a class field
-        List<pt.up.fe.comp.jmm.analysis.table.Symbol> fields = table.getFields();
+        List<Symbol> fields = table.getFields();
         if (fields != null && fields.stream()
                 .anyMatch(field -> field.getName().equals(varName))) {
             return true;
@@ -5,9 +5,11 @@ import pt.up.fe.comp.jmm.analysis.table.Type;
 import pt.up.fe.comp.jmm.ast.JmmNode;
 import pt.up.fe.comp.jmm.report.Report;
 import pt.up.fe.comp.jmm.report.Stage;
+import pt.up.fe.comp2025.analysis.AnalysisFact;
 import pt.up.fe.comp2025.analysis.AnalysisVisitor;
 import pt.up.fe.comp2025.ast.Kind;
 import pt.up.fe.comp2025.ast.TypeUtils;
+import java.util.Set;
 
 /**
  * Semantic analysis pass that checks for variables declared with void type.
@@ -19,6 +21,16 @@ public class VoidTypeVariableCheck extends AnalysisVisitor {
     public void buildVisitor() {
         addVisit(Kind.VAR_DECL, this::visitVarDecl);
     }
+
+    @Override
+    public Set<AnalysisFact> produces() {
+        return Set.of(AnalysisFact.WELL_FORMED_TYPES);
+    }
+
+    @Override
+    public Set<Kind> reads() {
+        return Set.of(Kind.VAR_DECL);
+    }
     
     /**
      * Visits variable declarations and checks if they have void type.
@@ -35,7 +47,7 @@ public class VoidTypeVariableCheck extends AnalysisVisitor {
         
         try {
             // Extract the type using TypeUtils
-            Type variableType = TypeUtils.convertType(typeNode);
+            Type variableType = TypeUtils.convertType(typeNode, new TypeUtils(table).getInterner());
             
             // Check if the type is void
             if ("void".equals(variableType.getName())) {
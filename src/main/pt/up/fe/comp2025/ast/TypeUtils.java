@@ -4,37 +4,52 @@ import pt.up.fe.comp.jmm.analysis.table.Symbol;
 import pt.up.fe.comp.jmm.analysis.table.SymbolTable;
 import pt.up.fe.comp.jmm.analysis.table.Type;
 import pt.up.fe.comp.jmm.ast.JmmNode;
+import pt.up.fe.comp2025.symboltable.JmmInterner;
 import pt.up.fe.comp2025.symboltable.JmmSymbolTable;
+import pt.up.fe.comp2025.symboltable.LibraryField;
+import pt.up.fe.comp2025.symboltable.LibraryMethod;
 
+import java.util.ArrayList;
 import java.util.List;
+import java.util.Optional;
 
 public class TypeUtils {
 
     private final JmmSymbolTable table;
+    private final JmmInterner interner;
 
     public TypeUtils(SymbolTable table) {
         this.table = (JmmSymbolTable) table;
+        this.interner = this.table.getInterner();
     }
 
-    public static Type newIntType() {
-        return new Type("int", false);
+    public JmmSymbolTable getTable() {
+        return table;
     }
 
     /**
-     * Converts a type node (built according to the grammar) into a {@link Type}.
+     * The interner of the compilation this instance belongs to. Every type returned by
+     * {@link #getExprType(JmmNode, String)} is canonical with respect to it.
+     */
+    public JmmInterner getInterner() {
+        return interner;
+    }
+
+    /**
+     * Converts a type node (built according to the grammar) into the canonical {@link Type} of the given interner.
      * It distinguishes between plain types, array types (VarArray) and varargs (VarArgs).
      *
      * @param typeNode the AST node representing the type
      * @return the corresponding Type
      */
-    public static Type convertType(JmmNode typeNode) {
+    public static Type convertType(JmmNode typeNode, JmmInterner interner) {
         String typeName = typeNode.get("value");
         boolean isArray = false;
         String kind = typeNode.getKind();
         if ("VarArray".equals(kind) || "VarArgs".equals(kind)) {
             isArray = true;
         }
-        return new Type(typeName, isArray);
+        return interner.type(typeName, isArray);
     }
 
     /**
@@ -53,16 +68,16 @@ public class TypeUtils {
         String kind = expr.getKind();
         switch (kind) {
             case "IntegerLiteral":
-                return new Type("int", false);
+                return interner.intType();
             case "BooleanTrue":
             case "BooleanFalse":
-                return new Type("boolean", false);
+                return interner.booleanType();
             case "VarRefExpr": {
                 String id = expr.get("value");
                 
                 // Special case for "args" parameter in main method
                 if ("main".equals(currentMethod) && "args".equals(id)) {
-                    return new Type("String", true); // args is always String[]
+                    return interner.stringArrayType(); // args is always String[]
                 }
                 
                 // Check local variables.
@@ -76,7 +91,7 @@ public class TypeUtils {
                 List<Symbol> params = table.getParameters(currentMethod);
                 // Handle empty parameters list to avoid IndexOutOfBoundsException
                 if (params.isEmpty() && "main".equals(currentMethod) && "args".equals(id)) {
-                    return new Type("String", true); // Default for args in main
+                    return interner.stringArrayType(); // Default for args in main
                 }
                 
                 for (Symbol symbol : params) {
@@ -92,14 +107,14 @@ public class TypeUtils {
                 }
                 for (String imp : table.getImports()) {
                     if (imp.endsWith("." + id) || imp.equals(id)) {
-                        return new Type(id, false); // Assume it's a class from import
+                        return interner.type(id, false); // Assume it's a class from import
                     }
                 }
 
                 throw new RuntimeException("Undefined identifier: " + id);
             }
             case "ThisExpr":
-                return new Type(table.getClassName(), false);
+                return interner.type(table.getClassName(), false);
             case "ParenthesizedExpr":
                 return getExprType(expr.getChild(0), currentMethod);
             case "UnaryExpr": {
@@ -107,12 +122,12 @@ public class TypeUtils {
                 if (!"boolean".equals(operandType.getName())) {
                     throw new RuntimeException("Unary operator '!' applied to non-boolean type");
                 }
-                return new Type("boolean", false);
+                return interner.booleanType();
             }
             case "NewIntArrayExpr":
-                return new Type("int", true);
+                return interner.intArrayType();
             case "NewObjectExpr":
-                return new Type(expr.get("value"), false);
+                return interner.type(expr.get("value"), false);
             case "PostfixExpr": {
                 String id = expr.get("value");
                 List<Symbol> locals = table.getLocalVariables(currentMethod);
@@ -133,10 +148,10 @@ public class TypeUtils {
                 if (!arrayType.isArray()) {
                     throw new RuntimeException("Array access on non-array type: " + arrayType.getName());
                 }
-                return new Type(arrayType.getName(), false);
+                return interner.elementType(arrayType);
             }
             case "ArrayLengthExpr":
-                return new Type("int", false);
+                return interner.intType();
             case "MethodCallExpr": {
                 String methodName = expr.get("method");
                 Type callerType = getExprType(expr.getChild(0), currentMethod);
@@ -148,15 +163,24 @@ public class TypeUtils {
                         && table.getImports().stream().anyMatch(imp -> imp.endsWith("." + callerType.getName()) || imp.equals(callerType.getName()));
 
                 if (isExternalCaller) {
-                    return new Type("unknown", false); // Assume external call is valid
+                    // Use the signature of the compiled class when available, otherwise assume the call is valid
+                    return findLibraryMethod(callerType.getName(), expr, currentMethod)
+                            .map(method -> method.getReturnType(interner))
+                            .orElse(interner.unknownType());
                 }
 
                 Type returnType = table.getReturnType(methodName);
+                if (returnType == null && callerType.getName().equals(table.getClassName()) && hasSuper()) {
+                    // Inherited from a compiled super class
+                    returnType = findLibraryMethod(table.getSuper(), expr, currentMethod)
+                            .map(method -> method.getReturnType(interner))
+                            .orElse(null);
+                }
                 if (returnType == null) {
                     if (!callerType.getName().equals(table.getClassName())
                             && !callerType.getName().equals("this")
                             && table.getImports().stream().anyMatch(imp -> imp.endsWith("." + callerName) || imp.equals(callerName))) {
-                        return new Type("int", false); // Assume external method returns int
+                        return interner.intType(); // Assume external method returns int
                     }
                     throw new RuntimeException("Undefined method call: " + methodName);
                 }
@@ -166,23 +190,23 @@ public class TypeUtils {
             case "BinaryExpr": {
                 String op = expr.get("op");
                 return switch (op) {
-                    case "*", "/", "+", "-" -> new Type("int", false);
-                    case "<", ">", "<=", ">=", "==", "!=" -> new Type("boolean", false);
-                    case "&&", "||" -> new Type("boolean", false);
+                    case "*", "/", "+", "-" -> interner.intType();
+                    case "<", ">", "<=", ">=", "==", "!=" -> interner.booleanType();
+                    case "&&", "||" -> interner.booleanType();
                     case "+=", "-=", "*=", "/=" -> getExprType(expr.getChild(0), currentMethod);
                     default -> throw new RuntimeException("Unsupported operator in BinaryExpr: " + op);
                 };
             }
             case "ArrayLiteralExpr": {
-                if (expr.getChildren().isEmpty()) return new Type("int", true);
+                if (expr.getChildren().isEmpty()) return interner.intArrayType();
                 Type firstType = getExprType(expr.getChild(0), currentMethod);
                 for (int i = 1; i < expr.getNumChildren(); i++) {
                     Type t = getExprType(expr.getChild(i), currentMethod);
-                    if (!t.getName().equals(firstType.getName()) || t.isArray() != firstType.isArray()) {
+                    if (t != firstType) {
                         throw new RuntimeException("Inconsistent types in array initializer: " + firstType + " vs " + t);
                     }
                 }
-                return new Type(firstType.getName(), true);
+                return interner.arrayOf(firstType);
             }
             default:
                 throw new RuntimeException("Unsupported expression type: " + kind);
@@ -190,6 +214,118 @@ public class TypeUtils {
     }
 
 
+    /**
+     * Finds the method of a compiled library class that a call resolves to.
+     * <p>
+     * Overloads are first filtered by the number of arguments. If the remaining candidates do not agree on the
+     * return type, the arguments are typed and the first applicable candidate is chosen.
+     *
+     * @param className the name of the class in this file (simple name of an import, or the super class)
+     * @param callExpr the MethodCallExpr node
+     * @param currentMethod the method in which the call appears
+     * @return the method, or empty if the class is not a known library class or no overload matches
+     */
+    public Optional<LibraryMethod> findLibraryMethod(String className, JmmNode callExpr, String currentMethod) {
+        var libraryClass = table.getLibraryClass(className);
+        if (libraryClass.isEmpty()) {
+            return Optional.empty();
+        }
+
+        int numArgs = callExpr.getNumChildren() - 1;
+        List<LibraryMethod> candidates = table.getClassIndex()
+                .findMethods(libraryClass.get().getName(), callExpr.get("method")).stream()
+                .filter(method -> method.acceptsArity(numArgs))
+                .toList();
+
+        if (candidates.isEmpty()) {
+            return Optional.empty();
+        }
+
+        Type firstReturnType = candidates.get(0).getReturnType(interner);
+        boolean sameReturnType = candidates.stream()
+                .allMatch(method -> method.getReturnType(interner) == firstReturnType);
+        if (sameReturnType) {
+            return Optional.of(candidates.get(0));
+        }
+
+        List<Type> argTypes = new ArrayList<>();
+        try {
+            for (int i = 1; i < callExpr.getNumChildren(); i++) {
+                argTypes.add(getExprType(callExpr.getChild(i), currentMethod));
+            }
+        } catch (RuntimeException e) {
+            // Arguments could not be typed, fall back to the first candidate
+            return Optional.of(candidates.get(0));
+        }
+
+        return candidates.stream()
+                .filter(method -> isApplicable(method, argTypes))
+                .findFirst();
+    }
+
+    /**
+     * Finds a field of a compiled library class (or of one of its super classes).
+     *
+     * @param className the name of the class in this file (simple name of an import, or the super class)
+     */
+    public Optional<LibraryField> findLibraryField(String className, String fieldName) {
+        return table.getLibraryClass(className)
+                .flatMap(libraryClass -> table.getClassIndex().findField(libraryClass.getName(), fieldName));
+    }
+
+    /**
+     * Checks if a library method can be called with arguments of the given types. Unknown argument types are
+     * accepted, and since the class hierarchy of library classes is not tracked, any object argument is accepted
+     * for an object parameter.
+     */
+    public boolean isApplicable(LibraryMethod method, List<Type> argTypes) {
+        if (!method.acceptsArity(argTypes.size())) {
+            return false;
+        }
+
+        List<Type> paramTypes = method.getParamTypes(interner);
+        int lastParam = paramTypes.size() - 1;
+
+        // A varargs array can also be passed directly
+        boolean expandVarargs = method.isVarargs()
+                && !(argTypes.size() == paramTypes.size() && argTypes.get(lastParam) == paramTypes.get(lastParam));
+
+        for (int i = 0; i < argTypes.size(); i++) {
+            Type paramType = expandVarargs && i >= lastParam
+                    ? interner.elementType(paramTypes.get(lastParam))
+                    : paramTypes.get(i);
+
+            if (!isAssignableToLibraryType(argTypes.get(i), paramType)) {
+                return false;
+            }
+        }
+
+        return true;
+    }
+
+    private boolean isAssignableToLibraryType(Type argType, Type paramType) {
+        if (argType == paramType || argType == interner.unknownType()) {
+            return true;
+        }
+
+        return isObjectType(argType) && isObjectType(paramType);
+    }
+
+    private static boolean isObjectType(Type type) {
+        if (type.isArray()) {
+            return false;
+        }
+
+        return switch (type.getName()) {
+            case "int", "boolean", "void", "byte", "char", "short", "long", "float", "double" -> false;
+            default -> true;
+        };
+    }
+
+    private boolean hasSuper() {
+        return table.getSuper() != null && !table.getSuper().isEmpty();
+    }
+
     /**
      * Convenience method that assumes a 'main' method context.
      *
@@ -89,13 +89,25 @@ public class JasminGenerator {
         // Handle different condition types
         if (condition instanceof BinaryOpInstruction) {
             BinaryOpInstruction binOp = (BinaryOpInstruction) condition;
+            var operation = binOp.getOperation().getOpType();
+
+            // A comparison with zero only loads the other operand and branches on its sign
+            if (isLiteralZero(binOp.getRightOperand()) && !isLiteralZero(binOp.getLeftOperand())) {
+                code.append(apply(binOp.getLeftOperand()));
+                code.append(zeroBranch(operation)).append(" ").append(label).append(NL);
+                return code.toString();
+            }
+            if (isLiteralZero(binOp.getLeftOperand()) && !isLiteralZero(binOp.getRightOperand())) {
+                code.append(apply(binOp.getRightOperand()));
+                code.append(zeroBranch(swapped(operation))).append(" ").append(label).append(NL);
+                return code.toString();
+            }
 
             // Load operands for comparison
             code.append(apply(binOp.getLeftOperand()));
             code.append(apply(binOp.getRightOperand()));
 
             // Determine the operation type and generate appropriate branch instruction
-            var operation = binOp.getOperation().getOpType();
             String branchInst = switch (operation) {
                 case LTH -> "if_icmplt";
                 case GTH -> "if_icmpgt";
@@ -106,6 +118,11 @@ public class JasminGenerator {
                 default -> "if_icmplt"; // fallback
             };
             code.append(branchInst).append(" ").append(label).append(NL);
+        } else if (condition instanceof UnaryOpInstruction unaryOp
+                && unaryOp.getOperation().getOpType() == OperationType.NOTB) {
+            // Branch when the operand is false
+            code.append(apply(unaryOp.getOperand()));
+            code.append("ifeq ").append(label).append(NL);
         } else if (condition instanceof SingleOpInstruction) {
             SingleOpInstruction singleOp = (SingleOpInstruction) condition;
 
@@ -130,6 +147,34 @@ public class JasminGenerator {
         return code.toString();
     }
 
+    /**
+     * @return the branch that compares the value on the stack with zero
+     */
+    private static String zeroBranch(OperationType operation) {
+        return switch (operation) {
+            case LTH -> "iflt";
+            case GTH -> "ifgt";
+            case LTE -> "ifle";
+            case GTE -> "ifge";
+            case EQ -> "ifeq";
+            case NEQ -> "ifne";
+            default -> throw new NotImplementedException(operation);
+        };
+    }
+
+    /**
+     * @return the comparison that holds with its operands swapped ({@code 0 < x} is {@code x > 0})
+     */
+    private static OperationType swapped(OperationType operation) {
+        return switch (operation) {
+            case LTH -> OperationType.GTH;
+            case GTH -> OperationType.LTH;
+            case LTE -> OperationType.GTE;
+            case GTE -> OperationType.LTE;
+            default -> operation;
+        };
+    }
+
     private String generateGoto(GotoInstruction gotoInst) {
         return "goto " + gotoInst.getLabel() + NL;
     }
@@ -458,6 +503,15 @@ public class JasminGenerator {
         var typeCode = types.getJasminType(lhs.getType());
         int regNum = reg.getVirtualReg();
 
+        // Direct increment: i = i + constant or i = i - constant
+        if (typeCode.equals("I") && assign.getRhs() instanceof BinaryOpInstruction binOp) {
+            Integer increment = getIncrement(binOp, operand.getName());
+            if (increment != null && increment >= -128 && increment <= 127) {
+                code.append("iinc ").append(regNum).append(" ").append(increment).append(NL);
+                return code.toString();
+            }
+        }
+
         // Check for iinc optimization: detect pattern where i = tmp and tmp = i + constant
         if (typeCode.equals("I") && assign.getRhs() instanceof SingleOpInstruction) {
             SingleOpInstruction singleOp = (SingleOpInstruction) assign.getRhs();
@@ -470,7 +524,7 @@ public class JasminGenerator {
                 if (tempVarName.startsWith("tmp")) {
                     // Look for the previous instruction that defined this temporary
                     // We need to find the BinaryOpInstruction that assigned to this temp
-                    AssignInstruction tempDefining = findPreviousAssignmentForTemp(tempVarName);
+                    AssignInstruction tempDefining = findPreviousAssignmentForTemp(tempVarName, assign);
                     
                     if (tempDefining != null && tempDefining.getRhs() instanceof BinaryOpInstruction) {
                         BinaryOpInstruction binOp = (BinaryOpInstruction) tempDefining.getRhs();
@@ -543,26 +597,35 @@ public class JasminGenerator {
     private String generateLiteral(LiteralElement literal) {
         String value = literal.getLiteral();
 
+        // A literal of a reference type is the default value of an object or array variable
+        String typeCode = types.getJasminType(literal.getType());
+        if (typeCode.startsWith("L") || typeCode.startsWith("[")) {
+            return "aconst_null" + NL;
+        }
+
         // Handle integer literals with optimized instructions
         try {
-            int intValue = Integer.parseInt(value);
-            if (intValue == -1) {
-                return "iconst_m1" + NL;
-            } else if (intValue >= 0 && intValue <= 5) {
-                return "iconst_" + intValue + NL;
-            } else if (intValue >= -128 && intValue <= 127) {
-                return "bipush " + intValue + NL;
-            } else if (intValue >= -32768 && intValue <= 32767) {
-                return "sipush " + intValue + NL;
-            } else {
-                return "ldc " + intValue + NL;
-            }
+            return generateIntConstant(Integer.parseInt(value));
         } catch (NumberFormatException e) {
             // Not an integer, use ldc
             return "ldc " + value + NL;
         }
     }
 
+    private String generateIntConstant(int intValue) {
+        if (intValue == -1) {
+            return "iconst_m1" + NL;
+        } else if (intValue >= 0 && intValue <= 5) {
+            return "iconst_" + intValue + NL;
+        } else if (intValue >= -128 && intValue <= 127) {
+            return "bipush " + intValue + NL;
+        } else if (intValue >= -32768 && intValue <= 32767) {
+            return "sipush " + intValue + NL;
+        } else {
+            return "ldc " + intValue + NL;
+        }
+    }
+
     private String generateOperand(Operand operand) {
         // Handle array access
         if (operand instanceof ArrayOperand) {
@@ -638,15 +701,34 @@ public class JasminGenerator {
                 yield "isub";
             }
             case MUL -> {
+                // x * 2^k == x << k, also when the product overflows
+                int rightShift = getPowerOfTwoExponent(binaryOp.getRightOperand());
+                int leftShift = getPowerOfTwoExponent(binaryOp.getLeftOperand());
+                if (rightShift > 0) {
+                    code.append(apply(binaryOp.getLeftOperand()));
+                    code.append(generateIntConstant(rightShift));
+                    yield "ishl";
+                }
+                if (leftShift > 0) {
+                    code.append(apply(binaryOp.getRightOperand()));
+                    code.append(generateIntConstant(leftShift));
+                    yield "ishl";
+                }
                 code.append(apply(binaryOp.getLeftOperand()));
                 code.append(apply(binaryOp.getRightOperand()));
                 yield "imul";
             }
             case DIV -> {
+                // Divisions that can be shifts are made SHR by the value range analysis of the IR
                 code.append(apply(binaryOp.getLeftOperand()));
                 code.append(apply(binaryOp.getRightOperand()));
                 yield "idiv";
             }
+            case SHR -> {
+                code.append(apply(binaryOp.getLeftOperand()));
+                code.append(apply(binaryOp.getRightOperand()));
+                yield "ishr";
+            }
             case AND -> {
                 code.append(apply(binaryOp.getLeftOperand()));
                 code.append(apply(binaryOp.getRightOperand()));
@@ -699,10 +781,34 @@ public class JasminGenerator {
                     """.formatted(trueLabel, endLabel, trueLabel, endLabel);
                 }
             }
+            case GTH, LTE, GTE, EQ, NEQ -> {
+                // Other comparisons used as values (e.g. hoisted out of a loop) are only materialized as 0 or 1
+                String compareInst = switch (binaryOp.getOperation().getOpType()) {
+                    case GTH -> "if_icmpgt";
+                    case LTE -> "if_icmple";
+                    case GTE -> "if_icmpge";
+                    case EQ -> "if_icmpeq";
+                    default -> "if_icmpne";
+                };
+
+                String trueLabel = "CMP_TRUE_" + System.nanoTime();
+                String endLabel = "CMP_END_" + System.nanoTime();
+
+                code.append(apply(binaryOp.getLeftOperand()));
+                code.append(apply(binaryOp.getRightOperand()));
+                yield """
+                %s %s
+                iconst_0
+                goto %s
+                %s:
+                iconst_1
+                %s:
+                """.formatted(compareInst, trueLabel, endLabel, trueLabel, endLabel);
+            }
             default -> throw new NotImplementedException(binaryOp.getOperation().getOpType());
         };
 
-        if (!binaryOp.getOperation().getOpType().name().equals("LTH")) {
+        if (!binaryOp.getOperation().getOpType().isConditional()) {
             code.append(op).append(NL);
         } else {
             code.append(op); // already has newlines in multi-line case
@@ -711,6 +817,25 @@ public class JasminGenerator {
         return code.toString();
     }
 
+    /**
+     * @return k if the operand is the literal 2^k with k > 0, or -1 otherwise
+     */
+    private int getPowerOfTwoExponent(Element operand) {
+        if (!(operand instanceof LiteralElement literal)) {
+            return -1;
+        }
+
+        try {
+            int value = Integer.parseInt(literal.getLiteral());
+            if (value > 1 && Integer.bitCount(value) == 1) {
+                return Integer.numberOfTrailingZeros(value);
+            }
+        } catch (NumberFormatException e) {
+            // Not an int literal
+        }
+        return -1;
+    }
+
     private boolean isLiteralZero(Element operand) {
         if (operand instanceof LiteralElement literal) {
             return "0".equals(literal.getLiteral());
@@ -857,8 +982,8 @@ public class JasminGenerator {
         
         // Regular object creation
         String className = types.getJasminType(returnType).replaceAll("^L|;$", "");
+        // The object is stored by the assignment and loaded again by the invokespecial of its constructor
         code.append("new ").append(className).append(NL);
-        code.append("dup").append(NL); // Duplicate reference for constructor call
 
         return code.toString();
     }
@@ -933,8 +1058,8 @@ public class JasminGenerator {
         // Get field name from the second operand (field operand)
         String fieldName = putField.getField().getName();
 
-        // Get field type from the instruction's field type
-        String fieldType = types.getJasminType(putField.getFieldType());
+        // The type of the instruction is the void result of the store, the field has its own type
+        String fieldType = types.getJasminType(putField.getField().getType());
 
         // Get class name (usually current class)
         String className = ollirResult.getOllirClass().getClassName();
@@ -970,31 +1095,59 @@ public class JasminGenerator {
     }
 
     /**
-     * Find the previous assignment that defined a temporary variable.
+     * Returns the constant added to the variable by an addition or subtraction of the form
+     * {@code var + c}, {@code c + var} or {@code var - c}, or null if the operation has another form.
+     */
+    private Integer getIncrement(BinaryOpInstruction binOp, String varName) {
+        var opType = binOp.getOperation().getOpType().name();
+        var left = binOp.getLeftOperand();
+        var right = binOp.getRightOperand();
+
+        boolean leftIsVar = left instanceof Operand && !(left instanceof LiteralElement)
+                && ((Operand) left).getName().equals(varName);
+        boolean rightIsVar = right instanceof Operand && !(right instanceof LiteralElement)
+                && ((Operand) right).getName().equals(varName);
+
+        try {
+            if (opType.equals("ADD") && leftIsVar && right instanceof LiteralElement literal) {
+                return Integer.parseInt(literal.getLiteral());
+            }
+            if (opType.equals("ADD") && rightIsVar && left instanceof LiteralElement literal) {
+                return Integer.parseInt(literal.getLiteral());
+            }
+            if (opType.equals("SUB") && leftIsVar && right instanceof LiteralElement literal) {
+                return -Integer.parseInt(literal.getLiteral());
+            }
+        } catch (NumberFormatException e) {
+            // Not a valid integer
+        }
+
+        return null;
+    }
+
+    /**
+     * Find the assignment that defined a temporary variable right before the given instruction.
      * This is used for iinc optimization to detect patterns like:
      * tmp0 = i + 1
      * i = tmp0
+     * The definition must immediately precede the use, since temporaries can be assigned more than once.
      */
-    private AssignInstruction findPreviousAssignmentForTemp(String tempVarName) {
+    private AssignInstruction findPreviousAssignmentForTemp(String tempVarName, Instruction current) {
         List<Instruction> instructions = currentMethod.getInstructions();
-        
-        // Look through the instructions in reverse order to find the most recent assignment
-        for (int i = instructions.size() - 1; i >= 0; i--) {
-            Instruction inst = instructions.get(i);
-            
-            if (inst instanceof AssignInstruction) {
-                AssignInstruction assign = (AssignInstruction) inst;
-                Element dest = assign.getDest();
-                
-                if (dest instanceof Operand) {
-                    Operand operand = (Operand) dest;
-                    if (operand.getName().equals(tempVarName)) {
-                        return assign;
-                    }
-                }
-            }
+
+        int index = instructions.indexOf(current);
+        if (index <= 0) {
+            return null;
         }
-        
+
+        Instruction previous = instructions.get(index - 1);
+        if (previous instanceof AssignInstruction assign
+                && assign.getDest() instanceof Operand operand
+                && operand.getName().equals(tempVarName)
+                && currentMethod.getLabels(current).isEmpty()) {
+            return assign;
+        }
+
         return null;
     }
 }
@@ -0,0 +1,354 @@
+package pt.up.fe.comp2025.optimization;
+
+import pt.up.fe.comp.jmm.ast.JmmNode;
+import pt.up.fe.comp.jmm.ast.JmmNodeImpl;
+import pt.up.fe.comp2025.ast.Kind;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+
+import static pt.up.fe.comp2025.optimization.SparseConditionalConstantPropagation.isPure;
+import static pt.up.fe.comp2025.optimization.SparseConditionalConstantPropagation.newLiteral;
+import static pt.up.fe.comp2025.optimization.SparseConditionalConstantPropagation.unwrap;
+
+/**
+ * Rule-based simplification of the expressions of each method, for the cases where only some operands are constant
+ * (expressions whose operands are all constant are folded by {@link SparseConditionalConstantPropagation}).
+ * <p>
+ * Expressions are simplified bottom-up, and each rewritten expression is simplified again, so that the rules compose:
+ * {@code !!(b == true)} becomes {@code b}. The rules are identities ({@code x + 0}, {@code x * 1}, {@code !!b},
+ * {@code b == true}, {@code b && true}), absorbing elements ({@code x * 0}, {@code b && false}, {@code b || true}),
+ * {@code x - x}, and the reassociation of constant chains such as {@code (x + 1) + 2} into {@code x + 3}. Rules that
+ * remove an operand only fire when the operand has no effects, including division by a non-constant divisor, which
+ * may throw. Int arithmetic wraps around, so reassociating additions and multiplications never changes the result.
+ */
+public class AlgebraicSimplifier {
+
+    private static final String ADD_ZERO = "x+0";
+    private static final String MUL_ONE = "x*1";
+    private static final String MUL_ZERO = "x*0";
+    private static final String SUB_SELF = "x-x";
+    private static final String DOUBLE_NOT = "!!b";
+    private static final String EQ_TRUE = "b==true";
+    private static final String EQ_FALSE = "b==false";
+    private static final String AND_TRUE = "b&&true";
+    private static final String AND_FALSE = "b&&false";
+    private static final String ADD_CHAIN = "(x+c)+c";
+    private static final String MUL_CHAIN = "(x*c)*c";
+
+    private final Map<String, Integer> ruleCounts;
+
+    public AlgebraicSimplifier() {
+        this.ruleCounts = new LinkedHashMap<>();
+    }
+
+    /**
+     * Simplifies every method of the program.
+     *
+     * @return true if the AST changed
+     */
+    public boolean apply(JmmNode root) {
+        ruleCounts.clear();
+        for (String rule : List.of(ADD_ZERO, MUL_ONE, MUL_ZERO, SUB_SELF, DOUBLE_NOT, EQ_TRUE, EQ_FALSE, AND_TRUE,
+                AND_FALSE, ADD_CHAIN, MUL_CHAIN)) {
+            ruleCounts.put(rule, 0);
+        }
+
+        for (JmmNode methodDecl : root.getDescendants(Kind.METHOD_DECL)) {
+            for (JmmNode child : new ArrayList<>(methodDecl.getChildren())) {
+                simplifyTree(child);
+            }
+        }
+
+        System.out.println("[Simplify] " + ruleCounts.entrySet().stream()
+                .map(entry -> entry.getKey() + ": " + entry.getValue())
+                .collect(Collectors.joining(", ")));
+
+        return getRewrites() > 0;
+    }
+
+    /**
+     * @return how many times each rule fired in the last run, by rule
+     */
+    public Map<String, Integer> getRuleCounts() {
+        return Collections.unmodifiableMap(ruleCounts);
+    }
+
+    public int getRewrites() {
+        return ruleCounts.values().stream().mapToInt(Integer::intValue).sum();
+    }
+
+    private void simplifyTree(JmmNode node) {
+        for (JmmNode child : new ArrayList<>(node.getChildren())) {
+            simplifyTree(child);
+        }
+
+        JmmNode current = node;
+        JmmNode next;
+        while ((next = rewrite(current)) != current) {
+            current = next;
+        }
+    }
+
+    /**
+     * Applies the first rule that matches the node.
+     *
+     * @return the expression that replaced the node, or the node itself if no rule matches
+     */
+    private JmmNode rewrite(JmmNode node) {
+        if (Kind.UNARY_EXPR.check(node)) {
+            JmmNode operand = unwrap(node.getChild(0));
+            if (Kind.UNARY_EXPR.check(operand)) {
+                return replace(node, operand.getChild(0), DOUBLE_NOT);
+            }
+            return node;
+        }
+
+        if (!Kind.BINARY_EXPR.check(node)) {
+            return node;
+        }
+
+        JmmNode left = node.getChild(0);
+        JmmNode right = node.getChild(1);
+        Integer leftInt = intValue(left);
+        Integer rightInt = intValue(right);
+        Boolean leftBool = booleanValue(left);
+        Boolean rightBool = booleanValue(right);
+
+        switch (node.get("op")) {
+            case "+": {
+                if (isInt(rightInt, 0)) return replace(node, left, ADD_ZERO);
+                if (isInt(leftInt, 0)) return replace(node, right, ADD_ZERO);
+                return reassociateAdd(node);
+            }
+            case "-": {
+                if (isInt(rightInt, 0)) return replace(node, left, ADD_ZERO);
+                if (hasNoEffects(left) && sameExpression(unwrap(left), unwrap(right))) {
+                    return replace(node, newLiteral(0), SUB_SELF);
+                }
+                return reassociateAdd(node);
+            }
+            case "*": {
+                if (isInt(rightInt, 1)) return replace(node, left, MUL_ONE);
+                if (isInt(leftInt, 1)) return replace(node, right, MUL_ONE);
+                if (isInt(rightInt, 0) && hasNoEffects(left)) return replace(node, newLiteral(0), MUL_ZERO);
+                if (isInt(leftInt, 0) && hasNoEffects(right)) return replace(node, newLiteral(0), MUL_ZERO);
+                return reassociateMul(node);
+            }
+            case "/": {
+                if (isInt(rightInt, 1)) return replace(node, left, MUL_ONE);
+                return node;
+            }
+            case "==", "!=": {
+                boolean isEq = node.get("op").equals("==");
+                if (rightBool != null) return compareWith(node, left, rightBool == isEq);
+                if (leftBool != null) return compareWith(node, right, leftBool == isEq);
+                return node;
+            }
+            case "&&": {
+                if (Boolean.TRUE.equals(rightBool)) return replace(node, left, AND_TRUE);
+                if (Boolean.TRUE.equals(leftBool)) return replace(node, right, AND_TRUE);
+                if (Boolean.FALSE.equals(rightBool) && hasNoEffects(left)) {
+                    return replace(node, newLiteral(false), AND_FALSE);
+                }
+                if (Boolean.FALSE.equals(leftBool)) return replace(node, newLiteral(false), AND_FALSE);
+                return node;
+            }
+            case "||": {
+                if (Boolean.FALSE.equals(rightBool)) return replace(node, left, AND_TRUE);
+                if (Boolean.FALSE.equals(leftBool)) return replace(node, right, AND_TRUE);
+                if (Boolean.TRUE.equals(rightBool) && hasNoEffects(left)) {
+                    return replace(node, newLiteral(true), AND_FALSE);
+                }
+                if (Boolean.TRUE.equals(leftBool)) return replace(node, newLiteral(true), AND_FALSE);
+                return node;
+            }
+            default:
+                return node;
+        }
+    }
+
+    /**
+     * Rewrites {@code b == true} and {@code b != false} to {@code b}, and {@code b == false} and {@code b != true}
+     * to {@code !b}.
+     */
+    private JmmNode compareWith(JmmNode node, JmmNode operand, boolean isSame) {
+        if (isSame) {
+            return replace(node, operand, EQ_TRUE);
+        }
+
+        JmmNode not = new JmmNodeImpl(Collections.singletonList(Kind.UNARY_EXPR.getNodeName()));
+        not.put("op", "!");
+        operand.delete();
+        not.add(operand);
+        return replace(node, not, EQ_FALSE);
+    }
+
+    /**
+     * Rewrites {@code (x + c1) + c2}, and the variants with subtractions and with the constants on the left, to
+     * {@code x + c}, {@code x - c} or {@code c - x}.
+     */
+    private JmmNode reassociateAdd(JmmNode node) {
+        Term outer = addTerm(node);
+        if (outer == null) {
+            return node;
+        }
+        Term inner = addTerm(unwrap(outer.rest()));
+        if (inner == null) {
+            return node;
+        }
+
+        // c2 - (x + c1) = (c2 - c1) - x, and the signs of x multiply
+        int constant = outer.isNegated() ? outer.constant() - inner.constant() : outer.constant() + inner.constant();
+        boolean isNegated = outer.isNegated() != inner.isNegated();
+        if (constant == Integer.MIN_VALUE || isNegated && constant < 0) {
+            return node;
+        }
+
+        JmmNode x = inner.rest();
+        x.delete();
+        JmmNode result;
+        if (isNegated) {
+            result = newBinary("-", newLiteral(constant), x);
+        } else {
+            result = newBinary(constant < 0 ? "-" : "+", x, newLiteral(Math.abs(constant)));
+        }
+        return replace(node, result, ADD_CHAIN);
+    }
+
+    /**
+     * Rewrites {@code (x * c1) * c2} to {@code x * c}, when the product is not negative (negative literals do not
+     * exist in the language).
+     */
+    private JmmNode reassociateMul(JmmNode node) {
+        Term outer = mulTerm(node);
+        if (outer == null) {
+            return node;
+        }
+        Term inner = mulTerm(unwrap(outer.rest()));
+        if (inner == null) {
+            return node;
+        }
+
+        int constant = outer.constant() * inner.constant();
+        if (constant < 0) {
+            return node;
+        }
+
+        JmmNode x = inner.rest();
+        x.delete();
+        return replace(node, newBinary("*", x, newLiteral(constant)), MUL_CHAIN);
+    }
+
+    /**
+     * An expression {@code rest + constant}. In an addition, {@code isNegated} means that the rest is subtracted
+     * from the constant ({@code c - rest}), and a subtraction {@code rest - c} gives a negative constant.
+     */
+    private record Term(JmmNode rest, int constant, boolean isNegated) {
+    }
+
+    private static Term addTerm(JmmNode node) {
+        if (!Kind.BINARY_EXPR.check(node)) {
+            return null;
+        }
+
+        String op = node.get("op");
+        Integer left = intValue(node.getChild(0));
+        Integer right = intValue(node.getChild(1));
+
+        if (op.equals("+")) {
+            if (right != null) return new Term(node.getChild(0), right, false);
+            if (left != null) return new Term(node.getChild(1), left, false);
+        } else if (op.equals("-")) {
+            if (right != null) return new Term(node.getChild(0), -right, false);
+            if (left != null) return new Term(node.getChild(1), left, true);
+        }
+        return null;
+    }
+
+    private static Term mulTerm(JmmNode node) {
+        if (!Kind.BINARY_EXPR.check(node) || !node.get("op").equals("*")) {
+            return null;
+        }
+
+        Integer left = intValue(node.getChild(0));
+        Integer right = intValue(node.getChild(1));
+        if (right != null) return new Term(node.getChild(0), right, false);
+        if (left != null) return new Term(node.getChild(1), left, false);
+        return null;
+    }
+
+    private JmmNode replace(JmmNode node, JmmNode replacement, String rule) {
+        if (replacement.getParent() != null) {
+            replacement.delete();
+        }
+        node.replace(replacement);
+        ruleCounts.merge(rule, 1, Integer::sum);
+        return replacement;
+    }
+
+    private static JmmNode newBinary(String op, JmmNode left, JmmNode right) {
+        JmmNode node = new JmmNodeImpl(Collections.singletonList(Kind.BINARY_EXPR.getNodeName()));
+        node.put("op", op);
+        node.add(left);
+        node.add(right);
+        return node;
+    }
+
+    /**
+     * Checks if an expression can be removed: it is pure, and its divisions cannot throw.
+     */
+    private static boolean hasNoEffects(JmmNode expr) {
+        return isPure(expr) && expr.getDescendantsAndSelfStream()
+                .filter(node -> Kind.BINARY_EXPR.check(node) && node.get("op").equals("/"))
+                .allMatch(division -> {
+                    Integer divisor = intValue(division.getChild(1));
+                    return divisor != null && divisor != 0;
+                });
+    }
+
+    private static boolean sameExpression(JmmNode a, JmmNode b) {
+        if (!a.getKind().equals(b.getKind()) || a.getNumChildren() != b.getNumChildren()) {
+            return false;
+        }
+        for (String attribute : List.of("value", "op")) {
+            if (a.hasAttribute(attribute) != b.hasAttribute(attribute)
+                    || a.hasAttribute(attribute) && !a.get(attribute).equals(b.get(attribute))) {
+                return false;
+            }
+        }
+        for (int i = 0; i < a.getNumChildren(); i++) {
+            if (!sameExpression(unwrap(a.getChild(i)), unwrap(b.getChild(i)))) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static boolean isInt(Integer value, int expected) {
+        return value != null && value == expected;
+    }
+
+    private static Integer intValue(JmmNode node) {
+        node = unwrap(node);
+        if (!Kind.INTEGER_LITERAL.check(node)) {
+            return null;
+        }
+        try {
+            return Integer.parseInt(node.get("value"));
+        } catch (NumberFormatException e) {
+            return null;
+        }
+    }
+
+    private static Boolean booleanValue(JmmNode node) {
+        node = unwrap(node);
+        if (Kind.BOOLEAN_TRUE.check(node)) return true;
+        if (Kind.BOOLEAN_FALSE.check(node)) return false;
+        return null;
+    }
+}
@@ -3,71 +3,225 @@ package pt.up.fe.comp2025.optimization;
 import pt.up.fe.comp.jmm.analysis.JmmSemanticsResult;
 import pt.up.fe.comp.jmm.ollir.JmmOptimization;
 import pt.up.fe.comp.jmm.ollir.OllirResult;
+import pt.up.fe.comp.jmm.analysis.table.SymbolTable;
+import pt.up.fe.comp.jmm.ast.JmmNode;
 import pt.up.fe.comp2025.ConfigOptions;
+import pt.up.fe.comp2025.ast.Kind;
+import pt.up.fe.comp2025.ast.TypeUtils;
+import pt.up.fe.comp2025.optimization.ssa.ConstantFolding;
+import pt.up.fe.comp2025.optimization.ssa.CopyPropagation;
+import pt.up.fe.comp2025.optimization.ssa.DeadCodeElimination;
+import pt.up.fe.comp2025.optimization.ssa.GlobalValueNumbering;
+import pt.up.fe.comp2025.optimization.ssa.Inliner;
+import pt.up.fe.comp2025.optimization.ssa.InterproceduralConstantPropagation;
+import pt.up.fe.comp2025.optimization.ssa.LoopInvariantCodeMotion;
+import pt.up.fe.comp2025.optimization.ssa.LoopUnrolling;
+import pt.up.fe.comp2025.optimization.ssa.IrBuilder;
+import pt.up.fe.comp2025.optimization.ssa.IrMethod;
+import pt.up.fe.comp2025.optimization.ssa.MethodSummaries;
+import pt.up.fe.comp2025.optimization.ssa.OutOfSsa;
+import pt.up.fe.comp2025.optimization.ssa.Profile;
+import pt.up.fe.comp2025.optimization.ssa.ScalarReplacement;
+import pt.up.fe.comp2025.optimization.ssa.SsaConstruction;
+import pt.up.fe.comp2025.optimization.ssa.StrengthReduction;
+import pt.up.fe.comp2025.optimization.ssa.TailRecursionElimination;
+import pt.up.fe.comp2025.optimization.ssa.ValueRangeAnalysis;
+import pt.up.fe.specs.util.exceptions.NotImplementedException;
 
 import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
 
 public class JmmOptimizationImpl implements JmmOptimization {
 
     @Override
     public OllirResult toOllir(JmmSemanticsResult semanticsResult) {
+        var config = semanticsResult.getConfig();
+        var table = semanticsResult.getSymbolTable();
+        var passes = new PassManager(config);
+        boolean profileGenerate = ConfigOptions.getProfileGenerate(config);
+
+        // With optimizations or instrumentation, method bodies go through the SSA IR
+        Map<String, IrMethod> irMethods = new LinkedHashMap<>();
+        Profile profile = Profile.empty();
+        if (passes.getLevel() > 0 || profileGenerate) {
+            // The counters are numbered on the AST before folding, unless optimize was skipped
+            var root = semanticsResult.getRootNode();
+            Profile.numberCounters(root);
+            irMethods = buildIr(root, table, passes);
+
+            // The counts are attached to the IR as it is built, before any pass changes it
+            var profileFile = ConfigOptions.getProfileUse(config);
+            if (profileFile.isPresent()) {
+                profile = Profile.read(profileFile.get(), table.getClassName(), root, irMethods);
+            }
+            if (profileGenerate) {
+                Profile.instrument(table.getClassName(), root, irMethods, new TypeUtils(table).getInterner());
+            }
+
+            optimizeIr(irMethods, table, config, passes, profile);
+        }
+        passes.printStatistics();
 
         // Create visitor that will generate the OLLIR code
-        var visitor = new OllirGeneratorVisitor(semanticsResult.getSymbolTable());
+        var visitor = new OllirGeneratorVisitor(table, irMethods);
 
         // Visit the AST and obtain OLLIR code
         var ollirCode = visitor.visit(semanticsResult.getRootNode());
 
         //System.out.println("\nOLLIR:\n\n" + ollirCode);
 
-        return new OllirResult(semanticsResult, ollirCode, Collections.emptyList());
-    }
+        var ollirResult = new OllirResult(semanticsResult, ollirCode, Collections.emptyList());
 
-    @Override
-    public JmmSemanticsResult optimize(JmmSemanticsResult semanticsResult) {
-        var config = semanticsResult.getConfig();
+        Map<String, Set<Integer>> shifts = new HashMap<>();
+        for (IrMethod method : irMethods.values()) {
+            shifts.put(method.getName(), method.getEmittedShifts());
+        }
+        new ShiftLowering(ollirResult, shifts).apply();
+
+        if (!profile.isEmpty()) {
+            Map<String, Map<String, Long>> weights = new HashMap<>();
+            for (IrMethod method : irMethods.values()) {
+                weights.put(method.getName(), profile.variableWeights(method));
+            }
+            new RegisterPriority(ollirResult, weights).apply();
+        }
 
-        // Check if optimizations are enabled
-        boolean optimizeEnabled = ConfigOptions.getOptimize(config);
+        return ollirResult;
+    }
 
-        System.out.println("Optimization flag (-o) enabled: " + optimizeEnabled);
+    /**
+     * Builds the IR of each method. Methods that use constructs the IR does not represent are left out, and are
+     * generated from the AST.
+     */
+    private Map<String, IrMethod> buildIr(JmmNode root, SymbolTable table, PassManager passes) {
+        Map<String, IrMethod> irMethods = new LinkedHashMap<>();
+
+        for (JmmNode methodDecl : root.getDescendants(Kind.METHOD_DECL)) {
+            String methodName = IrBuilder.getMethodName(methodDecl);
+            try {
+                irMethods.put(methodName, new IrBuilder(table).build(methodDecl));
+            } catch (NotImplementedException e) {
+                System.out.println("[SSA] " + methodName + " not lowered through the IR: " + e.getMessage());
+            }
+        }
+        passes.verify(irMethods, "building the IR");
 
-        if (!optimizeEnabled) {
-            return semanticsResult;
+        return irMethods;
+    }
+
+    /**
+     * Turns tail recursion into loops, specializes methods called with constant arguments, inlines small methods of
+     * the class, replaces the objects that do not escape by locals, summarizes the effects of each method, converts
+     * each method to SSA form, optimizes it and converts it back. The passes that run are the ones the pass manager
+     * enables, and the profile, if it has counts, guides inlining, loop unrolling and the layout of the blocks. The
+     * specialized copies have no AST and only exist in the IR.
+     */
+    private void optimizeIr(Map<String, IrMethod> irMethods, SymbolTable table, Map<String, String> config,
+                            PassManager passes, Profile profile) {
+        // Methods whose recursion becomes a loop can then be inlined
+        passes.run("tail-recursion", irMethods, methods -> {
+            int eliminated = 0;
+            for (IrMethod method : methods.values()) {
+                eliminated += new TailRecursionElimination().apply(method);
+            }
+            return eliminated;
+        });
+
+        int specializeBudget = ConfigOptions.getSpecializeBudget(config);
+        var specialization = new InterproceduralConstantPropagation(table, specializeBudget);
+        if (specializeBudget > 0) {
+            passes.run("specialization", irMethods, methods -> {
+                specialization.apply(methods);
+                return specialization.getRedirectedCalls();
+            });
         }
 
-        var root = semanticsResult.getRootNode();
-        var table = semanticsResult.getSymbolTable();
+        int inlineBudget = ConfigOptions.getInlineBudget(config);
+        if (inlineBudget > 0) {
+            passes.run("inlining", irMethods, new Inliner(table, inlineBudget, profile)::apply);
+            passes.run("scalar-replacement", irMethods, new ScalarReplacement(table, inlineBudget)::apply);
+            specialization.removeUncalled(irMethods);
+        }
 
-        boolean globalChanged;
-        int iterations = 0;
-        final int MAX_ITERATIONS = 5; // Reduce iterations to avoid issues
+        // Lets the optimizations see through the calls that only compute their result
+        var summaries = new MethodSummaries(table, ConfigOptions.getPureMethods(config));
+        summaries.apply(irMethods);
+
+        // Each of these passes may expose more work for the others
+        List<PassManager.Step<IrMethod>> cleanup = List.of(
+                PassManager.step("copy-propagation", method -> {
+                    var copyPropagation = new CopyPropagation();
+                    copyPropagation.apply(method);
+                    return copyPropagation.getPropagatedCopies() + copyPropagation.getRemovedCopies()
+                            + copyPropagation.getCoalescedCopies();
+                }),
+                PassManager.step("constant-folding", method -> {
+                    var constantFolding = new ConstantFolding();
+                    constantFolding.apply(method);
+                    return constantFolding.getPropagatedConstants() + constantFolding.getFoldedInstructions();
+                }),
+                PassManager.step("value-range", new ValueRangeAnalysis()::apply),
+                PassManager.step("gvn", new GlobalValueNumbering(summaries)::apply),
+                PassManager.step("dce", new DeadCodeElimination(summaries)::apply));
+
+        int unrollGrowth = ConfigOptions.getUnrollGrowth(config);
+        for (IrMethod method : irMethods.values()) {
+            SsaConstruction.apply(method);
+            passes.verify(method, "SSA construction");
+
+            passes.runToFixedPoint("scalar cleanup", method, cleanup);
+            passes.run("licm", method, new LoopInvariantCodeMotion(summaries)::apply);
+            passes.run("strength-reduction", method, new StrengthReduction()::apply);
+            if (unrollGrowth > 0) {
+                passes.run("loop-unrolling", method, new LoopUnrolling(unrollGrowth, profile)::apply);
+            }
+            passes.runToFixedPoint("scalar cleanup", method, cleanup);
+
+            OutOfSsa.apply(method);
+            passes.verify(method, "leaving SSA form");
+
+            if (!profile.isEmpty()) {
+                method.setLayout(profile.layout(method));
+            }
+        }
+    }
 
-        do {
-            globalChanged = false;
-            iterations++;
+    @Override
+    public JmmSemanticsResult optimize(JmmSemanticsResult semanticsResult) {
+        var passes = new PassManager(semanticsResult.getConfig());
 
-            System.out.println("--- Optimization iteration " + iterations + " ---");
+        System.out.println("Optimization level: -O" + passes.getLevel());
 
-            // Apply constant propagation CAREFULLY
-            ConstantPropagationVisitor propagation = new ConstantPropagationVisitor(table);
-            propagation.visit(root);
-            boolean propagationChanged = propagation.didChange();
-            globalChanged |= propagationChanged;
-            System.out.println("Constant propagation changed: " + propagationChanged);
+        // Numbered before folding, which removes statements depending on the level, so that builds at every level
+        // number the statements that are left the same way
+        Profile.numberCounters(semanticsResult.getRootNode());
 
-            // Apply constant folding (this was working)
-            ConstantFoldingVisitor folder = new ConstantFoldingVisitor(table);
-            folder.visit(root);
-            boolean foldingChanged = folder.didChange();
-            globalChanged |= foldingChanged;
-            System.out.println("Constant folding changed: " + foldingChanged);
+        if (passes.getLevel() == 0) {
+            return semanticsResult;
+        }
 
-            System.out.println("Total changed in iteration " + iterations + ": " + globalChanged);
+        var root = semanticsResult.getRootNode();
+        var table = semanticsResult.getSymbolTable();
 
-        } while (globalChanged && iterations < MAX_ITERATIONS);
+        // A single solve of constant propagation reaches its fixed point, but simplified expressions may become
+        // constant, and constants may enable other simplifications
+        passes.runToFixedPoint("AST folding", root, List.of(
+                PassManager.step("constant-propagation", node -> {
+                    var sccp = new SparseConditionalConstantPropagation(table);
+                    sccp.apply(node);
+                    return sccp.getReplacedExpressions() + sccp.getRemovedStatements() + sccp.getFoldedBranches();
+                }),
+                PassManager.step("algebraic-simplification", node -> {
+                    var simplifier = new AlgebraicSimplifier();
+                    simplifier.apply(node);
+                    return simplifier.getRewrites();
+                })));
+        passes.printStatistics();
 
-        System.out.println("Optimization completed after " + iterations + " iterations");
         return semanticsResult;
     }
 
@@ -0,0 +1,73 @@
+package pt.up.fe.comp2025.optimization;
+
+import org.specs.comp.ollir.VarScope;
+import pt.up.fe.comp.jmm.analysis.table.Symbol;
+import pt.up.fe.comp.jmm.analysis.table.SymbolTable;
+import pt.up.fe.comp.jmm.analysis.table.Type;
+import pt.up.fe.comp2025.symboltable.JmmInterner;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * The variables a method can refer to by name, resolved once from the symbol table so that generating the OLLIR of
+ * each reference is a single lookup. Locals hide parameters and both hide fields, as in the source.
+ */
+public class MethodBindings {
+
+    /**
+     * What a name refers to: its scope, its type and, for parameters, its position in the parameter list (-1 for
+     * locals and fields).
+     */
+    public record Binding(VarScope scope, Type type, int parameterIndex) {
+
+        public boolean isField() {
+            return scope == VarScope.FIELD;
+        }
+    }
+
+    private final String methodName;
+    private final Map<String, Binding> bindings;
+
+    private MethodBindings(String methodName) {
+        this.methodName = methodName;
+        this.bindings = new HashMap<>();
+    }
+
+    public static MethodBindings of(SymbolTable table, String methodName, JmmInterner interner) {
+        MethodBindings method = new MethodBindings(methodName);
+
+        for (Symbol field : table.getFields()) {
+            method.bindings.put(field.getName(), new Binding(VarScope.FIELD, field.getType(), -1));
+        }
+
+        List<Symbol> parameters = table.getParameters(methodName);
+        for (int i = 0; i < parameters.size(); i++) {
+            Symbol parameter = parameters.get(i);
+            method.bindings.put(parameter.getName(), new Binding(VarScope.PARAMETER, parameter.getType(), i));
+        }
+
+        // The parameter of main is not always in the symbol table
+        if ("main".equals(methodName) && parameters.stream().noneMatch(p -> "args".equals(p.getName()))) {
+            method.bindings.put("args", new Binding(VarScope.PARAMETER, interner.stringArrayType(), 0));
+        }
+
+        for (Symbol local : table.getLocalVariables(methodName)) {
+            method.bindings.put(local.getName(), new Binding(VarScope.LOCAL, local.getType(), -1));
+        }
+
+        return method;
+    }
+
+    public String getMethodName() {
+        return methodName;
+    }
+
+    /**
+     * @return what the name refers to in the method, or null if it is not a variable of the method or the class
+     */
+    public Binding get(String name) {
+        return bindings.get(name);
+    }
+}
@@ -1,13 +1,11 @@
 package pt.up.fe.comp2025.optimization;
 
-import pt.up.fe.comp.jmm.analysis.table.Symbol;
 import pt.up.fe.comp.jmm.analysis.table.SymbolTable;
 import pt.up.fe.comp.jmm.analysis.table.Type;
 import pt.up.fe.comp.jmm.ast.JmmNode;
 import pt.up.fe.comp.jmm.ast.PreorderJmmVisitor;
 import pt.up.fe.comp2025.ast.TypeUtils;
-
-import java.util.List;
+import pt.up.fe.comp2025.symboltable.JmmInterner;
 
 import static pt.up.fe.comp2025.ast.Kind.*;
 
@@ -24,15 +22,43 @@ public class OllirExprGeneratorVisitor extends PreorderJmmVisitor<Void, OllirExp
 
     private final TypeUtils types;
     private final OptUtils ollirTypes;
+    private final JmmInterner interner;
 
+    // Variables of the method whose body is being generated
+    private MethodBindings method;
 
     public OllirExprGeneratorVisitor(SymbolTable table) {
         this.table = table;
         this.types = new TypeUtils(table);
         this.ollirTypes = new OptUtils(types);
+        this.interner = types.getInterner();
     }
 
 
+    /**
+     * Sets the method the expressions visited next belong to, which resolves the names they refer to.
+     */
+    public void setMethod(MethodBindings method) {
+        this.method = method;
+    }
+
+    /**
+     * @return the type of the expression, with the variables it refers to resolved through the bindings of the method
+     */
+    public Type getExprType(JmmNode node) {
+        if (VAR_REF_EXPR.check(node) || POSTFIX_EXPR.check(node)) {
+            var binding = method.get(node.get("value"));
+            if (binding != null) {
+                return binding.type();
+            }
+        } else if (PARENTHESIZED_EXPR.check(node)) {
+            return getExprType(node.getChild(0));
+        } else if (ARRAY_ACCESS_EXPR.check(node)) {
+            return interner.elementType(getExprType(node.getChild(0)));
+        }
+        return types.getExprType(node, method.getMethodName());
+    }
+
     @Override
     protected void buildVisitor() {
         addVisit(VAR_REF_EXPR, this::visitVarRef);
@@ -56,51 +82,97 @@ public class OllirExprGeneratorVisitor extends PreorderJmmVisitor<Void, OllirExp
 
 
     private OllirExprResult visitInteger(JmmNode node, Void unused) {
-        var intType = TypeUtils.newIntType();
+        var intType = interner.intType();
         String ollirIntType = ollirTypes.toOllirType(intType);
         String code = node.get("value") + ollirIntType;
         return new OllirExprResult(code);
     }
 
 
+    /**
+     * Generates the code that evaluates a condition and jumps to the label when the condition has the given value,
+     * falling through otherwise. Short-circuit operators and negations become jumps, and comparisons become the
+     * condition of the jump, so no boolean is materialized for the condition itself.
+     */
+    public String visitCondition(JmmNode condition, String label, boolean jumpWhen) {
+        while (PARENTHESIZED_EXPR.check(condition)) {
+            condition = condition.getChild(0);
+        }
+
+        if (UNARY_EXPR.check(condition)) {
+            return visitCondition(condition.getChild(0), label, !jumpWhen);
+        }
+
+        StringBuilder code = new StringBuilder();
+        if (BINARY_EXPR.check(condition)) {
+            String op = condition.get("op");
+
+            // "&&" is false as soon as its left operand is false, and "||" true as soon as its left operand is true:
+            // that jumps to the label if it is the value jumped on, and skips the right operand otherwise
+            if (op.equals("&&") || op.equals("||")) {
+                boolean leftDecides = op.equals("||");
+                if (leftDecides == jumpWhen) {
+                    code.append(visitCondition(condition.getChild(0), label, jumpWhen));
+                    code.append(visitCondition(condition.getChild(1), label, jumpWhen));
+                } else {
+                    String skipLabel = ollirTypes.nextTemp("skip");
+                    code.append(visitCondition(condition.getChild(0), skipLabel, leftDecides));
+                    code.append(visitCondition(condition.getChild(1), label, jumpWhen));
+                    code.append(skipLabel).append(":\n");
+                }
+                return code.toString();
+            }
+
+            String comparison = jumpWhen ? op : negatedComparison(op);
+            if (comparison != null) {
+                OllirExprResult left = visit(condition.getChild(0));
+                OllirExprResult right = visit(condition.getChild(1));
+                code.append(left.getComputation());
+                code.append(right.getComputation());
+                code.append("if (").append(left.getCode()).append(SPACE).append(comparison).append(".bool ")
+                        .append(right.getCode()).append(") goto ").append(label).append(END_STMT);
+                return code.toString();
+            }
+        }
+
+        // Other conditions (variables, calls, array elements) are tested as values
+        OllirExprResult value = visit(condition);
+        code.append(value.getComputation());
+        code.append("if (").append(value.getCode()).append(jumpWhen ? "" : " ==.bool 0.bool").append(") goto ")
+                .append(label).append(END_STMT);
+        return code.toString();
+    }
+
+    /**
+     * @return the comparison that holds when the given one does not, or null if the operator is not a comparison
+     */
+    private static String negatedComparison(String op) {
+        return switch (op) {
+            case "<" -> ">=";
+            case ">" -> "<=";
+            case "<=" -> ">";
+            case ">=" -> "<";
+            case "==" -> "!=";
+            case "!=" -> "==";
+            default -> null;
+        };
+    }
+
     private OllirExprResult visitBinExpr(JmmNode node, Void unused) {
         String op = node.get("op");
         StringBuilder computation = new StringBuilder();
 
-        // Special case for logical AND (&&) - use short-circuit evaluation with branches
-        if (op.equals("&&")) {
-            // Get left and right operands
-            JmmNode leftNode = node.getChild(0);
-            JmmNode rightNode = node.getChild(1);
-
-            // Evaluate left operand
-            OllirExprResult leftResult = visit(leftNode);
-            computation.append(leftResult.getComputation());
-
-            // Create result variable
+        // Short-circuit operators used as values select the value with jumps
+        if (op.equals("&&") || op.equals("||")) {
             String resultVar = ollirTypes.nextTemp() + ".bool";
-
-            // Create labels for short-circuit evaluation
             String falseLabel = ollirTypes.nextTemp("false");
             String endLabel = ollirTypes.nextTemp("end");
 
-            // If left operand is false, short-circuit to false result
-            // Fix: Ensure proper format for condition with parentheses
-            computation.append("if (").append(leftResult.getCode()).append(" ==.bool 0.bool) goto ").append(falseLabel).append(END_STMT);
-
-            // Evaluate right operand only if left is true
-            OllirExprResult rightResult = visit(rightNode);
-            computation.append(rightResult.getComputation());
-
-            // Set result based on right operand's value
-            computation.append(resultVar).append(" :=.bool ").append(rightResult.getCode()).append(END_STMT);
+            computation.append(visitCondition(node, falseLabel, false));
+            computation.append(resultVar).append(" :=.bool 1.bool").append(END_STMT);
             computation.append("goto ").append(endLabel).append(END_STMT);
-
-            // False label (short-circuit when left is false)
             computation.append(falseLabel).append(":").append("\n");
             computation.append(resultVar).append(" :=.bool 0.bool").append(END_STMT);
-
-            // End label
             computation.append(endLabel).append(":").append("\n");
 
             return new OllirExprResult(resultVar, computation);
@@ -113,7 +185,7 @@ public class OllirExprGeneratorVisitor extends PreorderJmmVisitor<Void, OllirExp
         computation.append(leftResult.getComputation());
         computation.append(rightResult.getComputation());
 
-        Type resultType = types.getExprType(node);
+        Type resultType = getExprType(node);
         String ollirType = ollirTypes.toOllirType(resultType);
 
         // Generate temporary variable for result
@@ -131,8 +203,7 @@ public class OllirExprGeneratorVisitor extends PreorderJmmVisitor<Void, OllirExp
             case ">=" -> ">=";
             case "==" -> "==";
             case "!=" -> "!=";
-            case "||" -> "||";
-            // "&&" is handled above
+            // "&&" and "||" are handled above
             default -> throw new RuntimeException("Unsupported binary operator: " + op);
         };
 
@@ -146,77 +217,21 @@ public class OllirExprGeneratorVisitor extends PreorderJmmVisitor<Void, OllirExp
 
     private OllirExprResult visitVarRef(JmmNode node, Void unused) {
         var id = node.get("value");
+        var binding = method.get(id);
 
-        // Get the current method name from ancestors
-        String methodName = node.getAncestor(METHOD_DECL.getNodeName())
-                .map(m -> m.get("name"))
-                .orElse("main");
-
-        // Handle special case for "args" parameter in main method
-        if ("args".equals(methodName)) methodName = "main";
-
-        Type type = null;
-
-        // Check local variables
-        for (var local : table.getLocalVariables(methodName)) {
-            if (local.getName().equals(id)) {
-                type = local.getType();
-                break;
-            }
-        }
-
-        // Check parameters if not found in locals
-        if (type == null) {
-            List<Symbol> parameters = table.getParameters(methodName);
-            // Special case for "args" in main method, ensure it's handled properly
-            if ("main".equals(methodName) && "args".equals(id) && 
-                (parameters.isEmpty() || !parameters.stream().anyMatch(p -> "args".equals(p.getName())))) {
-                // Default handling for the "args" parameter in main
-                type = new Type("String", true);
-            } else {
-                for (var param : parameters) {
-                    if (param.getName().equals(id)) {
-                        type = param.getType();
-                        break;
-                    }
-                }
-            }
-        }
-
-        // Check fields if not found in locals or parameters
-        if (type == null) {
-            for (var field : table.getFields()) {
-                if (field.getName().equals(id)) {
-                    type = field.getType();
-                    break;
-                }
-            }
-        }
-
-        // If still not found, check imports as a fallback
-        if (type == null) {
+        // Names that are not variables may still be imported classes
+        if (binding == null) {
             for (String imp : table.getImports()) {
                 if (imp.endsWith("." + id) || imp.equals(id)) {
-                    type = new Type(id, false);
-                    break;
+                    return new OllirExprResult(id + ollirTypes.toOllirType(interner.type(id, false)));
                 }
             }
+            throw new RuntimeException("Undefined identifier '" + id + "' in method '" + method.getMethodName() + "'");
         }
 
-        // If still not found, throw a more informative error
-        if (type == null) {
-            throw new RuntimeException("Undefined identifier '" + id + "' in method '" + methodName + "'");
-        }
-
-        String ollirType = ollirTypes.toOllirType(type);
-
-        // Handle field access (if it's a field and not a local/parameter)
-        boolean isLocal = table.getLocalVariables(methodName).stream()
-                .anyMatch(symbol -> symbol.getName().equals(id));
-        boolean isParam = table.getParameters(methodName).stream()
-                .anyMatch(symbol -> symbol.getName().equals(id));
+        String ollirType = ollirTypes.toOllirType(binding.type());
 
-        if (!isLocal && !isParam && table.getFields().stream().anyMatch(f -> f.getName().equals(id))) {
+        if (binding.isField()) {
             // Create a temporary variable to hold the field value
             String tempVar = ollirTypes.nextTemp() + ollirType;
 
@@ -236,7 +251,7 @@ public class OllirExprGeneratorVisitor extends PreorderJmmVisitor<Void, OllirExp
     }
 
     private OllirExprResult visitBoolean(JmmNode node, Void unused) {
-        Type boolType = new Type("boolean", false);
+        Type boolType = interner.booleanType();
         String ollirBoolType = ollirTypes.toOllirType(boolType);
         String value = node.getKind().equals(BOOLEAN_TRUE.getNodeName()) ? "1" : "0";
         String code = value + ollirBoolType;
@@ -249,7 +264,7 @@ public class OllirExprGeneratorVisitor extends PreorderJmmVisitor<Void, OllirExp
     }
 
     private OllirExprResult visitThisExpr(JmmNode node, Void unused) {
-        Type classType = new Type(table.getClassName(), false);
+        Type classType = interner.type(table.getClassName(), false);
         String ollirType = ollirTypes.toOllirType(classType);
         String code = "this" + ollirType;
         return new OllirExprResult(code);
@@ -261,11 +276,10 @@ public class OllirExprGeneratorVisitor extends PreorderJmmVisitor<Void, OllirExp
         StringBuilder computation = new StringBuilder();
         computation.append(operand.getComputation());
 
-        Type resType = types.getExprType(node);
-        String resOllirType = ollirTypes.toOllirType(resType);
+        // Only '!' operator is supported in the grammar, and its result is a boolean
+        String resOllirType = ollirTypes.toOllirType(interner.booleanType());
         String code = ollirTypes.nextTemp() + resOllirType;
 
-        // Only '!' operator is supported in the grammar
         computation.append(code).append(SPACE)
                 .append(ASSIGN).append(resOllirType).append(SPACE)
                 .append("!").append(resOllirType).append(SPACE)
@@ -280,7 +294,7 @@ public class OllirExprGeneratorVisitor extends PreorderJmmVisitor<Void, OllirExp
         StringBuilder computation = new StringBuilder();
         computation.append(sizeExpr.getComputation());
 
-        Type arrayType = new Type("int", true);
+        Type arrayType = interner.intArrayType();
         String ollirType = ollirTypes.toOllirType(arrayType);
         String code = ollirTypes.nextTemp() + ollirType;
 
@@ -295,7 +309,7 @@ public class OllirExprGeneratorVisitor extends PreorderJmmVisitor<Void, OllirExp
 
     private OllirExprResult visitNewObjectExpr(JmmNode node, Void unused) {
         String className = node.get("value");
-        Type objType = new Type(className, false);
+        Type objType = interner.type(className, false);
         String ollirType = ollirTypes.toOllirType(objType);
         String code = ollirTypes.nextTemp() + ollirType;
 
@@ -319,14 +333,6 @@ public class OllirExprGeneratorVisitor extends PreorderJmmVisitor<Void, OllirExp
         JmmNode arrayNode = node.getChild(0);
         JmmNode indexNode = node.getChild(1);
 
-        // Get the method name from ancestors
-        String methodName = node.getAncestor(METHOD_DECL.getNodeName())
-                .map(m -> m.get("name"))
-                .orElse("main");
-
-        // Handle special case for "args" parameter in main method
-        if ("args".equals(methodName)) methodName = "main";
-
         // Visit array and index expressions to get their OLLIR code
         OllirExprResult arrayExpr = visit(arrayNode);
         OllirExprResult indexExpr = visit(indexNode);
@@ -335,35 +341,13 @@ public class OllirExprGeneratorVisitor extends PreorderJmmVisitor<Void, OllirExp
         computation.append(arrayExpr.getComputation());
         computation.append(indexExpr.getComputation());
 
-        // Get element type (the type of array without the array part)
-        Type arrayType;
-        try {
-            arrayType = types.getExprType(arrayNode, methodName);
-            // Special case for "args" in the main method
-            if (arrayNode.getKind().equals(VAR_REF_EXPR.getNodeName()) && 
-                arrayNode.get("value").equals("args") && 
-                methodName.equals("main")) {
-                if (!arrayType.isArray()) {
-                    arrayType = new Type("String", true);
-                }
-            }
-            
-            if (!arrayType.isArray()) {
-                throw new RuntimeException("Expression is not an array: " + arrayNode);
-            }
-        } catch (Exception e) {
-            // Fallback to String array for main args if we can't determine the type
-            if (arrayNode.getKind().equals(VAR_REF_EXPR.getNodeName()) && 
-                arrayNode.get("value").equals("args") && 
-                methodName.equals("main")) {
-                arrayType = new Type("String", true);
-            } else {
-                // Re-throw if it's not the main args case
-                throw new RuntimeException("Error determining array type for: " + arrayNode, e);
-            }
+        // Get element type (the type of array without the array part), "args" of main included
+        Type arrayType = getExprType(arrayNode);
+        if (!arrayType.isArray()) {
+            throw new RuntimeException("Expression is not an array: " + arrayNode);
         }
 
-        Type elementType = new Type(arrayType.getName(), false);
+        Type elementType = interner.elementType(arrayType);
         String ollirType = ollirTypes.toOllirType(elementType);
 
         // Create temporary for the array access expression
@@ -384,7 +368,7 @@ public class OllirExprGeneratorVisitor extends PreorderJmmVisitor<Void, OllirExp
         StringBuilder computation = new StringBuilder();
         computation.append(arrayExpr.getComputation());
 
-        Type intType = TypeUtils.newIntType();
+        Type intType = interner.intType();
         String ollirType = ollirTypes.toOllirType(intType);
         String code = ollirTypes.nextTemp() + ollirType;
 
@@ -420,12 +404,15 @@ public class OllirExprGeneratorVisitor extends PreorderJmmVisitor<Void, OllirExp
             JmmNode caller = node.getChild(0);
             if (caller.getKind().equals(THIS_EXPR.getNodeName()) ||
                     (caller.getKind().equals(VAR_REF_EXPR.getNodeName()) && caller.get("value").equals(table.getClassName()))) {
-                returnType = table.getReturnType(methodName);
+                // Inherited methods are typed from the signatures of the super class
+                returnType = table.getMethods().contains(methodName)
+                        ? table.getReturnType(methodName)
+                        : types.getExprType(node, method.getMethodName());
             } else {
-                returnType = types.getExprType(node);
+                returnType = types.getExprType(node, method.getMethodName());
             }
         } catch (Exception e) {
-            returnType = TypeUtils.newIntType();
+            returnType = interner.intType();
         }
 
         String ollirReturnType = ollirTypes.toOllirType(returnType);
@@ -477,20 +464,12 @@ public class OllirExprGeneratorVisitor extends PreorderJmmVisitor<Void, OllirExp
         String varName = node.get("value");
         String op = node.get("op");
 
-        // Get the current method name from ancestors for context
-        String methodName = node.getAncestor(METHOD_DECL.getNodeName())
-                .map(m -> m.get("name"))
-                .orElse("main");
-
-        // Handle special case for "args" parameter in main method
-        if ("args".equals(methodName)) methodName = "main";
-
         Type type;
         try {
-            type = types.getExprType(node);
+            type = getExprType(node);
         } catch (Exception e) {
             // Fallback to int type if we can't determine the expression type
-            type = TypeUtils.newIntType();
+            type = interner.intType();
         }
         
         String ollirType = ollirTypes.toOllirType(type);
@@ -524,16 +503,12 @@ public class OllirExprGeneratorVisitor extends PreorderJmmVisitor<Void, OllirExp
     private OllirExprResult visitArrayLiteralExpr(JmmNode node, Void unused) {
         StringBuilder computation = new StringBuilder();
 
-        // Find the method name for context
-        String methodName = node.getAncestor("MethodDecl").map(m -> m.get("name")).orElse("main");
-        if ("args".equals(methodName)) methodName = "main";
-
         // Determine the element type from first element or default to int
         Type elemType = node.getNumChildren() > 0
-                ? types.getExprType(node.getChild(0), methodName)
-                : TypeUtils.newIntType();
+                ? getExprType(node.getChild(0))
+                : interner.intType();
 
-        Type arrayType = new Type(elemType.getName(), true);
+        Type arrayType = interner.arrayOf(elemType);
         String ollirArrayType = ollirTypes.toOllirType(arrayType);
         String ollirElemType = ollirTypes.toOllirType(elemType);
 
@@ -542,7 +517,7 @@ public class OllirExprGeneratorVisitor extends PreorderJmmVisitor<Void, OllirExp
 
         // Create new array of the correct size
         computation.append(arrayVar).append(" :=").append(ollirArrayType)
-                .append(" new(array, ").append(node.getNumChildren()).append(")")
+                .append(" new(array, ").append(node.getNumChildren()).append(".i32)")
                 .append(ollirArrayType).append(END_STMT);
 
         // Populate array elements
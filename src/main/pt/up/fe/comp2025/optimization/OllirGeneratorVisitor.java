@@ -5,7 +5,11 @@ import pt.up.fe.comp.jmm.analysis.table.Type;
 import pt.up.fe.comp.jmm.ast.AJmmVisitor;
 import pt.up.fe.comp.jmm.ast.JmmNode;
 import pt.up.fe.comp2025.ast.TypeUtils;
+import pt.up.fe.comp2025.optimization.ssa.IrMethod;
+import pt.up.fe.comp2025.optimization.ssa.OllirEmitter;
 
+import java.util.HashMap;
+import java.util.Map;
 import java.util.stream.Collectors;
 
 import static pt.up.fe.comp2025.ast.Kind.*;
@@ -31,10 +35,26 @@ public class OllirGeneratorVisitor extends AJmmVisitor<Void, String> {
 
     private final OllirExprGeneratorVisitor exprVisitor;
 
+    // Bodies of the methods that were lowered through the SSA IR, by method name
+    private final Map<String, IrMethod> irMethods;
+
+    // Variables of each method, resolved once, and those of the method being generated
+    private final Map<String, MethodBindings> bindings;
+    private MethodBindings method;
+
     public OllirGeneratorVisitor(SymbolTable table) {
+        this(table, Map.of());
+    }
+
+    /**
+     * @param irMethods methods whose body is emitted from the IR (already out of SSA form) instead of the AST
+     */
+    public OllirGeneratorVisitor(SymbolTable table, Map<String, IrMethod> irMethods) {
         this.table = table;
         this.types = new TypeUtils(table);
         this.ollirTypes = new OptUtils(types);
+        this.irMethods = irMethods;
+        this.bindings = new HashMap<>();
         exprVisitor = new OllirExprGeneratorVisitor(table);
     }
 
@@ -72,9 +92,6 @@ public class OllirGeneratorVisitor extends AJmmVisitor<Void, String> {
         var rhsResult = exprVisitor.visit(rhsNode);
         code.append(rhsResult.getComputation());
 
-        String methodName = node.getAncestor("MethodDecl").map(m -> m.get("name")).orElse("main");
-        if ("args".equals(methodName)) methodName = "main";
-
         // Handle array assignments like a[i] = ...
         if (lhs.getKind().equals("ArrayAccessExpr")) {
             var arrayExpr = exprVisitor.visit(lhs.getChild(0)); // array name (e.g., a)
@@ -83,7 +100,7 @@ public class OllirGeneratorVisitor extends AJmmVisitor<Void, String> {
             code.append(arrayExpr.getComputation());
             code.append(indexExpr.getComputation());
 
-            Type elemType = types.getExprType(lhs, methodName);
+            Type elemType = exprVisitor.getExprType(lhs);
             String ollirElemType = ollirTypes.toOllirType(elemType);
 
             code.append(arrayExpr.getCode()).append("[")
@@ -105,8 +122,7 @@ public class OllirGeneratorVisitor extends AJmmVisitor<Void, String> {
         }
         
         // Only try to access 'value' attribute if the node type is expected to have it
-        // Using final for lhsName since it's used in lambda expressions
-        final String lhsName;
+        String lhsName;
         if (effectiveLhs.getKind().equals("VarRefExpr") || 
             effectiveLhs.getKind().equals("PostfixExpr") || 
             effectiveLhs.hasAttribute("value")) {
@@ -115,16 +131,12 @@ public class OllirGeneratorVisitor extends AJmmVisitor<Void, String> {
             lhsName = "UNKNOWN_ID";
         }
         
-        Type lhsType = types.getExprType(lhs, methodName);
-        String ollirType = ollirTypes.toOllirType(lhsType);
-
-        boolean isLocalOrParam =
-                table.getLocalVariables(methodName).stream().anyMatch(s -> s.getName().equals(lhsName)) ||
-                        table.getParameters(methodName).stream().anyMatch(s -> s.getName().equals(lhsName));
+        var binding = method.get(lhsName);
 
-        boolean isField = table.getFields().stream().anyMatch(f -> f.getName().equals(lhsName));
+        Type lhsType = binding != null ? binding.type() : exprVisitor.getExprType(lhs);
+        String ollirType = ollirTypes.toOllirType(lhsType);
 
-        if (!isLocalOrParam && isField) {
+        if (binding != null && binding.isField()) {
             code.append("putfield(this.").append(table.getClassName())
                     .append(", ").append(lhsName).append(ollirType)
                     .append(", ").append(rhsResult.getCode()).append(")")
@@ -142,20 +154,8 @@ public class OllirGeneratorVisitor extends AJmmVisitor<Void, String> {
     private String visitReturn(JmmNode node, Void unused) {
         StringBuilder code = new StringBuilder();
 
-        // Get the method name from the ancestors
-        JmmNode methodNode = node;
-        while (methodNode != null && !methodNode.getKind().equals(METHOD_DECL.getNodeName())) {
-            methodNode = methodNode.getParent();
-        }
-
-        if (methodNode == null) {
-            throw new RuntimeException("Return statement outside method context");
-        }
-
-        String methodName = methodNode.get("name");
-
         // Get the return type of the method
-        Type retType = table.getReturnType(methodName);
+        Type retType = table.getReturnType(method.getMethodName());
 
         // Process the expression if it exists
         var expr = node.getNumChildren() > 0 ? exprVisitor.visit(node.getChild(0)) : OllirExprResult.EMPTY;
@@ -193,20 +193,28 @@ public class OllirGeneratorVisitor extends AJmmVisitor<Void, String> {
     private String visitMethodDecl(JmmNode node, Void unused) {
         StringBuilder code = new StringBuilder(".method ");
 
+        // Method name; the name attribute of main is the name of its parameter
+        String name = node.get("name");
+        boolean isMain = name.equals("args");
+        if (isMain) name = "main";
+
         // Add access modifiers
-        boolean isPublic = node.getBoolean("isPublic", false);
+        boolean isPublic = isMain || node.getBoolean("isPublic", false);
         if (isPublic) code.append("public ");
-        boolean isStatic = node.getBoolean("isStatic", false);
+        boolean isStatic = isMain || node.getBoolean("isStatic", false);
         if (isStatic) code.append("static ");
 
-        // Method name
-        String name = node.get("name");
-        if (name.equals("args")) name = "main";
         code.append(name).append("(");
 
+        // The names used in the body are resolved against the variables of this method
+        method = bindings.computeIfAbsent(name, key -> MethodBindings.of(table, key, types.getInterner()));
+        exprVisitor.setMethod(method);
+
         // Parameters
         var paramNodes = node.getChildren(PARAM);
-        if (!paramNodes.isEmpty()) {
+        if (isMain) {
+            code.append("args").append(ollirTypes.toOllirType(types.getInterner().stringArrayType()));
+        } else if (!paramNodes.isEmpty()) {
             var paramCodes = paramNodes.stream().map(this::visit).collect(Collectors.joining(", "));
             code.append(paramCodes);
         }
@@ -214,17 +222,25 @@ public class OllirGeneratorVisitor extends AJmmVisitor<Void, String> {
         code.append(")");
 
         // Return type
-        Type returnType = name.equals("main") ? new Type("void", false) : table.getReturnType(name);
-        if (returnType == null) returnType = new Type("void", false);
+        Type returnType = name.equals("main") ? types.getInterner().voidType() : table.getReturnType(name);
+        if (returnType == null) returnType = types.getInterner().voidType();
         code.append(ollirTypes.toOllirType(returnType));
 
         code.append(" {\n");
 
+        // Methods lowered through the IR define their locals before any use
+        IrMethod irMethod = irMethods.get(name);
+        if (irMethod != null) {
+            code.append(OllirEmitter.emit(irMethod, table.getClassName(), types.getInterner()));
+            code.append("}\n\n");
+            return code.toString();
+        }
+
         // Local variables
         for (var varDecl : node.getChildren(VAR_DECL)) {
             JmmNode typeNode = varDecl.getChild(0);
             String varName = varDecl.get("name");
-            Type varType = types.convertType(typeNode);
+            Type varType = TypeUtils.convertType(typeNode, types.getInterner());
             String ollirType = ollirTypes.toOllirType(varType);
             code.append("    ").append(varName).append(ollirType).append(" :=").append(ollirType)
                     .append(" 0").append(ollirType).append(";\n");
@@ -314,6 +330,15 @@ public class OllirGeneratorVisitor extends AJmmVisitor<Void, String> {
             code.append(result);
         }
 
+        // Methods added by the optimizations, which have no declaration in the AST
+        for (IrMethod irMethod : irMethods.values()) {
+            if (!table.getMethods().contains(irMethod.getName())) {
+                code.append(OllirEmitter.emitHeader(irMethod)).append(" {\n");
+                code.append(OllirEmitter.emit(irMethod, table.getClassName(), types.getInterner()));
+                code.append("}\n\n");
+            }
+        }
+
         code.append(R_BRACKET);
         return code.toString();
     }
@@ -367,38 +392,19 @@ public class OllirGeneratorVisitor extends AJmmVisitor<Void, String> {
     }
 
     private String visitWithElseStmt(JmmNode node, Void unused) {
-
-        /*
-        System.out.println("[DEBUG] visitWithElseStmt:");
-        System.out.println("Condition: " + node.getChild(0).toTree());
-        System.out.println("Then block: " + node.getChild(1).toTree());
-        System.out.println("Else block: " + node.getChild(2).toTree());
-         */
-
         StringBuilder code = new StringBuilder();
 
-        // Get the condition expression
-        var condExpr = exprVisitor.visit(node.getChild(0));
-        code.append(condExpr.getComputation());
-
-        // Create a unique label for the else branch and the end
         String elseLabel = ollirTypes.nextTemp("else");
         String endLabel = ollirTypes.nextTemp("endif");
-        String thenLabel = ollirTypes.nextTemp("then");
 
-        // If condition is false, jump to else
-        code.append("if (").append(condExpr.getCode()).append(") goto ").append(thenLabel).append(END_STMT);
-        code.append(elseLabel).append(":").append(NL);
-        code.append(visit(node.getChild(2).getChild(0)));
+        // The condition jumps to the else branch when it is false and falls through to the then branch
+        code.append(exprVisitor.visitCondition(node.getChild(0), elseLabel, false));
+        code.append(visit(node.getChild(1)));
         code.append("goto ").append(endLabel).append(END_STMT);
-        code.append(thenLabel).append(":").append(NL);
-        code.append(visit(node.getChild(1).getChild(0)));
+        code.append(elseLabel).append(":").append(NL);
+        code.append(visit(node.getChild(2)));
         code.append(endLabel).append(":").append(NL);
 
-
-        //System.out.println("[DEBUG] OLLIR if-else emitted:\n" + code);
-
-
         return code.toString();
     }
 
@@ -406,26 +412,21 @@ public class OllirGeneratorVisitor extends AJmmVisitor<Void, String> {
         StringBuilder code = new StringBuilder();
 
         String loopLabel = ollirTypes.nextTemp("loop");
-        String endLabel = ollirTypes.nextTemp("endloop");
-
-        code.append(loopLabel).append(":").append(NL);
+        String testLabel = ollirTypes.nextTemp("looptest");
 
-        var condExpr = exprVisitor.visit(node.getChild(0));
-        code.append(condExpr.getComputation());
-
-        // Fixed OLLIR syntax for the if statement
-        code.append("if (!.bool ").append(condExpr.getCode()).append(") goto ").append(endLabel).append(END_STMT);
+        // The loop is rotated: it is entered with a jump to the test at the end of the body, so each iteration runs
+        // a single conditional branch back to the body instead of a test at the top and a goto
+        code.append("goto ").append(testLabel).append(END_STMT);
 
+        code.append(loopLabel).append(":").append(NL);
         code.append(visit(node.getChild(1)));
-        code.append("goto ").append(loopLabel).append(END_STMT);
-        code.append(endLabel).append(":").append(NL);
+
+        code.append(testLabel).append(":").append(NL);
+        code.append(exprVisitor.visitCondition(node.getChild(0), loopLabel, true));
 
         return code.toString();
     }
 
-
-
-
     private String visitBlockStmt(JmmNode node, Void unused) {
         StringBuilder code = new StringBuilder();
 
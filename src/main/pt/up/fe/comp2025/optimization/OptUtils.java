@@ -13,6 +13,8 @@ import static pt.up.fe.comp2025.ast.Kind.TYPE;
  */
 public class OptUtils {
 
+    private static final String OLLIR_TYPE = "ollirType";
+
     private final AccumulatorMap<String> temporaries;
 
     private final TypeUtils types;
@@ -32,9 +34,13 @@ public class OptUtils {
         return prefix + nextTempNum;
     }
 
+    public TypeUtils getTypes() {
+        return types;
+    }
+
     public String toOllirType(JmmNode typeNode) {
         TYPE.checkOrThrow(typeNode);
-        return toOllirType(types.convertType(typeNode));
+        return toOllirType(TypeUtils.convertType(typeNode, types.getInterner()));
     }
 
     public static String toOllirType(Type type) {
@@ -44,11 +50,19 @@ public class OptUtils {
             return ".V";
         }
 
+        // Types are interned per compilation, so the suffix is computed once per canonical type
+        // and kept in the type's attributes
+        if (type.hasAttribute(OLLIR_TYPE)) {
+            return (String) type.getObject(OLLIR_TYPE);
+        }
+
         String result = "";
         if (type.isArray()) {
             result += ".array";
         }
-        return result + toOllirType(type.getName());
+        result += toOllirType(type.getName());
+        type.putObject(OLLIR_TYPE, result);
+        return result;
     }
 
     private static String toOllirType(String typeName) {
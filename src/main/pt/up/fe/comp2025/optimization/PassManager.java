@@ -0,0 +1,201 @@
+package pt.up.fe.comp2025.optimization;
+
+import pt.up.fe.comp2025.ConfigOptions;
+import pt.up.fe.comp2025.optimization.ssa.IrMethod;
+import pt.up.fe.comp2025.optimization.ssa.IrVerifier;
+
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Runs the optimization passes selected by the optimization level and the per-pass overrides of the configuration,
+ * and keeps statistics of how much each pass changed and how long it took.
+ * <p>
+ * Each pass is enabled from a minimum level: -O0 runs nothing, -O1 the cheap cleanups (constant propagation and
+ * algebraic simplification of the AST, copy propagation, constant folding and dead code elimination of the IR),
+ * -O2, which {@code -o} stands for, also the passes that cost more compile time (tail recursion elimination,
+ * specialization, inlining, scalar replacement, value range analysis, value numbering, loop invariant code motion,
+ * strength reduction and loop unrolling, which only runs with a growth budget). -O3 runs the passes of -O2 with
+ * larger budgets: loops are unrolled within {@code unrollGrowth} (64 by default, 0 below -O3), and inlining and
+ * specialization may add twice as many instructions. The {@code passes} option enables ({@code name} or
+ * {@code +name}) or disables ({@code -name}) single passes regardless of the level.
+ * <p>
+ * Passes that enable each other run as fixed-point groups: the group runs its passes in order until a round changes
+ * nothing or the rounds reach the iteration budget. A pass whose total time exceeds the time budget is skipped for
+ * the rest of the compilation. When IR verification is enabled, the IR is verified after every pass that changed it.
+ */
+public class PassManager {
+
+    /**
+     * A pass over a unit of code: the AST, the methods of the class or a single method.
+     */
+    @FunctionalInterface
+    public interface Pass<T> {
+        /**
+         * @return how many changes the pass made, 0 if none
+         */
+        int apply(T unit);
+    }
+
+    public record Step<T>(String name, Pass<T> pass) {
+    }
+
+    private static class Statistics {
+        private int runs;
+        private int changes;
+        private long nanos;
+    }
+
+    // Lowest level that runs each pass
+    private static final Map<String, Integer> LEVELS = new LinkedHashMap<>();
+
+    static {
+        LEVELS.put("constant-propagation", 1);
+        LEVELS.put("algebraic-simplification", 1);
+        LEVELS.put("tail-recursion", 2);
+        LEVELS.put("specialization", 2);
+        LEVELS.put("inlining", 2);
+        LEVELS.put("scalar-replacement", 2);
+        LEVELS.put("copy-propagation", 1);
+        LEVELS.put("constant-folding", 1);
+        LEVELS.put("value-range", 2);
+        LEVELS.put("gvn", 2);
+        LEVELS.put("licm", 2);
+        LEVELS.put("strength-reduction", 2);
+        LEVELS.put("loop-unrolling", 2);
+        LEVELS.put("dce", 1);
+    }
+
+    private final int level;
+    private final Map<String, Boolean> overrides;
+    private final long timeBudgetNanos;
+    private final int maxIterations;
+    private final boolean verify;
+    private final Map<String, Statistics> statistics;
+
+    public PassManager(Map<String, String> config) {
+        this.level = ConfigOptions.getOptLevel(config);
+        this.overrides = parseOverrides(ConfigOptions.getPasses(config));
+        this.timeBudgetNanos = ConfigOptions.getPassTimeBudget(config) * 1_000_000L;
+        this.maxIterations = ConfigOptions.getPassIterations(config);
+        this.verify = ConfigOptions.getVerifyIr(config);
+        this.statistics = new LinkedHashMap<>();
+    }
+
+    public static <T> Step<T> step(String name, Pass<T> pass) {
+        return new Step<>(name, pass);
+    }
+
+    public int getLevel() {
+        return level;
+    }
+
+    /**
+     * @return true if the pass runs at this level or was enabled by an override, and not disabled by one
+     */
+    public boolean isEnabled(String pass) {
+        return overrides.getOrDefault(pass, level >= LEVELS.get(pass));
+    }
+
+    /**
+     * Runs the pass on the unit, if it is enabled and within its time budget.
+     *
+     * @return how many changes the pass made
+     */
+    public <T> int run(String name, T unit, Pass<T> pass) {
+        if (!LEVELS.containsKey(name)) {
+            throw new RuntimeException("Unknown optimization pass '" + name + "'");
+        }
+        if (!isEnabled(name)) {
+            return 0;
+        }
+
+        Statistics passStatistics = statistics.computeIfAbsent(name, key -> new Statistics());
+        if (timeBudgetNanos > 0 && passStatistics.nanos > timeBudgetNanos) {
+            return 0;
+        }
+
+        long start = System.nanoTime();
+        int changes = pass.apply(unit);
+        passStatistics.nanos += System.nanoTime() - start;
+        passStatistics.runs++;
+        passStatistics.changes += changes;
+
+        if (timeBudgetNanos > 0 && passStatistics.nanos > timeBudgetNanos) {
+            System.out.println("[PassManager] " + name + " is over its time budget, skipping it from now on");
+        }
+        if (changes > 0) {
+            verify(unit, name);
+        }
+        return changes;
+    }
+
+    /**
+     * Runs the steps in order until a round changes nothing, for at most the iteration budget of rounds.
+     *
+     * @return how many changes the steps made
+     */
+    public <T> int runToFixedPoint(String group, T unit, List<Step<T>> steps) {
+        int total = 0;
+        for (int round = 1; round <= maxIterations; round++) {
+            int changes = 0;
+            for (Step<T> step : steps) {
+                changes += run(step.name(), unit, step.pass());
+            }
+            total += changes;
+
+            if (changes == 0) {
+                return total;
+            }
+        }
+
+        System.out.println("[PassManager] " + group + " did not reach a fixed point in " + maxIterations
+                + " round(s)");
+        return total;
+    }
+
+    /**
+     * Verifies the IR in the unit, when verification is enabled: a method, or the methods of the class.
+     *
+     * @param after what changed the unit last, for the error message
+     */
+    public void verify(Object unit, String after) {
+        if (!verify) {
+            return;
+        }
+
+        if (unit instanceof IrMethod method) {
+            IrVerifier.verify(method, after);
+        } else if (unit instanceof Map<?, ?> methods) {
+            for (Object method : methods.values()) {
+                if (method instanceof IrMethod irMethod) {
+                    IrVerifier.verify(irMethod, after);
+                }
+            }
+        }
+    }
+
+    public void printStatistics() {
+        for (Map.Entry<String, Statistics> entry : statistics.entrySet()) {
+            Statistics passStatistics = entry.getValue();
+            System.out.println("[PassManager] " + entry.getKey() + ": " + passStatistics.runs + " run(s), "
+                    + passStatistics.changes + " change(s), " + passStatistics.nanos / 1_000_000 + " ms");
+        }
+    }
+
+    private static Map<String, Boolean> parseOverrides(List<String> passes) {
+        Map<String, Boolean> overrides = new HashMap<>();
+        for (String pass : passes) {
+            boolean enabled = !pass.startsWith("-");
+            String name = pass.startsWith("-") || pass.startsWith("+") ? pass.substring(1) : pass;
+            if (!LEVELS.containsKey(name)) {
+                throw new RuntimeException("Unknown optimization pass '" + name + "', expected one of "
+                        + LEVELS.keySet());
+            }
+            overrides.put(name, enabled);
+        }
+        return overrides;
+    }
+}
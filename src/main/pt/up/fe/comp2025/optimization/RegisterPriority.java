@@ -0,0 +1,85 @@
+package pt.up.fe.comp2025.optimization;
+
+import org.specs.comp.ollir.Descriptor;
+import org.specs.comp.ollir.Method;
+import org.specs.comp.ollir.VarScope;
+import pt.up.fe.comp.jmm.ollir.OllirResult;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Gives the locals of each method that run most often the lowest registers, which the JVM loads and stores with
+ * shorter instructions ({@code iload_1} instead of {@code iload 5}).
+ * <p>
+ * OLLIR numbers the locals in the order they first appear in the code, so a variable that is only used in a hot loop
+ * may get a high register. The registers of the locals of a method are reassigned among themselves, in decreasing
+ * order of their weights (the estimated number of times they are read or written), so no two locals end up sharing a
+ * register. {@code this} and the parameters keep theirs. Register allocation ({@code -r}), when enabled, runs later
+ * and assigns the registers again.
+ */
+public class RegisterPriority {
+
+    private final OllirResult ollirResult;
+    private final Map<String, Map<String, Long>> weights;
+
+    /**
+     * @param weights the weight of each local, by method and local name
+     */
+    public RegisterPriority(OllirResult ollirResult, Map<String, Map<String, Long>> weights) {
+        this.ollirResult = ollirResult;
+        this.weights = weights;
+    }
+
+    /**
+     * @return the number of locals that changed register
+     */
+    public int apply() {
+        int moved = 0;
+        for (Method method : ollirResult.getOllirClass().getMethods()) {
+            Map<String, Long> methodWeights = weights.get(method.getMethodName());
+            if (methodWeights != null) {
+                moved += prioritize(method, methodWeights);
+            }
+        }
+        return moved;
+    }
+
+    private static int prioritize(Method method, Map<String, Long> methodWeights) {
+        List<Map.Entry<String, Descriptor>> locals = new ArrayList<>();
+        for (Map.Entry<String, Descriptor> entry : method.getVarTable().entrySet()) {
+            if (entry.getValue().getScope() == VarScope.LOCAL && !"this".equals(entry.getKey())) {
+                locals.add(entry);
+            }
+        }
+
+        List<Integer> registers = new ArrayList<>();
+        for (Map.Entry<String, Descriptor> local : locals) {
+            registers.add(local.getValue().getVirtualReg());
+        }
+        registers.sort(Comparator.naturalOrder());
+
+        // Ties keep the order of the current registers
+        locals.sort(Comparator.<Map.Entry<String, Descriptor>>comparingLong(
+                        local -> -methodWeights.getOrDefault(local.getKey(), 0L))
+                .thenComparingInt(local -> local.getValue().getVirtualReg()));
+
+        int moved = 0;
+        List<String> order = new ArrayList<>();
+        for (int i = 0; i < locals.size(); i++) {
+            Descriptor descriptor = locals.get(i).getValue();
+            if (descriptor.getVirtualReg() != registers.get(i)) {
+                descriptor.setVirtualReg(registers.get(i));
+                moved++;
+            }
+            order.add(locals.get(i).getKey() + "=" + registers.get(i));
+        }
+
+        if (moved > 0) {
+            System.out.println("[PGO] " + method.getMethodName() + ": registers by weight " + String.join(", ", order));
+        }
+        return moved;
+    }
+}
@@ -0,0 +1,73 @@
+package pt.up.fe.comp2025.optimization;
+
+import org.specs.comp.ollir.LiteralElement;
+import org.specs.comp.ollir.Method;
+import org.specs.comp.ollir.OperationType;
+import org.specs.comp.ollir.inst.AssignInstruction;
+import org.specs.comp.ollir.inst.BinaryOpInstruction;
+import org.specs.comp.ollir.inst.Instruction;
+import pt.up.fe.comp.jmm.ollir.OllirResult;
+
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Turns back into shifts the divisions of the OLLIR that the IR replaced by shifts.
+ * <p>
+ * OLLIR has no shift operator, so the IR emits {@code x >> k} as {@code x / 2^k}, which has the same value since
+ * {@code x} is never negative, and keeps the positions of those divisions among the divisions of the method. Their
+ * instructions become shifts by {@code k}, which the backend generates as {@code ishr}.
+ */
+public class ShiftLowering {
+
+    private final OllirResult ollirResult;
+    private final Map<String, Set<Integer>> shifts;
+
+    /**
+     * @param shifts the positions of the divisions that are shifts, by method name
+     */
+    public ShiftLowering(OllirResult ollirResult, Map<String, Set<Integer>> shifts) {
+        this.ollirResult = ollirResult;
+        this.shifts = shifts;
+    }
+
+    /**
+     * @return the number of divisions that became shifts
+     */
+    public int apply() {
+        int lowered = 0;
+        for (Method method : ollirResult.getOllirClass().getMethods()) {
+            Set<Integer> methodShifts = shifts.getOrDefault(method.getMethodName(), Set.of());
+            if (!methodShifts.isEmpty()) {
+                lowered += lower(method, methodShifts);
+            }
+        }
+        return lowered;
+    }
+
+    private static int lower(Method method, Set<Integer> methodShifts) {
+        int lowered = 0;
+        int division = 0;
+        for (Instruction instruction : method.getInstructions()) {
+            if (!(instruction instanceof AssignInstruction assign)
+                    || !(assign.getRhs() instanceof BinaryOpInstruction binaryOp)
+                    || binaryOp.getOperation().getOpType() != OperationType.DIV) {
+                continue;
+            }
+
+            if (methodShifts.contains(division)) {
+                var divisor = (LiteralElement) binaryOp.getRightOperand();
+                int shift = Integer.numberOfTrailingZeros(Integer.parseInt(divisor.getLiteral()));
+                binaryOp.setRightOperand(new LiteralElement(Integer.toString(shift), divisor.getType()));
+                binaryOp.getOperation().setOpType(OperationType.SHR);
+                lowered++;
+            }
+            division++;
+        }
+
+        if (division < methodShifts.size()) {
+            throw new RuntimeException("Method '" + method.getMethodName() + "' has fewer divisions than shifts");
+        }
+        return lowered;
+    }
+}
@@ -0,0 +1,516 @@
+package pt.up.fe.comp2025.optimization;
+
+import pt.up.fe.comp.jmm.analysis.table.Symbol;
+import pt.up.fe.comp.jmm.analysis.table.SymbolTable;
+import pt.up.fe.comp.jmm.ast.JmmNode;
+import pt.up.fe.comp.jmm.ast.JmmNodeImpl;
+import pt.up.fe.comp2025.ast.Kind;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Conditional constant propagation and folding over the {@link StatementCfg} of each method.
+ * <p>
+ * The analysis keeps, for each local variable and parameter, a value in the lattice TOP > constant > BOTTOM, and only
+ * follows the edges of the CFG that can be taken: a branch whose condition is a constant only makes the taken
+ * successor executable. Blocks are processed from a worklist, and a block is only processed again when the values
+ * at its entry go down in the lattice, so the solve reaches the fixed point directly (each variable can only go down
+ * twice per block) instead of repeating whole-AST passes until nothing changes.
+ * <p>
+ * Variables assigned inside loops keep their constant value when every assignment that reaches a use gives the same
+ * constant. After the solve, pure expressions with a constant value are replaced by literals, if and while statements
+ * with a constant condition are replaced by the branch that is taken, and statements in blocks that are never
+ * executed are removed.
+ */
+public class SparseConditionalConstantPropagation {
+
+    private enum State {
+        TOP, CONSTANT, BOTTOM
+    }
+
+    private record Value(State state, Object constant) {
+
+        static final Value TOP = new Value(State.TOP, null);
+        static final Value BOTTOM = new Value(State.BOTTOM, null);
+
+        static Value of(Object constant) {
+            return new Value(State.CONSTANT, constant);
+        }
+
+        boolean isConstant() {
+            return state == State.CONSTANT;
+        }
+
+        Value meet(Value other) {
+            if (state == State.TOP) return other;
+            if (other.state == State.TOP) return this;
+            if (state == State.BOTTOM || other.state == State.BOTTOM) return BOTTOM;
+            return constant.equals(other.constant) ? this : BOTTOM;
+        }
+    }
+
+    private static final Set<String> COMPOUND_OPS = Set.of("+=", "-=", "*=", "/=");
+
+    private final SymbolTable table;
+
+    private int replacedExpressions;
+    private int removedStatements;
+    private int foldedBranches;
+
+    public SparseConditionalConstantPropagation(SymbolTable table) {
+        this.table = table;
+    }
+
+    /**
+     * Optimizes every method of the program.
+     *
+     * @return true if the AST changed
+     */
+    public boolean apply(JmmNode root) {
+        replacedExpressions = 0;
+        removedStatements = 0;
+        foldedBranches = 0;
+
+        for (JmmNode methodDecl : root.getDescendants(Kind.METHOD_DECL)) {
+            new MethodSolver(methodDecl).run();
+        }
+
+        System.out.println("[SCCP] replaced " + replacedExpressions + " expression(s) with constants, folded "
+                + foldedBranches + " branch(es), removed " + removedStatements + " unreachable statement(s)");
+
+        return replacedExpressions + removedStatements + foldedBranches > 0;
+    }
+
+    public int getReplacedExpressions() {
+        return replacedExpressions;
+    }
+
+    public int getRemovedStatements() {
+        return removedStatements;
+    }
+
+    public int getFoldedBranches() {
+        return foldedBranches;
+    }
+
+    private class MethodSolver {
+
+        private final JmmNode methodDecl;
+        private final Set<String> variables;
+        private final StatementCfg cfg;
+
+        private final Map<StatementCfg.Block, Map<String, Value>> entryValues;
+        private final Set<StatementCfg.Block> executable;
+
+        // Value of each expression, recorded in the last evaluation of the executable blocks
+        private final Map<JmmNode, Value> values;
+        private boolean recording;
+
+        MethodSolver(JmmNode methodDecl) {
+            this.methodDecl = methodDecl;
+
+            String name = methodDecl.get("name");
+            String methodName = name.equals("args") ? "main" : name;
+
+            this.variables = new HashSet<>();
+            for (Symbol param : table.getParameters(methodName)) {
+                variables.add(param.getName());
+            }
+            for (Symbol local : table.getLocalVariables(methodName)) {
+                variables.add(local.getName());
+            }
+
+            this.cfg = StatementCfg.build(methodDecl);
+            this.entryValues = new HashMap<>();
+            this.executable = new HashSet<>();
+            this.values = new IdentityHashMap<>();
+        }
+
+        void run() {
+            solve();
+
+            // Evaluate each executable block once more with the final values, to know the value of each expression
+            recording = true;
+            for (StatementCfg.Block block : executable) {
+                Map<String, Value> env = new HashMap<>(entryValues.get(block));
+                for (JmmNode stmt : block.getStatements()) {
+                    transfer(stmt, env);
+                }
+                if (block.getCondition() != null) {
+                    eval(block.getCondition(), env);
+                }
+            }
+
+            for (JmmNode child : new ArrayList<>(methodDecl.getChildren())) {
+                if (StatementCfg.isStatement(child)) {
+                    simplify(child);
+                }
+            }
+        }
+
+        private void solve() {
+            // Parameters and uninitialized locals are unknown at the entry of the method
+            Map<String, Value> initial = new HashMap<>();
+            for (String variable : variables) {
+                initial.put(variable, Value.BOTTOM);
+            }
+
+            StatementCfg.Block entry = cfg.getEntry();
+            entryValues.put(entry, initial);
+            executable.add(entry);
+
+            Deque<StatementCfg.Block> worklist = new ArrayDeque<>();
+            Set<StatementCfg.Block> queued = new HashSet<>();
+            worklist.add(entry);
+            queued.add(entry);
+
+            while (!worklist.isEmpty()) {
+                StatementCfg.Block block = worklist.poll();
+                queued.remove(block);
+
+                Map<String, Value> env = new HashMap<>(entryValues.get(block));
+                for (JmmNode stmt : block.getStatements()) {
+                    transfer(stmt, env);
+                }
+
+                List<StatementCfg.Block> successors;
+                if (block.getCondition() != null) {
+                    Value condition = eval(block.getCondition(), env);
+                    if (condition.isConstant() && isPure(block.getCondition())) {
+                        successors = List.of((Boolean) condition.constant() ? block.getIfTrue() : block.getIfFalse());
+                    } else {
+                        successors = block.getSuccessors();
+                    }
+                } else {
+                    successors = block.getSuccessors();
+                }
+
+                for (StatementCfg.Block successor : successors) {
+                    boolean changed = executable.add(successor);
+
+                    Map<String, Value> previous = entryValues.get(successor);
+                    if (previous == null) {
+                        entryValues.put(successor, env);
+                        changed = true;
+                    } else {
+                        Map<String, Value> merged = meet(previous, env);
+                        if (!merged.equals(previous)) {
+                            entryValues.put(successor, merged);
+                            changed = true;
+                        }
+                    }
+
+                    if (changed && queued.add(successor)) {
+                        worklist.add(successor);
+                    }
+                }
+            }
+        }
+
+        private Map<String, Value> meet(Map<String, Value> a, Map<String, Value> b) {
+            Map<String, Value> result = new HashMap<>();
+            for (String variable : variables) {
+                result.put(variable, a.getOrDefault(variable, Value.TOP).meet(b.getOrDefault(variable, Value.TOP)));
+            }
+            return result;
+        }
+
+        private void transfer(JmmNode stmt, Map<String, Value> env) {
+            if (Kind.ASSIGN_STMT.check(stmt) && stmt.getNumChildren() == 2) {
+                Value value = eval(stmt.getChild(1), env);
+
+                JmmNode lhs = unwrap(stmt.getChild(0));
+                if (Kind.VAR_REF_EXPR.check(lhs)) {
+                    if (variables.contains(lhs.get("value"))) {
+                        env.put(lhs.get("value"), value);
+                    }
+                } else {
+                    for (JmmNode child : lhs.getChildren()) {
+                        eval(child, env);
+                    }
+                }
+                return;
+            }
+
+            for (JmmNode child : stmt.getChildren()) {
+                eval(child, env);
+            }
+        }
+
+        private Value eval(JmmNode node, Map<String, Value> env) {
+            Value value = evalNode(node, env);
+            if (recording) {
+                values.put(node, value);
+            }
+            return value;
+        }
+
+        private Value evalNode(JmmNode node, Map<String, Value> env) {
+            switch (node.getKind()) {
+                case "IntegerLiteral": {
+                    try {
+                        return Value.of(Integer.parseInt(node.get("value")));
+                    } catch (NumberFormatException e) {
+                        return Value.BOTTOM;
+                    }
+                }
+                case "BooleanTrue":
+                    return Value.of(true);
+                case "BooleanFalse":
+                    return Value.of(false);
+                case "ParenthesizedExpr":
+                    return eval(node.getChild(0), env);
+                case "VarRefExpr": {
+                    String name = node.get("value");
+                    return variables.contains(name) ? env.get(name) : Value.BOTTOM;
+                }
+                case "UnaryExpr": {
+                    Value operand = eval(node.getChild(0), env);
+                    if (node.get("op").equals("!") && operand.isConstant() && operand.constant() instanceof Boolean b) {
+                        return Value.of(!b);
+                    }
+                    return Value.BOTTOM;
+                }
+                case "PostfixExpr": {
+                    String name = node.get("value");
+                    if (!variables.contains(name)) {
+                        return Value.BOTTOM;
+                    }
+                    Value old = env.get(name);
+                    Value updated = Value.BOTTOM;
+                    if (old.isConstant() && old.constant() instanceof Integer i) {
+                        updated = Value.of(node.get("op").equals("++") ? i + 1 : i - 1);
+                    }
+                    env.put(name, updated);
+                    return old;
+                }
+                case "BinaryExpr":
+                    return evalBinary(node, env);
+                default: {
+                    for (JmmNode child : node.getChildren()) {
+                        eval(child, env);
+                    }
+                    return Value.BOTTOM;
+                }
+            }
+        }
+
+        private Value evalBinary(JmmNode node, Map<String, Value> env) {
+            String op = node.get("op");
+
+            if (COMPOUND_OPS.contains(op)) {
+                eval(node.getChild(0), env);
+                eval(node.getChild(1), env);
+                JmmNode target = unwrap(node.getChild(0));
+                if (Kind.VAR_REF_EXPR.check(target) && variables.contains(target.get("value"))) {
+                    env.put(target.get("value"), Value.BOTTOM);
+                }
+                return Value.BOTTOM;
+            }
+
+            Value left = eval(node.getChild(0), env);
+
+            if (op.equals("&&") || op.equals("||")) {
+                boolean shortCircuitValue = op.equals("||");
+
+                // The right operand only runs on some paths, so its effects are merged with the state before it
+                Map<String, Value> afterRight = new HashMap<>(env);
+                Value right = eval(node.getChild(1), afterRight);
+                if (left.isConstant() && !left.constant().equals(shortCircuitValue)) {
+                    env.putAll(afterRight);
+                } else if (!left.isConstant()) {
+                    env.putAll(meet(env, afterRight));
+                }
+
+                if (left.isConstant() && left.constant().equals(shortCircuitValue)) {
+                    return left;
+                }
+                if (right.isConstant() && right.constant().equals(shortCircuitValue)) {
+                    return right;
+                }
+                if (left.isConstant() && right.isConstant()) {
+                    return right;
+                }
+                return Value.BOTTOM;
+            }
+
+            Value right = eval(node.getChild(1), env);
+            if (!left.isConstant() || !right.isConstant()) {
+                return left.state() == State.TOP || right.state() == State.TOP ? Value.TOP : Value.BOTTOM;
+            }
+
+            Object l = left.constant();
+            Object r = right.constant();
+
+            if (l instanceof Integer a && r instanceof Integer b) {
+                return switch (op) {
+                    case "+" -> Value.of(a + b);
+                    case "-" -> Value.of(a - b);
+                    case "*" -> Value.of(a * b);
+                    // Division by zero must still throw at run time
+                    case "/" -> b == 0 ? Value.BOTTOM : Value.of(a / b);
+                    case "<" -> Value.of(a < b);
+                    case ">" -> Value.of(a > b);
+                    case "<=" -> Value.of(a <= b);
+                    case ">=" -> Value.of(a >= b);
+                    case "==" -> Value.of(a.equals(b));
+                    case "!=" -> Value.of(!a.equals(b));
+                    default -> Value.BOTTOM;
+                };
+            }
+
+            if (l instanceof Boolean a && r instanceof Boolean b) {
+                return switch (op) {
+                    case "==" -> Value.of(a.equals(b));
+                    case "!=" -> Value.of(!a.equals(b));
+                    default -> Value.BOTTOM;
+                };
+            }
+
+            return Value.BOTTOM;
+        }
+
+        private void simplify(JmmNode stmt) {
+            if (Kind.BLOCK_STMT.check(stmt)) {
+                for (JmmNode child : new ArrayList<>(stmt.getChildren())) {
+                    simplify(child);
+                }
+                return;
+            }
+
+            StatementCfg.Block block = cfg.getBlockOf(stmt);
+            if (block == null || !executable.contains(block)) {
+                remove(stmt);
+                return;
+            }
+
+            if (Kind.IF_ELSE_STMT.check(stmt)) {
+                JmmNode condition = stmt.getChild(0);
+                Value value = values.getOrDefault(condition, Value.BOTTOM);
+
+                if (value.isConstant() && isPure(condition)) {
+                    int taken = (Boolean) value.constant() ? 1 : 2;
+                    simplify(stmt.getChild(taken));
+
+                    JmmNode branch = stmt.getChild(taken);
+                    branch.delete();
+                    stmt.replace(branch);
+                    foldedBranches++;
+                    return;
+                }
+
+                rewrite(condition);
+                simplify(stmt.getChild(1));
+                simplify(stmt.getChild(2));
+                return;
+            }
+
+            if (Kind.WHILE_STMT.check(stmt)) {
+                JmmNode condition = stmt.getChild(0);
+                Value value = values.getOrDefault(condition, Value.BOTTOM);
+
+                if (value.isConstant() && isPure(condition) && !(Boolean) value.constant()) {
+                    stmt.delete();
+                    foldedBranches++;
+                    return;
+                }
+
+                rewrite(condition);
+                simplify(stmt.getChild(1));
+                return;
+            }
+
+            if (Kind.ASSIGN_STMT.check(stmt) && stmt.getNumChildren() == 2) {
+                JmmNode lhs = unwrap(stmt.getChild(0));
+                if (!Kind.VAR_REF_EXPR.check(lhs)) {
+                    for (JmmNode child : new ArrayList<>(lhs.getChildren())) {
+                        rewrite(child);
+                    }
+                }
+                rewrite(stmt.getChild(1));
+                return;
+            }
+
+            for (JmmNode child : new ArrayList<>(stmt.getChildren())) {
+                rewrite(child);
+            }
+        }
+
+        /**
+         * Replaces the largest pure subexpressions with a constant value by literals.
+         */
+        private void rewrite(JmmNode expr) {
+            Value value = values.get(expr);
+
+            boolean isLiteral = Kind.INTEGER_LITERAL.check(expr) || Kind.BOOLEAN_TRUE.check(expr)
+                    || Kind.BOOLEAN_FALSE.check(expr);
+
+            if (value != null && value.isConstant() && !isLiteral && isPure(expr)) {
+                expr.replace(newLiteral(value.constant()));
+                replacedExpressions++;
+                return;
+            }
+
+            for (JmmNode child : new ArrayList<>(expr.getChildren())) {
+                rewrite(child);
+            }
+        }
+
+        private void remove(JmmNode stmt) {
+            JmmNode parent = stmt.getParent();
+            if (parent == null) {
+                return;
+            }
+
+            // Statements that are the body of an if or while are replaced by an empty block instead
+            if (Kind.BLOCK_STMT.check(parent) || Kind.METHOD_DECL.check(parent)) {
+                stmt.delete();
+            } else {
+                stmt.replace(new JmmNodeImpl(Collections.singletonList(Kind.BLOCK_STMT.getNodeName())));
+            }
+            removedStatements++;
+        }
+    }
+
+    static JmmNode unwrap(JmmNode node) {
+        while (Kind.PARENTHESIZED_EXPR.check(node)) {
+            node = node.getChild(0);
+        }
+        return node;
+    }
+
+    /**
+     * Checks if an expression can be removed without changing the behaviour of the program: no calls, no writes to
+     * variables and no array operations that can throw. Divisions are allowed, since a division only has a constant
+     * value when the divisor is not zero.
+     */
+    static boolean isPure(JmmNode expr) {
+        return expr.getDescendantsAndSelfStream().allMatch(node -> switch (node.getKind()) {
+            case "MethodCallExpr", "PostfixExpr", "NewObjectExpr", "NewIntArrayExpr", "ArrayAccessExpr",
+                 "ArrayLengthExpr", "ArrayLiteralExpr" -> false;
+            case "BinaryExpr" -> !COMPOUND_OPS.contains(node.get("op"));
+            default -> true;
+        });
+    }
+
+    static JmmNode newLiteral(Object constant) {
+        JmmNode node;
+        if (constant instanceof Boolean b) {
+            node = new JmmNodeImpl(Collections.singletonList(b ? "BooleanTrue" : "BooleanFalse"));
+            node.put("value", b.toString());
+        } else {
+            node = new JmmNodeImpl(Collections.singletonList("IntegerLiteral"));
+            node.put("value", constant.toString());
+        }
+        return node;
+    }
+}
@@ -0,0 +1,201 @@
+package pt.up.fe.comp2025.optimization;
+
+import pt.up.fe.comp.jmm.ast.JmmNode;
+import pt.up.fe.comp2025.ast.Kind;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Control-flow graph of the statements of a method, built directly over the AST.
+ * <p>
+ * Each block holds a sequence of simple statements (assignments, expression statements and returns) and, optionally,
+ * the condition of an if or while statement that decides which of its two successors runs next. Compound statements
+ * (blocks, if and while) do not appear in the blocks: an if statement ends the current block with its condition, and
+ * a while statement gets its own header block with the condition.
+ */
+public class StatementCfg {
+
+    public static class Block {
+
+        private final int id;
+        private final List<JmmNode> statements;
+        private final List<Block> predecessors;
+        private JmmNode condition;
+        private Block next;
+        private Block ifTrue;
+        private Block ifFalse;
+
+        private Block(int id) {
+            this.id = id;
+            this.statements = new ArrayList<>();
+            this.predecessors = new ArrayList<>();
+        }
+
+        public int getId() {
+            return id;
+        }
+
+        public List<JmmNode> getStatements() {
+            return Collections.unmodifiableList(statements);
+        }
+
+        public List<Block> getPredecessors() {
+            return Collections.unmodifiableList(predecessors);
+        }
+
+        /**
+         * @return the condition that ends the block, or null if the block ends with an unconditional jump
+         */
+        public JmmNode getCondition() {
+            return condition;
+        }
+
+        /**
+         * @return the successor of a block without condition, or null if the block leaves the method
+         */
+        public Block getNext() {
+            return next;
+        }
+
+        public Block getIfTrue() {
+            return ifTrue;
+        }
+
+        public Block getIfFalse() {
+            return ifFalse;
+        }
+
+        public List<Block> getSuccessors() {
+            if (condition != null) {
+                return List.of(ifTrue, ifFalse);
+            }
+            return next == null ? List.of() : List.of(next);
+        }
+
+        @Override
+        public String toString() {
+            return "B" + id;
+        }
+    }
+
+    private final List<Block> blocks;
+    private final Block entry;
+
+    // Block of each simple statement, and block with the condition of each if and while statement
+    private final Map<JmmNode, Block> blockOf;
+
+    private StatementCfg() {
+        this.blocks = new ArrayList<>();
+        this.blockOf = new IdentityHashMap<>();
+        this.entry = newBlock();
+    }
+
+    /**
+     * Builds the graph of the statements of the given method.
+     */
+    public static StatementCfg build(JmmNode methodDecl) {
+        StatementCfg cfg = new StatementCfg();
+
+        Block current = cfg.entry;
+        for (JmmNode child : methodDecl.getChildren()) {
+            if (isStatement(child)) {
+                current = cfg.addStatement(child, current);
+            }
+        }
+
+        return cfg;
+    }
+
+    public Block getEntry() {
+        return entry;
+    }
+
+    public List<Block> getBlocks() {
+        return Collections.unmodifiableList(blocks);
+    }
+
+    /**
+     * @return the block that contains the simple statement, or that ends with the condition of the if or while
+     * statement
+     */
+    public Block getBlockOf(JmmNode statement) {
+        return blockOf.get(statement);
+    }
+
+    public static boolean isStatement(JmmNode node) {
+        return node.getKind().endsWith("Stmt");
+    }
+
+    private Block newBlock() {
+        Block block = new Block(blocks.size());
+        blocks.add(block);
+        return block;
+    }
+
+    private void jump(Block from, Block to) {
+        from.next = to;
+        to.predecessors.add(from);
+    }
+
+    private void branch(Block from, JmmNode condition, Block ifTrue, Block ifFalse) {
+        from.condition = condition;
+        from.ifTrue = ifTrue;
+        from.ifFalse = ifFalse;
+        ifTrue.predecessors.add(from);
+        ifFalse.predecessors.add(from);
+    }
+
+    /**
+     * Adds the statement at the end of the current block.
+     *
+     * @return the block where the statements that follow should be added
+     */
+    private Block addStatement(JmmNode stmt, Block current) {
+        if (Kind.BLOCK_STMT.check(stmt)) {
+            for (JmmNode child : stmt.getChildren()) {
+                current = addStatement(child, current);
+            }
+            return current;
+        }
+
+        if (Kind.IF_ELSE_STMT.check(stmt)) {
+            Block thenBlock = newBlock();
+            Block elseBlock = newBlock();
+            Block join = newBlock();
+
+            blockOf.put(stmt, current);
+            branch(current, stmt.getChild(0), thenBlock, elseBlock);
+
+            jump(addStatement(stmt.getChild(1), thenBlock), join);
+            jump(addStatement(stmt.getChild(2), elseBlock), join);
+            return join;
+        }
+
+        if (Kind.WHILE_STMT.check(stmt)) {
+            Block header = newBlock();
+            Block body = newBlock();
+            Block exit = newBlock();
+
+            jump(current, header);
+            blockOf.put(stmt, header);
+            branch(header, stmt.getChild(0), body, exit);
+
+            jump(addStatement(stmt.getChild(1), body), header);
+            return exit;
+        }
+
+        current.statements.add(stmt);
+        blockOf.put(stmt, current);
+
+        if (Kind.RETURN_STMT.check(stmt)) {
+            // Statements after a return are only reachable from nowhere
+            return newBlock();
+        }
+
+        return current;
+    }
+}
@@ -0,0 +1,169 @@
+package pt.up.fe.comp2025.optimization.ssa;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.function.Predicate;
+
+/**
+ * Basic block of the IR: the phis, the instructions that run in sequence and the terminator (jump, branch or
+ * return) that ends the block.
+ */
+public class BasicBlock {
+
+    private final int id;
+    private final List<Instruction> phis;
+    private final List<Instruction> instructions;
+    private final List<BasicBlock> predecessors;
+    private Instruction terminator;
+    private int counter;
+
+    BasicBlock(int id) {
+        this.id = id;
+        this.phis = new ArrayList<>();
+        this.instructions = new ArrayList<>();
+        this.predecessors = new ArrayList<>();
+        this.counter = -1;
+    }
+
+    public int getId() {
+        return id;
+    }
+
+    /**
+     * @return the profile counter of the block, or -1 if the block was not built from a statement with counters
+     * (see {@link Profile})
+     */
+    public int getCounter() {
+        return counter;
+    }
+
+    public void setCounter(int counter) {
+        this.counter = counter;
+    }
+
+    public List<Instruction> getPhis() {
+        return Collections.unmodifiableList(phis);
+    }
+
+    /**
+     * @return the instructions of the block, without the phis and the terminator
+     */
+    public List<Instruction> getInstructions() {
+        return Collections.unmodifiableList(instructions);
+    }
+
+    /**
+     * @return the phis, the instructions and the terminator, in order
+     */
+    public List<Instruction> getAllInstructions() {
+        List<Instruction> all = new ArrayList<>(phis);
+        all.addAll(instructions);
+        if (terminator != null) {
+            all.add(terminator);
+        }
+        return all;
+    }
+
+    public Instruction getTerminator() {
+        return terminator;
+    }
+
+    public boolean isTerminated() {
+        return terminator != null;
+    }
+
+    public List<BasicBlock> getPredecessors() {
+        return Collections.unmodifiableList(predecessors);
+    }
+
+    public List<BasicBlock> getSuccessors() {
+        return terminator == null ? List.of() : terminator.getTargets();
+    }
+
+    public void addPhi(Instruction phi) {
+        phi.setBlock(this);
+        phis.add(phi);
+    }
+
+    public void removePhi(Instruction phi) {
+        phis.remove(phi);
+    }
+
+    /**
+     * Adds the instruction at the end of the block, before the terminator.
+     */
+    public void append(Instruction instruction) {
+        instruction.setBlock(this);
+        instructions.add(instruction);
+    }
+
+    public void insert(int index, Instruction instruction) {
+        instruction.setBlock(this);
+        instructions.add(index, instruction);
+    }
+
+    public void remove(Instruction instruction) {
+        instructions.remove(instruction);
+    }
+
+    public void removeIf(Predicate<Instruction> filter) {
+        instructions.removeIf(filter);
+    }
+
+    /**
+     * Ends the block with a jump, branch or return, replacing the previous terminator and updating the
+     * predecessors of the targets.
+     */
+    public void setTerminator(Instruction terminator) {
+        if (this.terminator != null) {
+            for (BasicBlock target : this.terminator.getTargets()) {
+                target.predecessors.remove(this);
+            }
+        }
+
+        this.terminator = terminator;
+        terminator.setBlock(this);
+        for (BasicBlock target : terminator.getTargets()) {
+            target.predecessors.add(this);
+        }
+    }
+
+    /**
+     * Makes the terminator go to another block instead of the given successor.
+     */
+    public void replaceSuccessor(BasicBlock oldSuccessor, BasicBlock newSuccessor) {
+        terminator.replaceTarget(oldSuccessor, newSuccessor);
+        while (oldSuccessor.predecessors.remove(this)) {
+            newSuccessor.predecessors.add(this);
+        }
+    }
+
+    void addPredecessor(BasicBlock predecessor) {
+        predecessors.add(predecessor);
+    }
+
+    void replacePredecessor(BasicBlock oldPredecessor, BasicBlock newPredecessor) {
+        predecessors.replaceAll(block -> block == oldPredecessor ? newPredecessor : block);
+    }
+
+    /**
+     * Sets the terminator without updating the predecessors of the targets.
+     */
+    void setTerminatorOnly(Instruction terminator) {
+        this.terminator = terminator;
+        terminator.setBlock(this);
+    }
+
+    void removePredecessor(BasicBlock predecessor) {
+        predecessors.remove(predecessor);
+        for (Instruction phi : phis) {
+            phi.removeIncoming(predecessor);
+        }
+    }
+
+    @Override
+    public String toString() {
+        return "B" + id;
+    }
+}
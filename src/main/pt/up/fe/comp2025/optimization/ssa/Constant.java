@@ -0,0 +1,76 @@
+package pt.up.fe.comp2025.optimization.ssa;
+
+import pt.up.fe.comp.jmm.analysis.table.Type;
+
+import java.util.Objects;
+
+/**
+ * Integer or boolean constant. Constants are compared by value.
+ */
+public class Constant extends Value {
+
+    private final Object value;
+
+    private Constant(Type type, Object value) {
+        super(type);
+        this.value = value;
+    }
+
+    public static Constant of(int value, Type intType) {
+        return new Constant(intType, value);
+    }
+
+    public static Constant of(boolean value, Type booleanType) {
+        return new Constant(booleanType, value);
+    }
+
+    /**
+     * Default value of a variable that is read before being assigned (0, false or null).
+     */
+    public static Constant defaultOf(Type type) {
+        if (!type.isArray() && type.getName().equals("boolean")) {
+            return new Constant(type, false);
+        }
+        if (!type.isArray() && type.getName().equals("int")) {
+            return new Constant(type, 0);
+        }
+        return new Constant(type, null);
+    }
+
+    public Object getValue() {
+        return value;
+    }
+
+    public boolean isInt() {
+        return value instanceof Integer;
+    }
+
+    public boolean isBoolean() {
+        return value instanceof Boolean;
+    }
+
+    public int asInt() {
+        return (Integer) value;
+    }
+
+    public boolean asBoolean() {
+        return (Boolean) value;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) return true;
+        if (!(o instanceof Constant other)) return false;
+        return Objects.equals(value, other.value) && getType().equals(other.getType());
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hash(value, getType().getName());
+    }
+
+    @Override
+    public String toString() {
+        return String.valueOf(value);
+    }
+}
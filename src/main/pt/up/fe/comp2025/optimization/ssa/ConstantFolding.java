@@ -0,0 +1,155 @@
+package pt.up.fe.comp2025.optimization.ssa;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Propagates constants into the instructions of a method in SSA form, and folds the instructions whose operands are
+ * all constant.
+ * <p>
+ * The AST is already folded by constant propagation before the IR is built, so the constants found here come from
+ * the IR passes: arguments copied into inlined bodies and parameters fixed by
+ * {@link InterproceduralConstantPropagation}. Each use of a local whose value is a constant reads the constant instead, except in phis, where a constant would be
+ * copied again on the edge it comes from when leaving SSA form. Binary operations and negations of constants become
+ * copies of their result, whose destination is a constant in turn; a division by zero is kept, since it must throw.
+ * Branches on the conditions that become constant are folded by {@link DeadCodeElimination}.
+ * <p>
+ * Definitions dominate their uses, so one pass over the blocks in reverse postorder sees the value of each local
+ * before its uses. Only phis in loop headers read values defined later, and they are not constant.
+ */
+public class ConstantFolding {
+
+    private int propagatedConstants;
+    private int foldedInstructions;
+
+    public int getPropagatedConstants() {
+        return propagatedConstants;
+    }
+
+    public int getFoldedInstructions() {
+        return foldedInstructions;
+    }
+
+    /**
+     * @return true if some operand was replaced or some instruction folded
+     */
+    public boolean apply(IrMethod method) {
+        if (!method.isSsa()) {
+            throw new RuntimeException("Constant folding expects method '" + method.getName() + "' in SSA form");
+        }
+
+        propagatedConstants = 0;
+        foldedInstructions = 0;
+        Map<Local, Constant> constants = new HashMap<>();
+
+        for (BasicBlock block : method.getReversePostorder()) {
+            for (Instruction phi : block.getPhis()) {
+                Constant value = getUniqueConstant(phi, constants);
+                if (value != null) {
+                    constants.put(phi.getDest(), value);
+                }
+            }
+
+            List<Instruction> instructions = block.getInstructions();
+            for (int i = 0; i < instructions.size(); i++) {
+                Instruction instruction = instructions.get(i);
+                replaceOperands(instruction, constants);
+
+                if (instruction.is(Opcode.COPY) && instruction.getOperand(0) instanceof Constant constant) {
+                    constants.put(instruction.getDest(), constant);
+                    continue;
+                }
+
+                Constant result = fold(instruction);
+                if (result != null) {
+                    block.remove(instruction);
+                    block.insert(i, Instruction.copy(instruction.getDest(), result));
+                    constants.put(instruction.getDest(), result);
+                    foldedInstructions++;
+                }
+            }
+
+            replaceOperands(block.getTerminator(), constants);
+        }
+
+        System.out.println("[ConstFold] " + method.getName() + ": propagated " + propagatedConstants
+                + " constant(s), folded " + foldedInstructions + " instruction(s)");
+        return propagatedConstants + foldedInstructions > 0;
+    }
+
+    private void replaceOperands(Instruction instruction, Map<Local, Constant> constants) {
+        for (int i = 0; i < instruction.getOperands().size(); i++) {
+            if (instruction.getOperand(i) instanceof Local local && constants.containsKey(local)) {
+                instruction.setOperand(i, constants.get(local));
+                propagatedConstants++;
+            }
+        }
+    }
+
+    /**
+     * @return the constant all the operands of the phi have, or null
+     */
+    private static Constant getUniqueConstant(Instruction phi, Map<Local, Constant> constants) {
+        Constant unique = null;
+        for (Value operand : phi.getOperands()) {
+            Constant value = operand instanceof Constant constant ? constant : constants.get(operand);
+            if (value == null || unique != null && !unique.equals(value)) {
+                return null;
+            }
+            unique = value;
+        }
+        return unique;
+    }
+
+    /**
+     * @return the value of the instruction when its operands are constants, or null if it cannot be folded
+     */
+    private static Constant fold(Instruction instruction) {
+        if (instruction.is(Opcode.NOT) && instruction.getOperand(0) instanceof Constant value && value.isBoolean()) {
+            return Constant.of(!value.asBoolean(), instruction.getDest().getType());
+        }
+        if (!instruction.is(Opcode.BINARY) || !(instruction.getOperand(0) instanceof Constant left)
+                || !(instruction.getOperand(1) instanceof Constant right)) {
+            return null;
+        }
+
+        Operator operator = instruction.getOperator();
+        if (left.isBoolean() && right.isBoolean()) {
+            return switch (operator) {
+                case EQ -> Constant.of(left.asBoolean() == right.asBoolean(), instruction.getDest().getType());
+                case NE -> Constant.of(left.asBoolean() != right.asBoolean(), instruction.getDest().getType());
+                default -> null;
+            };
+        }
+        if (!left.isInt() || !right.isInt()) {
+            return null;
+        }
+
+        int a = left.asInt();
+        int b = right.asInt();
+        if (operator.isComparison()) {
+            boolean result = switch (operator) {
+                case LT -> a < b;
+                case GT -> a > b;
+                case LE -> a <= b;
+                case GE -> a >= b;
+                case EQ -> a == b;
+                default -> a != b;
+            };
+            return Constant.of(result, instruction.getDest().getType());
+        }
+
+        if (operator == Operator.DIV && b == 0) {
+            return null;
+        }
+        int result = switch (operator) {
+            case ADD -> a + b;
+            case SUB -> a - b;
+            case MUL -> a * b;
+            case SHR -> a >> b;
+            default -> a / b;
+        };
+        return Constant.of(result, instruction.getDest().getType());
+    }
+}
@@ -0,0 +1,149 @@
+package pt.up.fe.comp2025.optimization.ssa;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Replaces the uses of locals that are copies of other values by those values, in a method in SSA form.
+ * <p>
+ * Each copy {@code x := y} makes every use of {@code x} read {@code y} instead (constants are only propagated out of
+ * temporaries, since folding constants into declared variables is left to constant propagation), and phis whose operands are all the
+ * same value (ignoring the phi itself) are treated as copies of that value. Copies into temporaries are then
+ * removed; copies into declared variables are left for {@link DeadCodeElimination}, which removes them if they are
+ * no longer read. A copy into a declared variable right after the instruction that computes its temporary source is
+ * folded into that instruction instead, so the variable keeps its name in the output. Since definitions dominate their uses in SSA form, one pass over the blocks in reverse postorder
+ * handles chains of copies such as {@code t1 := a; t2 := t1; x := t2}.
+ */
+public class CopyPropagation {
+
+    private int propagatedCopies;
+    private int removedCopies;
+    private int coalescedCopies;
+
+    public int getPropagatedCopies() {
+        return propagatedCopies;
+    }
+
+    public int getRemovedCopies() {
+        return removedCopies;
+    }
+
+    public int getCoalescedCopies() {
+        return coalescedCopies;
+    }
+
+    /**
+     * @return true if some use was rewritten or some copy removed
+     */
+    public boolean apply(IrMethod method) {
+        if (!method.isSsa()) {
+            throw new RuntimeException("Copy propagation expects method '" + method.getName() + "' in SSA form");
+        }
+
+        propagatedCopies = 0;
+        removedCopies = 0;
+        coalescedCopies = 0;
+        DefUseChains chains = new DefUseChains(method);
+
+        boolean changed = true;
+        while (changed) {
+            changed = false;
+
+            for (BasicBlock block : method.getReversePostorder()) {
+                for (Instruction phi : new ArrayList<>(block.getPhis())) {
+                    Value value = getUniqueValue(phi);
+                    if (value != null) {
+                        propagate(phi, value, chains);
+                        block.removePhi(phi);
+                        chains.remove(phi);
+                        removedCopies++;
+                        changed = true;
+                    }
+                }
+
+                List<Instruction> removed = new ArrayList<>();
+                List<Instruction> instructions = block.getInstructions();
+                for (int i = 0; i < instructions.size(); i++) {
+                    Instruction instruction = instructions.get(i);
+                    if (!instruction.is(Opcode.COPY)) {
+                        continue;
+                    }
+
+                    if (i > 0 && coalesce(instructions.get(i - 1), instruction, chains)) {
+                        block.remove(instruction);
+                        removedCopies++;
+                        i--;
+                        continue;
+                    }
+
+                    // Constants stay in declared variables, otherwise they would be copied again on every edge
+                    // into the phis that read them
+                    boolean temporary = instruction.getDest().getVariable().isTemporary();
+                    if (!temporary && (instruction.getOperand(0) instanceof Constant || !chains.isUsed(instruction.getDest()))) {
+                        continue;
+                    }
+
+                    propagate(instruction, instruction.getOperand(0), chains);
+                    if (temporary) {
+                        removed.add(instruction);
+                    }
+                }
+
+                for (Instruction instruction : removed) {
+                    block.remove(instruction);
+                    chains.remove(instruction);
+                    removedCopies++;
+                }
+            }
+        }
+
+        System.out.println("[CopyPropagation] " + method.getName() + ": propagated " + propagatedCopies
+                + " copy(ies), removed " + removedCopies + " (" + coalescedCopies + " folded into their source)");
+        return propagatedCopies > 0 || removedCopies > 0;
+    }
+
+    /**
+     * Turns {@code t := a + b; x := t}, where the copy is the only use of the temporary, into {@code x := a + b},
+     * so that the value keeps the name of the variable instead of the variable becoming a copy of a temporary.
+     *
+     * @return true if the copy was folded into the previous instruction (the copy is no longer in the chains)
+     */
+    private boolean coalesce(Instruction previous, Instruction copy, DefUseChains chains) {
+        if (!(copy.getOperand(0) instanceof Local source) || !source.getVariable().isTemporary()
+                || copy.getDest().getVariable().isTemporary() || previous.getDest() != source
+                || chains.getUses(source).size() != 1 || !source.getType().equals(copy.getDest().getType())) {
+            return false;
+        }
+
+        chains.remove(copy);
+        chains.remove(previous);
+        previous.setDest(copy.getDest());
+        chains.add(previous);
+        coalescedCopies++;
+        return true;
+    }
+
+    private void propagate(Instruction copy, Value value, DefUseChains chains) {
+        if (chains.isUsed(copy.getDest())) {
+            chains.replaceAllUses(copy.getDest(), value);
+            propagatedCopies++;
+        }
+    }
+
+    /**
+     * @return the value all operands of the phi are equal to, not counting the phi's own destination, or null
+     */
+    private static Value getUniqueValue(Instruction phi) {
+        Value unique = null;
+        for (Value operand : phi.getOperands()) {
+            if (operand == phi.getDest() || operand.equals(unique)) {
+                continue;
+            }
+            if (unique != null) {
+                return null;
+            }
+            unique = operand;
+        }
+        return unique;
+    }
+}
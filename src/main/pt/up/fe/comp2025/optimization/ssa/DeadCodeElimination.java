@@ -0,0 +1,148 @@
+package pt.up.fe.comp2025.optimization.ssa;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Removes the code of a method in SSA form that cannot affect its result.
+ * <p>
+ * Branches on constant conditions become jumps and the blocks that are no longer reachable are removed. Then every
+ * instruction that has an effect (stores, field writes, calls, control flow) or may throw is marked as live, along
+ * with the instructions that define the locals they read, transitively. The instructions that are not marked are
+ * dead: stores to locals whose value is never read and unused temporaries. Since the method is in SSA form, a
+ * store that is overwritten before being read is simply a definition without uses. Calls whose
+ * {@link MethodSummaries summary} has no effects besides reading memory and allocating are dead too when their
+ * result is not used.
+ * <p>
+ * Assignments of a constant to a declared variable are kept: after constant propagation they are where the folded
+ * value of the variable remains visible in the generated code, and they cost a single store.
+ */
+public class DeadCodeElimination {
+
+    private final MethodSummaries summaries;
+
+    private int removedInstructions;
+
+    public DeadCodeElimination(MethodSummaries summaries) {
+        this.summaries = summaries;
+    }
+
+    public int getRemovedInstructions() {
+        return removedInstructions;
+    }
+
+    /**
+     * @return the number of instructions removed from the method
+     */
+    public int apply(IrMethod method) {
+        if (!method.isSsa()) {
+            throw new RuntimeException("Dead code elimination expects method '" + method.getName() + "' in SSA form");
+        }
+
+        removedInstructions = 0;
+        foldConstantBranches(method);
+        removeDeadInstructions(method);
+
+        System.out.println("[DCE] " + method.getName() + ": removed " + removedInstructions + " instruction(s)");
+        return removedInstructions;
+    }
+
+    private void foldConstantBranches(IrMethod method) {
+        boolean folded = false;
+
+        for (BasicBlock block : method.getBlocks()) {
+            Instruction terminator = block.getTerminator();
+            if (!terminator.is(Opcode.BRANCH)) {
+                continue;
+            }
+
+            BasicBlock ifTrue = terminator.getTargets().get(0);
+            BasicBlock ifFalse = terminator.getTargets().get(1);
+            BasicBlock taken;
+            if (terminator.getOperand(0) instanceof Constant constant) {
+                taken = constant.asBoolean() ? ifTrue : ifFalse;
+            } else if (ifTrue == ifFalse) {
+                taken = ifTrue;
+            } else {
+                continue;
+            }
+
+            // The edge that is no longer taken does not bring values into the phis of its target
+            BasicBlock notTaken = taken == ifTrue ? ifFalse : ifTrue;
+            for (Instruction phi : notTaken.getPhis()) {
+                phi.removeIncoming(block);
+            }
+
+            block.setTerminator(Instruction.jump(taken));
+            removedInstructions++;
+            folded = true;
+        }
+
+        if (folded) {
+            List<BasicBlock> before = new ArrayList<>(method.getBlocks());
+            method.removeUnreachableBlocks();
+            for (BasicBlock block : before) {
+                if (!method.getBlocks().contains(block)) {
+                    removedInstructions += block.getAllInstructions().size();
+                }
+            }
+        }
+    }
+
+    private void removeDeadInstructions(IrMethod method) {
+        DefUseChains chains = new DefUseChains(method);
+        Set<Instruction> live = new HashSet<>();
+        Deque<Instruction> worklist = new ArrayDeque<>();
+
+        for (BasicBlock block : method.getBlocks()) {
+            for (Instruction instruction : block.getAllInstructions()) {
+                if (isRoot(instruction, method) && live.add(instruction)) {
+                    worklist.add(instruction);
+                }
+            }
+        }
+
+        while (!worklist.isEmpty()) {
+            Instruction instruction = worklist.poll();
+            for (Value operand : instruction.getOperands()) {
+                if (operand instanceof Local local) {
+                    Instruction definition = chains.getDefinition(local);
+                    if (definition != null && live.add(definition)) {
+                        worklist.add(definition);
+                    }
+                }
+            }
+        }
+
+        for (BasicBlock block : method.getBlocks()) {
+            for (Instruction phi : new ArrayList<>(block.getPhis())) {
+                if (!live.contains(phi)) {
+                    block.removePhi(phi);
+                    removedInstructions++;
+                }
+            }
+
+            int before = block.getInstructions().size();
+            block.removeIf(instruction -> !live.contains(instruction));
+            removedInstructions += before - block.getInstructions().size();
+        }
+    }
+
+    private boolean isRoot(Instruction instruction, IrMethod method) {
+        if (instruction.is(Opcode.CALL)) {
+            return !summaries.isRemovable(method, instruction);
+        }
+        if (instruction.hasSideEffects() || instruction.mayThrow()) {
+            return true;
+        }
+
+        // Definitions with the default value added by SSA construction are not assignments of the source
+        return instruction.is(Opcode.COPY) && instruction.getOperand(0) instanceof Constant
+                && !instruction.getDest().getVariable().isTemporary()
+                && !method.isDefaultValue(instruction.getDest());
+    }
+}
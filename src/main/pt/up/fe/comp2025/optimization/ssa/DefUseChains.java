@@ -0,0 +1,93 @@
+package pt.up.fe.comp2025.optimization.ssa;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Definition and uses of each local of a method in SSA form.
+ * <p>
+ * The chains are computed once, in a single pass over the instructions, and kept up to date by
+ * {@link #replaceAllUses} and {@link #remove}, so passes that rewrite the method do not need to recompute them.
+ */
+public class DefUseChains {
+
+    private final Map<Local, Instruction> definitions;
+    private final Map<Local, List<Instruction>> uses;
+
+    public DefUseChains(IrMethod method) {
+        this.definitions = new HashMap<>();
+        this.uses = new HashMap<>();
+
+        for (BasicBlock block : method.getBlocks()) {
+            for (Instruction instruction : block.getAllInstructions()) {
+                add(instruction);
+            }
+        }
+    }
+
+    /**
+     * Registers the definition and the uses of an instruction added to the method.
+     */
+    public void add(Instruction instruction) {
+        if (instruction.getDest() != null) {
+            definitions.put(instruction.getDest(), instruction);
+        }
+        for (Value operand : instruction.getOperands()) {
+            if (operand instanceof Local local) {
+                uses.computeIfAbsent(local, key -> new ArrayList<>()).add(instruction);
+            }
+        }
+    }
+
+    /**
+     * Forgets the definition and the uses of an instruction removed from the method.
+     */
+    public void remove(Instruction instruction) {
+        if (instruction.getDest() != null && definitions.get(instruction.getDest()) == instruction) {
+            definitions.remove(instruction.getDest());
+        }
+        for (Value operand : instruction.getOperands()) {
+            if (operand instanceof Local local && uses.containsKey(local)) {
+                uses.get(local).remove(instruction);
+            }
+        }
+    }
+
+    /**
+     * @return the instruction that defines the local, or null for parameters
+     */
+    public Instruction getDefinition(Local local) {
+        return definitions.get(local);
+    }
+
+    /**
+     * @return the instructions that read the local (an instruction that reads it twice appears twice)
+     */
+    public List<Instruction> getUses(Local local) {
+        return Collections.unmodifiableList(uses.getOrDefault(local, List.of()));
+    }
+
+    public boolean isUsed(Local local) {
+        return !uses.getOrDefault(local, List.of()).isEmpty();
+    }
+
+    /**
+     * Makes every instruction that reads the local read the given value instead.
+     */
+    public void replaceAllUses(Local local, Value value) {
+        List<Instruction> users = uses.remove(local);
+        if (users == null) {
+            return;
+        }
+
+        for (Instruction user : new ArrayList<>(users)) {
+            user.replaceUses(local, value);
+            if (value instanceof Local newLocal) {
+                uses.computeIfAbsent(newLocal, key -> new ArrayList<>()).add(user);
+            }
+        }
+    }
+}
@@ -0,0 +1,147 @@
+package pt.up.fe.comp2025.optimization.ssa;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Dominator tree and dominance frontiers of the reachable blocks of a method.
+ * <p>
+ * Uses the iterative algorithm of Cooper, Harvey and Kennedy ("A Simple, Fast Dominance Algorithm"), which
+ * converges in a couple of passes over the blocks in reverse postorder for the graphs of structured programs.
+ */
+public class DominatorTree {
+
+    private final List<BasicBlock> reversePostorder;
+    private final Map<BasicBlock, Integer> order;
+    private final Map<BasicBlock, BasicBlock> idom;
+    private final Map<BasicBlock, List<BasicBlock>> children;
+    private final Map<BasicBlock, Set<BasicBlock>> frontiers;
+
+    public DominatorTree(IrMethod method) {
+        this.reversePostorder = method.getReversePostorder();
+        this.order = new HashMap<>();
+        this.idom = new HashMap<>();
+        this.children = new HashMap<>();
+        this.frontiers = new HashMap<>();
+
+        for (int i = 0; i < reversePostorder.size(); i++) {
+            order.put(reversePostorder.get(i), i);
+            children.put(reversePostorder.get(i), new ArrayList<>());
+            frontiers.put(reversePostorder.get(i), new LinkedHashSet<>());
+        }
+
+        computeDominators(method.getEntry());
+        computeFrontiers();
+    }
+
+    private void computeDominators(BasicBlock entry) {
+        idom.put(entry, entry);
+
+        boolean changed = true;
+        while (changed) {
+            changed = false;
+            for (BasicBlock block : reversePostorder) {
+                if (block == entry) {
+                    continue;
+                }
+
+                BasicBlock newIdom = null;
+                for (BasicBlock predecessor : block.getPredecessors()) {
+                    if (!idom.containsKey(predecessor)) {
+                        continue;
+                    }
+                    newIdom = newIdom == null ? predecessor : intersect(predecessor, newIdom);
+                }
+
+                if (newIdom != idom.get(block)) {
+                    idom.put(block, newIdom);
+                    changed = true;
+                }
+            }
+        }
+
+        for (BasicBlock block : reversePostorder) {
+            if (block != entry) {
+                children.get(idom.get(block)).add(block);
+            }
+        }
+        idom.put(entry, null);
+    }
+
+    private BasicBlock intersect(BasicBlock first, BasicBlock second) {
+        while (first != second) {
+            while (order.get(first) > order.get(second)) {
+                first = idom.get(first);
+            }
+            while (order.get(second) > order.get(first)) {
+                second = idom.get(second);
+            }
+        }
+        return first;
+    }
+
+    private void computeFrontiers() {
+        for (BasicBlock block : reversePostorder) {
+            List<BasicBlock> predecessors = block.getPredecessors();
+            if (predecessors.size() < 2) {
+                continue;
+            }
+
+            for (BasicBlock predecessor : predecessors) {
+                BasicBlock runner = predecessor;
+                while (runner != null && order.containsKey(runner) && runner != idom.get(block)) {
+                    frontiers.get(runner).add(block);
+                    runner = idom.get(runner);
+                }
+            }
+        }
+    }
+
+    /**
+     * @return the reachable blocks in reverse postorder (a block comes after all its dominators)
+     */
+    public List<BasicBlock> getReversePostorder() {
+        return Collections.unmodifiableList(reversePostorder);
+    }
+
+    /**
+     * @return the immediate dominator of the block, or null for the entry
+     */
+    public BasicBlock getImmediateDominator(BasicBlock block) {
+        return idom.get(block);
+    }
+
+    /**
+     * @return the blocks immediately dominated by the block
+     */
+    public List<BasicBlock> getChildren(BasicBlock block) {
+        return Collections.unmodifiableList(children.getOrDefault(block, List.of()));
+    }
+
+    public Set<BasicBlock> getFrontier(BasicBlock block) {
+        return Collections.unmodifiableSet(frontiers.getOrDefault(block, Set.of()));
+    }
+
+    /**
+     * @return true if every path from the entry to the second block goes through the first
+     */
+    public boolean dominates(BasicBlock dominator, BasicBlock block) {
+        if (!order.containsKey(block)) {
+            return false;
+        }
+
+        BasicBlock current = block;
+        while (current != null) {
+            if (current == dominator) {
+                return true;
+            }
+            current = idom.get(current);
+        }
+        return false;
+    }
+}
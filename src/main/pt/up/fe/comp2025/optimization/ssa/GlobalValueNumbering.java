@@ -0,0 +1,249 @@
+package pt.up.fe.comp2025.optimization.ssa;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Removes the pure expressions of a method in SSA form that are computed again after an earlier computation of the
+ * same expression, reusing the earlier result.
+ * <p>
+ * The method is walked down its dominator tree with a scoped table of the expressions available at each point: an
+ * expression computed in a block is available in the rest of the block and in every block it dominates. Since locals
+ * have a single definition in SSA form, two instructions with the same opcode and the same operands compute the same
+ * value. Commutative operators and mirrored comparisons ({@code a > b} and {@code b < a}) are normalized first.
+ * <p>
+ * Array loads and field reads also depend on memory, so their key includes the memory state they read. A new memory
+ * state starts at each array store, field write and call that writes memory, and at each block reached from
+ * predecessors that leave memory in different states; a load is only reused when no path from the earlier load to it
+ * changes memory. An array store or field write also makes the stored value available to later loads of the same
+ * element.
+ * <p>
+ * Calls whose {@link MethodSummaries summary} only reads memory (and may throw or not return, which the earlier call
+ * already did) are expressions too, keyed by the method, the receiver, the arguments and, when they read memory, the
+ * memory state.
+ */
+public class GlobalValueNumbering {
+
+    private record Expression(Opcode opcode, Operator operator, String name, List<Object> operands, Object memory) {
+    }
+
+    // Memory state at the start of the method
+    private static final Object ENTRY_MEMORY = new Object();
+
+    private final MethodSummaries summaries;
+    private final Map<Expression, Value> available;
+    private final Map<BasicBlock, Object> memoryIn;
+
+    private IrMethod method;
+    private DominatorTree dominators;
+    private DefUseChains chains;
+    private int removedExpressions;
+
+    public GlobalValueNumbering(MethodSummaries summaries) {
+        this.summaries = summaries;
+        this.available = new HashMap<>();
+        this.memoryIn = new HashMap<>();
+    }
+
+    public int getRemovedExpressions() {
+        return removedExpressions;
+    }
+
+    /**
+     * @return the number of redundant instructions removed from the method
+     */
+    public int apply(IrMethod method) {
+        if (!method.isSsa()) {
+            throw new RuntimeException("Value numbering expects method '" + method.getName() + "' in SSA form");
+        }
+
+        this.method = method;
+        this.dominators = new DominatorTree(method);
+        this.chains = new DefUseChains(method);
+        this.removedExpressions = 0;
+        available.clear();
+        memoryIn.clear();
+
+        computeMemoryStates();
+        number(method.getEntry());
+
+        System.out.println("[GVN] " + method.getName() + ": removed " + removedExpressions + " redundant expression(s)");
+        return removedExpressions;
+    }
+
+    /**
+     * Computes the memory state at the start of each block. A block whose predecessors leave memory in the same
+     * state starts in that state; otherwise it starts in a state of its own (the block itself), like a phi of memory.
+     */
+    private void computeMemoryStates() {
+        List<BasicBlock> order = dominators.getReversePostorder();
+        Map<BasicBlock, Object> memoryOut = new HashMap<>();
+
+        boolean changed = true;
+        while (changed) {
+            changed = false;
+
+            for (BasicBlock block : order) {
+                Object in = block == method.getEntry() ? ENTRY_MEMORY : null;
+                for (BasicBlock predecessor : block.getPredecessors()) {
+                    Object predecessorOut = memoryOut.get(predecessor);
+                    if (predecessorOut == null || predecessorOut == in) {
+                        // Predecessors not visited yet (back edges) do not constrain the state
+                        continue;
+                    }
+                    in = in == null ? predecessorOut : block;
+                }
+
+                Object out = in;
+                for (Instruction instruction : block.getInstructions()) {
+                    if (writesMemory(instruction)) {
+                        out = instruction;
+                    }
+                }
+
+                if (in != memoryIn.get(block) || out != memoryOut.get(block)) {
+                    memoryIn.put(block, in);
+                    memoryOut.put(block, out);
+                    changed = true;
+                }
+            }
+        }
+    }
+
+    private void number(BasicBlock block) {
+        List<Expression> added = new ArrayList<>();
+        Object memory = memoryIn.get(block);
+
+        for (Instruction instruction : new ArrayList<>(block.getInstructions())) {
+            if (writesMemory(instruction)) {
+                memory = instruction;
+                Expression stored = storedExpression(instruction, memory);
+                if (stored != null) {
+                    makeAvailable(stored, instruction.getOperands().get(instruction.getOperands().size() - 1), added);
+                }
+                continue;
+            }
+
+            Expression expression = expressionOf(instruction, memory);
+            if (expression == null) {
+                continue;
+            }
+
+            Value previous = available.get(expression);
+            if (previous != null) {
+                chains.replaceAllUses(instruction.getDest(), previous);
+                chains.remove(instruction);
+                block.remove(instruction);
+                removedExpressions++;
+            } else {
+                makeAvailable(expression, instruction.getDest(), added);
+            }
+        }
+
+        for (BasicBlock child : dominators.getChildren(block)) {
+            number(child);
+        }
+
+        for (Expression expression : added) {
+            available.remove(expression);
+        }
+    }
+
+    private void makeAvailable(Expression expression, Value value, List<Expression> added) {
+        if (available.putIfAbsent(expression, value) == null) {
+            added.add(expression);
+        }
+    }
+
+    private boolean writesMemory(Instruction instruction) {
+        if (instruction.is(Opcode.CALL)) {
+            return summaries.writesMemory(method, instruction);
+        }
+        return instruction.is(Opcode.ARRAY_STORE) || instruction.is(Opcode.PUT_FIELD);
+    }
+
+    /**
+     * @return the key of the value computed by the instruction, or null if the instruction is not a pure expression
+     */
+    private Expression expressionOf(Instruction instruction, Object memory) {
+        List<Value> operands = instruction.getOperands();
+
+        return switch (instruction.getOpcode()) {
+            case BINARY -> {
+                Operator operator = instruction.getOperator();
+                Value left = operands.get(0);
+                Value right = operands.get(1);
+
+                if (operator == Operator.GT || operator == Operator.GE) {
+                    operator = operator.swap();
+                    Value swapped = left;
+                    left = right;
+                    right = swapped;
+                } else if (operator.isCommutative() && order(left).compareTo(order(right)) > 0) {
+                    Value swapped = left;
+                    left = right;
+                    right = swapped;
+                }
+
+                yield new Expression(Opcode.BINARY, operator, null, List.of(key(left), key(right)), null);
+            }
+            case NOT, ARRAY_LENGTH ->
+                    new Expression(instruction.getOpcode(), null, null, List.of(key(operands.get(0))), null);
+            case ARRAY_LOAD -> new Expression(Opcode.ARRAY_LOAD, null, null,
+                    List.of(key(operands.get(0)), key(operands.get(1))), memory);
+            case GET_FIELD -> new Expression(Opcode.GET_FIELD, null, instruction.getName(), List.of(), memory);
+            case CALL -> callExpressionOf(instruction, memory);
+            default -> null;
+        };
+    }
+
+    /**
+     * @return the key of a call that can reuse the result of an identical earlier call, or null
+     */
+    private Expression callExpressionOf(Instruction call, Object memory) {
+        if (call.getDest() == null || !summaries.isReusable(method, call)) {
+            return null;
+        }
+
+        List<Object> operands = new ArrayList<>();
+        for (Value operand : call.getOperands()) {
+            operands.add(key(operand));
+        }
+        String name = (call.isStatic() ? call.getClassName() : "") + "." + call.getName();
+        boolean readsMemory = summaries.readsFields(method, call) || summaries.readsArrays(method, call);
+        return new Expression(Opcode.CALL, null, name, operands, readsMemory ? memory : null);
+    }
+
+    /**
+     * @return the key of the load that reads back the value written by a store, or null for other instructions
+     */
+    private static Expression storedExpression(Instruction instruction, Object memory) {
+        List<Value> operands = instruction.getOperands();
+
+        return switch (instruction.getOpcode()) {
+            case ARRAY_STORE -> new Expression(Opcode.ARRAY_LOAD, null, null,
+                    List.of(key(operands.get(0)), key(operands.get(1))), memory);
+            case PUT_FIELD -> new Expression(Opcode.GET_FIELD, null, instruction.getName(), List.of(), memory);
+            default -> null;
+        };
+    }
+
+    /**
+     * Locals are compared by identity and constants by value; there is a single {@code this}.
+     */
+    private static Object key(Value value) {
+        return value instanceof ThisValue ? ThisValue.class : value;
+    }
+
+    /**
+     * Orders the operands of commutative operators, so that {@code a + b} and {@code b + a} get the same key.
+     */
+    private static String order(Value value) {
+        if (value instanceof Local local) {
+            return "L" + local.getId();
+        }
+        return "C" + value;
+    }
+}
@@ -0,0 +1,387 @@
+package pt.up.fe.comp2025.optimization.ssa;
+
+import pt.up.fe.comp.jmm.analysis.table.SymbolTable;
+import pt.up.fe.comp2025.symboltable.JmmSymbolTable;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Replaces calls of small methods of the compiled class by a copy of their body, in methods built by
+ * {@link IrBuilder} and not yet in SSA form.
+ * <p>
+ * Java-- has no final or private methods, and a class compiled on its own may be extended by another one, so a call
+ * can only be bound to the method of this class when the object it is made on was created in the caller with
+ * {@code new C()} of the compiled class. The copied body refers to that object instead of {@code this}, so its own
+ * calls on {@code this} can then be inlined as well. Callees must also:
+ * <ul>
+ * <li>not be recursive, directly or through other methods of the class, so that inlining ends;</li>
+ * <li>have as many parameters as the call has arguments (a call with other arguments is to an inherited
+ * overload);</li>
+ * <li>not be varargs methods, whose arguments are packed into an array by the call;</li>
+ * <li>not access fields, which the IR can only read and write on {@code this};</li>
+ * <li>fit in the budget: the number of instructions inlining may still add to the caller.</li>
+ * </ul>
+ * With a {@link Profile}, calls that never ran are not inlined, and calls in hot blocks may go over the budget by as
+ * much as the whole budget again.
+ * Locals of the callee become new variables of the caller named after the callee. Parameters are assigned from the
+ * arguments, and the variables that may be read before being assigned from their default values. Each return stores
+ * the value in the destination of the call and jumps to the code after it, which is moved to a new block.
+ */
+public class Inliner {
+
+    private final JmmSymbolTable table;
+    private final int budget;
+    private final Profile profile;
+
+    private Map<String, IrMethod> methods;
+    private Set<String> recursive;
+    private int inlinedCalls;
+
+    public Inliner(SymbolTable table, int budget) {
+        this(table, budget, Profile.empty());
+    }
+
+    public Inliner(SymbolTable table, int budget, Profile profile) {
+        this.table = (JmmSymbolTable) table;
+        this.budget = budget;
+        this.profile = profile;
+    }
+
+    public int getInlinedCalls() {
+        return inlinedCalls;
+    }
+
+    /**
+     * Inlines calls in each of the methods, which must not be in SSA form.
+     *
+     * @return the number of inlined calls
+     */
+    public int apply(Map<String, IrMethod> methods) {
+        this.methods = methods;
+        this.recursive = findRecursiveMethods();
+        this.inlinedCalls = 0;
+
+        for (IrMethod method : methods.values()) {
+            if (method.isSsa()) {
+                throw new RuntimeException("Inlining expects method '" + method.getName() + "' before SSA form");
+            }
+            inlineCalls(method);
+        }
+
+        return inlinedCalls;
+    }
+
+    private void inlineCalls(IrMethod caller) {
+        int remaining = budget;
+        Set<Instruction> decided = new HashSet<>();
+
+        // The copied bodies may have calls of their own, so the method is scanned again after each inlining
+        Instruction call = nextCall(caller, decided);
+        while (call != null) {
+            decided.add(call);
+
+            IrMethod callee = methods.get(call.getName());
+            int size = sizeOf(callee);
+            String reason = rejectionReason(caller, call, callee, size, remaining);
+
+            if (reason == null) {
+                inline(caller, call, callee, null);
+                remaining -= size;
+                inlinedCalls++;
+                System.out.println("[Inline] " + caller.getName() + ": inlined " + call.getName() + " (size " + size
+                        + ", budget left " + remaining + ")");
+            } else {
+                System.out.println("[Inline] " + caller.getName() + ": kept call to " + call.getName() + " (size "
+                        + size + "): " + reason);
+            }
+
+            call = nextCall(caller, decided);
+        }
+    }
+
+    /**
+     * @return the first call of a method of the class that was not decided yet, or null
+     */
+    private Instruction nextCall(IrMethod caller, Set<Instruction> decided) {
+        for (BasicBlock block : caller.getReversePostorder()) {
+            for (Instruction instruction : block.getInstructions()) {
+                if (isCallToClass(instruction) && !decided.contains(instruction)) {
+                    return instruction;
+                }
+            }
+        }
+        return null;
+    }
+
+    private boolean isCallToClass(Instruction instruction) {
+        return instruction.is(Opcode.CALL) && !instruction.isStatic()
+                && instruction.getReceiver().getType().getName().equals(table.getClassName())
+                && !instruction.getReceiver().getType().isArray()
+                && methods.containsKey(instruction.getName());
+    }
+
+    /**
+     * @return why the call cannot be inlined, or null if it can
+     */
+    private String rejectionReason(IrMethod caller, Instruction call, IrMethod callee, int size, int remaining) {
+        if (call.getArguments().size() != callee.getParameters().size()) {
+            return "calls an inherited overload";
+        }
+        if (table.isVarargs(callee.getName())) {
+            return "varargs method";
+        }
+        if (recursive.contains(callee.getName())) {
+            return "recursive";
+        }
+        if (!isExactReceiver(caller, call, table.getClassName())) {
+            return "may be overridden";
+        }
+        if (accessesFields(callee)) {
+            return "accesses fields";
+        }
+        if (profile.isCold(call)) {
+            return "never called in the profile";
+        }
+        if (size > remaining && !(profile.isHot(call) && size <= remaining + budget)) {
+            return "over budget (" + remaining + " left)";
+        }
+        return null;
+    }
+
+    /**
+     * @return true if the receiver of the call is an object of the given class, and not null: every assignment to it
+     * in the caller creates one (or copies a local that is one), and one of them always runs before the call
+     */
+    static boolean isExactReceiver(IrMethod caller, Instruction call, String className) {
+        return isExactObject(call.getReceiver(), call, className, new DominatorTree(caller), new HashSet<>());
+    }
+
+    private static boolean isExactObject(Value value, Instruction reader, String className, DominatorTree dominators,
+                                         Set<Local> visited) {
+        if (!(value instanceof Local local) || local.isParameter()) {
+            return false;
+        }
+        if (!visited.add(local)) {
+            return true;
+        }
+
+        boolean assignedBefore = false;
+        for (Instruction definition : definitionsOf(local, dominators)) {
+            if (definition.is(Opcode.COPY)) {
+                if (!isExactObject(definition.getOperand(0), definition, className, dominators, visited)) {
+                    return false;
+                }
+            } else if (!definition.is(Opcode.NEW_OBJECT) || !definition.getClassName().equals(className)) {
+                return false;
+            }
+            assignedBefore |= runsBefore(definition, reader, dominators);
+        }
+        return assignedBefore;
+    }
+
+    static List<Instruction> definitionsOf(Local local, DominatorTree dominators) {
+        List<Instruction> definitions = new ArrayList<>();
+        for (BasicBlock block : dominators.getReversePostorder()) {
+            for (Instruction instruction : block.getInstructions()) {
+                if (instruction.getDest() == local) {
+                    definitions.add(instruction);
+                }
+            }
+        }
+        return definitions;
+    }
+
+    /**
+     * @return true if the first instruction runs on every path to the second
+     */
+    static boolean runsBefore(Instruction first, Instruction second, DominatorTree dominators) {
+        BasicBlock block = first.getBlock();
+        if (block == second.getBlock()) {
+            List<Instruction> instructions = block.getInstructions();
+            return instructions.indexOf(first) < instructions.indexOf(second);
+        }
+        return dominators.dominates(block, second.getBlock());
+    }
+
+    private static boolean accessesFields(IrMethod method) {
+        for (BasicBlock block : method.getBlocks()) {
+            for (Instruction instruction : block.getInstructions()) {
+                if (instruction.is(Opcode.GET_FIELD) || instruction.is(Opcode.PUT_FIELD)) {
+                    return true;
+                }
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Size estimate of a method: its instructions and terminators, without the jumps, which mostly become
+     * fall-throughs.
+     */
+    static int sizeOf(IrMethod method) {
+        int size = 0;
+        for (BasicBlock block : method.getBlocks()) {
+            size += block.getInstructions().size();
+            if (!block.getTerminator().is(Opcode.JUMP)) {
+                size++;
+            }
+        }
+        return size;
+    }
+
+    /**
+     * Finds the methods that can call themselves through calls of methods of the class.
+     */
+    private Set<String> findRecursiveMethods() {
+        Map<String, Set<String>> callees = new HashMap<>();
+        for (IrMethod method : methods.values()) {
+            Set<String> called = new LinkedHashSet<>();
+            for (BasicBlock block : method.getBlocks()) {
+                for (Instruction instruction : block.getInstructions()) {
+                    if (isCallToClass(instruction) && instruction.getArguments().size()
+                            == methods.get(instruction.getName()).getParameters().size()) {
+                        called.add(instruction.getName());
+                    }
+                }
+            }
+            callees.put(method.getName(), called);
+        }
+
+        Set<String> recursive = new HashSet<>();
+        for (String start : callees.keySet()) {
+            Set<String> reached = new HashSet<>();
+            Deque<String> worklist = new ArrayDeque<>(callees.get(start));
+            while (!worklist.isEmpty()) {
+                String name = worklist.pop();
+                if (reached.add(name)) {
+                    worklist.addAll(callees.getOrDefault(name, Set.of()));
+                }
+            }
+            if (reached.contains(start)) {
+                recursive.add(start);
+            }
+        }
+        return recursive;
+    }
+
+    /**
+     * Replaces the call by a copy of the body of the callee.
+     *
+     * @param fields the locals that replace the fields of the receiver, or null if the callee does not access fields
+     */
+    static void inline(IrMethod caller, Instruction call, IrMethod callee, Map<String, Local> fields) {
+        BasicBlock block = call.getBlock();
+        Value receiver = call.getReceiver();
+
+        // The instructions after the call move to a new block, where the returns of the callee go
+        BasicBlock after = caller.newBlock();
+        List<Instruction> instructions = block.getInstructions();
+        int index = instructions.indexOf(call);
+        for (Instruction instruction : new ArrayList<>(instructions.subList(index + 1, instructions.size()))) {
+            block.remove(instruction);
+            after.append(instruction);
+        }
+        Instruction terminator = block.getTerminator();
+        block.remove(call);
+
+        // Locals of the callee become new variables of the caller
+        Map<Value, Value> values = new HashMap<>();
+        Map<BasicBlock, BasicBlock> blocks = new HashMap<>();
+        for (BasicBlock calleeBlock : callee.getBlocks()) {
+            blocks.put(calleeBlock, caller.newBlock());
+        }
+
+        for (int i = 0; i < callee.getParameters().size(); i++) {
+            Local parameter = callee.getParameters().get(i);
+            Local copy = caller.newVariable(parameter.getType(), renamed(callee, parameter));
+            values.put(parameter, copy);
+            block.append(Instruction.copy(copy, call.getArguments().get(i)));
+        }
+
+        Set<Local> readBeforeAssigned = new Liveness(callee).getLiveIn(callee.getEntry());
+        for (BasicBlock calleeBlock : callee.getBlocks()) {
+            for (Instruction instruction : calleeBlock.getAllInstructions()) {
+                List<Value> locals = new ArrayList<>(instruction.getOperands());
+                if (instruction.getDest() != null) {
+                    locals.add(instruction.getDest());
+                }
+
+                for (Value value : locals) {
+                    if (value instanceof Local local && !values.containsKey(local)) {
+                        Local copy = caller.newVariable(local.getType(),
+                                local.isTemporary() ? null : renamed(callee, local));
+                        values.put(local, copy);
+                        if (readBeforeAssigned.contains(local)) {
+                            // Variables read before being assigned start with their default value on each call
+                            block.append(Instruction.copy(copy, Constant.defaultOf(local.getType())));
+                        }
+                    }
+                }
+            }
+        }
+
+        block.setTerminator(Instruction.jump(blocks.get(callee.getEntry())));
+        after.setTerminator(terminator);
+
+        for (BasicBlock calleeBlock : callee.getBlocks()) {
+            BasicBlock copy = blocks.get(calleeBlock);
+
+            for (Instruction instruction : calleeBlock.getInstructions()) {
+                copy.append(copyOf(instruction, values, receiver, fields));
+            }
+
+            Instruction calleeTerminator = calleeBlock.getTerminator();
+            if (calleeTerminator.is(Opcode.RETURN)) {
+                if (call.getDest() != null && !calleeTerminator.getOperands().isEmpty()) {
+                    copy.append(Instruction.copy(call.getDest(), map(calleeTerminator.getOperand(0), values, receiver)));
+                }
+                copy.setTerminator(Instruction.jump(after));
+            } else {
+                Instruction copied = copyOf(calleeTerminator, values, receiver, fields);
+                for (BasicBlock target : calleeTerminator.getTargets()) {
+                    copied.replaceTarget(target, blocks.get(target));
+                }
+                copy.setTerminator(copied);
+            }
+        }
+    }
+
+    private static String renamed(IrMethod callee, Local local) {
+        return callee.getName() + "_" + local.getName();
+    }
+
+    private static Value map(Value value, Map<Value, Value> values, Value receiver) {
+        if (value instanceof ThisValue) {
+            return receiver;
+        }
+        return values.getOrDefault(value, value);
+    }
+
+    private static Instruction copyOf(Instruction instruction, Map<Value, Value> values, Value receiver,
+                                      Map<String, Local> fields) {
+        // Fields of a receiver replaced by locals are read and written as those locals
+        if (fields != null && instruction.is(Opcode.GET_FIELD)) {
+            return Instruction.copy((Local) values.get(instruction.getDest()), fields.get(instruction.getName()));
+        }
+        if (fields != null && instruction.is(Opcode.PUT_FIELD)) {
+            return Instruction.copy(fields.get(instruction.getName()), map(instruction.getOperand(0), values, receiver));
+        }
+
+        Instruction copy = instruction.duplicate();
+        if (copy.getDest() != null) {
+            copy.setDest((Local) values.get(copy.getDest()));
+        }
+        for (int i = 0; i < copy.getOperands().size(); i++) {
+            copy.setOperand(i, map(copy.getOperand(i), values, receiver));
+        }
+        return copy;
+    }
+}
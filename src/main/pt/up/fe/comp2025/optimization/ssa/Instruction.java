@@ -0,0 +1,379 @@
+package pt.up.fe.comp2025.optimization.ssa;
+
+import pt.up.fe.comp.jmm.analysis.table.Type;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.stream.Collectors;
+
+/**
+ * Instruction of the IR.
+ * <p>
+ * Every instruction defines at most one local (its destination) and reads its operands, so the def-use information
+ * of a method is directly available from the instructions. The meaning of the operands and of the other attributes
+ * depends on the {@link Opcode}; instructions are created with the factory methods.
+ */
+public class Instruction {
+
+    private final Opcode opcode;
+    private final List<Value> operands;
+    private final List<BasicBlock> targets;
+    private final List<BasicBlock> incoming;
+
+    private Local dest;
+    private Operator operator;
+    private String name;
+    private String className;
+    private Type type;
+    private boolean isStatic;
+    private BasicBlock block;
+
+    private Instruction(Opcode opcode, Local dest, List<Value> operands) {
+        this.opcode = opcode;
+        this.dest = dest;
+        this.operands = new ArrayList<>(operands);
+        this.targets = new ArrayList<>();
+        this.incoming = new ArrayList<>();
+    }
+
+    public static Instruction copy(Local dest, Value value) {
+        return new Instruction(Opcode.COPY, dest, List.of(value));
+    }
+
+    public static Instruction binary(Local dest, Operator operator, Value left, Value right) {
+        Instruction instruction = new Instruction(Opcode.BINARY, dest, List.of(left, right));
+        instruction.operator = operator;
+        return instruction;
+    }
+
+    public static Instruction not(Local dest, Value value) {
+        return new Instruction(Opcode.NOT, dest, List.of(value));
+    }
+
+    public static Instruction arrayLoad(Local dest, Value array, Value index) {
+        return new Instruction(Opcode.ARRAY_LOAD, dest, List.of(array, index));
+    }
+
+    public static Instruction arrayStore(Value array, Value index, Value value) {
+        return new Instruction(Opcode.ARRAY_STORE, null, List.of(array, index, value));
+    }
+
+    public static Instruction arrayLength(Local dest, Value array) {
+        return new Instruction(Opcode.ARRAY_LENGTH, dest, List.of(array));
+    }
+
+    public static Instruction newArray(Local dest, Value size) {
+        return new Instruction(Opcode.NEW_ARRAY, dest, List.of(size));
+    }
+
+    public static Instruction newObject(Local dest, String className) {
+        Instruction instruction = new Instruction(Opcode.NEW_OBJECT, dest, List.of());
+        instruction.className = className;
+        return instruction;
+    }
+
+    /**
+     * Call of a static method of an imported class.
+     *
+     * @param dest the local that receives the result, or null if the result is not used
+     */
+    public static Instruction callStatic(Local dest, String className, String method, List<Value> arguments,
+                                         Type returnType) {
+        Instruction instruction = new Instruction(Opcode.CALL, dest, arguments);
+        instruction.className = className;
+        instruction.name = method;
+        instruction.type = returnType;
+        instruction.isStatic = true;
+        return instruction;
+    }
+
+    /**
+     * Call of an instance method. The receiver is the first operand.
+     *
+     * @param dest the local that receives the result, or null if the result is not used
+     */
+    public static Instruction callVirtual(Local dest, Value receiver, String method, List<Value> arguments,
+                                          Type returnType) {
+        List<Value> operands = new ArrayList<>();
+        operands.add(receiver);
+        operands.addAll(arguments);
+
+        Instruction instruction = new Instruction(Opcode.CALL, dest, operands);
+        instruction.name = method;
+        instruction.type = returnType;
+        return instruction;
+    }
+
+    public static Instruction getField(Local dest, String field, Type fieldType) {
+        Instruction instruction = new Instruction(Opcode.GET_FIELD, dest, List.of());
+        instruction.name = field;
+        instruction.type = fieldType;
+        return instruction;
+    }
+
+    public static Instruction putField(String field, Type fieldType, Value value) {
+        Instruction instruction = new Instruction(Opcode.PUT_FIELD, null, List.of(value));
+        instruction.name = field;
+        instruction.type = fieldType;
+        return instruction;
+    }
+
+    /**
+     * Phi without incoming values, they are added with {@link #addIncoming}.
+     */
+    public static Instruction phi(Local dest) {
+        return new Instruction(Opcode.PHI, dest, List.of());
+    }
+
+    public static Instruction jump(BasicBlock target) {
+        Instruction instruction = new Instruction(Opcode.JUMP, null, List.of());
+        instruction.targets.add(target);
+        return instruction;
+    }
+
+    public static Instruction branch(Value condition, BasicBlock ifTrue, BasicBlock ifFalse) {
+        Instruction instruction = new Instruction(Opcode.BRANCH, null, List.of(condition));
+        instruction.targets.add(ifTrue);
+        instruction.targets.add(ifFalse);
+        return instruction;
+    }
+
+    /**
+     * @param value the returned value, or null in void methods
+     */
+    public static Instruction ret(Value value) {
+        return new Instruction(Opcode.RETURN, null, value == null ? List.of() : List.of(value));
+    }
+
+    /**
+     * @return a copy of the instruction, with the same destination, operands, targets and attributes, that does not
+     * belong to any block yet
+     */
+    public Instruction duplicate() {
+        Instruction copy = new Instruction(opcode, dest, operands);
+        copy.targets.addAll(targets);
+        copy.incoming.addAll(incoming);
+        copy.operator = operator;
+        copy.name = name;
+        copy.className = className;
+        copy.type = type;
+        copy.isStatic = isStatic;
+        return copy;
+    }
+
+    public Opcode getOpcode() {
+        return opcode;
+    }
+
+    public boolean is(Opcode opcode) {
+        return this.opcode == opcode;
+    }
+
+    /**
+     * @return the local defined by the instruction, or null
+     */
+    public Local getDest() {
+        return dest;
+    }
+
+    public void setDest(Local dest) {
+        this.dest = dest;
+    }
+
+    public List<Value> getOperands() {
+        return Collections.unmodifiableList(operands);
+    }
+
+    public Value getOperand(int index) {
+        return operands.get(index);
+    }
+
+    public void setOperand(int index, Value value) {
+        operands.set(index, value);
+    }
+
+    /**
+     * Replaces every read of a value by another value.
+     *
+     * @return true if the instruction read the value
+     */
+    public boolean replaceUses(Value oldValue, Value newValue) {
+        boolean replaced = false;
+        for (int i = 0; i < operands.size(); i++) {
+            if (operands.get(i).equals(oldValue)) {
+                operands.set(i, newValue);
+                replaced = true;
+            }
+        }
+        return replaced;
+    }
+
+    public Operator getOperator() {
+        return operator;
+    }
+
+    public void setOperator(Operator operator) {
+        this.operator = operator;
+    }
+
+    /**
+     * @return the called method or the accessed field
+     */
+    public String getName() {
+        return name;
+    }
+
+    /**
+     * @return the class of a static call or of a new object
+     */
+    public String getClassName() {
+        return className;
+    }
+
+    /**
+     * @return the return type of a call or the type of the accessed field
+     */
+    public Type getType() {
+        return type;
+    }
+
+    public boolean isStatic() {
+        return isStatic;
+    }
+
+    /**
+     * @return the receiver of an instance call
+     */
+    public Value getReceiver() {
+        return isStatic ? null : operands.get(0);
+    }
+
+    /**
+     * @return the arguments of a call
+     */
+    public List<Value> getArguments() {
+        return getOperands().subList(isStatic ? 0 : 1, operands.size());
+    }
+
+    /**
+     * @return the successors of a terminator (the target of a jump, or the true and false targets of a branch)
+     */
+    public List<BasicBlock> getTargets() {
+        return Collections.unmodifiableList(targets);
+    }
+
+    public void replaceTarget(BasicBlock oldTarget, BasicBlock newTarget) {
+        for (int i = 0; i < targets.size(); i++) {
+            if (targets.get(i) == oldTarget) {
+                targets.set(i, newTarget);
+            }
+        }
+    }
+
+    /**
+     * @return the predecessor each operand of a phi comes from
+     */
+    public List<BasicBlock> getIncoming() {
+        return Collections.unmodifiableList(incoming);
+    }
+
+    public void addIncoming(BasicBlock predecessor, Value value) {
+        incoming.add(predecessor);
+        operands.add(value);
+    }
+
+    public void removeIncoming(BasicBlock predecessor) {
+        int index = incoming.indexOf(predecessor);
+        if (index >= 0) {
+            incoming.remove(index);
+            operands.remove(index);
+        }
+    }
+
+    public void replaceIncoming(BasicBlock oldPredecessor, BasicBlock newPredecessor) {
+        for (int i = 0; i < incoming.size(); i++) {
+            if (incoming.get(i) == oldPredecessor) {
+                incoming.set(i, newPredecessor);
+            }
+        }
+    }
+
+    /**
+     * @return the operand of a phi that comes from the given predecessor
+     */
+    public Value getValueFrom(BasicBlock predecessor) {
+        int index = incoming.indexOf(predecessor);
+        return index < 0 ? null : operands.get(index);
+    }
+
+    /**
+     * @return the block the instruction belongs to
+     */
+    public BasicBlock getBlock() {
+        return block;
+    }
+
+    void setBlock(BasicBlock block) {
+        this.block = block;
+    }
+
+    public boolean isTerminator() {
+        return opcode.isTerminator();
+    }
+
+    /**
+     * @return true if the instruction does something besides defining its destination, and so cannot be removed
+     * when the destination is not used
+     */
+    public boolean hasSideEffects() {
+        return switch (opcode) {
+            case ARRAY_STORE, PUT_FIELD, CALL, JUMP, BRANCH, RETURN -> true;
+            default -> false;
+        };
+    }
+
+    /**
+     * @return true if the instruction can throw an exception (which is also an effect that must be preserved)
+     */
+    public boolean mayThrow() {
+        return switch (opcode) {
+            case ARRAY_LOAD, ARRAY_STORE, ARRAY_LENGTH, NEW_ARRAY, CALL -> true;
+            case BINARY -> operator == Operator.DIV
+                    && !(operands.get(1) instanceof Constant divisor && divisor.isInt() && divisor.asInt() != 0);
+            default -> false;
+        };
+    }
+
+    @Override
+    public String toString() {
+        String prefix = dest == null ? "" : dest + " := ";
+        String args = operands.stream().map(Value::toString).collect(Collectors.joining(", "));
+
+        return switch (opcode) {
+            case COPY -> prefix + operands.get(0);
+            case BINARY -> prefix + operands.get(0) + " " + operator.getSymbol() + " " + operands.get(1);
+            case NOT -> prefix + "!" + operands.get(0);
+            case ARRAY_LOAD -> prefix + operands.get(0) + "[" + operands.get(1) + "]";
+            case ARRAY_STORE -> operands.get(0) + "[" + operands.get(1) + "] := " + operands.get(2);
+            case ARRAY_LENGTH -> prefix + operands.get(0) + ".length";
+            case NEW_ARRAY -> prefix + "new int[" + operands.get(0) + "]";
+            case NEW_OBJECT -> prefix + "new " + className + "()";
+            case CALL -> prefix + (isStatic ? className + "." + name + "(" + args + ")"
+                    : operands.get(0) + "." + name + "(" + getArguments().stream().map(Value::toString)
+                    .collect(Collectors.joining(", ")) + ")");
+            case GET_FIELD -> prefix + "this." + name;
+            case PUT_FIELD -> "this." + name + " := " + operands.get(0);
+            case PHI -> {
+                List<String> values = new ArrayList<>();
+                for (int i = 0; i < operands.size(); i++) {
+                    values.add(incoming.get(i) + ": " + operands.get(i));
+                }
+                yield prefix + "phi(" + String.join(", ", values) + ")";
+            }
+            case JUMP -> "goto " + targets.get(0);
+            case BRANCH -> "if (" + operands.get(0) + ") goto " + targets.get(0) + " else " + targets.get(1);
+            case RETURN -> operands.isEmpty() ? "return" : "return " + operands.get(0);
+        };
+    }
+}
@@ -0,0 +1,296 @@
+package pt.up.fe.comp2025.optimization.ssa;
+
+import pt.up.fe.comp.jmm.analysis.table.SymbolTable;
+import pt.up.fe.comp2025.symboltable.JmmSymbolTable;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Propagates the constant arguments of calls between methods of the compiled class into specialized copies of the
+ * called methods, in methods built by {@link IrBuilder} and not yet in SSA form.
+ * <p>
+ * The call graph is made of the calls of methods of the class on {@code this} or on an object created in the caller
+ * with {@code new C()} of the compiled class. An argument is constant when it is a literal, or a local whose only
+ * assignment is a constant that always runs before the call. For each method and each combination of constant
+ * arguments, a copy of the method is made without those parameters: the copy assigns the constants to variables named
+ * after them at its start, so that {@link ConstantFolding} folds them into its body, and the calls with those
+ * constants call the copy instead. Calls that agree on their constants share the same copy. As with
+ * {@link TailRecursionElimination}, calls on {@code this} are bound to the method of this class, so an override of the
+ * method in a subclass is not called by them.
+ * <p>
+ * Every method of the class is public and may be called from outside it, so the original methods are kept unchanged
+ * even when every call in the class passes the same constant. The copies are processed as well, so constants keep
+ * flowing through the calls they make. The budget is the number of instructions the copies may add to the class.
+ */
+public class InterproceduralConstantPropagation {
+
+    private static final String SUFFIX = "_spec";
+
+    private final JmmSymbolTable table;
+    private final int budget;
+
+    private Map<String, IrMethod> methods;
+    private Map<String, IrMethod> specializations;
+    private int redirectedCalls;
+
+    public InterproceduralConstantPropagation(SymbolTable table, int budget) {
+        this.table = (JmmSymbolTable) table;
+        this.budget = budget;
+        this.specializations = new LinkedHashMap<>();
+    }
+
+    public int getRedirectedCalls() {
+        return redirectedCalls;
+    }
+
+    /**
+     * Specializes the methods called with constant arguments. The new methods are added to the map.
+     *
+     * @return the number of specialized methods
+     */
+    public int apply(Map<String, IrMethod> methods) {
+        this.methods = methods;
+        this.specializations = new LinkedHashMap<>();
+        this.redirectedCalls = 0;
+
+        for (IrMethod method : methods.values()) {
+            if (method.isSsa()) {
+                throw new RuntimeException("Interprocedural constant propagation expects method '" + method.getName()
+                        + "' before SSA form");
+            }
+        }
+
+        int remaining = budget;
+        List<IrMethod> callers = new ArrayList<>(methods.values());
+        Map<String, IrMethod> byConstants = new HashMap<>();
+
+        // The copies are added to the callers as they are made
+        for (int i = 0; i < callers.size(); i++) {
+            IrMethod caller = callers.get(i);
+            DominatorTree dominators = new DominatorTree(caller);
+
+            for (Instruction call : findCalls(caller)) {
+                IrMethod callee = methods.get(call.getName());
+                List<Constant> constants = constantArguments(call, dominators);
+                if (constants.stream().allMatch(constant -> constant == null)) {
+                    continue;
+                }
+
+                String key = callee.getName() + constants;
+                IrMethod specialized = byConstants.get(key);
+                if (specialized == null) {
+                    int size = Inliner.sizeOf(callee);
+                    if (size > remaining) {
+                        System.out.println("[IPCP] " + caller.getName() + ": kept call to " + callee.getName()
+                                + describe(callee, constants) + ": over budget (" + remaining + " left)");
+                        continue;
+                    }
+
+                    specialized = specialize(callee, constants, newName(callee.getName()));
+                    remaining -= size;
+                    byConstants.put(key, specialized);
+                    specializations.put(specialized.getName(), specialized);
+                    callers.add(specialized);
+                    System.out.println("[IPCP] specialized " + callee.getName() + describe(callee, constants)
+                            + " as " + specialized.getName() + " (size " + size + ", budget left " + remaining + ")");
+                }
+
+                redirect(call, specialized, constants);
+                redirectedCalls++;
+            }
+        }
+
+        methods.putAll(specializations);
+        System.out.println("[IPCP] " + specializations.size() + " specialized method(s), " + redirectedCalls
+                + " call(s) redirected");
+        return specializations.size();
+    }
+
+    /**
+     * Removes the specialized methods that are no longer called, after their calls were inlined.
+     *
+     * @return the number of removed methods
+     */
+    public int removeUncalled(Map<String, IrMethod> methods) {
+        Set<String> called = new HashSet<>();
+        for (IrMethod method : methods.values()) {
+            for (BasicBlock block : method.getBlocks()) {
+                for (Instruction instruction : block.getInstructions()) {
+                    if (instruction.is(Opcode.CALL) && !instruction.isStatic()) {
+                        called.add(instruction.getName());
+                    }
+                }
+            }
+        }
+
+        int removed = 0;
+        for (String name : specializations.keySet()) {
+            if (!called.contains(name) && methods.remove(name) != null) {
+                removed++;
+            }
+        }
+
+        // Removing a method may leave the ones it called without calls
+        return removed > 0 ? removed + removeUncalled(methods) : 0;
+    }
+
+    /**
+     * @return the calls of original methods of the class that are bound to the method of this class
+     */
+    private List<Instruction> findCalls(IrMethod caller) {
+        List<Instruction> calls = new ArrayList<>();
+        for (BasicBlock block : caller.getReversePostorder()) {
+            for (Instruction instruction : block.getInstructions()) {
+                if (!instruction.is(Opcode.CALL) || instruction.isStatic()
+                        || specializations.containsKey(instruction.getName())) {
+                    continue;
+                }
+
+                IrMethod callee = methods.get(instruction.getName());
+                if (callee == null || table.isVarargs(callee.getName())
+                        || instruction.getArguments().size() != callee.getParameters().size()) {
+                    continue;
+                }
+
+                if (instruction.getReceiver() instanceof ThisValue
+                        || Inliner.isExactReceiver(caller, instruction, table.getClassName())) {
+                    calls.add(instruction);
+                }
+            }
+        }
+        return calls;
+    }
+
+    /**
+     * @return the constant value of each argument of the call, or null for the arguments that are not constant
+     */
+    private static List<Constant> constantArguments(Instruction call, DominatorTree dominators) {
+        List<Constant> constants = new ArrayList<>();
+        for (Value argument : call.getArguments()) {
+            constants.add(constantOf(argument, call, dominators));
+        }
+        return constants;
+    }
+
+    private static Constant constantOf(Value value, Instruction reader, DominatorTree dominators) {
+        if (value instanceof Constant constant) {
+            return constant;
+        }
+        if (!(value instanceof Local local) || local.isParameter()) {
+            return null;
+        }
+
+        List<Instruction> definitions = Inliner.definitionsOf(local, dominators);
+        if (definitions.size() != 1) {
+            return null;
+        }
+        Instruction definition = definitions.get(0);
+        if (definition.is(Opcode.COPY) && definition.getOperand(0) instanceof Constant constant
+                && Inliner.runsBefore(definition, reader, dominators)) {
+            return constant;
+        }
+        return null;
+    }
+
+    /**
+     * Copies the method, replacing each parameter with a constant by a variable assigned at the start.
+     */
+    private static IrMethod specialize(IrMethod method, List<Constant> constants, String name) {
+        IrMethod copy = new IrMethod(name, method.getReturnType());
+        BasicBlock start = copy.getEntry();
+        Map<Value, Value> values = new HashMap<>();
+
+        for (int i = 0; i < constants.size(); i++) {
+            Local parameter = method.getParameters().get(i);
+            if (constants.get(i) == null) {
+                values.put(parameter, copy.addParameter(parameter.getType(), parameter.getName()));
+            } else {
+                Local variable = copy.newVariable(parameter.getType(), parameter.getName());
+                values.put(parameter, variable);
+                start.append(Instruction.copy(variable, constants.get(i)));
+            }
+        }
+
+        Map<BasicBlock, BasicBlock> blocks = new HashMap<>();
+        for (BasicBlock block : method.getBlocks()) {
+            blocks.put(block, copy.newBlock());
+        }
+
+        for (BasicBlock block : method.getBlocks()) {
+            BasicBlock target = blocks.get(block);
+            for (Instruction instruction : block.getInstructions()) {
+                target.append(copyOf(instruction, copy, values));
+            }
+
+            Instruction terminator = copyOf(block.getTerminator(), copy, values);
+            for (BasicBlock successor : block.getTerminator().getTargets()) {
+                terminator.replaceTarget(successor, blocks.get(successor));
+            }
+            target.setTerminator(terminator);
+        }
+
+        start.setTerminator(Instruction.jump(blocks.get(method.getEntry())));
+        return copy;
+    }
+
+    private static Instruction copyOf(Instruction instruction, IrMethod method, Map<Value, Value> values) {
+        Instruction copy = instruction.duplicate();
+        if (copy.getDest() != null) {
+            copy.setDest((Local) localOf(copy.getDest(), method, values));
+        }
+        for (int i = 0; i < copy.getOperands().size(); i++) {
+            copy.setOperand(i, localOf(copy.getOperand(i), method, values));
+        }
+        return copy;
+    }
+
+    private static Value localOf(Value value, IrMethod method, Map<Value, Value> values) {
+        if (!(value instanceof Local local)) {
+            return value;
+        }
+        return values.computeIfAbsent(local, key -> method.newVariable(local.getType(), local.getName()));
+    }
+
+    private static void redirect(Instruction call, IrMethod specialized, List<Constant> constants) {
+        List<Value> arguments = new ArrayList<>();
+        for (int i = 0; i < constants.size(); i++) {
+            if (constants.get(i) == null) {
+                arguments.add(call.getArguments().get(i));
+            }
+        }
+
+        BasicBlock block = call.getBlock();
+        int index = block.getInstructions().indexOf(call);
+        block.remove(call);
+        block.insert(index, Instruction.callVirtual(call.getDest(), call.getReceiver(), specialized.getName(),
+                arguments, call.getType()));
+    }
+
+    /**
+     * @return a name that is not used by a method of the class or by another specialization
+     */
+    private String newName(String method) {
+        for (int i = 0; ; i++) {
+            String name = method + SUFFIX + i;
+            if (!methods.containsKey(name) && !specializations.containsKey(name)
+                    && !table.getMethods().contains(name)) {
+                return name;
+            }
+        }
+    }
+
+    private static String describe(IrMethod method, List<Constant> constants) {
+        List<String> arguments = new ArrayList<>();
+        for (int i = 0; i < constants.size(); i++) {
+            arguments.add(constants.get(i) == null ? method.getParameters().get(i).getName()
+                    : method.getParameters().get(i).getName() + " = " + constants.get(i));
+        }
+        return "(" + String.join(", ", arguments) + ")";
+    }
+}
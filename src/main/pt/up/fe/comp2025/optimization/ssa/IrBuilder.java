@@ -0,0 +1,487 @@
+package pt.up.fe.comp2025.optimization.ssa;
+
+import pt.up.fe.comp.jmm.analysis.table.Symbol;
+import pt.up.fe.comp.jmm.analysis.table.SymbolTable;
+import pt.up.fe.comp.jmm.analysis.table.Type;
+import pt.up.fe.comp.jmm.ast.JmmNode;
+import pt.up.fe.comp2025.ast.Kind;
+import pt.up.fe.comp2025.ast.TypeUtils;
+import pt.up.fe.comp2025.symboltable.JmmInterner;
+import pt.up.fe.comp2025.symboltable.JmmSymbolTable;
+import pt.up.fe.specs.util.exceptions.NotImplementedException;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Builds the IR of a method from its AST.
+ * <p>
+ * Each variable of the method becomes one {@link Local} that is assigned by every assignment to the variable, and
+ * each intermediate value of an expression a temporary. Conditions of if and while statements are lowered to
+ * branches, so {@code &&}, {@code ||} and {@code !} in conditions only select the target blocks. Expressions are
+ * evaluated in the order of Java (in {@code a[i] = v}, the array, then the index, then the value).
+ * <p>
+ * Constructs the IR does not represent (e.g. compound assignment operators) throw a
+ * {@link NotImplementedException}, so that callers can fall back to generating the method from the AST.
+ */
+public class IrBuilder {
+
+    private final JmmSymbolTable table;
+    private final TypeUtils types;
+    private final JmmInterner interner;
+
+    private String methodName;
+    private IrMethod method;
+    private Map<String, Local> variables;
+    private BasicBlock current;
+
+    public IrBuilder(SymbolTable table) {
+        this.table = (JmmSymbolTable) table;
+        this.types = new TypeUtils(table);
+        this.interner = types.getInterner();
+    }
+
+    /**
+     * Builds the IR of the method. Blocks that cannot be reached are removed.
+     *
+     * @throws NotImplementedException if the method uses a construct the IR does not represent
+     */
+    public IrMethod build(JmmNode methodDecl) {
+        methodName = getMethodName(methodDecl);
+        Type returnType = methodName.equals("main") ? interner.voidType() : table.getReturnType(methodName);
+        if (returnType == null) {
+            returnType = interner.voidType();
+        }
+
+        method = new IrMethod(methodName, returnType);
+        variables = new HashMap<>();
+        current = method.getEntry();
+        current.setCounter(Profile.counterOf(methodDecl, 0));
+
+        // Locals shadow parameters, which shadow fields
+        for (Symbol param : table.getParameters(methodName)) {
+            variables.put(param.getName(), method.addParameter(param.getType(), param.getName()));
+        }
+        for (Symbol local : table.getLocalVariables(methodName)) {
+            variables.put(local.getName(), method.newVariable(local.getType(), local.getName()));
+        }
+
+        for (JmmNode child : methodDecl.getChildren()) {
+            if (child.getKind().endsWith("Stmt")) {
+                buildStatement(child);
+            } else if (child.getKind().endsWith("Expr")) {
+                throw new NotImplementedException("Expression outside statement in method '" + methodName + "'");
+            }
+        }
+
+        // Falling off the end of the method returns the default value, like the code generated from the AST
+        if (!current.isTerminated()) {
+            current.setTerminator(Instruction.ret(returnType.getName().equals("void") && !returnType.isArray()
+                    ? null
+                    : Constant.defaultOf(returnType)));
+        }
+
+        method.removeUnreachableBlocks();
+        return method;
+    }
+
+    public static String getMethodName(JmmNode methodDecl) {
+        String name = methodDecl.get("name");
+        return name.equals("args") ? "main" : name;
+    }
+
+    private void buildStatement(JmmNode stmt) {
+        switch (kindOf(stmt)) {
+            case BLOCK_STMT -> stmt.getChildren().forEach(this::buildStatement);
+            case IF_ELSE_STMT -> buildIf(stmt);
+            case WHILE_STMT -> buildWhile(stmt);
+            case ASSIGN_STMT -> buildAssign(stmt);
+            case RETURN_STMT -> buildReturn(stmt);
+            case EXPR_STMT -> buildExprStmt(stmt);
+            default -> throw new NotImplementedException(stmt.getKind());
+        }
+    }
+
+    private void buildIf(JmmNode stmt) {
+        BasicBlock thenBlock = method.newBlock();
+        BasicBlock elseBlock = method.newBlock();
+        BasicBlock join = method.newBlock();
+        thenBlock.setCounter(Profile.counterOf(stmt, 0));
+        elseBlock.setCounter(Profile.counterOf(stmt, 1));
+        join.setCounter(Profile.counterOf(stmt, 2));
+
+        buildCondition(stmt.getChild(0), thenBlock, elseBlock);
+
+        current = thenBlock;
+        buildStatement(stmt.getChild(1));
+        jumpTo(join);
+
+        current = elseBlock;
+        buildStatement(stmt.getChild(2));
+        jumpTo(join);
+
+        current = join;
+    }
+
+    private void buildWhile(JmmNode stmt) {
+        BasicBlock header = method.newBlock();
+        BasicBlock body = method.newBlock();
+        BasicBlock exit = method.newBlock();
+        header.setCounter(Profile.counterOf(stmt, 0));
+        body.setCounter(Profile.counterOf(stmt, 1));
+        exit.setCounter(Profile.counterOf(stmt, 2));
+
+        jumpTo(header);
+
+        current = header;
+        buildCondition(stmt.getChild(0), body, exit);
+
+        current = body;
+        buildStatement(stmt.getChild(1));
+        jumpTo(header);
+
+        current = exit;
+    }
+
+    private void buildAssign(JmmNode stmt) {
+        JmmNode lhs = unwrap(stmt.getChild(0));
+        JmmNode rhs = stmt.getChild(1);
+
+        if (Kind.ARRAY_ACCESS_EXPR.check(lhs)) {
+            Value array = buildExpression(lhs.getChild(0));
+            Value index = buildExpression(lhs.getChild(1));
+            Value value = buildExpression(rhs);
+            current.append(Instruction.arrayStore(array, index, value));
+            return;
+        }
+
+        if (!Kind.VAR_REF_EXPR.check(lhs)) {
+            throw new NotImplementedException("Assignment to " + lhs.getKind());
+        }
+
+        String name = lhs.get("value");
+        Local variable = variables.get(name);
+        if (variable != null) {
+            Value value = buildExpression(rhs, variable.getType());
+            current.append(Instruction.copy(variable, value));
+            return;
+        }
+
+        Symbol field = getField(name);
+        if (field == null) {
+            throw new NotImplementedException("Assignment to unknown variable '" + name + "'");
+        }
+        Value value = buildExpression(rhs, field.getType());
+        current.append(Instruction.putField(name, field.getType(), value));
+    }
+
+    private void buildReturn(JmmNode stmt) {
+        Value value = stmt.getNumChildren() > 0 ? buildExpression(stmt.getChild(0), method.getReturnType()) : null;
+        current.setTerminator(Instruction.ret(value));
+
+        // Statements after a return are only reachable from nowhere
+        current = method.newBlock();
+    }
+
+    private void buildExprStmt(JmmNode stmt) {
+        JmmNode expr = unwrap(stmt.getChild(0));
+        if (Kind.METHOD_CALL_EXPR.check(expr)) {
+            buildCall(expr, null, false);
+        } else {
+            buildExpression(expr);
+        }
+    }
+
+    /**
+     * Ends the current block with a jump, unless it already ended (e.g. with a return).
+     */
+    private void jumpTo(BasicBlock target) {
+        if (!current.isTerminated()) {
+            current.setTerminator(Instruction.jump(target));
+        }
+    }
+
+    /**
+     * Ends the current block with a branch to one of the blocks, depending on the condition.
+     */
+    private void buildCondition(JmmNode condition, BasicBlock ifTrue, BasicBlock ifFalse) {
+        condition = unwrap(condition);
+
+        if (Kind.BOOLEAN_TRUE.check(condition)) {
+            current.setTerminator(Instruction.jump(ifTrue));
+            return;
+        }
+        if (Kind.BOOLEAN_FALSE.check(condition)) {
+            current.setTerminator(Instruction.jump(ifFalse));
+            return;
+        }
+        if (Kind.UNARY_EXPR.check(condition)) {
+            buildCondition(condition.getChild(0), ifFalse, ifTrue);
+            return;
+        }
+
+        if (Kind.BINARY_EXPR.check(condition)) {
+            String op = condition.get("op");
+            if (op.equals("&&") || op.equals("||")) {
+                BasicBlock right = method.newBlock();
+                if (op.equals("&&")) {
+                    buildCondition(condition.getChild(0), right, ifFalse);
+                } else {
+                    buildCondition(condition.getChild(0), ifTrue, right);
+                }
+                current = right;
+                buildCondition(condition.getChild(1), ifTrue, ifFalse);
+                return;
+            }
+        }
+
+        Value value = buildExpression(condition);
+        if (value instanceof Constant constant) {
+            current.setTerminator(Instruction.jump(constant.asBoolean() ? ifTrue : ifFalse));
+            return;
+        }
+        current.setTerminator(Instruction.branch(value, ifTrue, ifFalse));
+    }
+
+    private Value buildExpression(JmmNode expr) {
+        return buildExpression(expr, null);
+    }
+
+    /**
+     * Appends the instructions that compute the expression to the current block.
+     *
+     * @param expectedType the type of the variable that receives the value, used when the type of a call to an
+     *                     unknown library method cannot be inferred (may be null)
+     * @return the value of the expression
+     */
+    private Value buildExpression(JmmNode expr, Type expectedType) {
+        expr = unwrap(expr);
+
+        switch (kindOf(expr)) {
+            case INTEGER_LITERAL:
+                return Constant.of(Integer.parseInt(expr.get("value")), interner.intType());
+            case BOOLEAN_TRUE:
+                return Constant.of(true, interner.booleanType());
+            case BOOLEAN_FALSE:
+                return Constant.of(false, interner.booleanType());
+            case THIS_EXPR:
+                return new ThisValue(interner.type(table.getClassName(), false));
+            case VAR_REF_EXPR:
+                return buildVarRef(expr);
+            case UNARY_EXPR: {
+                Value operand = buildExpression(expr.getChild(0));
+                Local dest = method.newTemp(interner.booleanType());
+                current.append(Instruction.not(dest, operand));
+                return dest;
+            }
+            case BINARY_EXPR:
+                return buildBinary(expr);
+            case POSTFIX_EXPR:
+                return buildPostfix(expr);
+            case NEW_INT_ARRAY_EXPR: {
+                Value size = buildExpression(expr.getChild(0));
+                Local dest = method.newTemp(interner.intArrayType());
+                current.append(Instruction.newArray(dest, size));
+                return dest;
+            }
+            case NEW_OBJECT_EXPR: {
+                String className = expr.get("value");
+                Local dest = method.newTemp(interner.type(className, false));
+                current.append(Instruction.newObject(dest, className));
+                return dest;
+            }
+            case ARRAY_ACCESS_EXPR: {
+                Value array = buildExpression(expr.getChild(0));
+                Value index = buildExpression(expr.getChild(1));
+                if (!array.getType().isArray()) {
+                    throw new NotImplementedException("Array access on " + array.getType().print());
+                }
+                Local dest = method.newTemp(interner.elementType(array.getType()));
+                current.append(Instruction.arrayLoad(dest, array, index));
+                return dest;
+            }
+            case ARRAY_LENGTH_EXPR: {
+                Value array = buildExpression(expr.getChild(0));
+                Local dest = method.newTemp(interner.intType());
+                current.append(Instruction.arrayLength(dest, array));
+                return dest;
+            }
+            case ARRAY_LITERAL_EXPR:
+                return buildArrayLiteral(expr);
+            case METHOD_CALL_EXPR:
+                return buildCall(expr, expectedType, true);
+            default:
+                throw new NotImplementedException(expr.getKind());
+        }
+    }
+
+    private Value buildVarRef(JmmNode expr) {
+        String name = expr.get("value");
+        Local variable = variables.get(name);
+        if (variable != null) {
+            return variable;
+        }
+
+        Symbol field = getField(name);
+        if (field == null) {
+            throw new NotImplementedException("Reference to unknown variable '" + name + "'");
+        }
+        Local dest = method.newTemp(field.getType());
+        current.append(Instruction.getField(dest, name, field.getType()));
+        return dest;
+    }
+
+    private Value buildBinary(JmmNode expr) {
+        String op = expr.get("op");
+
+        // Short-circuit operators used as values select the value with branches
+        if (op.equals("&&") || op.equals("||")) {
+            Local dest = method.newTemp(interner.booleanType());
+            BasicBlock ifTrue = method.newBlock();
+            BasicBlock ifFalse = method.newBlock();
+            BasicBlock join = method.newBlock();
+
+            buildCondition(expr, ifTrue, ifFalse);
+
+            ifTrue.append(Instruction.copy(dest, Constant.of(true, interner.booleanType())));
+            ifTrue.setTerminator(Instruction.jump(join));
+            ifFalse.append(Instruction.copy(dest, Constant.of(false, interner.booleanType())));
+            ifFalse.setTerminator(Instruction.jump(join));
+
+            current = join;
+            return dest;
+        }
+
+        Operator operator = Operator.fromSymbol(op);
+        if (operator == null) {
+            throw new NotImplementedException("Operator '" + op + "'");
+        }
+
+        Value left = buildExpression(expr.getChild(0));
+        Value right = buildExpression(expr.getChild(1));
+        Local dest = method.newTemp(operator.isComparison() ? interner.booleanType() : interner.intType());
+        current.append(Instruction.binary(dest, operator, left, right));
+        return dest;
+    }
+
+    private Value buildPostfix(JmmNode expr) {
+        String name = expr.get("value");
+        Local variable = variables.get(name);
+        if (variable == null) {
+            throw new NotImplementedException("Postfix operator on field '" + name + "'");
+        }
+
+        Local old = method.newTemp(variable.getType());
+        current.append(Instruction.copy(old, variable));
+
+        Operator operator = expr.get("op").equals("++") ? Operator.ADD : Operator.SUB;
+        current.append(Instruction.binary(variable, operator, variable, Constant.of(1, interner.intType())));
+        return old;
+    }
+
+    private Value buildArrayLiteral(JmmNode expr) {
+        Type elementType = expr.getNumChildren() > 0
+                ? types.getExprType(expr.getChild(0), methodName)
+                : interner.intType();
+
+        Local array = method.newTemp(interner.arrayOf(elementType));
+        current.append(Instruction.newArray(array, Constant.of(expr.getNumChildren(), interner.intType())));
+
+        for (int i = 0; i < expr.getNumChildren(); i++) {
+            Value element = buildExpression(expr.getChild(i));
+            current.append(Instruction.arrayStore(array, Constant.of(i, interner.intType()), element));
+        }
+
+        return array;
+    }
+
+    /**
+     * @param expectedType type of the variable that receives the result, if any
+     * @param needsValue   false if the result is discarded
+     * @return the local with the result, or null if the result is discarded
+     */
+    private Local buildCall(JmmNode expr, Type expectedType, boolean needsValue) {
+        JmmNode caller = unwrap(expr.getChild(0));
+        String name = expr.get("method");
+
+        boolean isStatic = Kind.VAR_REF_EXPR.check(caller) && !variables.containsKey(caller.get("value"))
+                && getField(caller.get("value")) == null && isImported(caller.get("value"));
+
+        boolean isOwnClass = Kind.THIS_EXPR.check(caller);
+        if (isOwnClass && table.getMethods().contains(name) && table.isVarargs(name)) {
+            throw new NotImplementedException("Call to varargs method '" + name + "'");
+        }
+
+        Value receiver = isStatic ? null : buildExpression(caller);
+        if (receiver != null && receiver.getType().getName().equals(table.getClassName())) {
+            isOwnClass = true;
+        }
+
+        List<Value> arguments = new ArrayList<>();
+        for (int i = 1; i < expr.getNumChildren(); i++) {
+            arguments.add(buildExpression(expr.getChild(i)));
+        }
+
+        Type returnType = getCallType(expr, isOwnClass, expectedType, needsValue);
+        Local dest = needsValue ? method.newTemp(returnType) : null;
+
+        current.append(isStatic
+                ? Instruction.callStatic(dest, caller.get("value"), name, arguments, returnType)
+                : Instruction.callVirtual(dest, receiver, name, arguments, returnType));
+        return dest;
+    }
+
+    private Type getCallType(JmmNode expr, boolean isOwnClass, Type expectedType, boolean needsValue) {
+        String name = expr.get("method");
+
+        // Inherited methods are typed from the signatures of the super class
+        if (isOwnClass && table.getMethods().contains(name)) {
+            return table.getReturnType(name);
+        }
+
+        Type type;
+        try {
+            type = types.getExprType(expr, methodName);
+        } catch (RuntimeException e) {
+            type = null;
+        }
+
+        if (type != null && type != interner.unknownType()) {
+            return type;
+        }
+        if (expectedType != null) {
+            return expectedType;
+        }
+        return needsValue ? interner.intType() : interner.voidType();
+    }
+
+    private Symbol getField(String name) {
+        for (Symbol field : table.getFields()) {
+            if (field.getName().equals(name)) {
+                return field;
+            }
+        }
+        return null;
+    }
+
+    private boolean isImported(String name) {
+        return table.getImports().stream().anyMatch(imp -> imp.equals(name) || imp.endsWith("." + name));
+    }
+
+    private static Kind kindOf(JmmNode node) {
+        try {
+            return Kind.fromString(node.getKind());
+        } catch (RuntimeException e) {
+            throw new NotImplementedException(node.getKind());
+        }
+    }
+
+    private static JmmNode unwrap(JmmNode expr) {
+        while (Kind.PARENTHESIZED_EXPR.check(expr)) {
+            expr = expr.getChild(0);
+        }
+        return expr;
+    }
+}
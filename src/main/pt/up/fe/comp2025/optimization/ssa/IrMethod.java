@@ -0,0 +1,273 @@
+package pt.up.fe.comp2025.optimization.ssa;
+
+import pt.up.fe.comp.jmm.analysis.table.Type;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Deque;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Control-flow graph of a method in the IR.
+ * <p>
+ * The IR is built in a form where each variable of the source is one {@link Local} that can be assigned many times
+ * ({@link IrBuilder}), converted to SSA form ({@link SsaConstruction}), where optimizations run, and lowered back to
+ * named variables ({@link OutOfSsa}) before being emitted as OLLIR ({@link OllirEmitter}).
+ */
+public class IrMethod {
+
+    private final String name;
+    private final Type returnType;
+    private final List<Local> parameters;
+    private final List<BasicBlock> blocks;
+    private final BasicBlock entry;
+    private final Set<Local> defaultValues;
+
+    private int nextLocalId;
+    private int nextBlockId;
+    private boolean isSsa;
+    private List<BasicBlock> layout;
+    private Set<Integer> emittedShifts;
+
+    public IrMethod(String name, Type returnType) {
+        this.name = name;
+        this.returnType = returnType;
+        this.parameters = new ArrayList<>();
+        this.blocks = new ArrayList<>();
+        this.entry = newBlock();
+        this.defaultValues = new HashSet<>();
+        this.emittedShifts = Set.of();
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public Type getReturnType() {
+        return returnType;
+    }
+
+    public List<Local> getParameters() {
+        return Collections.unmodifiableList(parameters);
+    }
+
+    public BasicBlock getEntry() {
+        return entry;
+    }
+
+    public List<BasicBlock> getBlocks() {
+        return Collections.unmodifiableList(blocks);
+    }
+
+    /**
+     * @return true while each local has exactly one definition
+     */
+    public boolean isSsa() {
+        return isSsa;
+    }
+
+    void setSsa(boolean isSsa) {
+        this.isSsa = isSsa;
+    }
+
+    /**
+     * @return true if the local is the default value of a variable read before being assigned, defined by SSA
+     * construction at the start of the method
+     */
+    public boolean isDefaultValue(Local local) {
+        return defaultValues.contains(local);
+    }
+
+    void addDefaultValue(Local local) {
+        defaultValues.add(local);
+    }
+
+    public BasicBlock newBlock() {
+        BasicBlock block = new BasicBlock(nextBlockId++);
+        blocks.add(block);
+        return block;
+    }
+
+    public Local addParameter(Type type, String name) {
+        Local parameter = new Local(nextLocalId++, type, name, null, true);
+        parameters.add(parameter);
+        return parameter;
+    }
+
+    /**
+     * @param name the name of the variable in the source, or null for a temporary
+     */
+    public Local newVariable(Type type, String name) {
+        return new Local(nextLocalId++, type, name, null, false);
+    }
+
+    public Local newTemp(Type type) {
+        return newVariable(type, null);
+    }
+
+    /**
+     * @return a new version of the given variable, with the same type and name
+     */
+    public Local newVersion(Local variable) {
+        Local original = variable.getVariable();
+        return new Local(nextLocalId++, original.getType(), original.getName(), original, false);
+    }
+
+    /**
+     * @return the order the blocks are emitted in: the layout set for the method, if it still has the reachable
+     * blocks of the method, else reverse postorder
+     */
+    public List<BasicBlock> getLayout() {
+        List<BasicBlock> order = getReversePostorder();
+        if (layout == null || layout.size() != order.size() || !new HashSet<>(layout).containsAll(order)
+                || layout.get(0) != entry) {
+            return order;
+        }
+        return Collections.unmodifiableList(layout);
+    }
+
+    /**
+     * @param layout the reachable blocks in the order they are emitted in, starting at the entry
+     */
+    public void setLayout(List<BasicBlock> layout) {
+        this.layout = new ArrayList<>(layout);
+    }
+
+    /**
+     * @return the positions, among the divisions of the OLLIR emitted for the method, of the ones that are shifts
+     */
+    public Set<Integer> getEmittedShifts() {
+        return emittedShifts;
+    }
+
+    public void setEmittedShifts(Set<Integer> emittedShifts) {
+        this.emittedShifts = Set.copyOf(emittedShifts);
+    }
+
+    /**
+     * @return the blocks in reverse postorder, starting at the entry (unreachable blocks are not included)
+     */
+    public List<BasicBlock> getReversePostorder() {
+        List<BasicBlock> postorder = new ArrayList<>();
+        Set<BasicBlock> visited = new HashSet<>();
+
+        // Iterative depth-first search, so that long methods do not overflow the stack
+        Deque<BasicBlock> stack = new ArrayDeque<>();
+        Deque<Integer> nextSuccessor = new ArrayDeque<>();
+        stack.push(entry);
+        nextSuccessor.push(0);
+        visited.add(entry);
+
+        while (!stack.isEmpty()) {
+            BasicBlock block = stack.peek();
+            int index = nextSuccessor.pop();
+            List<BasicBlock> successors = block.getSuccessors();
+
+            if (index < successors.size()) {
+                nextSuccessor.push(index + 1);
+                // Successors are visited from last to first, so the first (e.g. the true target of a branch)
+                // comes right after the block in reverse postorder
+                BasicBlock successor = successors.get(successors.size() - 1 - index);
+                if (visited.add(successor)) {
+                    stack.push(successor);
+                    nextSuccessor.push(0);
+                }
+            } else {
+                stack.pop();
+                postorder.add(block);
+            }
+        }
+
+        Collections.reverse(postorder);
+        return postorder;
+    }
+
+    /**
+     * Removes the blocks that cannot be reached from the entry.
+     *
+     * @return true if some block was removed
+     */
+    public boolean removeUnreachableBlocks() {
+        Set<BasicBlock> reachable = new HashSet<>(getReversePostorder());
+        if (reachable.size() == blocks.size()) {
+            return false;
+        }
+
+        for (BasicBlock block : blocks) {
+            if (!reachable.contains(block)) {
+                for (BasicBlock successor : block.getSuccessors()) {
+                    successor.removePredecessor(block);
+                }
+            }
+        }
+
+        blocks.removeIf(block -> !reachable.contains(block));
+        return true;
+    }
+
+    /**
+     * Removes the blocks other than the entry that only jump to another block, making their predecessors jump
+     * straight to it. Blocks that jump to a block with phis are kept, since the phis tell their predecessors apart.
+     *
+     * @return true if some block was removed
+     */
+    public boolean removeEmptyBlocks() {
+        boolean removed = false;
+
+        for (BasicBlock block : new ArrayList<>(blocks)) {
+            Instruction terminator = block.getTerminator();
+            if (block == getEntry() || !block.getPhis().isEmpty() || !block.getInstructions().isEmpty()
+                    || !terminator.is(Opcode.JUMP)) {
+                continue;
+            }
+
+            BasicBlock target = terminator.getTargets().get(0);
+            if (target == block || !target.getPhis().isEmpty()) {
+                continue;
+            }
+
+            for (BasicBlock predecessor : new ArrayList<>(block.getPredecessors())) {
+                predecessor.replaceSuccessor(block, target);
+            }
+            removed = true;
+        }
+
+        return removeUnreachableBlocks() || removed;
+    }
+
+    /**
+     * Inserts a new block in the edge between two blocks.
+     *
+     * @return the new block, that jumps to the successor
+     */
+    public BasicBlock splitEdge(BasicBlock from, BasicBlock to) {
+        BasicBlock middle = newBlock();
+        from.getTerminator().replaceTarget(to, middle);
+        middle.addPredecessor(from);
+
+        // The new block takes the place of the predecessor in the successor and its phis
+        middle.setTerminatorOnly(Instruction.jump(to));
+        to.replacePredecessor(from, middle);
+        for (Instruction phi : to.getPhis()) {
+            phi.replaceIncoming(from, middle);
+        }
+
+        return middle;
+    }
+
+    @Override
+    public String toString() {
+        StringBuilder builder = new StringBuilder();
+        builder.append(name).append("(").append(parameters).append(")\n");
+        for (BasicBlock block : getReversePostorder()) {
+            builder.append(block).append(" <- ").append(block.getPredecessors()).append(":\n");
+            for (Instruction instruction : block.getAllInstructions()) {
+                builder.append("    ").append(instruction).append("\n");
+            }
+        }
+        return builder.toString();
+    }
+}
@@ -0,0 +1,177 @@
+package pt.up.fe.comp2025.optimization.ssa;
+
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Checks that a method is well formed, so that a pass that breaks the IR is found right after it runs instead of in
+ * the generated code.
+ * <p>
+ * Every block must end in a terminator whose targets are blocks of the method, the predecessors of each block must be
+ * the blocks that branch to it, and each instruction must know its block. Phis only appear in SSA form, where each
+ * must have one operand per predecessor, each local must have a single definition, and each use must be dominated by
+ * its definition (for a phi, at the end of the predecessor the operand comes from). Unreachable blocks, which some
+ * passes leave for later cleanup, are only checked for their structure.
+ */
+public class IrVerifier {
+
+    private IrVerifier() {
+    }
+
+    /**
+     * @param pass the pass that ran last, for the error message
+     * @throws RuntimeException if the method is not well formed
+     */
+    public static void verify(IrMethod method, String pass) {
+        String error = findError(method);
+        if (error != null) {
+            throw new RuntimeException("Invalid IR in method '" + method.getName() + "' after " + pass + ": "
+                    + error + "\n" + method);
+        }
+    }
+
+    private static String findError(IrMethod method) {
+        Set<BasicBlock> blocks = new HashSet<>(method.getBlocks());
+        if (!blocks.contains(method.getEntry())) {
+            return "the entry is not a block of the method";
+        }
+
+        for (BasicBlock block : method.getBlocks()) {
+            String error = checkStructure(method, block, blocks);
+            if (error != null) {
+                return block + ": " + error;
+            }
+        }
+
+        return method.isSsa() ? checkSsa(method) : null;
+    }
+
+    private static String checkStructure(IrMethod method, BasicBlock block, Set<BasicBlock> blocks) {
+        Instruction terminator = block.getTerminator();
+        if (terminator == null || !terminator.isTerminator()) {
+            return "does not end in a terminator";
+        }
+
+        for (Instruction instruction : block.getAllInstructions()) {
+            if (instruction.getBlock() != block) {
+                return "'" + instruction + "' belongs to " + instruction.getBlock();
+            }
+            if (instruction != terminator && instruction.isTerminator()) {
+                return "terminator '" + instruction + "' in the middle of the block";
+            }
+        }
+        for (Instruction phi : block.getPhis()) {
+            if (!method.isSsa()) {
+                return "phi '" + phi + "' outside SSA form";
+            }
+            if (!phi.is(Opcode.PHI)) {
+                return "'" + phi + "' among the phis";
+            }
+        }
+        for (Instruction instruction : block.getInstructions()) {
+            if (instruction.is(Opcode.PHI)) {
+                return "phi '" + instruction + "' after the start of the block";
+            }
+        }
+
+        for (BasicBlock successor : block.getSuccessors()) {
+            if (!blocks.contains(successor)) {
+                return "jumps to " + successor + ", which is not a block of the method";
+            }
+            if (count(successor.getPredecessors(), block) != count(block.getSuccessors(), successor)) {
+                return "is not a predecessor of its successor " + successor;
+            }
+        }
+        for (BasicBlock predecessor : block.getPredecessors()) {
+            if (!blocks.contains(predecessor) || !predecessor.getSuccessors().contains(block)) {
+                return "has predecessor " + predecessor + ", which does not jump to it";
+            }
+        }
+        return null;
+    }
+
+    private static String checkSsa(IrMethod method) {
+        Map<Local, Instruction> definitions = new HashMap<>();
+        for (BasicBlock block : method.getBlocks()) {
+            for (Instruction instruction : block.getAllInstructions()) {
+                Local dest = instruction.getDest();
+                if (dest != null && definitions.put(dest, instruction) != null) {
+                    return "'" + dest + "' is defined more than once";
+                }
+            }
+        }
+
+        DominatorTree dominators = new DominatorTree(method);
+        Set<BasicBlock> reachable = new HashSet<>(dominators.getReversePostorder());
+        for (BasicBlock block : dominators.getReversePostorder()) {
+            for (Instruction phi : block.getPhis()) {
+                if (!new HashSet<>(phi.getIncoming()).equals(new HashSet<>(block.getPredecessors()))
+                        || phi.getIncoming().size() != block.getPredecessors().size()) {
+                    return block + ": phi '" + phi + "' does not have one operand per predecessor";
+                }
+                for (BasicBlock predecessor : phi.getIncoming()) {
+                    if (!reachable.contains(predecessor)) {
+                        continue;
+                    }
+                    String error = checkUse(phi.getValueFrom(predecessor), phi, predecessor, definitions,
+                            dominators);
+                    if (error != null) {
+                        return error;
+                    }
+                }
+            }
+
+            List<Instruction> instructions = block.getAllInstructions();
+            for (Instruction instruction : instructions) {
+                if (instruction.is(Opcode.PHI)) {
+                    continue;
+                }
+                for (Value operand : instruction.getOperands()) {
+                    String error = checkUse(operand, instruction, null, definitions, dominators);
+                    if (error != null) {
+                        return error;
+                    }
+                }
+            }
+        }
+        return null;
+    }
+
+    /**
+     * @param predecessor the block a phi operand comes from, or null for other instructions
+     */
+    private static String checkUse(Value operand, Instruction user, BasicBlock predecessor,
+                                   Map<Local, Instruction> definitions, DominatorTree dominators) {
+        if (!(operand instanceof Local local) || local.isParameter()) {
+            return null;
+        }
+
+        Instruction definition = definitions.get(local);
+        if (definition == null) {
+            return "'" + local + "' is used by '" + user + "' without a definition";
+        }
+
+        BasicBlock definedIn = definition.getBlock();
+        boolean dominated;
+        if (predecessor != null) {
+            dominated = dominators.dominates(definedIn, predecessor);
+        } else if (definedIn == user.getBlock()) {
+            List<Instruction> instructions = definedIn.getAllInstructions();
+            dominated = instructions.indexOf(definition) < instructions.indexOf(user);
+        } else {
+            dominated = dominators.dominates(definedIn, user.getBlock());
+        }
+        return dominated ? null : "'" + local + "' is used by '" + user + "' where its definition does not dominate";
+    }
+
+    private static int count(List<BasicBlock> blocks, BasicBlock block) {
+        int count = 0;
+        for (BasicBlock other : blocks) {
+            count += other == block ? 1 : 0;
+        }
+        return count;
+    }
+}
@@ -0,0 +1,131 @@
+package pt.up.fe.comp2025.optimization.ssa;
+
+import java.util.ArrayDeque;
+import java.util.Collections;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Locals live at the entry and at the exit of each block.
+ * <p>
+ * A phi reads its operands at the end of the corresponding predecessor and defines its destination at the start
+ * of its block, so the operands are live out of the predecessor but not live into the block of the phi.
+ */
+public class Liveness {
+
+    private final Map<BasicBlock, Set<Local>> liveIn;
+    private final Map<BasicBlock, Set<Local>> liveOut;
+
+    public Liveness(IrMethod method) {
+        this.liveIn = new HashMap<>();
+        this.liveOut = new HashMap<>();
+
+        Map<BasicBlock, Set<Local>> defined = new HashMap<>();
+
+        for (BasicBlock block : method.getBlocks()) {
+            Set<Local> uses = new HashSet<>();
+            Set<Local> defs = new HashSet<>();
+
+            for (Instruction phi : block.getPhis()) {
+                defs.add(phi.getDest());
+            }
+            for (Instruction instruction : block.getAllInstructions()) {
+                if (instruction.is(Opcode.PHI)) {
+                    continue;
+                }
+                for (Value operand : instruction.getOperands()) {
+                    if (operand instanceof Local local && !defs.contains(local)) {
+                        uses.add(local);
+                    }
+                }
+                if (instruction.getDest() != null) {
+                    defs.add(instruction.getDest());
+                }
+            }
+
+            defined.put(block, defs);
+            liveIn.put(block, new HashSet<>(uses));
+            liveOut.put(block, new HashSet<>());
+        }
+
+        // Backward data-flow, visiting blocks in postorder so that most facts are final after the first pass
+        List<BasicBlock> order = method.getReversePostorder();
+        Collections.reverse(order);
+        Deque<BasicBlock> worklist = new ArrayDeque<>(order);
+        Set<BasicBlock> inWorklist = new HashSet<>(order);
+
+        while (!worklist.isEmpty()) {
+            BasicBlock block = worklist.poll();
+            inWorklist.remove(block);
+
+            Set<Local> out = liveOut.get(block);
+            for (BasicBlock successor : block.getSuccessors()) {
+                for (Local local : liveIn.get(successor)) {
+                    out.add(local);
+                }
+                for (Instruction phi : successor.getPhis()) {
+                    if (phi.getValueFrom(block) instanceof Local local) {
+                        out.add(local);
+                    }
+                }
+            }
+
+            Set<Local> in = liveIn.get(block);
+            boolean changed = false;
+            for (Local local : out) {
+                if (!defined.get(block).contains(local)) {
+                    changed |= in.add(local);
+                }
+            }
+
+            if (changed) {
+                for (BasicBlock predecessor : block.getPredecessors()) {
+                    if (inWorklist.add(predecessor)) {
+                        worklist.add(predecessor);
+                    }
+                }
+            }
+        }
+    }
+
+    public Set<Local> getLiveIn(BasicBlock block) {
+        return Collections.unmodifiableSet(liveIn.getOrDefault(block, Set.of()));
+    }
+
+    public Set<Local> getLiveOut(BasicBlock block) {
+        return Collections.unmodifiableSet(liveOut.getOrDefault(block, Set.of()));
+    }
+
+    /**
+     * @return the locals live right after each instruction of the block (phis excluded), in order
+     */
+    public Map<Instruction, Set<Local>> getLiveAfter(BasicBlock block) {
+        Map<Instruction, Set<Local>> liveAfter = new HashMap<>();
+        Set<Local> live = new LinkedHashSet<>(getLiveOut(block));
+
+        List<Instruction> instructions = block.getAllInstructions();
+        for (int i = instructions.size() - 1; i >= 0; i--) {
+            Instruction instruction = instructions.get(i);
+            if (instruction.is(Opcode.PHI)) {
+                break;
+            }
+
+            liveAfter.put(instruction, new HashSet<>(live));
+            if (instruction.getDest() != null) {
+                live.remove(instruction.getDest());
+            }
+            for (Value operand : instruction.getOperands()) {
+                if (operand instanceof Local local) {
+                    live.add(local);
+                }
+            }
+        }
+
+        return liveAfter;
+    }
+}
@@ -0,0 +1,61 @@
+package pt.up.fe.comp2025.optimization.ssa;
+
+import pt.up.fe.comp.jmm.analysis.table.Type;
+
+/**
+ * Local variable of the IR.
+ * <p>
+ * Before SSA construction, each variable of the source (and each temporary) is one local that can be assigned many
+ * times. In SSA form, each assignment defines a new local, a version of the original variable, and every local has
+ * exactly one definition. Parameters are their own first version.
+ */
+public class Local extends Value {
+
+    private final int id;
+    private final String name;
+    private final Local variable;
+    private final boolean isParameter;
+
+    Local(int id, Type type, String name, Local variable, boolean isParameter) {
+        super(type);
+        this.id = id;
+        this.name = name;
+        this.variable = variable == null ? this : variable;
+        this.isParameter = isParameter;
+    }
+
+    /**
+     * @return a number that identifies the local in its method
+     */
+    public int getId() {
+        return id;
+    }
+
+    /**
+     * @return the name of the variable in the source code, or null for temporaries
+     */
+    public String getName() {
+        return name;
+    }
+
+    public boolean isTemporary() {
+        return name == null;
+    }
+
+    /**
+     * @return the variable this local is a version of (the local itself before SSA construction)
+     */
+    public Local getVariable() {
+        return variable;
+    }
+
+    public boolean isParameter() {
+        return isParameter;
+    }
+
+    @Override
+    public String toString() {
+        String base = name == null ? "t" + variable.id : name;
+        return variable == this ? base : base + "_" + id;
+    }
+}
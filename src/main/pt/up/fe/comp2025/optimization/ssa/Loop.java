@@ -0,0 +1,193 @@
+package pt.up.fe.comp2025.optimization.ssa;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.Deque;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.BiConsumer;
+
+/**
+ * Natural loop of a method: a header block that dominates the sources of the edges back into it (the latches), and
+ * the blocks that reach a latch without going through the header. Loops that share a header are merged.
+ * <p>
+ * The while statements of Java-- always give loops whose header evaluates the condition, with a single predecessor
+ * outside the loop.
+ */
+public class Loop {
+
+    private final BasicBlock header;
+    private final Set<BasicBlock> blocks;
+    private final List<BasicBlock> latches;
+
+    private Loop(BasicBlock header) {
+        this.header = header;
+        this.blocks = new LinkedHashSet<>();
+        this.latches = new ArrayList<>();
+        blocks.add(header);
+    }
+
+    /**
+     * Finds the natural loops of the method, innermost loops first.
+     */
+    public static List<Loop> findLoops(IrMethod method, DominatorTree dominators) {
+        Map<BasicBlock, Loop> loops = new LinkedHashMap<>();
+
+        for (BasicBlock block : dominators.getReversePostorder()) {
+            for (BasicBlock successor : block.getSuccessors()) {
+                if (dominators.dominates(successor, block)) {
+                    Loop loop = loops.computeIfAbsent(successor, Loop::new);
+                    loop.latches.add(block);
+                    loop.addBody(block);
+                }
+            }
+        }
+
+        List<Loop> sorted = new ArrayList<>(loops.values());
+        sorted.sort(Comparator.comparingInt(loop -> loop.blocks.size()));
+        return sorted;
+    }
+
+    /**
+     * Visits each loop of the method once, innermost first. The loops are found again after each visit, since the
+     * visitor may change the graph (e.g. adding preheaders, which become part of the enclosing loop).
+     */
+    public static void visitInnermostFirst(IrMethod method, BiConsumer<Loop, DominatorTree> visitor) {
+        Set<BasicBlock> visitedHeaders = new HashSet<>();
+
+        while (true) {
+            DominatorTree dominators = new DominatorTree(method);
+            Loop next = null;
+            for (Loop loop : findLoops(method, dominators)) {
+                if (!visitedHeaders.contains(loop.getHeader())) {
+                    next = loop;
+                    break;
+                }
+            }
+
+            if (next == null) {
+                return;
+            }
+
+            visitedHeaders.add(next.getHeader());
+            visitor.accept(next, dominators);
+        }
+    }
+
+    /**
+     * Adds the blocks that reach the latch without going through the header.
+     */
+    private void addBody(BasicBlock latch) {
+        Deque<BasicBlock> worklist = new ArrayDeque<>();
+        if (blocks.add(latch)) {
+            worklist.push(latch);
+        }
+
+        while (!worklist.isEmpty()) {
+            for (BasicBlock predecessor : worklist.pop().getPredecessors()) {
+                if (blocks.add(predecessor)) {
+                    worklist.push(predecessor);
+                }
+            }
+        }
+    }
+
+    public BasicBlock getHeader() {
+        return header;
+    }
+
+    public Set<BasicBlock> getBlocks() {
+        return Collections.unmodifiableSet(blocks);
+    }
+
+    public List<BasicBlock> getLatches() {
+        return Collections.unmodifiableList(latches);
+    }
+
+    public boolean contains(BasicBlock block) {
+        return blocks.contains(block);
+    }
+
+    public boolean contains(Instruction instruction) {
+        return blocks.contains(instruction.getBlock());
+    }
+
+    /**
+     * @return the predecessors of the header outside the loop
+     */
+    public List<BasicBlock> getEntries() {
+        List<BasicBlock> entries = new ArrayList<>();
+        for (BasicBlock predecessor : header.getPredecessors()) {
+            if (!blocks.contains(predecessor)) {
+                entries.add(predecessor);
+            }
+        }
+        return entries;
+    }
+
+    /**
+     * @return the edges that leave the loop, as pairs of a block in the loop and its successor outside it
+     */
+    public List<BasicBlock[]> getExits() {
+        List<BasicBlock[]> exits = new ArrayList<>();
+        for (BasicBlock block : blocks) {
+            for (BasicBlock successor : block.getSuccessors()) {
+                if (!blocks.contains(successor)) {
+                    exits.add(new BasicBlock[]{block, successor});
+                }
+            }
+        }
+        return exits;
+    }
+
+    /**
+     * @return true if some block of the loop returns from the method
+     */
+    public boolean hasReturn() {
+        for (BasicBlock block : blocks) {
+            if (block.getTerminator().is(Opcode.RETURN)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * @return true if some instruction of the loop (including its inner loops) has the given opcode
+     */
+    public boolean containsOpcode(Opcode opcode) {
+        for (BasicBlock block : blocks) {
+            for (Instruction instruction : block.getInstructions()) {
+                if (instruction.is(opcode)) {
+                    return true;
+                }
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Gives the loop a preheader: a block outside the loop whose only successor is the header, and through which
+     * every entry into the loop goes. A new block is placed on the entry edge when there is a single entry.
+     *
+     * @return the preheader, or null if the header has several predecessors outside the loop
+     */
+    public BasicBlock createPreheader(IrMethod method) {
+        List<BasicBlock> entries = getEntries();
+        if (entries.size() != 1) {
+            return null;
+        }
+        return method.splitEdge(entries.get(0), header);
+    }
+
+    @Override
+    public String toString() {
+        return "loop " + header + " " + blocks;
+    }
+}
@@ -0,0 +1,313 @@
+package pt.up.fe.comp2025.optimization.ssa;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.Predicate;
+
+/**
+ * Moves the computations of a method in SSA form whose value does not change between the iterations of a loop to a
+ * preheader, so that they are computed once before the loop.
+ * <p>
+ * An instruction is invariant when it is a pure expression (arithmetic, comparisons, not, array length) whose
+ * operands are defined outside the loop or by other invariant instructions; in SSA form no instruction of the loop
+ * can write them. Array loads are also invariant when the loop has no array stores and no calls that write arrays,
+ * and field reads when it has no field writes and no calls that write fields, as given by the
+ * {@link MethodSummaries summaries} of the called methods. Calls whose result only depends on their arguments and
+ * on the memory they read are invariant in the same way.
+ * <p>
+ * Instructions that cannot throw are always moved. Instructions that may throw (division, array accesses and
+ * lengths, calls that may throw or not return) must not be evaluated if the original program would not evaluate them:
+ * <ul>
+ * <li>in the header, before any call or other instruction that may throw and stays in the loop, they are moved to
+ * the preheader, since the header runs at least once whenever the loop is reached;</li>
+ * <li>in the body, they are moved if they run on every iteration (their block dominates the latches, and the loop
+ * has no returns and no calls that may throw or not return) and the loop can be guarded: the preheader is then only
+ * reached after a copy of the
+ * header's condition found that the loop runs at least once, so a loop that runs zero times evaluates nothing.</li>
+ * </ul>
+ * Loops are processed innermost first, so that the code moved out of an inner loop can then leave the outer one.
+ */
+public class LoopInvariantCodeMotion {
+
+    private final MethodSummaries summaries;
+
+    private IrMethod method;
+    private int hoistedInstructions;
+    private int guardedLoops;
+
+    public LoopInvariantCodeMotion(MethodSummaries summaries) {
+        this.summaries = summaries;
+    }
+
+    public int getHoistedInstructions() {
+        return hoistedInstructions;
+    }
+
+    public int getGuardedLoops() {
+        return guardedLoops;
+    }
+
+    /**
+     * @return the number of instructions moved out of loops
+     */
+    public int apply(IrMethod method) {
+        if (!method.isSsa()) {
+            throw new RuntimeException("Loop invariant code motion expects method '" + method.getName() + "' in SSA form");
+        }
+
+        this.method = method;
+        this.hoistedInstructions = 0;
+        this.guardedLoops = 0;
+
+        Loop.visitInnermostFirst(method, this::hoist);
+
+        System.out.println("[LICM] " + method.getName() + ": hoisted " + hoistedInstructions + " instruction(s), "
+                + guardedLoops + " guarded loop(s)");
+        return hoistedInstructions;
+    }
+
+    private void hoist(Loop loop, DominatorTree dominators) {
+        BasicBlock header = loop.getHeader();
+        if (loop.getEntries().size() != 1) {
+            return;
+        }
+
+        boolean writesArrays = loop.containsOpcode(Opcode.ARRAY_STORE)
+                || containsCall(loop, call -> summaries.writesArrays(method, call));
+        boolean writesFields = loop.containsOpcode(Opcode.PUT_FIELD)
+                || containsCall(loop, call -> summaries.writesFields(method, call));
+        boolean canGuard = !loop.hasReturn() && !containsCall(loop, call -> summaries.mayNotComplete(method, call))
+                && isGuardable(loop);
+
+        Set<Local> definedInLoop = new HashSet<>();
+        for (BasicBlock block : loop.getBlocks()) {
+            for (Instruction instruction : block.getAllInstructions()) {
+                if (instruction.getDest() != null) {
+                    definedInLoop.add(instruction.getDest());
+                }
+            }
+        }
+
+        List<Instruction> hoisted = new ArrayList<>();
+        Set<Local> hoistedLocals = new HashSet<>();
+        boolean needsGuard = false;
+
+        // Blocks in reverse postorder, so the instructions an invariant depends on are decided before it
+        for (BasicBlock block : dominators.getReversePostorder()) {
+            if (!loop.contains(block)) {
+                continue;
+            }
+
+            boolean runsEveryIteration = block != header && dominatesLatches(block, loop, dominators);
+            boolean headerPrefix = block == header;
+
+            for (Instruction instruction : block.getInstructions()) {
+                boolean invariant = isCandidate(instruction, writesArrays, writesFields)
+                        && operandsInvariant(instruction, definedInLoop, hoistedLocals);
+
+                boolean safe = false;
+                boolean guarded = false;
+                if (invariant) {
+                    if (!mayThrow(instruction) || headerPrefix) {
+                        safe = true;
+                    } else if (runsEveryIteration && canGuard) {
+                        safe = true;
+                        guarded = true;
+                    }
+                }
+
+                if (safe) {
+                    hoisted.add(instruction);
+                    hoistedLocals.add(instruction.getDest());
+                    needsGuard |= guarded;
+                } else if (mayThrow(instruction) || instruction.hasSideEffects()) {
+                    // Later instructions of the header would now run before this one
+                    headerPrefix = false;
+                }
+            }
+        }
+
+        if (hoisted.isEmpty()) {
+            return;
+        }
+
+        BasicBlock preheader = loop.createPreheader(method);
+        if (needsGuard) {
+            guard(loop, preheader);
+            guardedLoops++;
+        }
+
+        for (Instruction instruction : hoisted) {
+            instruction.getBlock().remove(instruction);
+            preheader.append(instruction);
+            hoistedInstructions++;
+        }
+    }
+
+    private boolean isCandidate(Instruction instruction, boolean writesArrays, boolean writesFields) {
+        return switch (instruction.getOpcode()) {
+            case BINARY, NOT, ARRAY_LENGTH -> true;
+            case ARRAY_LOAD -> !writesArrays;
+            case GET_FIELD -> !writesFields;
+            case CALL -> instruction.getDest() != null && summaries.isReusable(method, instruction)
+                    && !(writesArrays && summaries.readsArrays(method, instruction))
+                    && !(writesFields && summaries.readsFields(method, instruction));
+            default -> false;
+        };
+    }
+
+    /**
+     * @return true if the instruction may throw, or for calls, may also not return
+     */
+    private boolean mayThrow(Instruction instruction) {
+        if (instruction.is(Opcode.CALL)) {
+            return summaries.mayNotComplete(method, instruction);
+        }
+        return instruction.mayThrow();
+    }
+
+    private static boolean containsCall(Loop loop, Predicate<Instruction> condition) {
+        for (BasicBlock block : loop.getBlocks()) {
+            for (Instruction instruction : block.getInstructions()) {
+                if (instruction.is(Opcode.CALL) && condition.test(instruction)) {
+                    return true;
+                }
+            }
+        }
+        return false;
+    }
+
+    private static boolean operandsInvariant(Instruction instruction, Set<Local> definedInLoop, Set<Local> hoistedLocals) {
+        for (Value operand : instruction.getOperands()) {
+            if (operand instanceof Local local && definedInLoop.contains(local) && !hoistedLocals.contains(local)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static boolean dominatesLatches(BasicBlock block, Loop loop, DominatorTree dominators) {
+        for (BasicBlock latch : loop.getLatches()) {
+            if (!dominators.dominates(block, latch)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * A loop can be guarded when it is left only through one edge of its header, a branch on a condition that the
+     * header computes without effects.
+     */
+    private static boolean isGuardable(Loop loop) {
+        BasicBlock header = loop.getHeader();
+        if (!header.getTerminator().is(Opcode.BRANCH)) {
+            return false;
+        }
+
+        List<BasicBlock[]> exits = loop.getExits();
+        if (exits.size() != 1 || exits.get(0)[0] != header) {
+            return false;
+        }
+
+        for (Instruction instruction : header.getInstructions()) {
+            switch (instruction.getOpcode()) {
+                case COPY, BINARY, NOT, ARRAY_LENGTH, ARRAY_LOAD, GET_FIELD -> {
+                }
+                default -> {
+                    return false;
+                }
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Makes the loop entry go through a copy of the header, which skips the preheader and the loop when the
+     * condition is false on entry. The exit then has two predecessors, so the values of the header used after the
+     * loop become phis of the header's value and of its copy.
+     */
+    private void guard(Loop loop, BasicBlock preheader) {
+        BasicBlock header = loop.getHeader();
+        Instruction branch = header.getTerminator();
+        BasicBlock exit = loop.getExits().get(0)[1];
+        if (exit.getPredecessors().size() > 1 || !exit.getPhis().isEmpty()) {
+            exit = method.splitEdge(header, exit);
+        }
+
+        // The single entry now jumps to the guard
+        BasicBlock entry = preheader.getPredecessors().get(0);
+        BasicBlock guard = method.newBlock();
+        entry.replaceSuccessor(preheader, guard);
+
+        // Values of the header on the first iteration
+        Map<Value, Value> firstValues = new HashMap<>();
+        for (Instruction phi : header.getPhis()) {
+            firstValues.put(phi.getDest(), phi.getValueFrom(preheader));
+        }
+        for (Instruction instruction : header.getInstructions()) {
+            Local dest = newLocalLike(instruction.getDest());
+            guard.append(copyOf(instruction, dest, firstValues));
+            firstValues.put(instruction.getDest(), dest);
+        }
+
+        BasicBlock ifTrue = loop.contains(branch.getTargets().get(0)) ? preheader : exit;
+        BasicBlock ifFalse = ifTrue == exit ? preheader : exit;
+        guard.setTerminator(Instruction.branch(map(branch.getOperand(0), firstValues), ifTrue, ifFalse));
+
+        // Uses after the loop read either the header's value or the guard's
+        Map<Local, Local> exitValues = new HashMap<>();
+        for (BasicBlock block : method.getBlocks()) {
+            if (loop.contains(block)) {
+                continue;
+            }
+            for (Instruction instruction : block.getAllInstructions()) {
+                for (Value operand : new ArrayList<>(instruction.getOperands())) {
+                    if (operand instanceof Local local && firstValues.containsKey(local)) {
+                        instruction.replaceUses(local, exitValues.computeIfAbsent(local, this::newLocalLike));
+                    }
+                }
+            }
+        }
+
+        for (Map.Entry<Local, Local> exitValue : exitValues.entrySet()) {
+            Instruction phi = Instruction.phi(exitValue.getValue());
+            phi.addIncoming(header, exitValue.getKey());
+            phi.addIncoming(guard, firstValues.get(exitValue.getKey()));
+            exit.addPhi(phi);
+        }
+    }
+
+    /**
+     * @return a new local for the same variable, or a new temporary
+     */
+    private Local newLocalLike(Local local) {
+        return local.getVariable().isTemporary() ? method.newTemp(local.getType()) : method.newVersion(local);
+    }
+
+    private static Value map(Value value, Map<Value, Value> values) {
+        return values.getOrDefault(value, value);
+    }
+
+    /**
+     * @return a copy of a pure instruction that writes to the given local and reads the mapped operands
+     */
+    private static Instruction copyOf(Instruction instruction, Local dest, Map<Value, Value> values) {
+        List<Value> operands = instruction.getOperands();
+
+        return switch (instruction.getOpcode()) {
+            case COPY -> Instruction.copy(dest, map(operands.get(0), values));
+            case BINARY -> Instruction.binary(dest, instruction.getOperator(), map(operands.get(0), values),
+                    map(operands.get(1), values));
+            case NOT -> Instruction.not(dest, map(operands.get(0), values));
+            case ARRAY_LENGTH -> Instruction.arrayLength(dest, map(operands.get(0), values));
+            case ARRAY_LOAD -> Instruction.arrayLoad(dest, map(operands.get(0), values), map(operands.get(1), values));
+            case GET_FIELD -> Instruction.getField(dest, instruction.getName(), instruction.getType());
+            default -> throw new RuntimeException("Cannot copy instruction '" + instruction + "'");
+        };
+    }
+}
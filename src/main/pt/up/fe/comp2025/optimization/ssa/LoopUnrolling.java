@@ -0,0 +1,536 @@
+package pt.up.fe.comp2025.optimization.ssa;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Unrolls the innermost loops of a method in SSA form whose number of iterations is known when compiling.
+ * <p>
+ * The trip count is found for loops left only by the branch of their header, on a comparison of a basic induction
+ * variable ({@code i = phi(init, i + c)}, with a constant start and step) with a constant bound or with the length
+ * of an array created with a constant size. The values the variable takes are simulated until the comparison stops
+ * the loop, without wrapping around.
+ * <p>
+ * A loop whose copies fit in the growth budget is unrolled fully: one copy of the header and the body per
+ * iteration, without the branches, and a last copy of the header that goes to the exit. Otherwise the loop is
+ * unrolled partially by a factor {@code u}: each iteration runs the body {@code u} times, and the header compares the
+ * variable with the value it reaches after the last complete group of {@code u} iterations. The remaining iterations
+ * (fewer than {@code u}) run in a copy of the original loop placed after it.
+ * <p>
+ * The budget is the number of instructions each loop may grow by, about as many bytecode instructions. With a
+ * {@link Profile}, loops whose header never ran are not unrolled, and loops with a hot header may grow twice as much.
+ */
+public class LoopUnrolling {
+
+    // Iterations simulated before giving up on finding the trip count
+    private static final int MAX_TRIP_COUNT = 1 << 20;
+
+    private static final int[] FACTORS = {8, 4, 2};
+
+    private record TripCount(Instruction phi, int init, int step, int iterations) {
+    }
+
+    private final int growthBudget;
+    private final Profile profile;
+
+    private IrMethod method;
+    private int fullyUnrolled;
+    private int partiallyUnrolled;
+
+    public LoopUnrolling(int growthBudget) {
+        this(growthBudget, Profile.empty());
+    }
+
+    public LoopUnrolling(int growthBudget, Profile profile) {
+        this.growthBudget = growthBudget;
+        this.profile = profile;
+    }
+
+    public int getFullyUnrolled() {
+        return fullyUnrolled;
+    }
+
+    public int getPartiallyUnrolled() {
+        return partiallyUnrolled;
+    }
+
+    /**
+     * @return the number of unrolled loops
+     */
+    public int apply(IrMethod method) {
+        if (!method.isSsa()) {
+            throw new RuntimeException("Loop unrolling expects method '" + method.getName() + "' in SSA form");
+        }
+
+        this.method = method;
+        this.fullyUnrolled = 0;
+        this.partiallyUnrolled = 0;
+
+        Loop.visitInnermostFirst(method, this::unroll);
+        method.removeUnreachableBlocks();
+
+        System.out.println("[Unroll] " + method.getName() + ": fully unrolled " + fullyUnrolled
+                + " loop(s), partially unrolled " + partiallyUnrolled);
+        return fullyUnrolled + partiallyUnrolled;
+    }
+
+    private void unroll(Loop loop, DominatorTree dominators) {
+        if (!isSimple(loop, dominators)) {
+            return;
+        }
+
+        TripCount tripCount = findTripCount(loop);
+        if (tripCount == null) {
+            return;
+        }
+
+        if (profile.isCold(loop.getHeader())) {
+            System.out.println("[Unroll] " + method.getName() + ": loop at " + loop.getHeader()
+                    + " never ran in the profile, kept");
+            return;
+        }
+        int growthBudget = profile.isHot(loop.getHeader()) ? 2 * this.growthBudget : this.growthBudget;
+
+        int size = sizeOf(loop);
+        int iterations = tripCount.iterations();
+        if ((long) iterations * size <= growthBudget) {
+            unrollFully(loop, iterations);
+            System.out.println("[Unroll] " + method.getName() + ": " + iterations + " iteration(s) of size " + size
+                    + " unrolled fully");
+            fullyUnrolled++;
+            return;
+        }
+
+        for (int factor : FACTORS) {
+            int remainder = iterations % factor;
+            int growth = (factor - 1) * size + (remainder == 0 ? 0 : size);
+            if (iterations >= 2 * factor && growth <= growthBudget) {
+                unrollPartially(loop, tripCount, factor);
+                System.out.println("[Unroll] " + method.getName() + ": " + iterations + " iteration(s) of size " + size
+                        + " unrolled by " + factor + (remainder == 0 ? "" : ", " + remainder + " in a remainder loop"));
+                partiallyUnrolled++;
+                return;
+            }
+        }
+    }
+
+    /**
+     * A loop can be unrolled when it has no inner loops, no returns, a single entry and a single latch other than the
+     * header, and is only left through the branch of its header.
+     */
+    private static boolean isSimple(Loop loop, DominatorTree dominators) {
+        BasicBlock header = loop.getHeader();
+        if (loop.getEntries().size() != 1 || loop.getLatches().size() != 1 || loop.getLatches().get(0) == header
+                || loop.hasReturn() || !header.getTerminator().is(Opcode.BRANCH)) {
+            return false;
+        }
+
+        List<BasicBlock[]> exits = loop.getExits();
+        if (exits.size() != 1 || exits.get(0)[0] != header) {
+            return false;
+        }
+
+        for (BasicBlock block : loop.getBlocks()) {
+            for (BasicBlock successor : block.getSuccessors()) {
+                if (successor != header && dominators.dominates(successor, block)) {
+                    return false;
+                }
+            }
+        }
+        return true;
+    }
+
+    /**
+     * @return the induction variable the header compares with a constant and the number of iterations, or null if it
+     * is not known
+     */
+    private TripCount findTripCount(Loop loop) {
+        BasicBlock header = loop.getHeader();
+        BasicBlock latch = loop.getLatches().get(0);
+        Instruction branch = header.getTerminator();
+        DefUseChains chains = new DefUseChains(method);
+
+        if (!(branch.getOperand(0) instanceof Local condition)
+                || !(chains.getDefinition(condition) instanceof Instruction comparison)
+                || comparison.getBlock() != header || !comparison.is(Opcode.BINARY)
+                || !comparison.getOperator().isComparison()) {
+            return null;
+        }
+
+        for (Instruction phi : header.getPhis()) {
+            int index = comparison.getOperands().indexOf(phi.getDest());
+            if (index < 0) {
+                continue;
+            }
+
+            Integer bound = constantOf(comparison.getOperand(1 - index), chains);
+            Integer init = constantOf(phi.getValueFrom(loop.getEntries().get(0)), chains);
+            Integer step = stepOf(phi, latch, chains);
+            if (bound == null || init == null || step == null || step == 0) {
+                return null;
+            }
+
+            // The comparison of the variable with the bound, as 'variable op bound'
+            Operator operator = index == 0 ? comparison.getOperator() : comparison.getOperator().swap();
+            boolean continuesOnTrue = loop.contains(branch.getTargets().get(0));
+
+            long value = init;
+            int iterations = 0;
+            while (compare(operator, (int) value, bound) == continuesOnTrue) {
+                value += step;
+                iterations++;
+                if (iterations > MAX_TRIP_COUNT || value < Integer.MIN_VALUE || value > Integer.MAX_VALUE) {
+                    return null;
+                }
+            }
+            return new TripCount(phi, init, step, iterations);
+        }
+        return null;
+    }
+
+    /**
+     * @return the constant step of {@code phi = phi(init, phi + c)} or {@code phi(init, phi - c)}, or null
+     */
+    private static Integer stepOf(Instruction phi, BasicBlock latch, DefUseChains chains) {
+        if (!(phi.getValueFrom(latch) instanceof Local next)
+                || !(chains.getDefinition(next) instanceof Instruction update) || !update.is(Opcode.BINARY)) {
+            return null;
+        }
+
+        Value left = update.getOperand(0);
+        Value right = update.getOperand(1);
+        if (update.getOperator() == Operator.ADD && left == phi.getDest() && right instanceof Constant constant) {
+            return constant.asInt();
+        }
+        if (update.getOperator() == Operator.ADD && right == phi.getDest() && left instanceof Constant constant) {
+            return constant.asInt();
+        }
+        if (update.getOperator() == Operator.SUB && left == phi.getDest() && right instanceof Constant constant
+                && constant.asInt() != Integer.MIN_VALUE) {
+            return -constant.asInt();
+        }
+        return null;
+    }
+
+    /**
+     * @return the int constant the value is, through copies, or the size of the array it is the length of
+     */
+    private static Integer constantOf(Value value, DefUseChains chains) {
+        while (value instanceof Local local && chains.getDefinition(local) instanceof Instruction definition) {
+            if (definition.is(Opcode.COPY)) {
+                value = definition.getOperand(0);
+            } else if (definition.is(Opcode.ARRAY_LENGTH)) {
+                Value array = definition.getOperand(0);
+                while (array instanceof Local arrayLocal && chains.getDefinition(arrayLocal) instanceof Instruction arrayDefinition
+                        && arrayDefinition.is(Opcode.COPY)) {
+                    array = arrayDefinition.getOperand(0);
+                }
+                if (!(array instanceof Local arrayLocal)
+                        || !(chains.getDefinition(arrayLocal) instanceof Instruction allocation)
+                        || !allocation.is(Opcode.NEW_ARRAY)) {
+                    return null;
+                }
+                value = allocation.getOperand(0);
+            } else {
+                return null;
+            }
+        }
+        return value instanceof Constant constant && constant.isInt() ? constant.asInt() : null;
+    }
+
+    private static boolean compare(Operator operator, int left, int right) {
+        return switch (operator) {
+            case LT -> left < right;
+            case GT -> left > right;
+            case LE -> left <= right;
+            case GE -> left >= right;
+            case EQ -> left == right;
+            case NE -> left != right;
+            default -> throw new RuntimeException("Operator '" + operator.getSymbol() + "' is not a comparison");
+        };
+    }
+
+    /**
+     * Size estimate of one iteration: the instructions and terminators of the loop, without the jumps.
+     */
+    private static int sizeOf(Loop loop) {
+        int size = 0;
+        for (BasicBlock block : loop.getBlocks()) {
+            size += block.getInstructions().size();
+            if (!block.getTerminator().is(Opcode.JUMP)) {
+                size++;
+            }
+        }
+        return size;
+    }
+
+    /**
+     * Replaces the loop by a copy of the header and the body for each iteration, and a last copy of the header.
+     */
+    private void unrollFully(Loop loop, int iterations) {
+        BasicBlock header = loop.getHeader();
+        BasicBlock latch = loop.getLatches().get(0);
+        BasicBlock preheader = loop.createPreheader(method);
+        BasicBlock exit = loop.getExits().get(0)[1];
+        BasicBlock bodyEntry = bodyEntryOf(loop);
+        List<BasicBlock> order = blocksInOrder(loop);
+
+        Map<Value, Value> values = new HashMap<>();
+        for (Instruction phi : header.getPhis()) {
+            values.put(phi.getDest(), phi.getValueFrom(preheader));
+        }
+
+        BasicBlock previous = preheader;
+        BasicBlock previousTarget = header;
+        for (int i = 0; i < iterations; i++) {
+            Map<BasicBlock, BasicBlock> blocks = cloneBlocks(loop, order, values);
+            BasicBlock headerCopy = blocks.get(header);
+            headerCopy.setTerminator(Instruction.jump(blocks.get(bodyEntry)));
+            previous.replaceSuccessor(previousTarget, headerCopy);
+
+            Map<Value, Value> next = new HashMap<>(values);
+            for (Instruction phi : header.getPhis()) {
+                next.put(phi.getDest(), map(phi.getValueFrom(latch), values));
+            }
+            values = next;
+            previous = blocks.get(latch);
+            previousTarget = headerCopy;
+        }
+
+        // The last evaluation of the header, which leaves the loop
+        Map<BasicBlock, BasicBlock> blocks = cloneBlocks(loop, List.of(header), values);
+        BasicBlock lastHeader = blocks.get(header);
+        lastHeader.setTerminator(Instruction.jump(exit));
+        for (Instruction phi : exit.getPhis()) {
+            phi.replaceIncoming(header, lastHeader);
+        }
+        exit.removePredecessor(header);
+        previous.replaceSuccessor(previousTarget, lastHeader);
+
+        replaceUsesAfter(loop, values, Set.of());
+        method.removeUnreachableBlocks();
+    }
+
+    /**
+     * Makes each iteration of the loop run the body {@code factor} times, with a remainder loop for the iterations
+     * that do not complete a group.
+     */
+    private void unrollPartially(Loop loop, TripCount tripCount, int factor) {
+        BasicBlock header = loop.getHeader();
+        BasicBlock latch = loop.getLatches().get(0);
+        BasicBlock exit = loop.getExits().get(0)[1];
+        BasicBlock bodyEntry = bodyEntryOf(loop);
+        List<BasicBlock> order = blocksInOrder(loop);
+
+        Map<Instruction, Value> latchValues = new LinkedHashMap<>();
+        for (Instruction phi : header.getPhis()) {
+            latchValues.put(phi, phi.getValueFrom(latch));
+        }
+
+        // Remainder loop, entered with the values of the header when the unrolled loop ends
+        int remainder = tripCount.iterations() % factor;
+        BasicBlock loopExit = exit;
+        if (remainder != 0) {
+            Map<Value, Value> values = new HashMap<>();
+            Map<Instruction, Instruction> phis = new LinkedHashMap<>();
+            for (Instruction phi : header.getPhis()) {
+                Instruction copy = Instruction.phi(newLocalLike(phi.getDest()));
+                values.put(phi.getDest(), copy.getDest());
+                phis.put(phi, copy);
+            }
+
+            Map<BasicBlock, BasicBlock> blocks = cloneBlocks(loop, order, values);
+            BasicBlock remainderHeader = blocks.get(header);
+            for (Map.Entry<Instruction, Instruction> entry : phis.entrySet()) {
+                entry.getValue().addIncoming(header, entry.getKey().getDest());
+                entry.getValue().addIncoming(blocks.get(latch), map(latchValues.get(entry.getKey()), values));
+                remainderHeader.addPhi(entry.getValue());
+            }
+
+            // The exit is now reached from the remainder loop, with its values
+            for (Instruction phi : exit.getPhis()) {
+                phi.replaceIncoming(header, remainderHeader);
+            }
+            exit.removePredecessor(header);
+            remainderHeader.addPredecessor(header);
+            replaceUsesAfter(loop, values, Set.copyOf(blocks.values()));
+
+            loopExit = remainderHeader;
+        }
+
+        // Copies of the header (without the branch) and the body, all made before the latch is changed, and then
+        // chained after it
+        Map<Value, Value> values = new HashMap<>();
+        List<Map<BasicBlock, BasicBlock>> copies = new ArrayList<>();
+        for (int i = 1; i < factor; i++) {
+            Map<Value, Value> next = new HashMap<>(values);
+            for (Instruction phi : header.getPhis()) {
+                next.put(phi.getDest(), map(latchValues.get(phi), values));
+            }
+            values = next;
+            copies.add(cloneBlocks(loop, order, values));
+        }
+
+        BasicBlock previous = latch;
+        BasicBlock previousTarget = header;
+        for (Map<BasicBlock, BasicBlock> blocks : copies) {
+            BasicBlock headerCopy = blocks.get(header);
+            headerCopy.setTerminator(Instruction.jump(blocks.get(bodyEntry)));
+            previous.replaceSuccessor(previousTarget, headerCopy);
+
+            previous = blocks.get(latch);
+            previousTarget = headerCopy;
+        }
+        previous.replaceSuccessor(previousTarget, header);
+        for (Instruction phi : header.getPhis()) {
+            phi.removeIncoming(latch);
+            phi.addIncoming(previous, map(latchValues.get(phi), values));
+        }
+
+        // The unrolled loop runs while the variable has not reached its value after the last complete group
+        long groups = tripCount.iterations() / factor;
+        int limit = (int) (tripCount.init() + groups * factor * tripCount.step());
+        Local variable = tripCount.phi().getDest();
+        Local condition = method.newTemp(header.getTerminator().getOperand(0).getType());
+        Operator operator = tripCount.step() > 0 ? Operator.LT : Operator.GT;
+        header.append(Instruction.binary(condition, operator, variable, Constant.of(limit, variable.getType())));
+
+        // The predecessors of the remainder loop already include the header
+        if (loopExit == exit) {
+            header.setTerminator(Instruction.branch(condition, bodyEntry, exit));
+        } else {
+            header.setTerminatorOnly(Instruction.branch(condition, bodyEntry, loopExit));
+        }
+
+    }
+
+    /**
+     * @return the blocks of the loop in reverse postorder, which is a topological order since it has no inner loops
+     */
+    private List<BasicBlock> blocksInOrder(Loop loop) {
+        List<BasicBlock> order = new ArrayList<>();
+        for (BasicBlock block : method.getReversePostorder()) {
+            if (loop.contains(block)) {
+                order.add(block);
+            }
+        }
+        return order;
+    }
+
+    /**
+     * @return the successor of the header inside the loop
+     */
+    private static BasicBlock bodyEntryOf(Loop loop) {
+        Instruction branch = loop.getHeader().getTerminator();
+        BasicBlock ifTrue = branch.getTargets().get(0);
+        return loop.contains(ifTrue) ? ifTrue : branch.getTargets().get(1);
+    }
+
+    /**
+     * Copies blocks of the loop. The phis of the header are not copied: their values in the copy must be given.
+     * Targets in the copied blocks go to their copies, and the other targets are kept.
+     *
+     * @param order  the blocks to copy, in reverse postorder
+     * @param values the values of the copy for the locals of the loop, updated with the new locals
+     * @return the copy of each block
+     */
+    private Map<BasicBlock, BasicBlock> cloneBlocks(Loop loop, List<BasicBlock> order, Map<Value, Value> values) {
+        Map<BasicBlock, BasicBlock> blocks = new LinkedHashMap<>();
+        for (BasicBlock block : order) {
+            blocks.put(block, method.newBlock());
+        }
+
+        // New locals for every definition first, since the phis of the body read values defined after them
+        List<Instruction> phis = new ArrayList<>();
+        for (BasicBlock block : order) {
+            for (Instruction instruction : block.getAllInstructions()) {
+                boolean isHeaderPhi = block == loop.getHeader() && instruction.is(Opcode.PHI);
+                if (instruction.getDest() != null && !isHeaderPhi) {
+                    values.put(instruction.getDest(), newLocalLike(instruction.getDest()));
+                }
+            }
+        }
+
+        for (BasicBlock block : order) {
+            BasicBlock copy = blocks.get(block);
+
+            if (block != loop.getHeader()) {
+                for (Instruction phi : block.getPhis()) {
+                    Instruction phiCopy = Instruction.phi((Local) values.get(phi.getDest()));
+                    for (BasicBlock predecessor : phi.getIncoming()) {
+                        phiCopy.addIncoming(blocks.getOrDefault(predecessor, predecessor),
+                                map(phi.getValueFrom(predecessor), values));
+                    }
+                    copy.addPhi(phiCopy);
+                    phis.add(phiCopy);
+                }
+            }
+
+            for (Instruction instruction : block.getInstructions()) {
+                copy.append(copyOf(instruction, values));
+            }
+        }
+
+        for (BasicBlock block : order) {
+            Instruction terminator = copyOf(block.getTerminator(), values);
+            for (BasicBlock target : block.getTerminator().getTargets()) {
+                if (blocks.containsKey(target)) {
+                    terminator.replaceTarget(target, blocks.get(target));
+                }
+            }
+            blocks.get(block).setTerminator(terminator);
+        }
+
+        return blocks;
+    }
+
+    /**
+     * Replaces the uses of the locals defined in the header, outside the loop and the given blocks, by their values
+     * when the loop is left.
+     */
+    private void replaceUsesAfter(Loop loop, Map<Value, Value> values, Set<BasicBlock> excluded) {
+        Set<Local> headerLocals = new HashSet<>();
+        for (Instruction instruction : loop.getHeader().getAllInstructions()) {
+            if (instruction.getDest() != null) {
+                headerLocals.add(instruction.getDest());
+            }
+        }
+
+        for (BasicBlock block : method.getBlocks()) {
+            if (loop.contains(block) || excluded.contains(block)) {
+                continue;
+            }
+            for (Instruction instruction : block.getAllInstructions()) {
+                for (Local local : headerLocals) {
+                    if (values.containsKey(local)) {
+                        instruction.replaceUses(local, values.get(local));
+                    }
+                }
+            }
+        }
+    }
+
+    private Local newLocalLike(Local local) {
+        return local.getVariable().isTemporary() ? method.newTemp(local.getType()) : method.newVersion(local);
+    }
+
+    private static Value map(Value value, Map<Value, Value> values) {
+        return values.getOrDefault(value, value);
+    }
+
+    private static Instruction copyOf(Instruction instruction, Map<Value, Value> values) {
+        Instruction copy = instruction.duplicate();
+        if (copy.getDest() != null) {
+            copy.setDest((Local) values.get(copy.getDest()));
+        }
+        for (int i = 0; i < copy.getOperands().size(); i++) {
+            copy.setOperand(i, map(copy.getOperand(i), values));
+        }
+        return copy;
+    }
+}
@@ -0,0 +1,289 @@
+package pt.up.fe.comp2025.optimization.ssa;
+
+import pt.up.fe.comp.jmm.analysis.table.SymbolTable;
+import pt.up.fe.comp2025.symboltable.JmmSymbolTable;
+
+import java.util.ArrayDeque;
+import java.util.Collection;
+import java.util.Deque;
+import java.util.EnumSet;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+/**
+ * Summarizes the effects of the methods of the compiled class, so that the optimizations can tell which calls only
+ * compute their result, instead of treating every call as an unknown effect.
+ * <p>
+ * The summary of a method is the set of its {@link Effect effects}: the effects of its own instructions and those of
+ * the methods it calls, up to a fixed point over the call graph. The called method is known for the calls on
+ * {@code this} (which, as in {@link TailRecursionElimination}, are bound to the method of this class) and on objects
+ * created in the caller with {@code new C()} of the compiled class. Imported methods are unknown, and so may have any
+ * effect, unless they are in the allowlist given to the analysis, as {@code Class.method} or {@code Class.*}: those
+ * are trusted to have no effect, to never throw and to always return. A method with a loop, or that calls itself
+ * through the call graph, may not return.
+ * <p>
+ * The methods are summarized before SSA form, and the optimizations only remove effects, so the summaries stay valid
+ * for the methods they optimize later.
+ */
+public class MethodSummaries {
+
+    public enum Effect {
+        READS_FIELDS("reads fields"),
+        WRITES_FIELDS("writes fields"),
+        READS_ARRAYS("reads arrays"),
+        WRITES_ARRAYS("writes arrays"),
+        ALLOCATES("allocates"),
+        CALLS_UNKNOWN("calls unknown methods"),
+        MAY_THROW("may throw"),
+        MAY_NOT_RETURN("may not return");
+
+        private final String description;
+
+        Effect(String description) {
+            this.description = description;
+        }
+
+        @Override
+        public String toString() {
+            return description;
+        }
+    }
+
+    // Effects a call that is removed or reused does not need to repeat
+    private static final Set<Effect> REMOVABLE = EnumSet.of(Effect.READS_FIELDS, Effect.READS_ARRAYS,
+            Effect.ALLOCATES);
+    private static final Set<Effect> REUSABLE = EnumSet.of(Effect.READS_FIELDS, Effect.READS_ARRAYS,
+            Effect.MAY_THROW, Effect.MAY_NOT_RETURN);
+
+    private final JmmSymbolTable table;
+    private final Set<String> pureImports;
+    private final Map<String, Set<Effect>> summaries;
+
+    private Map<String, IrMethod> methods;
+
+    /**
+     * @param pureImports the imported methods that have no effects, as {@code Class.method} or {@code Class.*}
+     */
+    public MethodSummaries(SymbolTable table, Collection<String> pureImports) {
+        this.table = (JmmSymbolTable) table;
+        this.pureImports = new HashSet<>(pureImports);
+        this.summaries = new HashMap<>();
+        this.methods = Map.of();
+    }
+
+    /**
+     * Summarizes each of the methods, which must not be in SSA form.
+     *
+     * @return the number of methods without effects
+     */
+    public int apply(Map<String, IrMethod> methods) {
+        this.methods = methods;
+        summaries.clear();
+
+        Map<String, Set<String>> callees = new HashMap<>();
+        for (IrMethod method : methods.values()) {
+            if (method.isSsa()) {
+                throw new RuntimeException("Method summaries expect method '" + method.getName()
+                        + "' before SSA form");
+            }
+            Set<String> called = new LinkedHashSet<>();
+            summaries.put(method.getName(), ownEffects(method, called));
+            callees.put(method.getName(), called);
+        }
+
+        // Before propagating, so that the callers of a recursive method may not return either
+        for (IrMethod method : methods.values()) {
+            if (reaches(method.getName(), method.getName(), callees)) {
+                summaries.get(method.getName()).add(Effect.MAY_NOT_RETURN);
+            }
+        }
+
+        // A method has the effects of the methods it calls, which only grow until the fixed point
+        boolean changed = true;
+        while (changed) {
+            changed = false;
+            for (IrMethod method : methods.values()) {
+                Set<Effect> effects = summaries.get(method.getName());
+                for (String callee : callees.get(method.getName())) {
+                    changed |= effects.addAll(summaries.get(callee));
+                }
+            }
+        }
+
+        int pure = 0;
+        for (IrMethod method : methods.values()) {
+            Set<Effect> effects = summaries.get(method.getName());
+            pure += effects.isEmpty() ? 1 : 0;
+            System.out.println("[Purity] " + method.getName() + ": " + (effects.isEmpty() ? "pure"
+                    : effects.stream().map(Effect::toString).collect(Collectors.joining(", "))));
+        }
+        return pure;
+    }
+
+    /**
+     * @return the effects of a method of the class, or null if it was not summarized
+     */
+    public Set<Effect> getSummary(String method) {
+        Set<Effect> effects = summaries.get(method);
+        return effects == null ? null : EnumSet.copyOf(effects);
+    }
+
+    /**
+     * @return the effects of a call made by the given method, which may be in SSA form
+     */
+    public Set<Effect> effectsOf(IrMethod caller, Instruction call) {
+        IrMethod callee = calleeOf(caller, call);
+        if (callee != null && summaries.containsKey(callee.getName())) {
+            return summaries.get(callee.getName());
+        }
+        if (callee == null && isPureImport(call)) {
+            return EnumSet.noneOf(Effect.class);
+        }
+        return EnumSet.of(Effect.CALLS_UNKNOWN);
+    }
+
+    /**
+     * @return true if the call can be removed when its result is not used
+     */
+    public boolean isRemovable(IrMethod caller, Instruction call) {
+        return REMOVABLE.containsAll(effectsOf(caller, call));
+    }
+
+    /**
+     * @return true if the call always returns the same value for the same arguments and memory, so that a later
+     * identical call can reuse the result of an earlier one
+     */
+    public boolean isReusable(IrMethod caller, Instruction call) {
+        return REUSABLE.containsAll(effectsOf(caller, call));
+    }
+
+    public boolean readsFields(IrMethod caller, Instruction call) {
+        return hasAny(caller, call, Effect.READS_FIELDS, Effect.CALLS_UNKNOWN);
+    }
+
+    public boolean writesFields(IrMethod caller, Instruction call) {
+        return hasAny(caller, call, Effect.WRITES_FIELDS, Effect.CALLS_UNKNOWN);
+    }
+
+    public boolean readsArrays(IrMethod caller, Instruction call) {
+        return hasAny(caller, call, Effect.READS_ARRAYS, Effect.CALLS_UNKNOWN);
+    }
+
+    public boolean writesArrays(IrMethod caller, Instruction call) {
+        return hasAny(caller, call, Effect.WRITES_ARRAYS, Effect.CALLS_UNKNOWN);
+    }
+
+    /**
+     * @return true if the call writes fields or arrays
+     */
+    public boolean writesMemory(IrMethod caller, Instruction call) {
+        return hasAny(caller, call, Effect.WRITES_FIELDS, Effect.WRITES_ARRAYS, Effect.CALLS_UNKNOWN);
+    }
+
+    /**
+     * @return true if the call may not complete normally, by throwing or not returning, and so must not be evaluated
+     * where the original program would not evaluate it
+     */
+    public boolean mayNotComplete(IrMethod caller, Instruction call) {
+        return hasAny(caller, call, Effect.MAY_THROW, Effect.MAY_NOT_RETURN, Effect.CALLS_UNKNOWN);
+    }
+
+    private boolean hasAny(IrMethod caller, Instruction call, Effect... effects) {
+        Set<Effect> callEffects = effectsOf(caller, call);
+        for (Effect effect : effects) {
+            if (callEffects.contains(effect)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * @param called receives the methods of the class the method calls
+     */
+    private Set<Effect> ownEffects(IrMethod method, Set<String> called) {
+        Set<Effect> effects = EnumSet.noneOf(Effect.class);
+        if (!Loop.findLoops(method, new DominatorTree(method)).isEmpty()) {
+            effects.add(Effect.MAY_NOT_RETURN);
+        }
+
+        for (BasicBlock block : method.getBlocks()) {
+            for (Instruction instruction : block.getInstructions()) {
+                switch (instruction.getOpcode()) {
+                    case GET_FIELD -> effects.add(Effect.READS_FIELDS);
+                    case PUT_FIELD -> effects.add(Effect.WRITES_FIELDS);
+                    case ARRAY_LOAD -> effects.add(Effect.READS_ARRAYS);
+                    case ARRAY_STORE -> effects.add(Effect.WRITES_ARRAYS);
+                    case NEW_ARRAY -> effects.add(Effect.ALLOCATES);
+                    case NEW_OBJECT -> {
+                        effects.add(Effect.ALLOCATES);
+                        if (!hasDefaultConstructor(instruction.getClassName())) {
+                            effects.add(Effect.CALLS_UNKNOWN);
+                        }
+                    }
+                    case CALL -> {
+                        IrMethod callee = calleeOf(method, instruction);
+                        if (callee != null) {
+                            called.add(callee.getName());
+                        } else if (!isPureImport(instruction)) {
+                            effects.add(Effect.CALLS_UNKNOWN);
+                        }
+                    }
+                    default -> {
+                    }
+                }
+
+                if (instruction.mayThrow() && !instruction.is(Opcode.CALL)) {
+                    effects.add(Effect.MAY_THROW);
+                }
+            }
+        }
+        return effects;
+    }
+
+    /**
+     * @return the method of the class the call is bound to, or null if it is not known
+     */
+    private IrMethod calleeOf(IrMethod caller, Instruction call) {
+        if (call.isStatic()) {
+            return call.getClassName().equals(table.getClassName()) ? methods.get(call.getName()) : null;
+        }
+        if (call.getReceiver() instanceof ThisValue
+                || Inliner.isExactReceiver(caller, call, table.getClassName())) {
+            return methods.get(call.getName());
+        }
+        return null;
+    }
+
+    private boolean isPureImport(Instruction call) {
+        String className = call.isStatic() ? call.getClassName() : call.getReceiver().getType().getName();
+        return pureImports.contains(className + "." + call.getName()) || pureImports.contains(className + ".*");
+    }
+
+    /**
+     * Only the constructor of the compiled class, when it does not extend another class, is known to do nothing.
+     */
+    private boolean hasDefaultConstructor(String className) {
+        String superClass = table.getSuper();
+        return className.equals(table.getClassName()) && (superClass == null || superClass.isEmpty());
+    }
+
+    private static boolean reaches(String from, String to, Map<String, Set<String>> callees) {
+        Set<String> visited = new HashSet<>();
+        Deque<String> worklist = new ArrayDeque<>(callees.get(from));
+        while (!worklist.isEmpty()) {
+            String current = worklist.pop();
+            if (current.equals(to)) {
+                return true;
+            }
+            if (visited.add(current)) {
+                worklist.addAll(callees.getOrDefault(current, Set.of()));
+            }
+        }
+        return false;
+    }
+}
@@ -0,0 +1,329 @@
+package pt.up.fe.comp2025.optimization.ssa;
+
+import pt.up.fe.comp.jmm.analysis.table.Type;
+import pt.up.fe.comp2025.optimization.OptUtils;
+import pt.up.fe.comp2025.symboltable.JmmInterner;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Emits the body of a method lowered by {@link OutOfSsa} as OLLIR instructions.
+ * <p>
+ * Blocks are laid out in reverse postorder, or in the {@link IrMethod#getLayout() layout} set for the method, so a
+ * block usually falls through to the block that follows it and only the other edges need a goto. A comparison whose
+ * only use is the branch right after it is emitted as the condition of the branch. Loops whose header only tests
+ * their condition are rotated to test it at the bottom.
+ * <p>
+ * OLLIR has no shifts, so a shift {@code x >> k} is emitted as the division {@code x / 2^k}, which has the same value
+ * since the IR only shifts values that are never negative. The positions of these divisions are kept in the method
+ * for {@link pt.up.fe.comp2025.optimization.ShiftLowering}, which turns them back into shifts.
+ */
+public class OllirEmitter {
+
+    private static final String INDENT = "    ";
+    private static final String END_STMT = ";\n";
+
+    private final IrMethod method;
+    private final String className;
+    private final JmmInterner interner;
+    private final Liveness liveness;
+    private final Set<BasicBlock> jumpTargets;
+    private final Set<Integer> shifts;
+    private int divisions;
+
+    private OllirEmitter(IrMethod method, String className, JmmInterner interner) {
+        this.method = method;
+        this.className = className;
+        this.interner = interner;
+        this.liveness = new Liveness(method);
+        this.jumpTargets = new HashSet<>();
+        this.shifts = new HashSet<>();
+        this.divisions = 0;
+    }
+
+    /**
+     * @param className the class the method belongs to
+     * @param interner   the interner of the compilation, which gives the types of array elements
+     * @return the OLLIR instructions of the method body, without the method header
+     */
+    public static String emit(IrMethod method, String className, JmmInterner interner) {
+        if (method.isSsa()) {
+            throw new RuntimeException("Method '" + method.getName() + "' must be lowered out of SSA form first");
+        }
+        var emitter = new OllirEmitter(method, className, interner);
+        String body = emitter.emitBody();
+        method.setEmittedShifts(emitter.shifts);
+        return body;
+    }
+
+    /**
+     * @return the OLLIR header of a public method that has no declaration in the source, such as the copy of a method
+     * specialized for some constant arguments
+     */
+    public static String emitHeader(IrMethod method) {
+        StringBuilder code = new StringBuilder(".method public ").append(method.getName()).append("(");
+        List<String> parameters = new ArrayList<>();
+        for (Local parameter : method.getParameters()) {
+            parameters.add(parameter.getName() + ollirType(parameter.getType()));
+        }
+        code.append(String.join(", ", parameters)).append(")").append(ollirType(method.getReturnType()));
+        return code.toString();
+    }
+
+    private String emitBody() {
+        List<BasicBlock> layout = rotateLoops(method.getLayout());
+        List<String> blockCodes = new ArrayList<>();
+
+        for (int i = 0; i < layout.size(); i++) {
+            BasicBlock next = i + 1 < layout.size() ? layout.get(i + 1) : null;
+            blockCodes.add(emitBlock(layout.get(i), next));
+        }
+
+        StringBuilder code = new StringBuilder();
+        for (int i = 0; i < layout.size(); i++) {
+            if (jumpTargets.contains(layout.get(i))) {
+                code.append(INDENT).append(label(layout.get(i))).append(":\n");
+            }
+            code.append(blockCodes.get(i));
+        }
+        return code.toString();
+    }
+
+    /**
+     * Moves each loop header that only tests the condition of the loop to right after the block that jumps back to
+     * it. The loop is then entered with a jump to the test, and each iteration ends with the test falling through
+     * from the body and a single conditional branch back to it, instead of a test at the top and a goto at the end.
+     */
+    private List<BasicBlock> rotateLoops(List<BasicBlock> layout) {
+        List<BasicBlock> rotated = new ArrayList<>(layout);
+        for (BasicBlock header : layout) {
+            int position = rotated.indexOf(header);
+            if (header == method.getEntry() || !isTest(header) || position + 1 == rotated.size()
+                    || !header.getSuccessors().contains(rotated.get(position + 1))) {
+                continue;
+            }
+
+            // The back edges are the jumps from blocks laid out after the header; rotation needs a single one
+            List<BasicBlock> latches = new ArrayList<>();
+            for (BasicBlock predecessor : header.getPredecessors()) {
+                if (rotated.indexOf(predecessor) > position) {
+                    latches.add(predecessor);
+                }
+            }
+            if (latches.size() != 1 || !latches.get(0).getTerminator().is(Opcode.JUMP)) {
+                continue;
+            }
+
+            rotated.remove(header);
+            rotated.add(rotated.indexOf(latches.get(0)) + 1, header);
+        }
+        return rotated;
+    }
+
+    private String emitBlock(BasicBlock block, BasicBlock next) {
+        StringBuilder code = new StringBuilder();
+        List<Instruction> instructions = block.getInstructions();
+        Instruction terminator = block.getTerminator();
+
+        Instruction fused = fusedComparison(block);
+
+        for (Instruction instruction : instructions) {
+            if (instruction != fused) {
+                code.append(INDENT).append(emitInstruction(instruction));
+            }
+        }
+
+        code.append(emitTerminator(terminator, fused, next));
+        return code.toString();
+    }
+
+    /**
+     * @return the comparison that is dead after the branch that ends the block, which becomes the condition of the
+     * branch, or null if there is none
+     */
+    private Instruction fusedComparison(BasicBlock block) {
+        List<Instruction> instructions = block.getInstructions();
+        Instruction terminator = block.getTerminator();
+        if (!terminator.is(Opcode.BRANCH) || instructions.isEmpty()) {
+            return null;
+        }
+
+        Instruction last = instructions.get(instructions.size() - 1);
+        if (last.is(Opcode.BINARY) && last.getOperator().isComparison() && last.getDest() == terminator.getOperand(0)
+                && !liveness.getLiveOut(block).contains(last.getDest())) {
+            return last;
+        }
+        return null;
+    }
+
+    /**
+     * @return true if the block only branches, on a condition computed before it or by its fused comparison
+     */
+    private boolean isTest(BasicBlock block) {
+        List<Instruction> instructions = block.getInstructions();
+        return block.getTerminator().is(Opcode.BRANCH)
+                && (instructions.isEmpty() || instructions.size() == 1 && fusedComparison(block) != null);
+    }
+
+    private String emitTerminator(Instruction terminator, Instruction fused, BasicBlock next) {
+        StringBuilder code = new StringBuilder();
+
+        switch (terminator.getOpcode()) {
+            case RETURN -> {
+                code.append(INDENT).append("ret").append(ollirType(method.getReturnType()));
+                if (!terminator.getOperands().isEmpty()) {
+                    code.append(" ").append(operand(terminator.getOperand(0)));
+                }
+                code.append(END_STMT);
+            }
+            case JUMP -> {
+                BasicBlock target = terminator.getTargets().get(0);
+                if (target != next) {
+                    code.append(goTo(target));
+                }
+            }
+            case BRANCH -> {
+                BasicBlock ifTrue = terminator.getTargets().get(0);
+                BasicBlock ifFalse = terminator.getTargets().get(1);
+
+                if (ifTrue == next && ifTrue != ifFalse) {
+                    // Branch on the negated condition and fall through to the true target
+                    code.append(INDENT).append("if (").append(negatedCondition(terminator, fused)).append(") goto ")
+                            .append(target(ifFalse)).append(END_STMT);
+                } else {
+                    code.append(INDENT).append("if (").append(condition(terminator, fused)).append(") goto ")
+                            .append(target(ifTrue)).append(END_STMT);
+                    if (ifFalse != next) {
+                        code.append(goTo(ifFalse));
+                    }
+                }
+            }
+            default -> throw new RuntimeException("Not a terminator: " + terminator);
+        }
+
+        return code.toString();
+    }
+
+    private String condition(Instruction branch, Instruction fused) {
+        if (fused == null) {
+            return operand(branch.getOperand(0));
+        }
+        return comparison(fused.getOperand(0), fused.getOperator(), fused.getOperand(1));
+    }
+
+    private String negatedCondition(Instruction branch, Instruction fused) {
+        if (fused == null) {
+            Value condition = branch.getOperand(0);
+            return comparison(condition, Operator.EQ, Constant.of(false, condition.getType()));
+        }
+        return comparison(fused.getOperand(0), fused.getOperator().negate(), fused.getOperand(1));
+    }
+
+    private String comparison(Value left, Operator operator, Value right) {
+        return operand(left) + " " + operator.getSymbol() + ".bool " + operand(right);
+    }
+
+    private String emitBinary(Instruction instruction, String destType) {
+        Operator operator = instruction.getOperator();
+        Value right = instruction.getOperand(1);
+        if (operator == Operator.SHR) {
+            shifts.add(divisions);
+            operator = Operator.DIV;
+            right = Constant.of(1 << ((Constant) right).asInt(), right.getType());
+        }
+        if (operator == Operator.DIV) {
+            divisions++;
+        }
+        return operand(instruction.getOperand(0)) + " " + operator.getSymbol() + destType + " " + operand(right);
+    }
+
+    private String goTo(BasicBlock target) {
+        return INDENT + "goto " + target(target) + END_STMT;
+    }
+
+    private String target(BasicBlock block) {
+        jumpTargets.add(block);
+        return label(block);
+    }
+
+    private static String label(BasicBlock block) {
+        return "L" + block.getId();
+    }
+
+    private String emitInstruction(Instruction instruction) {
+        Local dest = instruction.getDest();
+        String assign = dest == null ? "" : operand(dest) + " :=" + ollirType(dest.getType()) + " ";
+        String destType = dest == null ? "" : ollirType(dest.getType());
+
+        return switch (instruction.getOpcode()) {
+            case COPY -> assign + operand(instruction.getOperand(0)) + END_STMT;
+            case BINARY -> assign + emitBinary(instruction, destType) + END_STMT;
+            case NOT -> assign + "!" + destType + " " + operand(instruction.getOperand(0)) + END_STMT;
+            case ARRAY_LOAD -> assign + arrayElement(instruction.getOperand(0), instruction.getOperand(1)) + END_STMT;
+            case ARRAY_STORE -> {
+                Value array = instruction.getOperand(0);
+                String elementType = ollirType(interner.elementType(array.getType()));
+                yield arrayElement(array, instruction.getOperand(1)) + " :=" + elementType + " "
+                        + operand(instruction.getOperand(2)) + END_STMT;
+            }
+            case ARRAY_LENGTH -> assign + "arraylength(" + operand(instruction.getOperand(0)) + ")" + destType
+                    + END_STMT;
+            case NEW_ARRAY -> assign + "new(array, " + operand(instruction.getOperand(0)) + ")" + destType + END_STMT;
+            case NEW_OBJECT -> assign + "new(" + instruction.getClassName() + ")" + destType + END_STMT
+                    + INDENT + "invokespecial(" + operand(dest) + ", \"<init>\").V" + END_STMT;
+            case CALL -> assign + emitCall(instruction) + END_STMT;
+            case GET_FIELD -> assign + "getfield(this." + className + ", " + instruction.getName()
+                    + ollirType(instruction.getType()) + ")" + destType + END_STMT;
+            case PUT_FIELD -> "putfield(this." + className + ", " + instruction.getName()
+                    + ollirType(instruction.getType()) + ", " + operand(instruction.getOperand(0)) + ").V" + END_STMT;
+            default -> throw new RuntimeException("Unexpected instruction: " + instruction);
+        };
+    }
+
+    private String emitCall(Instruction call) {
+        StringBuilder code = new StringBuilder();
+        if (call.isStatic()) {
+            code.append("invokestatic(").append(call.getClassName());
+        } else {
+            code.append("invokevirtual(").append(operand(call.getReceiver()));
+        }
+        code.append(", \"").append(call.getName()).append("\"");
+        for (Value argument : call.getArguments()) {
+            code.append(", ").append(operand(argument));
+        }
+        code.append(")").append(ollirType(call.getType()));
+        return code.toString();
+    }
+
+    private String arrayElement(Value array, Value index) {
+        return operand(array) + "[" + operand(index) + "]" + ollirType(interner.elementType(array.getType()));
+    }
+
+    private String operand(Value value) {
+        String type = ollirType(value.getType());
+
+        if (value instanceof Local local) {
+            return local.getName() + type;
+        }
+        if (value instanceof ThisValue) {
+            return "this" + type;
+        }
+
+        Constant constant = (Constant) value;
+        if (constant.isBoolean()) {
+            return (constant.asBoolean() ? "1" : "0") + type;
+        }
+        if (constant.isInt()) {
+            return constant.asInt() + type;
+        }
+        // Default value of a reference, initialized like the code generated from the AST
+        return "0" + type;
+    }
+
+    private static String ollirType(Type type) {
+        return OptUtils.toOllirType(type);
+    }
+}
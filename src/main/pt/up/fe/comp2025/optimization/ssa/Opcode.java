@@ -0,0 +1,41 @@
+package pt.up.fe.comp2025.optimization.ssa;
+
+/**
+ * Kinds of IR instructions.
+ */
+public enum Opcode {
+    /** dest := operand */
+    COPY,
+    /** dest := left op right */
+    BINARY,
+    /** dest := !operand */
+    NOT,
+    /** dest := array[index] */
+    ARRAY_LOAD,
+    /** array[index] := value */
+    ARRAY_STORE,
+    /** dest := array.length */
+    ARRAY_LENGTH,
+    /** dest := new int[size] */
+    NEW_ARRAY,
+    /** dest := new C() (allocation and constructor call) */
+    NEW_OBJECT,
+    /** [dest :=] receiver.method(args...) or C.method(args...) */
+    CALL,
+    /** dest := this.field */
+    GET_FIELD,
+    /** this.field := value */
+    PUT_FIELD,
+    /** dest := phi(value from each predecessor) */
+    PHI,
+    /** goto target */
+    JUMP,
+    /** if (condition) goto ifTrue else goto ifFalse */
+    BRANCH,
+    /** return [value] */
+    RETURN;
+
+    public boolean isTerminator() {
+        return this == JUMP || this == BRANCH || this == RETURN;
+    }
+}
@@ -0,0 +1,80 @@
+package pt.up.fe.comp2025.optimization.ssa;
+
+/**
+ * Binary operators of the IR. Comparisons produce a boolean, the other operators an integer.
+ */
+public enum Operator {
+    ADD("+"),
+    SUB("-"),
+    MUL("*"),
+    DIV("/"),
+    // Arithmetic shift right, made from divisions by powers of two of values that are never negative
+    SHR(">>"),
+    LT("<"),
+    GT(">"),
+    LE("<="),
+    GE(">="),
+    EQ("=="),
+    NE("!=");
+
+    private final String symbol;
+
+    Operator(String symbol) {
+        this.symbol = symbol;
+    }
+
+    /**
+     * @return the operator as written in Java-- and OLLIR
+     */
+    public String getSymbol() {
+        return symbol;
+    }
+
+    public boolean isComparison() {
+        return ordinal() >= LT.ordinal();
+    }
+
+    public boolean isCommutative() {
+        return this == ADD || this == MUL || this == EQ || this == NE;
+    }
+
+    /**
+     * @return the comparison that is true exactly when this one is false
+     */
+    public Operator negate() {
+        return switch (this) {
+            case LT -> GE;
+            case GE -> LT;
+            case GT -> LE;
+            case LE -> GT;
+            case EQ -> NE;
+            case NE -> EQ;
+            default -> throw new RuntimeException("Operator '" + symbol + "' is not a comparison");
+        };
+    }
+
+    /**
+     * @return the comparison with the operands swapped (a < b is b > a)
+     */
+    public Operator swap() {
+        return switch (this) {
+            case LT -> GT;
+            case GT -> LT;
+            case LE -> GE;
+            case GE -> LE;
+            default -> this;
+        };
+    }
+
+    /**
+     * @return the operator with the given source symbol, or null if it has no IR operator
+     */
+    public static Operator fromSymbol(String symbol) {
+        for (Operator operator : values()) {
+            if (operator.symbol.equals(symbol)) {
+                return operator;
+            }
+        }
+        return null;
+    }
+}
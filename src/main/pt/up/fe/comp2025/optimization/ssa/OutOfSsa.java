@@ -0,0 +1,331 @@
+package pt.up.fe.comp2025.optimization.ssa;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Translates a method out of SSA form, back to named variables that can be emitted as OLLIR.
+ * <p>
+ * Critical edges into blocks with phis are split, and each phi is replaced by copies at the end of its
+ * predecessors into a fresh local, followed by a copy from that local at the start of its block (so the copies of
+ * several phis never overwrite each other's operands). Locals related by copies are then coalesced when they do
+ * not interfere, which removes most of the copies, and each class of coalesced locals gets one name: the name of
+ * the parameter in it, else the name of a source variable it comes from, else a temporary name. Classes of
+ * temporaries that do not interfere share the same temporary.
+ */
+public class OutOfSsa {
+
+    private final IrMethod method;
+    private final Map<Local, Local> parent;
+    private final Map<Local, Set<Local>> interference;
+    private final List<Instruction> phiCopies;
+
+    private OutOfSsa(IrMethod method) {
+        this.method = method;
+        this.parent = new HashMap<>();
+        this.interference = new HashMap<>();
+        this.phiCopies = new ArrayList<>();
+    }
+
+    /**
+     * Lowers the method out of SSA form. Afterwards, every local of the method has a name.
+     */
+    public static void apply(IrMethod method) {
+        OutOfSsa outOfSsa = new OutOfSsa(method);
+        if (method.isSsa()) {
+            outOfSsa.splitCriticalEdges();
+            outOfSsa.replacePhis();
+            method.setSsa(false);
+        }
+
+        outOfSsa.buildInterference();
+        outOfSsa.coalesce();
+        outOfSsa.rename();
+
+        // Edges split for the phi copies that got coalesced away are empty again
+        method.removeEmptyBlocks();
+    }
+
+    private void splitCriticalEdges() {
+        for (BasicBlock block : new ArrayList<>(method.getBlocks())) {
+            if (block.getPhis().isEmpty() || block.getPredecessors().size() < 2) {
+                continue;
+            }
+
+            for (BasicBlock predecessor : new ArrayList<>(block.getPredecessors())) {
+                if (predecessor.getSuccessors().size() > 1) {
+                    method.splitEdge(predecessor, block);
+                }
+            }
+        }
+    }
+
+    private void replacePhis() {
+        for (BasicBlock block : method.getBlocks()) {
+            List<Instruction> phis = new ArrayList<>(block.getPhis());
+
+            for (int i = 0; i < phis.size(); i++) {
+                Instruction phi = phis.get(i);
+                Local copy = method.newVersion(phi.getDest());
+
+                for (int j = 0; j < phi.getOperands().size(); j++) {
+                    Instruction incoming = Instruction.copy(copy, phi.getOperand(j));
+                    phi.getIncoming().get(j).append(incoming);
+                    phiCopies.add(incoming);
+                }
+
+                Instruction result = Instruction.copy(phi.getDest(), copy);
+                block.insert(i, result);
+                phiCopies.add(result);
+                block.removePhi(phi);
+            }
+        }
+    }
+
+    private Local find(Local local) {
+        Local root = parent.getOrDefault(local, local);
+        if (root != local) {
+            root = find(root);
+            parent.put(local, root);
+        }
+        return root;
+    }
+
+    private Set<Local> interferenceOf(Local local) {
+        return interference.computeIfAbsent(local, key -> new HashSet<>());
+    }
+
+    private void addInterference(Local first, Local second) {
+        if (first != second) {
+            interferenceOf(first).add(second);
+            interferenceOf(second).add(first);
+        }
+    }
+
+    /**
+     * Two locals interfere when one is live where the other is assigned. A copy does not make its destination
+     * interfere with its source, since both hold the same value.
+     */
+    private void buildInterference() {
+        Liveness liveness = new Liveness(method);
+
+        for (BasicBlock block : method.getBlocks()) {
+            Map<Instruction, Set<Local>> liveAfter = liveness.getLiveAfter(block);
+
+            for (Instruction instruction : block.getAllInstructions()) {
+                Local dest = instruction.getDest();
+                if (dest == null) {
+                    continue;
+                }
+
+                interferenceOf(dest);
+                Value source = instruction.is(Opcode.COPY) ? instruction.getOperand(0) : null;
+                for (Local live : liveAfter.getOrDefault(instruction, Set.of())) {
+                    if (live != source) {
+                        addInterference(dest, live);
+                    }
+                }
+            }
+        }
+
+        // Parameters are all defined at the start of the method
+        List<Local> parameters = method.getParameters();
+        Set<Local> liveAtEntry = new HashSet<>(liveness.getLiveIn(method.getEntry()));
+        liveAtEntry.addAll(parameters);
+        for (Local parameter : parameters) {
+            for (Local live : liveAtEntry) {
+                addInterference(parameter, live);
+            }
+        }
+    }
+
+    /**
+     * Coalesces the copies that replaced phis first, since most of them are on loop back edges, then the other
+     * copies, and finally the versions of the same source variable, so they keep its name.
+     */
+    private void coalesce() {
+        for (Instruction copy : phiCopies) {
+            if (copy.getOperand(0) instanceof Local source) {
+                tryUnion(copy.getDest(), source);
+            }
+        }
+
+        for (BasicBlock block : method.getBlocks()) {
+            for (Instruction instruction : block.getInstructions()) {
+                if (instruction.is(Opcode.COPY) && instruction.getOperand(0) instanceof Local source) {
+                    tryUnion(instruction.getDest(), source);
+                }
+            }
+        }
+
+        List<Local> locals = new ArrayList<>(collectLocals());
+        locals.sort(Comparator.comparingInt(Local::getId));
+        Map<Local, Local> firstVersion = new HashMap<>();
+        for (Local local : locals) {
+            if (local.getVariable().getName() != null) {
+                Local first = firstVersion.putIfAbsent(local.getVariable(), local);
+                if (first != null) {
+                    tryUnion(first, local);
+                }
+            }
+        }
+
+        // Classes made only of temporaries share a local when they do not interfere, which saves local slots
+        Set<Local> namedClasses = new HashSet<>();
+        for (Local local : locals) {
+            if (local.getVariable().getName() != null || local.isParameter()) {
+                namedClasses.add(find(local));
+            }
+        }
+
+        List<Local> temporaryClasses = new ArrayList<>();
+        for (Local local : locals) {
+            Local root = find(local);
+            if (namedClasses.contains(root) || temporaryClasses.contains(root)) {
+                continue;
+            }
+
+            boolean merged = false;
+            for (Local other : temporaryClasses) {
+                if (tryUnion(other, root)) {
+                    merged = true;
+                    break;
+                }
+            }
+            if (!merged) {
+                temporaryClasses.add(root);
+            }
+        }
+    }
+
+    /**
+     * Merges the classes of two locals if they have the same type, do not interfere and do not both contain a
+     * parameter.
+     *
+     * @return true if the classes were merged
+     */
+    private boolean tryUnion(Local firstLocal, Local secondLocal) {
+        Local first = find(firstLocal);
+        Local second = find(secondLocal);
+
+        if (first == second || !first.getType().equals(second.getType())) {
+            return false;
+        }
+        if (interferenceOf(first).contains(second) || (first.isParameter() && second.isParameter())) {
+            return false;
+        }
+
+        // The parameter, if any, stays the representative of the class
+        Local root = second.isParameter() ? second : first;
+        Local other = root == first ? second : first;
+
+        parent.put(other, root);
+        for (Local neighbour : interferenceOf(other)) {
+            Local neighbourRoot = find(neighbour);
+            interferenceOf(root).add(neighbourRoot);
+            interferenceOf(neighbourRoot).add(root);
+        }
+        return true;
+    }
+
+    /**
+     * Replaces each local by a named local that represents its class.
+     */
+    private void rename() {
+        // Copies between locals of the same class are no-ops
+        for (BasicBlock block : method.getBlocks()) {
+            block.removeIf(instruction -> instruction.is(Opcode.COPY)
+                    && instruction.getOperand(0) instanceof Local source
+                    && find(source) == find(instruction.getDest()));
+        }
+
+        // Members of each class, in order of creation
+        Map<Local, List<Local>> classes = new LinkedHashMap<>();
+        List<Local> locals = new ArrayList<>(collectLocals());
+        locals.sort(Comparator.comparingInt(Local::getId));
+        for (Local local : locals) {
+            classes.computeIfAbsent(find(local), key -> new ArrayList<>()).add(local);
+        }
+
+        Set<String> sourceNames = new HashSet<>();
+        for (Local local : locals) {
+            if (local.getVariable().getName() != null) {
+                sourceNames.add(local.getVariable().getName());
+            }
+        }
+
+        Set<String> usedNames = new HashSet<>();
+        Map<Local, Local> named = new HashMap<>();
+
+        // Parameters keep their names
+        for (Local parameter : method.getParameters()) {
+            usedNames.add(parameter.getName());
+        }
+
+        int nextTemp = 0;
+        for (Map.Entry<Local, List<Local>> entry : classes.entrySet()) {
+            Local root = entry.getKey();
+            Local renamed = null;
+
+            if (root.isParameter()) {
+                renamed = root;
+            } else {
+                for (Local member : entry.getValue()) {
+                    String name = member.getVariable().getName();
+                    if (name != null && usedNames.add(name)) {
+                        renamed = method.newVariable(root.getType(), name);
+                        break;
+                    }
+                }
+            }
+
+            if (renamed == null) {
+                String name;
+                do {
+                    name = "tmp" + nextTemp++;
+                } while (sourceNames.contains(name) || !usedNames.add(name));
+                renamed = method.newVariable(root.getType(), name);
+            }
+
+            for (Local member : entry.getValue()) {
+                named.put(member, renamed);
+            }
+        }
+
+        for (BasicBlock block : method.getBlocks()) {
+            for (Instruction instruction : block.getAllInstructions()) {
+                if (instruction.getDest() != null) {
+                    instruction.setDest(named.get(instruction.getDest()));
+                }
+                for (int i = 0; i < instruction.getOperands().size(); i++) {
+                    if (instruction.getOperand(i) instanceof Local local) {
+                        instruction.setOperand(i, named.get(local));
+                    }
+                }
+            }
+        }
+    }
+
+    private Set<Local> collectLocals() {
+        Set<Local> locals = new HashSet<>(method.getParameters());
+        for (BasicBlock block : method.getBlocks()) {
+            for (Instruction instruction : block.getAllInstructions()) {
+                if (instruction.getDest() != null) {
+                    locals.add(instruction.getDest());
+                }
+                for (Value operand : instruction.getOperands()) {
+                    if (operand instanceof Local local) {
+                        locals.add(local);
+                    }
+                }
+            }
+        }
+        return locals;
+    }
+}
@@ -0,0 +1,358 @@
+package pt.up.fe.comp2025.optimization.ssa;
+
+import pt.up.fe.comp.jmm.ast.JmmNode;
+import pt.up.fe.comp2025.ast.Kind;
+import pt.up.fe.comp2025.symboltable.JmmInterner;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeSet;
+
+/**
+ * Execution counts of the blocks of the methods of a class, measured by a run of the class compiled with
+ * {@link #instrument instrumentation}, used to guide the optimizations of a later compilation.
+ * <p>
+ * The counters are {@link #numberCounters numbered} on the AST before it is folded, at every optimization level:
+ * one for the entry of each method, and one for each branch and for the join of each if and while statement. The
+ * IR builder gives each block it makes for these the counter of its statement, the instrumented class calls
+ * {@code JmmProfile.count(key, counter)} at the start of the blocks that have one, and the runtime class writes the
+ * counts to a profile file when the program exits. Statements removed by folding take their counters with them, so
+ * a build at another level numbers the same statements the same way, and the counts are attached to the blocks that
+ * are left before any optimization of the IR. A statement none of whose counters is in the file was not in the
+ * instrumented build, or is inside code that never ran, and its blocks get no count. The key is a hash of the AST before folding, so a profile of another
+ * class or of an older version of the source is ignored. A call runs as many times as the block it is in, so call
+ * sites have no counters of their own.
+ * <p>
+ * Blocks made by the optimizations (inlined or unrolled copies, split edges) have no count. Passes treat them, and
+ * the calls in them, as neither hot nor cold.
+ */
+public class Profile {
+
+    public static final String RUNTIME_CLASS = "JmmProfile";
+
+    public static final String COUNTER_ATTRIBUTE = "profileCounter";
+
+    public static final String KEY_ATTRIBUTE = "profileKey";
+
+    private static final String COUNT_METHOD = "count";
+
+    // A block is hot when it runs at least this fraction of the times the hottest block of the class runs
+    private static final int HOT_FRACTION = 10;
+
+    private final Map<BasicBlock, Long> blockCounts;
+    private final Map<Instruction, Long> callCounts;
+    private long maxCount;
+
+    private Profile() {
+        this.blockCounts = new IdentityHashMap<>();
+        this.callCounts = new IdentityHashMap<>();
+    }
+
+    /**
+     * @return a profile without counts, in which nothing is hot or cold
+     */
+    public static Profile empty() {
+        return new Profile();
+    }
+
+    /**
+     * Numbers the counters of the class on its AST, which must not have been folded yet, and keys them on a hash of
+     * it. An AST that was already numbered is left as it is.
+     */
+    public static void numberCounters(JmmNode root) {
+        if (root.hasAttribute(KEY_ATTRIBUTE)) {
+            return;
+        }
+
+        StringBuilder signature = new StringBuilder();
+        describe(root, signature);
+
+        int counter = 0;
+        for (JmmNode node : root.getDescendantsAndSelfStream().toList()) {
+            if (Kind.METHOD_DECL.check(node)) {
+                node.put(COUNTER_ATTRIBUTE, String.valueOf(counter));
+                counter += 1;
+            } else if (Kind.IF_ELSE_STMT.check(node) || Kind.WHILE_STMT.check(node)) {
+                node.put(COUNTER_ATTRIBUTE, String.valueOf(counter));
+                counter += 3;
+            }
+        }
+        root.put(KEY_ATTRIBUTE, String.valueOf(signature.toString().hashCode()));
+    }
+
+    /**
+     * @return the counter of the node plus the offset, or -1 if the node has no counter
+     */
+    public static int counterOf(JmmNode node, int offset) {
+        return node.hasAttribute(COUNTER_ATTRIBUTE) ? Integer.parseInt(node.get(COUNTER_ATTRIBUTE)) + offset : -1;
+    }
+
+    private static int keyOf(JmmNode root) {
+        return Integer.parseInt(root.get(KEY_ATTRIBUTE));
+    }
+
+    /**
+     * Adds a counter at the start of each block of the methods that has one. The methods must have just been built
+     * from the numbered AST.
+     *
+     * @return the number of counters
+     */
+    public static int instrument(String className, JmmNode root, Map<String, IrMethod> methods,
+                                 JmmInterner interner) {
+        int key = keyOf(root);
+        List<BasicBlock> blocks = countedBlocks(methods);
+        for (BasicBlock block : blocks) {
+            List<Value> arguments = List.of(Constant.of(key, interner.intType()),
+                    Constant.of(block.getCounter(), interner.intType()));
+            block.insert(0, Instruction.callStatic(null, RUNTIME_CLASS, COUNT_METHOD, arguments,
+                    interner.voidType()));
+        }
+
+        System.out.println("[PGO] instrumented " + blocks.size() + " block(s) of " + methods.size()
+                + " method(s) of " + className);
+        return blocks.size();
+    }
+
+    /**
+     * Reads the counts of the class from a profile file and attaches them to the blocks of the methods that have a
+     * counter. The methods must have just been built from the numbered AST. A missing file, or one without counts for
+     * this version of the class, gives a profile without counts, the latter with a warning.
+     */
+    public static Profile read(File file, String className, JmmNode root, Map<String, IrMethod> methods) {
+        Profile profile = new Profile();
+        if (!file.isFile()) {
+            System.out.println("[PGO] profile " + file + " not found, compiling without it");
+            return profile;
+        }
+
+        int key = keyOf(root);
+        Map<Integer, Long> counts = new HashMap<>();
+        int otherCounts = 0;
+        try {
+            for (String line : Files.readAllLines(file.toPath())) {
+                String[] fields = line.strip().split("\\s+");
+                if (fields.length != 3) {
+                    continue;
+                }
+                if (Integer.parseInt(fields[0]) == key) {
+                    counts.merge(Integer.parseInt(fields[1]), Long.parseLong(fields[2]), Long::sum);
+                } else {
+                    otherCounts++;
+                }
+            }
+        } catch (IOException | NumberFormatException e) {
+            throw new RuntimeException("Could not read profile " + file + ": " + e.getMessage(), e);
+        }
+
+        if (counts.isEmpty()) {
+            if (otherCounts > 0) {
+                System.out.println("[PGO] warning: profile " + file + " has no counts for this version of "
+                        + className + ", compiling without it");
+            } else {
+                System.out.println("[PGO] profile " + file + " is empty, compiling without it");
+            }
+            return profile;
+        }
+
+        // Counters that never ran are not in the file, so a counter of an instrumented statement that is missing
+        // never ran. The entries of the methods are never folded, and are always instrumented.
+        Map<Integer, Integer> statements = new HashMap<>();
+        Set<Integer> instrumented = new HashSet<>();
+        for (JmmNode node : root.getDescendantsAndSelfStream().toList()) {
+            int first = counterOf(node, 0);
+            if (first >= 0) {
+                int size = Kind.METHOD_DECL.check(node) ? 1 : 3;
+                for (int counter = first; counter < first + size; counter++) {
+                    statements.put(counter, first);
+                }
+                if (size == 1) {
+                    instrumented.add(first);
+                }
+            }
+        }
+        for (int counter : counts.keySet()) {
+            instrumented.add(statements.getOrDefault(counter, counter));
+        }
+
+        for (BasicBlock block : countedBlocks(methods)) {
+            if (!instrumented.contains(statements.getOrDefault(block.getCounter(), block.getCounter()))) {
+                continue;
+            }
+            long count = counts.getOrDefault(block.getCounter(), 0L);
+            profile.blockCounts.put(block, count);
+            profile.maxCount = Math.max(profile.maxCount, count);
+            for (Instruction instruction : block.getInstructions()) {
+                if (instruction.is(Opcode.CALL)) {
+                    profile.callCounts.put(instruction, count);
+                }
+            }
+        }
+
+        System.out.println("[PGO] read " + counts.size() + " counter(s) of " + className + " from " + file
+                + ", hottest block ran " + profile.maxCount + " time(s)");
+        return profile;
+    }
+
+    public boolean isEmpty() {
+        return blockCounts.isEmpty();
+    }
+
+    /**
+     * @return how many times the block ran, or -1 if it has no count
+     */
+    public long getCount(BasicBlock block) {
+        return blockCounts.getOrDefault(block, -1L);
+    }
+
+    /**
+     * @return how many times the call ran, or -1 if it has no count
+     */
+    public long getCount(Instruction call) {
+        long count = getCount(call.getBlock());
+        return count >= 0 ? count : callCounts.getOrDefault(call, -1L);
+    }
+
+    /**
+     * @return true if the block never ran
+     */
+    public boolean isCold(BasicBlock block) {
+        return getCount(block) == 0;
+    }
+
+    public boolean isCold(Instruction call) {
+        return getCount(call) == 0;
+    }
+
+    public boolean isHot(BasicBlock block) {
+        return isHot(getCount(block));
+    }
+
+    public boolean isHot(Instruction call) {
+        return isHot(getCount(call));
+    }
+
+    private boolean isHot(long count) {
+        return count > 0 && count * HOT_FRACTION >= maxCount;
+    }
+
+    /**
+     * Estimates how many times each reachable block of the method runs: its count, or for blocks without one the
+     * estimate of their immediate dominator (such as the loop an unrolled copy of the body belongs to), or 1 when no
+     * dominator has a count.
+     */
+    public Map<BasicBlock, Long> estimateCounts(IrMethod method) {
+        DominatorTree dominators = new DominatorTree(method);
+        Map<BasicBlock, Long> estimates = new HashMap<>();
+
+        // Dominators come before the blocks they dominate in reverse postorder
+        for (BasicBlock block : dominators.getReversePostorder()) {
+            long count = getCount(block);
+            if (count < 0) {
+                BasicBlock dominator = dominators.getImmediateDominator(block);
+                count = dominator == null ? 1 : estimates.get(dominator);
+            }
+            estimates.put(block, count);
+        }
+        return estimates;
+    }
+
+    /**
+     * Lays the blocks of the method out so that each block is followed by its most frequent successor, which it
+     * then falls through to, and the blocks that never ran are moved to the end. Blocks without a count are laid out
+     * by their {@link #estimateCounts estimate}. Where the counts do not tell, blocks keep their reverse postorder.
+     */
+    public List<BasicBlock> layout(IrMethod method) {
+        Map<BasicBlock, Long> estimates = estimateCounts(method);
+        List<BasicBlock> order = method.getReversePostorder();
+        List<BasicBlock> layout = new ArrayList<>();
+        Set<BasicBlock> placed = new HashSet<>();
+
+        for (BasicBlock start : order) {
+            if (placed.contains(start) || (estimates.get(start) == 0 && start != method.getEntry())) {
+                continue;
+            }
+
+            // Chain of the most frequent successors that were not placed yet
+            BasicBlock block = start;
+            while (block != null) {
+                layout.add(block);
+                placed.add(block);
+
+                BasicBlock next = null;
+                for (BasicBlock successor : block.getSuccessors()) {
+                    if (!placed.contains(successor) && estimates.get(successor) > 0
+                            && (next == null || estimates.get(successor) > estimates.get(next))) {
+                        next = successor;
+                    }
+                }
+                block = next;
+            }
+        }
+
+        for (BasicBlock block : order) {
+            if (!placed.contains(block)) {
+                layout.add(block);
+            }
+        }
+        return layout;
+    }
+
+    /**
+     * @return the estimated number of times each named local of the method, which must be out of SSA form, is read
+     * or written
+     */
+    public Map<String, Long> variableWeights(IrMethod method) {
+        Map<String, Long> weights = new HashMap<>();
+        for (Map.Entry<BasicBlock, Long> entry : estimateCounts(method).entrySet()) {
+            for (Instruction instruction : entry.getKey().getAllInstructions()) {
+                List<Value> values = new ArrayList<>(instruction.getOperands());
+                values.add(instruction.getDest());
+                for (Value value : values) {
+                    if (value instanceof Local local && !local.isTemporary()) {
+                        weights.merge(local.getName(), entry.getValue(), Long::sum);
+                    }
+                }
+            }
+        }
+        return weights;
+    }
+
+    /**
+     * @return the blocks that have counters, in the order of the methods and of their blocks
+     */
+    private static List<BasicBlock> countedBlocks(Map<String, IrMethod> methods) {
+        List<BasicBlock> blocks = new ArrayList<>();
+        for (IrMethod method : methods.values()) {
+            for (BasicBlock block : method.getBlocks()) {
+                if (block.getCounter() >= 0) {
+                    blocks.add(block);
+                }
+            }
+        }
+        return blocks;
+    }
+
+    /**
+     * Describes the subtree with the kinds and attributes of its nodes, without the ones of the profile.
+     */
+    private static void describe(JmmNode node, StringBuilder builder) {
+        builder.append(node.getKind()).append('{');
+        for (String attribute : new TreeSet<>(node.getAttributes())) {
+            if (!attribute.equals(COUNTER_ATTRIBUTE) && !attribute.equals(KEY_ATTRIBUTE)) {
+                builder.append(attribute).append('=').append(node.get(attribute)).append(';');
+            }
+        }
+        for (JmmNode child : node.getChildren()) {
+            describe(child, builder);
+        }
+        builder.append('}');
+    }
+}
@@ -0,0 +1,336 @@
+package pt.up.fe.comp2025.optimization.ssa;
+
+import pt.up.fe.comp.jmm.analysis.table.Symbol;
+import pt.up.fe.comp.jmm.analysis.table.SymbolTable;
+import pt.up.fe.comp2025.symboltable.JmmSymbolTable;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Replaces the objects of the compiled class that do not escape the method that creates them by locals holding their
+ * fields, in methods built by {@link IrBuilder} and not yet in SSA form.
+ * <p>
+ * The fields of an object can only be accessed by the methods of the class, so an object whose fields are all local
+ * is one that is only used as the receiver of calls that can be inlined. The escape analysis follows the object
+ * through the locals it is copied to, and finds that it escapes when it is returned, passed as an argument, stored in
+ * an array or a field, compared, or used as the receiver of a method that is not compiled here. Inside the called
+ * methods, {@code this} must in turn only be the receiver of calls that can be inlined, and the calls must not be
+ * recursive. The object must also be created once per call of the method (outside loops), so that a single set of
+ * locals holds the fields of the only instance, and the class must not extend another one, whose constructor may
+ * have effects.
+ * <p>
+ * The calls on the object are then inlined, with the field accesses of the inlined bodies reading and writing the
+ * locals, which are named after the object and the field. The allocation, and with it the constructor call, is
+ * replaced by the default values of the fields that may be read before being written. The budget is the number of
+ * instructions the inlined calls may add for each object.
+ */
+public class ScalarReplacement {
+
+    private final JmmSymbolTable table;
+    private final int budget;
+
+    private Map<String, IrMethod> methods;
+    private String rejection;
+    private int replacedObjects;
+
+    public ScalarReplacement(SymbolTable table, int budget) {
+        this.table = (JmmSymbolTable) table;
+        this.budget = budget;
+    }
+
+    public int getReplacedObjects() {
+        return replacedObjects;
+    }
+
+    /**
+     * Replaces the objects that do not escape in each of the methods, which must not be in SSA form.
+     *
+     * @return the number of replaced objects
+     */
+    public int apply(Map<String, IrMethod> methods) {
+        this.methods = methods;
+        this.replacedObjects = 0;
+
+        for (IrMethod method : methods.values()) {
+            if (method.isSsa()) {
+                throw new RuntimeException("Scalar replacement expects method '" + method.getName()
+                        + "' before SSA form");
+            }
+            replaceObjects(method);
+        }
+
+        System.out.println("[Escape] replaced " + replacedObjects + " object(s) by locals");
+        return replacedObjects;
+    }
+
+    private void replaceObjects(IrMethod method) {
+        Set<Instruction> decided = new HashSet<>();
+
+        // Inlining moves instructions to new blocks, so the method is scanned again after each replacement
+        Instruction allocation = nextAllocation(method, decided);
+        while (allocation != null) {
+            decided.add(allocation);
+
+            Set<Local> aliases = findAliases(method, allocation);
+            List<Instruction> calls = new ArrayList<>();
+            String reason = rejectionReason(method, allocation, aliases, calls);
+            String object = "new " + table.getClassName() + "() (" + nameOf(aliases) + ")";
+
+            if (reason == null) {
+                int inlined = replace(method, allocation, aliases);
+                replacedObjects++;
+                System.out.println("[Escape] " + method.getName() + ": replaced " + object + " by "
+                        + table.getFields().size() + " local(s), inlined " + inlined + " call(s)");
+            } else {
+                System.out.println("[Escape] " + method.getName() + ": kept " + object + ": " + reason);
+            }
+
+            allocation = nextAllocation(method, decided);
+        }
+    }
+
+    private Instruction nextAllocation(IrMethod method, Set<Instruction> decided) {
+        for (BasicBlock block : method.getReversePostorder()) {
+            for (Instruction instruction : block.getInstructions()) {
+                if (instruction.is(Opcode.NEW_OBJECT) && instruction.getClassName().equals(table.getClassName())
+                        && !decided.contains(instruction)) {
+                    return instruction;
+                }
+            }
+        }
+        return null;
+    }
+
+    /**
+     * @return the locals the object is copied to, starting with the one it is created in
+     */
+    private static Set<Local> findAliases(IrMethod method, Instruction allocation) {
+        Set<Local> aliases = new LinkedHashSet<>();
+        aliases.add(allocation.getDest());
+
+        boolean changed = true;
+        while (changed) {
+            changed = false;
+            for (BasicBlock block : method.getBlocks()) {
+                for (Instruction instruction : block.getInstructions()) {
+                    if (instruction.is(Opcode.COPY) && aliases.contains(instruction.getOperand(0))) {
+                        changed |= aliases.add(instruction.getDest());
+                    }
+                }
+            }
+        }
+        return aliases;
+    }
+
+    /**
+     * @param calls receives the calls made on the object
+     * @return why the object cannot be replaced by locals, or null if it can
+     */
+    private String rejectionReason(IrMethod method, Instruction allocation, Set<Local> aliases,
+                                   List<Instruction> calls) {
+        String superClass = table.getSuper();
+        if (superClass != null && !superClass.isEmpty()) {
+            return "the class extends " + superClass;
+        }
+        if (isInCycle(allocation.getBlock())) {
+            return "created in a loop";
+        }
+
+        for (BasicBlock block : method.getBlocks()) {
+            for (Instruction instruction : block.getInstructions()) {
+                if (aliases.contains(instruction.getDest()) && instruction != allocation
+                        && !(instruction.is(Opcode.COPY) && aliases.contains(instruction.getOperand(0)))) {
+                    return "its locals are assigned other values";
+                }
+            }
+        }
+
+        for (BasicBlock block : method.getBlocks()) {
+            for (Instruction instruction : block.getAllInstructions()) {
+                if (instruction.is(Opcode.COPY) && aliases.contains(instruction.getDest())) {
+                    continue;
+                }
+
+                for (int i = 0; i < instruction.getOperands().size(); i++) {
+                    if (!aliases.contains(instruction.getOperand(i))) {
+                        continue;
+                    }
+                    if (!instruction.is(Opcode.CALL) || instruction.isStatic() || i != 0) {
+                        return escapeReason(instruction);
+                    }
+                    if (!Inliner.isExactReceiver(method, instruction, table.getClassName())) {
+                        return "may be null when " + instruction.getName() + " is called";
+                    }
+                    calls.add(instruction);
+                }
+            }
+        }
+
+        int size = 0;
+        for (Instruction call : calls) {
+            int callSize = inlinedSize(call, new ArrayDeque<>());
+            if (callSize < 0) {
+                return rejection;
+            }
+            size += callSize;
+        }
+        if (size > budget) {
+            return "over budget (size " + size + ", budget " + budget + ")";
+        }
+        return null;
+    }
+
+    private static String escapeReason(Instruction instruction) {
+        return switch (instruction.getOpcode()) {
+            case RETURN -> "returned";
+            case CALL -> "passed to " + instruction.getName();
+            case ARRAY_STORE -> "stored in an array";
+            case PUT_FIELD -> "stored in field " + instruction.getName();
+            default -> "used by " + instruction.getOpcode();
+        };
+    }
+
+    /**
+     * @return the number of instructions inlining the call adds, including the calls it makes on {@code this}, or -1
+     * if {@code this} escapes from the called method (the reason is in {@link #rejection})
+     */
+    private int inlinedSize(Instruction call, Deque<String> inlining) {
+        IrMethod callee = methods.get(call.getName());
+        if (callee == null || call.getArguments().size() != callee.getParameters().size()) {
+            rejection = "calls " + call.getName() + ", which is not compiled here";
+            return -1;
+        }
+        if (table.isVarargs(callee.getName())) {
+            rejection = "calls varargs method " + callee.getName();
+            return -1;
+        }
+        if (inlining.contains(callee.getName())) {
+            rejection = "calls recursive method " + callee.getName();
+            return -1;
+        }
+
+        inlining.push(callee.getName());
+        int size = Inliner.sizeOf(callee);
+        for (BasicBlock block : callee.getBlocks()) {
+            for (Instruction instruction : block.getAllInstructions()) {
+                if ((instruction.is(Opcode.GET_FIELD) || instruction.is(Opcode.PUT_FIELD))
+                        && !isFieldOfClass(instruction.getName())) {
+                    rejection = callee.getName() + " accesses inherited field " + instruction.getName();
+                    return -1;
+                }
+
+                for (int i = 0; i < instruction.getOperands().size(); i++) {
+                    if (!(instruction.getOperand(i) instanceof ThisValue)) {
+                        continue;
+                    }
+                    if (!instruction.is(Opcode.CALL) || instruction.isStatic() || i != 0) {
+                        rejection = "this " + escapeReason(instruction) + " in " + callee.getName();
+                        return -1;
+                    }
+
+                    int callSize = inlinedSize(instruction, inlining);
+                    if (callSize < 0) {
+                        return -1;
+                    }
+                    size += callSize;
+                }
+            }
+        }
+        inlining.pop();
+
+        return size;
+    }
+
+    private boolean isFieldOfClass(String name) {
+        return table.getFields().stream().anyMatch(field -> field.getName().equals(name));
+    }
+
+    /**
+     * @return true if the block can run more than once in a call of the method
+     */
+    private static boolean isInCycle(BasicBlock block) {
+        Set<BasicBlock> visited = new HashSet<>();
+        Deque<BasicBlock> worklist = new ArrayDeque<>(block.getSuccessors());
+        while (!worklist.isEmpty()) {
+            BasicBlock current = worklist.pop();
+            if (current == block) {
+                return true;
+            }
+            if (visited.add(current)) {
+                worklist.addAll(current.getSuccessors());
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Inlines the calls on the object with its fields in locals, and removes the object.
+     *
+     * @return the number of inlined calls
+     */
+    private int replace(IrMethod method, Instruction allocation, Set<Local> aliases) {
+        String prefix = nameOf(aliases);
+        Map<String, Local> fields = new LinkedHashMap<>();
+        for (Symbol field : table.getFields()) {
+            fields.put(field.getName(), method.newVariable(field.getType(), prefix + "_" + field.getName()));
+        }
+
+        // The inlined bodies make their calls on this on the object, so they are inlined in turn
+        int inlined = 0;
+        Instruction call = nextCallOn(method, aliases);
+        while (call != null) {
+            Inliner.inline(method, call, methods.get(call.getName()), fields);
+            inlined++;
+            call = nextCallOn(method, aliases);
+        }
+
+        // Locals are only assigned after the allocation, so the ones live at the entry are read before being written
+        Set<Local> readBeforeWritten = new Liveness(method).getLiveIn(method.getEntry());
+        BasicBlock block = allocation.getBlock();
+        int index = block.getInstructions().indexOf(allocation);
+        block.remove(allocation);
+        for (Local field : fields.values()) {
+            if (readBeforeWritten.contains(field)) {
+                block.insert(index++, Instruction.copy(field, Constant.defaultOf(field.getType())));
+            }
+        }
+
+        for (BasicBlock other : method.getBlocks()) {
+            other.removeIf(instruction -> instruction.is(Opcode.COPY) && aliases.contains(instruction.getDest()));
+        }
+
+        return inlined;
+    }
+
+    private static Instruction nextCallOn(IrMethod method, Set<Local> aliases) {
+        for (BasicBlock block : method.getReversePostorder()) {
+            for (Instruction instruction : block.getInstructions()) {
+                if (instruction.is(Opcode.CALL) && !instruction.isStatic()
+                        && aliases.contains(instruction.getReceiver())) {
+                    return instruction;
+                }
+            }
+        }
+        return null;
+    }
+
+    /**
+     * @return the name of the first declared variable the object is stored in, or "obj"
+     */
+    private static String nameOf(Set<Local> aliases) {
+        for (Local alias : aliases) {
+            if (!alias.isTemporary()) {
+                return alias.getName();
+            }
+        }
+        return "obj";
+    }
+}
@@ -0,0 +1,179 @@
+package pt.up.fe.comp2025.optimization.ssa;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Converts a method built by {@link IrBuilder} to SSA form.
+ * <p>
+ * Follows Cytron et al.: phis are placed in the iterated dominance frontier of the blocks that assign each variable,
+ * and the variables are then renamed in a walk of the dominator tree. Phis are only placed for variables that are
+ * read in some block before being assigned in it (semi-pruned SSA), since the others cannot be live across blocks.
+ * <p>
+ * A variable that may be read before it is assigned gets a definition with its default value at the start of the
+ * method, as the code generated from the AST initializes all locals.
+ */
+public class SsaConstruction {
+
+    private final IrMethod method;
+    private final DominatorTree dominators;
+    private final Map<Instruction, Local> phiVariables;
+    private final Map<Local, Deque<Local>> stacks;
+    private final Map<Local, Local> initialValues;
+
+    private SsaConstruction(IrMethod method) {
+        this.method = method;
+        this.dominators = new DominatorTree(method);
+        this.phiVariables = new HashMap<>();
+        this.stacks = new HashMap<>();
+        this.initialValues = new HashMap<>();
+    }
+
+    /**
+     * Converts the method to SSA form.
+     */
+    public static void apply(IrMethod method) {
+        if (method.isSsa()) {
+            return;
+        }
+
+        method.removeUnreachableBlocks();
+
+        SsaConstruction construction = new SsaConstruction(method);
+        construction.placePhis();
+
+        for (Local parameter : method.getParameters()) {
+            construction.stackOf(parameter).push(parameter);
+        }
+        construction.rename(method.getEntry());
+
+        method.setSsa(true);
+    }
+
+    private void placePhis() {
+        Map<Local, Set<BasicBlock>> definingBlocks = new HashMap<>();
+        Set<Local> globals = new HashSet<>();
+
+        for (Local parameter : method.getParameters()) {
+            definingBlocks.computeIfAbsent(parameter, key -> new LinkedHashSet<>()).add(method.getEntry());
+        }
+
+        for (BasicBlock block : dominators.getReversePostorder()) {
+            Set<Local> assigned = new HashSet<>();
+            for (Instruction instruction : block.getAllInstructions()) {
+                for (Value operand : instruction.getOperands()) {
+                    if (operand instanceof Local local && !assigned.contains(local)) {
+                        globals.add(local);
+                    }
+                }
+                if (instruction.getDest() != null) {
+                    assigned.add(instruction.getDest());
+                    definingBlocks.computeIfAbsent(instruction.getDest(), key -> new LinkedHashSet<>()).add(block);
+                }
+            }
+        }
+
+        // Sorted, so that the generated code does not depend on hashing
+        List<Local> sortedGlobals = new ArrayList<>(globals);
+        sortedGlobals.sort(Comparator.comparingInt(Local::getId));
+
+        for (Local variable : sortedGlobals) {
+            Set<BasicBlock> hasPhi = new HashSet<>();
+            Set<BasicBlock> blocks = definingBlocks.getOrDefault(variable, Set.of());
+            Deque<BasicBlock> worklist = new ArrayDeque<>(blocks);
+            Set<BasicBlock> added = new HashSet<>(blocks);
+
+            while (!worklist.isEmpty()) {
+                BasicBlock block = worklist.poll();
+                for (BasicBlock frontier : dominators.getFrontier(block)) {
+                    if (!hasPhi.add(frontier)) {
+                        continue;
+                    }
+
+                    Instruction phi = Instruction.phi(variable);
+                    frontier.addPhi(phi);
+                    phiVariables.put(phi, variable);
+
+                    if (added.add(frontier)) {
+                        worklist.add(frontier);
+                    }
+                }
+            }
+        }
+    }
+
+    private void rename(BasicBlock block) {
+        List<Local> pushed = new ArrayList<>();
+
+        for (Instruction phi : block.getPhis()) {
+            Local version = method.newVersion(phi.getDest());
+            phi.setDest(version);
+            stackOf(phiVariables.get(phi)).push(version);
+            pushed.add(phiVariables.get(phi));
+        }
+
+        for (Instruction instruction : block.getAllInstructions()) {
+            if (instruction.is(Opcode.PHI)) {
+                continue;
+            }
+
+            for (int i = 0; i < instruction.getOperands().size(); i++) {
+                if (instruction.getOperand(i) instanceof Local local) {
+                    instruction.setOperand(i, currentVersion(local));
+                }
+            }
+
+            Local variable = instruction.getDest();
+            if (variable != null) {
+                Local version = method.newVersion(variable);
+                instruction.setDest(version);
+                stackOf(variable).push(version);
+                pushed.add(variable);
+            }
+        }
+
+        for (BasicBlock successor : block.getSuccessors()) {
+            for (Instruction phi : successor.getPhis()) {
+                phi.addIncoming(block, currentVersion(phiVariables.get(phi)));
+            }
+        }
+
+        for (BasicBlock child : dominators.getChildren(block)) {
+            rename(child);
+        }
+
+        for (Local variable : pushed) {
+            stacks.get(variable).pop();
+        }
+    }
+
+    private Deque<Local> stackOf(Local variable) {
+        return stacks.computeIfAbsent(variable, key -> new ArrayDeque<>());
+    }
+
+    /**
+     * @return the version of the variable that reaches the current point of the renaming walk
+     */
+    private Local currentVersion(Local variable) {
+        Deque<Local> stack = stackOf(variable);
+        if (!stack.isEmpty()) {
+            return stack.peek();
+        }
+
+        // Read before any assignment: use a definition with the default value at the start of the method
+        return initialValues.computeIfAbsent(variable, key -> {
+            Local initial = method.newVersion(variable);
+            method.addDefaultValue(initial);
+            method.getEntry().insert(0, Instruction.copy(initial, Constant.defaultOf(variable.getType())));
+            return initial;
+        });
+    }
+}
@@ -0,0 +1,257 @@
+package pt.up.fe.comp2025.optimization.ssa;
+
+import pt.up.fe.comp.jmm.analysis.table.Type;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Replaces the multiplications of induction variables in loops of a method in SSA form by additions.
+ * <p>
+ * A basic induction variable is a phi of the loop header that the single latch updates by a constant step
+ * ({@code i = phi(init, next)} with {@code next = i + c} or {@code i - c}). A multiplication {@code i * k} by a
+ * constant or loop-invariant factor is a derived induction variable: it starts at {@code init * k} and grows by
+ * {@code c * k} on each iteration. It becomes a new phi of the header, computed in the preheader before the loop
+ * and updated with one addition at the end of the latch; int arithmetic wraps, so this holds even when the products
+ * overflow. A multiplication of the updated value {@code next * k} becomes {@code t + c * k}.
+ */
+public class StrengthReduction {
+
+    private record InductionVariable(Instruction phi, Value init, int step, Local next) {
+    }
+
+    private record Derived(Instruction phi, Value factor) {
+    }
+
+    private IrMethod method;
+    private int reducedMultiplications;
+
+    public int getReducedMultiplications() {
+        return reducedMultiplications;
+    }
+
+    /**
+     * @return the number of multiplications replaced by additions
+     */
+    public int apply(IrMethod method) {
+        if (!method.isSsa()) {
+            throw new RuntimeException("Strength reduction expects method '" + method.getName() + "' in SSA form");
+        }
+
+        this.method = method;
+        this.reducedMultiplications = 0;
+
+        Loop.visitInnermostFirst(method, this::reduce);
+
+        System.out.println("[StrengthReduction] " + method.getName() + ": reduced " + reducedMultiplications
+                + " multiplication(s)");
+        return reducedMultiplications;
+    }
+
+    private void reduce(Loop loop, DominatorTree dominators) {
+        if (loop.getLatches().size() != 1 || loop.getEntries().size() != 1) {
+            return;
+        }
+        BasicBlock latch = loop.getLatches().get(0);
+        BasicBlock entry = loop.getEntries().get(0);
+
+        Map<Local, InductionVariable> inductionVariables = findInductionVariables(loop, entry, latch);
+        if (inductionVariables.isEmpty()) {
+            return;
+        }
+
+        Set<Local> definedInLoop = new HashSet<>();
+        for (BasicBlock block : loop.getBlocks()) {
+            for (Instruction instruction : block.getAllInstructions()) {
+                if (instruction.getDest() != null) {
+                    definedInLoop.add(instruction.getDest());
+                }
+            }
+        }
+
+        // Multiplications of an induction variable (or its next value) by a factor that does not change in the loop
+        List<Instruction> candidates = new ArrayList<>();
+        for (BasicBlock block : loop.getBlocks()) {
+            for (Instruction instruction : block.getInstructions()) {
+                if (instruction.is(Opcode.BINARY) && instruction.getOperator() == Operator.MUL
+                        && findInductionOperand(instruction, inductionVariables, definedInLoop) >= 0) {
+                    candidates.add(instruction);
+                }
+            }
+        }
+        if (candidates.isEmpty()) {
+            return;
+        }
+
+        BasicBlock preheader = loop.createPreheader(method);
+        DefUseChains chains = new DefUseChains(method);
+        Map<Derived, Instruction> derivedPhis = new LinkedHashMap<>();
+        Map<Derived, Value> steps = new LinkedHashMap<>();
+        Map<Derived, Instruction> increments = new LinkedHashMap<>();
+
+        for (Instruction multiplication : candidates) {
+            int index = findInductionOperand(multiplication, inductionVariables, definedInLoop);
+            Local operand = (Local) multiplication.getOperand(index);
+            Value factor = multiplication.getOperand(1 - index);
+            InductionVariable inductionVariable = inductionVariables.get(operand);
+
+            Derived derived = new Derived(inductionVariable.phi(), factor);
+            if (!derivedPhis.containsKey(derived)) {
+                Value init = multiply(constantValue(inductionVariable.init(), chains), factor, preheader);
+                Value step = multiply(Constant.of(inductionVariable.step(), factor.getType()), factor, preheader);
+
+                Instruction phi = Instruction.phi(method.newTemp(multiplication.getDest().getType()));
+                Instruction increment = add(method.newTemp(phi.getDest().getType()), phi.getDest(), step);
+                phi.addIncoming(preheader, init);
+                phi.addIncoming(latch, increment.getDest());
+                loop.getHeader().addPhi(phi);
+                latch.append(increment);
+
+                derivedPhis.put(derived, phi);
+                steps.put(derived, step);
+                increments.put(derived, increment);
+            }
+
+            Instruction phi = derivedPhis.get(derived);
+            Instruction increment = increments.get(derived);
+
+            chains.remove(multiplication);
+            if (operand == inductionVariable.phi().getDest()) {
+                // i * k is the derived variable itself
+                chains.replaceAllUses(multiplication.getDest(), phi.getDest());
+                multiplication.getBlock().remove(multiplication);
+            } else {
+                // (i + c) * k is one step ahead of it, which is what the latch computes for the next iteration
+                Instruction stepAhead = add(multiplication.getDest(), phi.getDest(), steps.get(derived));
+                multiplication.setOperator(stepAhead.getOperator());
+                multiplication.setOperand(0, stepAhead.getOperand(0));
+                multiplication.setOperand(1, stepAhead.getOperand(1));
+                chains.add(multiplication);
+
+                if (latch.getInstructions().contains(increment) && dominators.dominates(multiplication.getBlock(), latch)) {
+                    phi.replaceUses(increment.getDest(), multiplication.getDest());
+                    latch.remove(increment);
+                }
+            }
+            reducedMultiplications++;
+        }
+    }
+
+    /**
+     * @return the basic induction variables of the loop, by the phi and by the next value
+     */
+    private static Map<Local, InductionVariable> findInductionVariables(Loop loop, BasicBlock entry, BasicBlock latch) {
+        Map<Local, InductionVariable> inductionVariables = new LinkedHashMap<>();
+
+        for (Instruction phi : loop.getHeader().getPhis()) {
+            if (!isInt(phi.getDest().getType()) || !(phi.getValueFrom(latch) instanceof Local next)) {
+                continue;
+            }
+
+            Instruction update = findDefinition(loop, next);
+            if (update == null || !update.is(Opcode.BINARY)) {
+                continue;
+            }
+
+            Integer step = getStep(update, phi.getDest());
+            if (step != null) {
+                InductionVariable inductionVariable = new InductionVariable(phi, phi.getValueFrom(entry), step, next);
+                inductionVariables.put(phi.getDest(), inductionVariable);
+                inductionVariables.put(next, inductionVariable);
+            }
+        }
+
+        return inductionVariables;
+    }
+
+    /**
+     * @return the constant added to the variable by {@code v + c}, {@code c + v} or {@code v - c}, or null
+     */
+    private static Integer getStep(Instruction update, Local variable) {
+        Value left = update.getOperand(0);
+        Value right = update.getOperand(1);
+
+        if (update.getOperator() == Operator.ADD && left == variable && right instanceof Constant constant) {
+            return constant.asInt();
+        }
+        if (update.getOperator() == Operator.ADD && right == variable && left instanceof Constant constant) {
+            return constant.asInt();
+        }
+        if (update.getOperator() == Operator.SUB && left == variable && right instanceof Constant constant) {
+            return -constant.asInt();
+        }
+        return null;
+    }
+
+    private static Instruction findDefinition(Loop loop, Local local) {
+        for (BasicBlock block : loop.getBlocks()) {
+            for (Instruction instruction : block.getInstructions()) {
+                if (instruction.getDest() == local) {
+                    return instruction;
+                }
+            }
+        }
+        return null;
+    }
+
+    /**
+     * @return the index of the operand of the multiplication that is an induction variable, when the other is a
+     * constant or is defined outside the loop, or -1
+     */
+    private static int findInductionOperand(Instruction multiplication, Map<Local, InductionVariable> inductionVariables,
+                                            Set<Local> definedInLoop) {
+        for (int index = 0; index < 2; index++) {
+            Value operand = multiplication.getOperand(index);
+            Value factor = multiplication.getOperand(1 - index);
+
+            boolean invariantFactor = factor instanceof Constant
+                    || factor instanceof Local local && !definedInLoop.contains(local);
+            if (operand instanceof Local local && inductionVariables.containsKey(local) && invariantFactor) {
+                return index;
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * @return the constant a local is a copy of, or the value itself
+     */
+    private static Value constantValue(Value value, DefUseChains chains) {
+        if (value instanceof Local local && chains.getDefinition(local) instanceof Instruction definition
+                && definition.is(Opcode.COPY) && definition.getOperand(0) instanceof Constant constant) {
+            return constant;
+        }
+        return value;
+    }
+
+    /**
+     * @return {@code dest := value + step}, or {@code dest := value - (-step)} for a negative constant step
+     */
+    private static Instruction add(Local dest, Value value, Value step) {
+        if (step instanceof Constant constant && constant.asInt() < 0 && constant.asInt() != Integer.MIN_VALUE) {
+            return Instruction.binary(dest, Operator.SUB, value, Constant.of(-constant.asInt(), constant.getType()));
+        }
+        return Instruction.binary(dest, Operator.ADD, value, step);
+    }
+
+    /**
+     * @return the product of the two values, folded if both are constants or computed at the end of the block
+     */
+    private Value multiply(Value left, Value right, BasicBlock block) {
+        if (left instanceof Constant leftConstant && right instanceof Constant rightConstant) {
+            return Constant.of(leftConstant.asInt() * rightConstant.asInt(), left.getType());
+        }
+
+        Local product = method.newTemp(left.getType());
+        block.append(Instruction.binary(product, Operator.MUL, left, right));
+        return product;
+    }
+
+    private static boolean isInt(Type type) {
+        return !type.isArray() && type.getName().equals("int");
+    }
+}
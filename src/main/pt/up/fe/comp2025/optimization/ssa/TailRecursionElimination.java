@@ -0,0 +1,162 @@
+package pt.up.fe.comp2025.optimization.ssa;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Turns the calls a method built by {@link IrBuilder} makes to itself in tail position into a jump back to its
+ * start, so that the recursion becomes a loop that does not grow the stack.
+ * <p>
+ * A call of the method on {@code this} with as many arguments as parameters is in tail position when nothing but
+ * copies of its result runs between it and a return of the result (or a {@code return} in a void method), possibly
+ * through jumps: {@code return this.f(x);} and {@code r = this.f(x); ... return r;} on an else branch are both tail
+ * calls. The recursion then treats such calls as calls of this method, so an override of it in a subclass is no
+ * longer called by the recursion of this one.
+ * <p>
+ * The body of the method moves to a new block after the entry. Each tail call assigns its arguments to the
+ * parameters and jumps to that block. The arguments were evaluated left to right before the call, so they only need
+ * to be read before any parameter is written: an argument that reads another parameter goes through a temporary.
+ * Variables that may be read before being assigned are reset to their default value, as on a new call.
+ */
+public class TailRecursionElimination {
+
+    private int eliminatedCalls;
+
+    public int getEliminatedCalls() {
+        return eliminatedCalls;
+    }
+
+    /**
+     * @return the number of tail calls replaced by jumps
+     */
+    public int apply(IrMethod method) {
+        if (method.isSsa()) {
+            throw new RuntimeException("Tail recursion elimination expects method '" + method.getName()
+                    + "' before SSA form");
+        }
+
+        eliminatedCalls = 0;
+
+        List<Instruction> tailCalls = new ArrayList<>();
+        for (BasicBlock block : method.getReversePostorder()) {
+            for (Instruction instruction : block.getInstructions()) {
+                if (isSelfCall(method, instruction) && isInTailPosition(method, instruction)) {
+                    tailCalls.add(instruction);
+                }
+            }
+        }
+
+        if (!tailCalls.isEmpty()) {
+            Set<Local> readBeforeAssigned = new Liveness(method).getLiveIn(method.getEntry());
+            BasicBlock body = moveBody(method);
+
+            for (Instruction call : tailCalls) {
+                replaceByJump(method, call, body, readBeforeAssigned);
+                eliminatedCalls++;
+            }
+            method.removeUnreachableBlocks();
+        }
+
+        System.out.println("[TRE] " + method.getName() + ": eliminated " + eliminatedCalls + " tail call(s)");
+        return eliminatedCalls;
+    }
+
+    private static boolean isSelfCall(IrMethod method, Instruction instruction) {
+        return instruction.is(Opcode.CALL) && !instruction.isStatic()
+                && instruction.getReceiver() instanceof ThisValue
+                && instruction.getName().equals(method.getName())
+                && instruction.getArguments().size() == method.getParameters().size();
+    }
+
+    /**
+     * @return true if only copies of the result of the call run after it, until the result is returned
+     */
+    private static boolean isInTailPosition(IrMethod method, Instruction call) {
+        boolean isVoid = method.getReturnType().getName().equals("void") && !method.getReturnType().isArray();
+        Set<Value> results = new HashSet<>();
+        if (call.getDest() != null) {
+            results.add(call.getDest());
+        }
+
+        Set<BasicBlock> visited = new HashSet<>();
+        BasicBlock block = call.getBlock();
+        List<Instruction> instructions = block.getInstructions();
+        List<Instruction> after = instructions.subList(instructions.indexOf(call) + 1, instructions.size());
+
+        while (true) {
+            for (Instruction instruction : after) {
+                if (!instruction.is(Opcode.COPY) || !results.contains(instruction.getOperand(0))) {
+                    return false;
+                }
+                results.add(instruction.getDest());
+            }
+
+            Instruction terminator = block.getTerminator();
+            if (terminator.is(Opcode.RETURN)) {
+                return terminator.getOperands().isEmpty() ? isVoid : results.contains(terminator.getOperand(0));
+            }
+            if (!terminator.is(Opcode.JUMP) || !visited.add(block)) {
+                return false;
+            }
+
+            block = terminator.getTargets().get(0);
+            after = block.getInstructions();
+        }
+    }
+
+    /**
+     * Moves the instructions of the entry to a new block, which the entry jumps to.
+     *
+     * @return the new block, where the body of the method starts
+     */
+    private static BasicBlock moveBody(IrMethod method) {
+        BasicBlock entry = method.getEntry();
+        BasicBlock body = method.newBlock();
+
+        for (Instruction instruction : new ArrayList<>(entry.getInstructions())) {
+            entry.remove(instruction);
+            body.append(instruction);
+        }
+        Instruction terminator = entry.getTerminator();
+        entry.setTerminator(Instruction.jump(body));
+        body.setTerminator(terminator);
+
+        return body;
+    }
+
+    private static void replaceByJump(IrMethod method, Instruction call, BasicBlock body, Set<Local> readBeforeAssigned) {
+        BasicBlock block = call.getBlock();
+        List<Instruction> instructions = block.getInstructions();
+        for (Instruction instruction : new ArrayList<>(instructions.subList(instructions.indexOf(call), instructions.size()))) {
+            block.remove(instruction);
+        }
+
+        List<Local> parameters = method.getParameters();
+        List<Value> arguments = new ArrayList<>(call.getArguments());
+
+        // Arguments that read another parameter are saved before the parameters are written
+        for (int i = 0; i < arguments.size(); i++) {
+            if (arguments.get(i) instanceof Local local && local.isParameter() && local != parameters.get(i)) {
+                Local saved = method.newTemp(local.getType());
+                block.append(Instruction.copy(saved, local));
+                arguments.set(i, saved);
+            }
+        }
+
+        for (int i = 0; i < arguments.size(); i++) {
+            if (arguments.get(i) != parameters.get(i)) {
+                block.append(Instruction.copy(parameters.get(i), arguments.get(i)));
+            }
+        }
+
+        for (Local local : readBeforeAssigned) {
+            if (!local.isParameter()) {
+                block.append(Instruction.copy(local, Constant.defaultOf(local.getType())));
+            }
+        }
+
+        block.setTerminator(Instruction.jump(body));
+    }
+}
@@ -0,0 +1,18 @@
+package pt.up.fe.comp2025.optimization.ssa;
+
+import pt.up.fe.comp.jmm.analysis.table.Type;
+
+/**
+ * The object the method was called on ("this").
+ */
+public class ThisValue extends Value {
+
+    public ThisValue(Type classType) {
+        super(classType);
+    }
+
+    @Override
+    public String toString() {
+        return "this";
+    }
+}
@@ -0,0 +1,19 @@
+package pt.up.fe.comp2025.optimization.ssa;
+
+import pt.up.fe.comp.jmm.analysis.table.Type;
+
+/**
+ * Operand of an IR instruction: a local variable, a constant or the current object.
+ */
+public abstract class Value {
+
+    private final Type type;
+
+    protected Value(Type type) {
+        this.type = type;
+    }
+
+    public Type getType() {
+        return type;
+    }
+}
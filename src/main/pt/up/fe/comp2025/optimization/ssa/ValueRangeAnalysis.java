@@ -0,0 +1,495 @@
+package pt.up.fe.comp2025.optimization.ssa;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+
+/**
+ * Computes the range of values each int local of a method in SSA form can hold, and replaces the comparisons and
+ * divisions whose result the ranges decide by constants.
+ * <p>
+ * The range of a local is an interval of ints. It comes from its definition: constants, array lengths (never
+ * negative), the ranges of the operands of an addition, subtraction, multiplication or division (the whole int range
+ * when the result may overflow), and the union of the incoming values of a phi. Where a block is only reached through
+ * one side of a branch on a comparison, such as the body of {@code while (i < n)}, the comparison holds in the block
+ * and in every block it dominates, which narrows the ranges of its operands there, and on the edge into the phis of a
+ * loop header. The ranges are found by iterating over the blocks in reverse postorder until nothing changes; a range
+ * that keeps growing around a loop is widened to the end of the int range on the side it grows, and a few more passes
+ * narrow it back to the bounds the loop guard allows.
+ * <p>
+ * A comparison is replaced by its result when the ranges of its operands, or a comparison of the same operands that
+ * holds in its block ({@code i < n} tested again inside a loop guarded by it), allow a single result. Branches on it
+ * are then folded by {@link ConstantFolding} and {@link DeadCodeElimination}. A division whose quotient has a single
+ * possible value is replaced by it too, such as {@code x / d} when {@code 0 <= x < d}, provided the divisor cannot be
+ * zero, since the division must throw then. A division by a constant power of two of a value that is never negative
+ * becomes a shift, which rounds the same way for such values (towards zero, where the shift of a negative value rounds
+ * down).
+ */
+public class ValueRangeAnalysis {
+
+    private record Range(long low, long high) {
+
+        private static final Range FULL = new Range(Integer.MIN_VALUE, Integer.MAX_VALUE);
+
+        /**
+         * @return the range, or the whole int range if some value in it does not fit in an int
+         */
+        private static Range of(long low, long high) {
+            if (low < Integer.MIN_VALUE || high > Integer.MAX_VALUE) {
+                return FULL;
+            }
+            return new Range(low, high);
+        }
+
+        private boolean isSingle() {
+            return low == high;
+        }
+
+        private Range join(Range other) {
+            return other == null ? this : new Range(Math.min(low, other.low), Math.max(high, other.high));
+        }
+
+        /**
+         * @return the values in both ranges, or null if there are none
+         */
+        private Range intersect(long otherLow, long otherHigh) {
+            long newLow = Math.max(low, otherLow);
+            long newHigh = Math.min(high, otherHigh);
+            return newLow <= newHigh ? new Range(newLow, newHigh) : null;
+        }
+
+        @Override
+        public String toString() {
+            return "[" + low + ", " + high + "]";
+        }
+    }
+
+    /**
+     * A comparison of a local with another value that holds in a block.
+     */
+    private record Fact(Local subject, Operator operator, Value bound) {
+    }
+
+    // Possible outcomes of comparing two values, as a bit set
+    private static final int LESS = 1;
+    private static final int EQUAL = 2;
+    private static final int GREATER = 4;
+
+    // Times the range of a local may grow before it is widened, and passes that narrow the widened ranges
+    private static final int WIDEN_AFTER = 2;
+    private static final int NARROWING_PASSES = 2;
+
+    private DefUseChains chains;
+    private Map<Local, Range> ranges;
+    private Map<BasicBlock, List<Fact>> facts;
+    private int decidedComparisons;
+    private int foldedDivisions;
+    private int shiftedDivisions;
+
+    public int getDecidedComparisons() {
+        return decidedComparisons;
+    }
+
+    public int getFoldedDivisions() {
+        return foldedDivisions;
+    }
+
+    public int getShiftedDivisions() {
+        return shiftedDivisions;
+    }
+
+    /**
+     * @return the number of comparisons and divisions replaced by constants, and of divisions replaced by shifts
+     */
+    public int apply(IrMethod method) {
+        if (!method.isSsa()) {
+            throw new RuntimeException("Value range analysis expects method '" + method.getName() + "' in SSA form");
+        }
+
+        this.chains = new DefUseChains(method);
+        this.ranges = new HashMap<>();
+        this.decidedComparisons = 0;
+        this.foldedDivisions = 0;
+        this.shiftedDivisions = 0;
+
+        DominatorTree dominators = new DominatorTree(method);
+        List<BasicBlock> order = dominators.getReversePostorder();
+        collectFacts(order, dominators);
+        solve(order);
+        replace(order);
+
+        System.out.println("[Ranges] " + method.getName() + ": decided " + decidedComparisons
+                + " comparison(s), folded " + foldedDivisions + " division(s), shifted " + shiftedDivisions
+                + " division(s)");
+        return decidedComparisons + foldedDivisions + shiftedDivisions;
+    }
+
+    /**
+     * Finds the comparisons that hold in each block: those of its immediate dominator, and the one of the branch that
+     * leads to it when it is the only way into the block.
+     */
+    private void collectFacts(List<BasicBlock> order, DominatorTree dominators) {
+        facts = new HashMap<>();
+        for (BasicBlock block : order) {
+            BasicBlock dominator = dominators.getImmediateDominator(block);
+            List<Fact> blockFacts = new ArrayList<>(dominator == null ? List.of() : facts.get(dominator));
+            if (block.getPredecessors().size() == 1) {
+                blockFacts.addAll(edgeFacts(block.getPredecessors().get(0), block));
+            }
+            facts.put(block, blockFacts);
+        }
+    }
+
+    /**
+     * @return the comparisons that hold on the edge, when it is one side of a branch on a comparison of ints
+     */
+    private List<Fact> edgeFacts(BasicBlock from, BasicBlock to) {
+        Instruction branch = from.getTerminator();
+        if (branch == null || !branch.is(Opcode.BRANCH) || branch.getTargets().get(0) == branch.getTargets().get(1)) {
+            return List.of();
+        }
+
+        boolean holds = branch.getTargets().get(0) == to;
+        Value condition = branch.getOperand(0);
+        if (!(condition instanceof Local conditionLocal)) {
+            return List.of();
+        }
+
+        // The condition itself is known on each side, for later branches on the same value
+        List<Fact> edge = new ArrayList<>();
+        edge.add(new Fact(conditionLocal, Operator.EQ, Constant.of(holds, condition.getType())));
+        Instruction comparison = chains.getDefinition(conditionLocal);
+
+        // A negated comparison holds on the other side
+        while (comparison != null && comparison.is(Opcode.NOT) && comparison.getOperand(0) instanceof Local local) {
+            holds = !holds;
+            comparison = chains.getDefinition(local);
+        }
+        if (comparison == null || !comparison.is(Opcode.BINARY) || !comparison.getOperator().isComparison()
+                || !isInt(comparison.getOperand(0)) || !isInt(comparison.getOperand(1))) {
+            return edge;
+        }
+
+        Operator operator = holds ? comparison.getOperator() : comparison.getOperator().negate();
+        Value left = comparison.getOperand(0);
+        Value right = comparison.getOperand(1);
+
+        if (left instanceof Local local) {
+            edge.add(new Fact(local, operator, right));
+        }
+        if (right instanceof Local local) {
+            edge.add(new Fact(local, operator.swap(), left));
+        }
+        return edge;
+    }
+
+    /**
+     * Iterates over the definitions of int locals until their ranges stop growing, widening the ones that keep
+     * growing, then narrows them.
+     */
+    private void solve(List<BasicBlock> order) {
+        Map<Local, Integer> updates = new HashMap<>();
+
+        boolean changed = true;
+        while (changed) {
+            changed = false;
+            for (BasicBlock block : order) {
+                for (Instruction instruction : block.getAllInstructions()) {
+                    Local dest = instruction.getDest();
+                    if (dest == null || !isInt(dest)) {
+                        continue;
+                    }
+
+                    Range old = ranges.get(dest);
+                    Range computed = evaluate(instruction, block);
+                    Range next = computed == null ? old : computed.join(old);
+                    if (next == null || next.equals(old)) {
+                        continue;
+                    }
+
+                    if (old != null && updates.merge(dest, 1, Integer::sum) > WIDEN_AFTER) {
+                        next = new Range(next.low < old.low ? Integer.MIN_VALUE : next.low,
+                                next.high > old.high ? Integer.MAX_VALUE : next.high);
+                    }
+                    ranges.put(dest, next);
+                    changed = true;
+                }
+            }
+        }
+
+        // Every range now holds all the values of its local, and recomputing them can only make them tighter
+        for (int pass = 0; pass < NARROWING_PASSES; pass++) {
+            for (BasicBlock block : order) {
+                for (Instruction instruction : block.getAllInstructions()) {
+                    Local dest = instruction.getDest();
+                    Range old = dest == null ? null : ranges.get(dest);
+                    Range computed = old == null ? null : evaluate(instruction, block);
+                    Range narrowed = computed == null ? null : old.intersect(computed.low, computed.high);
+                    if (narrowed != null) {
+                        ranges.put(dest, narrowed);
+                    }
+                }
+            }
+        }
+    }
+
+    /**
+     * @return the range of the value the instruction defines, or null if none of its operands has a value yet
+     */
+    private Range evaluate(Instruction instruction, BasicBlock block) {
+        return switch (instruction.getOpcode()) {
+            case PHI -> {
+                Range joined = null;
+                for (BasicBlock predecessor : instruction.getIncoming()) {
+                    List<Fact> edge = new ArrayList<>(facts.getOrDefault(predecessor, List.of()));
+                    edge.addAll(edgeFacts(predecessor, block));
+                    Range incoming = rangeOf(instruction.getValueFrom(predecessor), edge);
+                    joined = incoming == null ? joined : incoming.join(joined);
+                }
+                yield joined;
+            }
+            case COPY -> rangeOf(instruction.getOperand(0), facts.get(block));
+            case BINARY -> {
+                Range left = rangeOf(instruction.getOperand(0), facts.get(block));
+                Range right = rangeOf(instruction.getOperand(1), facts.get(block));
+                yield left == null || right == null ? null : arithmetic(instruction.getOperator(), left, right);
+            }
+            case ARRAY_LENGTH -> new Range(0, Integer.MAX_VALUE);
+            default -> Range.FULL;
+        };
+    }
+
+    private static Range arithmetic(Operator operator, Range left, Range right) {
+        return switch (operator) {
+            case ADD -> Range.of(left.low + right.low, left.high + right.high);
+            case SUB -> Range.of(left.low - right.high, left.high - right.low);
+            case MUL -> corners(left, right, true);
+            case DIV -> {
+                // Division by a value of one sign is monotonic in both operands; a zero divisor throws instead
+                Range quotient = null;
+                if (right.low < 0) {
+                    quotient = corners(left, new Range(right.low, Math.min(right.high, -1)), false);
+                }
+                if (right.high > 0) {
+                    Range positive = corners(left, new Range(Math.max(right.low, 1), right.high), false);
+                    quotient = positive.join(quotient);
+                }
+                yield quotient == null ? Range.FULL : quotient;
+            }
+            case SHR -> right.isSingle() && right.low >= 0 && right.low < Integer.SIZE
+                    ? new Range(left.low >> right.low, left.high >> right.low) : Range.FULL;
+            default -> Range.FULL;
+        };
+    }
+
+    /**
+     * @return the range of the products or quotients of the bounds of the ranges
+     */
+    private static Range corners(Range left, Range right, boolean multiply) {
+        long low = Long.MAX_VALUE;
+        long high = Long.MIN_VALUE;
+        for (long a : new long[]{left.low, left.high}) {
+            for (long b : new long[]{right.low, right.high}) {
+                long result = multiply ? a * b : a / b;
+                low = Math.min(low, result);
+                high = Math.max(high, result);
+            }
+        }
+        return Range.of(low, high);
+    }
+
+    /**
+     * @return the range of the value in a block where the facts hold, or null if it has no value yet (or none at
+     * all, in code that cannot run)
+     */
+    private Range rangeOf(Value value, List<Fact> blockFacts) {
+        Range range = globalRangeOf(value);
+        if (range == null || !(value instanceof Local local)) {
+            return range;
+        }
+
+        for (Fact fact : blockFacts) {
+            Range bound = fact.subject() == local ? globalRangeOf(fact.bound()) : null;
+            if (bound == null) {
+                continue;
+            }
+
+            range = switch (fact.operator()) {
+                case LT -> range.intersect(Integer.MIN_VALUE, bound.high - 1);
+                case LE -> range.intersect(Integer.MIN_VALUE, bound.high);
+                case GT -> range.intersect(bound.low + 1, Integer.MAX_VALUE);
+                case GE -> range.intersect(bound.low, Integer.MAX_VALUE);
+                case EQ -> range.intersect(bound.low, bound.high);
+                default -> {
+                    // Only a single excluded value at an end of the range narrows it
+                    if (!bound.isSingle()) {
+                        yield range;
+                    }
+                    yield range.intersect(range.low == bound.low ? range.low + 1 : range.low,
+                            range.high == bound.low ? range.high - 1 : range.high);
+                }
+            };
+            if (range == null) {
+                return null;
+            }
+        }
+        return range;
+    }
+
+    /**
+     * @return the range of the value anywhere in the method
+     */
+    private Range globalRangeOf(Value value) {
+        if (value instanceof Constant constant) {
+            return constant.isInt() ? new Range(constant.asInt(), constant.asInt()) : Range.FULL;
+        }
+        if (value instanceof Local local && chains.getDefinition(local) != null) {
+            return ranges.get(local);
+        }
+        // Parameters, and values that are not ints
+        return Range.FULL;
+    }
+
+    private void replace(List<BasicBlock> order) {
+        for (BasicBlock block : order) {
+            List<Instruction> instructions = block.getInstructions();
+            for (int i = 0; i < instructions.size(); i++) {
+                Instruction instruction = instructions.get(i);
+                Constant result = decide(instruction, block);
+                if (result != null) {
+                    block.remove(instruction);
+                    block.insert(i, Instruction.copy(instruction.getDest(), result));
+                } else if (isShiftable(instruction, block)) {
+                    int divisor = ((Constant) instruction.getOperand(1)).asInt();
+                    instruction.setOperator(Operator.SHR);
+                    instruction.setOperand(1, Constant.of(Integer.numberOfTrailingZeros(divisor),
+                            instruction.getOperand(1).getType()));
+                    shiftedDivisions++;
+                }
+            }
+
+            // A branch on a condition already tested on the way to the block
+            Instruction terminator = block.getTerminator();
+            if (terminator.is(Opcode.BRANCH) && terminator.getOperand(0) instanceof Local condition) {
+                for (Fact fact : facts.get(block)) {
+                    if (fact.subject() == condition && fact.bound() instanceof Constant known) {
+                        terminator.setOperand(0, known);
+                        decidedComparisons++;
+                        break;
+                    }
+                }
+            }
+        }
+    }
+
+    /**
+     * @return the constant the instruction always computes, or null if the ranges do not decide it
+     */
+    private Constant decide(Instruction instruction, BasicBlock block) {
+        if (!instruction.is(Opcode.BINARY) || instruction.getOperand(0) instanceof Constant
+                && instruction.getOperand(1) instanceof Constant) {
+            // Constant operands are left to constant folding
+            return null;
+        }
+
+        Local dest = instruction.getDest();
+        Operator operator = instruction.getOperator();
+        if (operator == Operator.DIV) {
+            Range range = ranges.get(dest);
+            if (range == null || !range.isSingle() || !excludesZero(instruction, block)) {
+                return null;
+            }
+            foldedDivisions++;
+            return Constant.of((int) range.low, dest.getType());
+        }
+        if (!operator.isComparison()) {
+            return null;
+        }
+
+        Value left = instruction.getOperand(0);
+        Value right = instruction.getOperand(1);
+        if (!isInt(left) || !isInt(right)) {
+            return null;
+        }
+
+        int outcomes = outcomes(rangeOf(left, facts.get(block)), rangeOf(right, facts.get(block)));
+        for (Fact fact : facts.get(block)) {
+            if (fact.subject() == left && sameValue(fact.bound(), right)) {
+                outcomes &= outcomesOf(fact.operator());
+            } else if (fact.subject() == right && sameValue(fact.bound(), left)) {
+                outcomes &= outcomesOf(fact.operator().swap());
+            }
+        }
+
+        // No outcome at all is code that cannot run, left to the other passes
+        int accepted = outcomesOf(operator);
+        if (outcomes == 0 || (outcomes & accepted) != 0 && (outcomes & ~accepted) != 0) {
+            return null;
+        }
+        decidedComparisons++;
+        return Constant.of((outcomes & accepted) != 0, dest.getType());
+    }
+
+    /**
+     * @return true if the instruction divides a value that is never negative by a constant power of two
+     */
+    private boolean isShiftable(Instruction instruction, BasicBlock block) {
+        if (!instruction.is(Opcode.BINARY) || instruction.getOperator() != Operator.DIV
+                || !(instruction.getOperand(1) instanceof Constant divisor) || !divisor.isInt()
+                || divisor.asInt() < 2 || Integer.bitCount(divisor.asInt()) != 1) {
+            return false;
+        }
+        Range dividend = rangeOf(instruction.getOperand(0), facts.get(block));
+        return dividend != null && dividend.low >= 0;
+    }
+
+    private boolean excludesZero(Instruction division, BasicBlock block) {
+        Range divisor = rangeOf(division.getOperand(1), facts.get(block));
+        return divisor != null && (divisor.low > 0 || divisor.high < 0);
+    }
+
+    /**
+     * @return the outcomes comparing values of the ranges can have
+     */
+    private static int outcomes(Range left, Range right) {
+        if (left == null || right == null) {
+            return 0;
+        }
+        int outcomes = 0;
+        if (left.low < right.high) {
+            outcomes |= LESS;
+        }
+        if (left.low <= right.high && right.low <= left.high) {
+            outcomes |= EQUAL;
+        }
+        if (left.high > right.low) {
+            outcomes |= GREATER;
+        }
+        return outcomes;
+    }
+
+    /**
+     * @return the outcomes for which the comparison is true
+     */
+    private static int outcomesOf(Operator comparison) {
+        return switch (comparison) {
+            case LT -> LESS;
+            case LE -> LESS | EQUAL;
+            case GT -> GREATER;
+            case GE -> GREATER | EQUAL;
+            case EQ -> EQUAL;
+            case NE -> LESS | GREATER;
+            default -> throw new RuntimeException("Operator '" + comparison.getSymbol() + "' is not a comparison");
+        };
+    }
+
+    private static boolean sameValue(Value a, Value b) {
+        return a == b || a instanceof Constant && Objects.equals(a, b);
+    }
+
+    private static boolean isInt(Value value) {
+        return value.getType().getName().equals("int") && !value.getType().isArray();
+    }
+}
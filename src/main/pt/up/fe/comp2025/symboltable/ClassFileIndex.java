@@ -0,0 +1,207 @@
+package pt.up.fe.comp2025.symboltable;
+
+import pt.up.fe.comp.TestUtils;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.HexFormat;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Function;
+
+/**
+ * Index of the signatures of compiled library classes (e.g. the classes in libs-jmm/compiled).
+ * <p>
+ * Classes are found either as JVM class files or as interface files of Java-- classes compiled earlier (see
+ * {@link InterfaceFile}). In each folder, a class file takes precedence over an interface file of the same class.
+ * <p>
+ * Classes are looked up on demand: the class file is only opened the first time a compilation asks for the class.
+ * Files are memory-mapped and only their constant pool, fields and method descriptors are decoded (see
+ * {@link ClassFileReader}). Decoded signatures are kept in a process-wide cache keyed by the hash of the file contents,
+ * so compiling several programs against the same libraries decodes each file only once, and a file that changes on
+ * disk is decoded again. The cache keeps the {@value #MAX_CACHED_CLASSES} classes used most recently.
+ */
+public class ClassFileIndex {
+
+    private static final int MAX_CACHED_CLASSES = 512;
+
+    /**
+     * Signatures shared by every index, keyed by the SHA-256 of the class (or interface) file.
+     */
+    private static final Map<String, LibraryClass> SIGNATURES_BY_HASH = leastRecentlyUsed(MAX_CACHED_CLASSES);
+
+    /**
+     * Last known hash of each class file, to avoid hashing a file that did not change (same size and modification
+     * time) since it was last read.
+     */
+    private static final Map<Path, FileStamp> STAMPS = leastRecentlyUsed(MAX_CACHED_CLASSES);
+
+    private final List<Path> roots;
+    private final Map<String, Optional<LibraryClass>> classes;
+
+    public ClassFileIndex(List<Path> roots) {
+        this.roots = new ArrayList<>(roots);
+        this.classes = new ConcurrentHashMap<>();
+    }
+
+    /**
+     * Index over the default library folder, {@link TestUtils#getLibsClasspath()}.
+     */
+    public static ClassFileIndex getDefault() {
+        return new ClassFileIndex(List.of(Paths.get(TestUtils.getLibsClasspath())));
+    }
+
+    /**
+     * Index over the given folders of interface files, followed by the default library folder.
+     */
+    public static ClassFileIndex withInterfaces(List<Path> interfaceFolders) {
+        List<Path> roots = new ArrayList<>(interfaceFolders);
+        roots.add(Paths.get(TestUtils.getLibsClasspath()));
+        return new ClassFileIndex(roots);
+    }
+
+    /**
+     * Looks up a class by its fully qualified name (e.g. "foo.bar.A").
+     */
+    public Optional<LibraryClass> getClass(String qualifiedName) {
+        return classes.computeIfAbsent(qualifiedName, this::load);
+    }
+
+    /**
+     * Looks up a class by the name it is referred to in a Java-- file: either a fully qualified name, or the simple
+     * name of one of the given imports.
+     */
+    public Optional<LibraryClass> resolve(String name, List<String> imports) {
+        for (String imp : imports) {
+            if (imp.equals(name) || imp.endsWith("." + name)) {
+                return getClass(imp);
+            }
+        }
+
+        return Optional.empty();
+    }
+
+    /**
+     * Returns the methods with the given name declared in the class or in one of its indexed super classes. Methods
+     * of the class itself come first.
+     */
+    public List<LibraryMethod> findMethods(String qualifiedName, String methodName) {
+        List<LibraryMethod> methods = new ArrayList<>();
+        Set<String> visited = new HashSet<>();
+
+        Optional<LibraryClass> current = getClass(qualifiedName);
+        while (current.isPresent() && visited.add(current.get().getName())) {
+            methods.addAll(current.get().getMethods(methodName));
+            current = getSuperClass(current.get());
+        }
+
+        return methods;
+    }
+
+    /**
+     * Returns the field with the given name declared in the class or in one of its indexed super classes.
+     */
+    public Optional<LibraryField> findField(String qualifiedName, String fieldName) {
+        Set<String> visited = new HashSet<>();
+
+        Optional<LibraryClass> current = getClass(qualifiedName);
+        while (current.isPresent() && visited.add(current.get().getName())) {
+            var field = current.get().getField(fieldName);
+            if (field.isPresent()) {
+                return field;
+            }
+            current = getSuperClass(current.get());
+        }
+
+        return Optional.empty();
+    }
+
+    private Optional<LibraryClass> getSuperClass(LibraryClass libraryClass) {
+        String superName = libraryClass.getSuperName();
+        if (superName == null) {
+            return Optional.empty();
+        }
+        return getClass(superName);
+    }
+
+    private Optional<LibraryClass> load(String qualifiedName) {
+        String relativePath = qualifiedName.replace('.', '/');
+
+        for (Path root : roots) {
+            Path classFile = root.resolve(relativePath + ".class");
+            if (Files.isRegularFile(classFile)) {
+                return Optional.of(read(classFile, buffer -> new ClassFileReader(buffer).read()));
+            }
+
+            Path interfaceFile = root.resolve(relativePath + InterfaceFile.EXTENSION);
+            if (Files.isRegularFile(interfaceFile)) {
+                return Optional.of(read(interfaceFile, InterfaceFile::read));
+            }
+        }
+
+        return Optional.empty();
+    }
+
+    private static LibraryClass read(Path classFile, Function<ByteBuffer, LibraryClass> decoder) {
+        try (FileChannel channel = FileChannel.open(classFile, StandardOpenOption.READ)) {
+            long size = channel.size();
+            long lastModified = Files.getLastModifiedTime(classFile).toMillis();
+
+            FileStamp stamp = STAMPS.get(classFile);
+            if (stamp != null && stamp.size == size && stamp.lastModified == lastModified) {
+                LibraryClass cached = SIGNATURES_BY_HASH.get(stamp.hash);
+                if (cached != null) {
+                    return cached;
+                }
+            }
+
+            MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, size);
+            String hash = hash(buffer);
+            STAMPS.put(classFile, new FileStamp(size, lastModified, hash));
+
+            return SIGNATURES_BY_HASH.computeIfAbsent(hash, h -> decoder.apply(buffer));
+        } catch (IOException e) {
+            throw new RuntimeException("Could not read '" + classFile + "'", e);
+        }
+    }
+
+    /**
+     * @return a map that drops its least recently used entry when it grows beyond the given size
+     */
+    private static <K, V> Map<K, V> leastRecentlyUsed(int maxSize) {
+        return Collections.synchronizedMap(new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<K, V> eldest) {
+                return size() > maxSize;
+            }
+        });
+    }
+
+    private static String hash(MappedByteBuffer buffer) {
+        try {
+            MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            digest.update(buffer.duplicate());
+            return HexFormat.of().formatHex(digest.digest());
+        } catch (NoSuchAlgorithmException e) {
+            throw new RuntimeException(e);
+        }
+    }
+
+    private record FileStamp(long size, long lastModified, String hash) {
+    }
+}
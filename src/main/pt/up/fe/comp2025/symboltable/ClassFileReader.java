@@ -0,0 +1,173 @@
+package pt.up.fe.comp2025.symboltable;
+
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Minimal reader for the JVM class file format.
+ * <p>
+ * Only the parts needed to know the signatures of a class are decoded: the constant pool, the class and super class
+ * names, and the name, descriptor and access flags of every field and method. Attributes (including method bodies)
+ * are skipped without being decoded.
+ */
+public class ClassFileReader {
+
+    private static final int MAGIC = 0xCAFEBABE;
+
+    private static final int ACC_STATIC = 0x0008;
+    private static final int ACC_VARARGS = 0x0080;
+
+    private static final int CONSTANT_UTF8 = 1;
+    private static final int CONSTANT_INTEGER = 3;
+    private static final int CONSTANT_FLOAT = 4;
+    private static final int CONSTANT_LONG = 5;
+    private static final int CONSTANT_DOUBLE = 6;
+    private static final int CONSTANT_CLASS = 7;
+    private static final int CONSTANT_STRING = 8;
+    private static final int CONSTANT_FIELDREF = 9;
+    private static final int CONSTANT_METHODREF = 10;
+    private static final int CONSTANT_INTERFACE_METHODREF = 11;
+    private static final int CONSTANT_NAME_AND_TYPE = 12;
+    private static final int CONSTANT_METHOD_HANDLE = 15;
+    private static final int CONSTANT_METHOD_TYPE = 16;
+    private static final int CONSTANT_DYNAMIC = 17;
+    private static final int CONSTANT_INVOKE_DYNAMIC = 18;
+    private static final int CONSTANT_MODULE = 19;
+    private static final int CONSTANT_PACKAGE = 20;
+
+    private final ByteBuffer buffer;
+
+    // Decoded UTF8 entries, and for CONSTANT_Class entries the index of their name
+    private String[] utf8;
+    private int[] classNameIndex;
+
+    public ClassFileReader(ByteBuffer buffer) {
+        this.buffer = buffer.duplicate();
+    }
+
+    /**
+     * Decodes the signatures of the class.
+     *
+     * @throws RuntimeException if the buffer does not contain a valid class file
+     */
+    public LibraryClass read() {
+        buffer.position(0);
+
+        if (buffer.getInt() != MAGIC) {
+            throw new RuntimeException("Not a class file (invalid magic number)");
+        }
+
+        // minor_version, major_version
+        buffer.getShort();
+        buffer.getShort();
+
+        readConstantPool();
+
+        buffer.getShort(); // access_flags
+        String className = getClassName(u2());
+        int superIndex = u2();
+        String superName = superIndex == 0 ? null : getClassName(superIndex);
+
+        int interfacesCount = u2();
+        skip(2 * interfacesCount);
+
+        List<LibraryField> fields = new ArrayList<>();
+        int fieldsCount = u2();
+        for (int i = 0; i < fieldsCount; i++) {
+            int accessFlags = u2();
+            String name = utf8[u2()];
+            String descriptor = utf8[u2()];
+            skipAttributes();
+
+            fields.add(new LibraryField(name, descriptor, (accessFlags & ACC_STATIC) != 0));
+        }
+
+        List<LibraryMethod> methods = new ArrayList<>();
+        int methodsCount = u2();
+        for (int i = 0; i < methodsCount; i++) {
+            int accessFlags = u2();
+            String name = utf8[u2()];
+            String descriptor = utf8[u2()];
+            skipAttributes();
+
+            methods.add(new LibraryMethod(name, descriptor,
+                    (accessFlags & ACC_STATIC) != 0,
+                    (accessFlags & ACC_VARARGS) != 0));
+        }
+
+        return new LibraryClass(className.replace('/', '.'),
+                superName == null ? null : superName.replace('/', '.'),
+                fields, methods);
+    }
+
+    private void readConstantPool() {
+        int count = u2();
+        utf8 = new String[count];
+        classNameIndex = new int[count];
+
+        // Entry 0 is unused, and long/double entries take two slots
+        for (int i = 1; i < count; i++) {
+            int tag = Byte.toUnsignedInt(buffer.get());
+            switch (tag) {
+                case CONSTANT_UTF8 -> utf8[i] = readModifiedUtf8(u2());
+                case CONSTANT_CLASS -> classNameIndex[i] = u2();
+                case CONSTANT_STRING, CONSTANT_METHOD_TYPE, CONSTANT_MODULE, CONSTANT_PACKAGE -> skip(2);
+                case CONSTANT_METHOD_HANDLE -> skip(3);
+                case CONSTANT_INTEGER, CONSTANT_FLOAT, CONSTANT_FIELDREF, CONSTANT_METHODREF,
+                     CONSTANT_INTERFACE_METHODREF, CONSTANT_NAME_AND_TYPE, CONSTANT_DYNAMIC,
+                     CONSTANT_INVOKE_DYNAMIC -> skip(4);
+                case CONSTANT_LONG, CONSTANT_DOUBLE -> {
+                    skip(8);
+                    i++;
+                }
+                default -> throw new RuntimeException("Unknown constant pool tag " + tag + " at entry " + i);
+            }
+        }
+    }
+
+    private String getClassName(int classIndex) {
+        return utf8[classNameIndex[classIndex]];
+    }
+
+    private void skipAttributes() {
+        int attributesCount = u2();
+        for (int i = 0; i < attributesCount; i++) {
+            buffer.getShort(); // attribute_name_index
+            int length = buffer.getInt();
+            skip(length);
+        }
+    }
+
+    /**
+     * Decodes a string in the "modified UTF-8" encoding used by class files.
+     */
+    private String readModifiedUtf8(int length) {
+        StringBuilder builder = new StringBuilder(length);
+        int end = buffer.position() + length;
+
+        while (buffer.position() < end) {
+            int a = Byte.toUnsignedInt(buffer.get());
+            if (a < 0x80) {
+                builder.append((char) a);
+            } else if ((a & 0xE0) == 0xC0) {
+                int b = Byte.toUnsignedInt(buffer.get());
+                builder.append((char) (((a & 0x1F) << 6) | (b & 0x3F)));
+            } else {
+                int b = Byte.toUnsignedInt(buffer.get());
+                int c = Byte.toUnsignedInt(buffer.get());
+                builder.append((char) (((a & 0x0F) << 12) | ((b & 0x3F) << 6) | (c & 0x3F)));
+            }
+        }
+
+        return builder.toString();
+    }
+
+    private int u2() {
+        return Short.toUnsignedInt(buffer.getShort());
+    }
+
+    private void skip(int numBytes) {
+        buffer.position(buffer.position() + numBytes);
+    }
+}
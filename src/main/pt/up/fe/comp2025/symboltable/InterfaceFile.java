@@ -0,0 +1,163 @@
+package pt.up.fe.comp2025.symboltable;
+
+import pt.up.fe.comp.jmm.analysis.table.Symbol;
+import pt.up.fe.comp.jmm.analysis.table.Type;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Interface file of a compiled Java-- class ("ClassName.jmmi").
+ * <p>
+ * Contains the public part of the symbol table of the class (class name, super class, fields and method signatures)
+ * so that classes that import it can be compiled without parsing and analysing its source. Types are stored as JVM
+ * descriptors, so an interface file is read into the same {@link LibraryClass} as a class file. The format is one
+ * declaration per line:
+ * <pre>
+ * jmmi 1
+ * class Lazysort
+ * super Quicksort
+ * field Z sorted
+ * method main ([Ljava/lang/String;)V static
+ * method sum ([I)I varargs
+ * </pre>
+ */
+public class InterfaceFile {
+
+    public static final String EXTENSION = ".jmmi";
+
+    private static final String HEADER = "jmmi 1";
+
+    private InterfaceFile() {
+    }
+
+    /**
+     * Writes the interface of the class to "ClassName.jmmi" in the given folder.
+     *
+     * @return the path of the written file
+     */
+    public static Path write(JmmSymbolTable table, Path folder) {
+        Path file = folder.resolve(table.getClassName() + EXTENSION);
+        try {
+            Files.createDirectories(folder);
+            Files.writeString(file, toString(table), StandardCharsets.UTF_8);
+        } catch (IOException e) {
+            throw new RuntimeException("Could not write interface file '" + file + "'", e);
+        }
+        return file;
+    }
+
+    /**
+     * Serializes the interface of the class.
+     */
+    public static String toString(JmmSymbolTable table) {
+        StringBuilder code = new StringBuilder();
+        code.append(HEADER).append("\n");
+        code.append("class ").append(table.getClassName()).append("\n");
+
+        String superName = table.getSuper();
+        if (superName != null && !superName.isEmpty()) {
+            code.append("super ").append(qualify(superName, table.getImports())).append("\n");
+        }
+
+        for (Symbol field : table.getFields()) {
+            code.append("field ").append(toDescriptor(field.getType(), table.getImports()))
+                    .append(" ").append(field.getName()).append("\n");
+        }
+
+        for (String method : table.getMethods()) {
+            code.append("method ").append(method).append(" (");
+            for (Symbol param : table.getParameters(method)) {
+                code.append(toDescriptor(param.getType(), table.getImports()));
+            }
+            code.append(")").append(toDescriptor(table.getReturnType(method), table.getImports()));
+
+            if (method.equals("main")) {
+                code.append(" static");
+            }
+            if (table.isVarargs(method)) {
+                code.append(" varargs");
+            }
+            code.append("\n");
+        }
+
+        return code.toString();
+    }
+
+    /**
+     * Decodes an interface file.
+     *
+     * @throws RuntimeException if the contents are not a valid interface file
+     */
+    public static LibraryClass read(ByteBuffer buffer) {
+        String contents = StandardCharsets.UTF_8.decode(buffer.duplicate()).toString();
+        String[] lines = contents.split("\n");
+
+        if (lines.length < 2 || !lines[0].equals(HEADER)) {
+            throw new RuntimeException("Not an interface file (expected header '" + HEADER + "')");
+        }
+
+        String className = null;
+        String superName = null;
+        List<LibraryField> fields = new ArrayList<>();
+        List<LibraryMethod> methods = new ArrayList<>();
+
+        for (int i = 1; i < lines.length; i++) {
+            String[] parts = lines[i].trim().split(" ");
+            if (parts[0].isEmpty()) {
+                continue;
+            }
+
+            switch (parts[0]) {
+                case "class" -> className = parts[1];
+                case "super" -> superName = parts[1];
+                case "field" -> fields.add(new LibraryField(parts[2], parts[1], false));
+                case "method" -> {
+                    boolean isStatic = false;
+                    boolean isVarargs = false;
+                    for (int j = 3; j < parts.length; j++) {
+                        isStatic |= parts[j].equals("static");
+                        isVarargs |= parts[j].equals("varargs");
+                    }
+                    methods.add(new LibraryMethod(parts[1], parts[2], isStatic, isVarargs));
+                }
+                default -> throw new RuntimeException("Invalid line " + (i + 1) + " in interface file: " + lines[i]);
+            }
+        }
+
+        if (className == null) {
+            throw new RuntimeException("Interface file does not declare a class");
+        }
+
+        return new LibraryClass(className, superName, fields, methods);
+    }
+
+    private static String toDescriptor(Type type, List<String> imports) {
+        String descriptor = switch (type.getName()) {
+            case "int" -> "I";
+            case "boolean" -> "Z";
+            case "void" -> "V";
+            case "String" -> "Ljava/lang/String;";
+            default -> "L" + qualify(type.getName(), imports).replace('.', '/') + ";";
+        };
+
+        return type.isArray() ? "[" + descriptor : descriptor;
+    }
+
+    /**
+     * Qualifies a class name with the import it comes from, if any.
+     */
+    private static String qualify(String name, List<String> imports) {
+        for (String imp : imports) {
+            if (imp.endsWith("." + name)) {
+                return imp;
+            }
+        }
+        return name;
+    }
+}
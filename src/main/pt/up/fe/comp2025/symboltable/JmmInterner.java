@@ -0,0 +1,151 @@
+package pt.up.fe.comp2025.symboltable;
+
+import pt.up.fe.comp.jmm.analysis.table.Symbol;
+import pt.up.fe.comp.jmm.analysis.table.Type;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Compilation-scoped interner for identifiers, types and symbols.
+ * <p>
+ * Every {@link Type} handed out by this class is canonical: two calls with the same name and array flag return the
+ * same instance, so types coming from the symbol table and from {@link pt.up.fe.comp2025.ast.TypeUtils} can be
+ * compared by reference. Symbols registered through {@link #symbol(Type, String)} receive a dense integer id
+ * (0, 1, 2, ...) in registration order, which lets later stages replace maps keyed by symbols with plain arrays.
+ * <p>
+ * Identifier and type lookups are safe to call from analysis passes running in parallel.
+ */
+public class JmmInterner {
+
+    private final Map<String, String> identifiers;
+    private final Map<String, Type> scalarTypes;
+    private final Map<String, Type> arrayTypes;
+    private final List<Symbol> symbols;
+    private final Map<Symbol, Integer> symbolIds;
+
+    private final Type intType;
+    private final Type booleanType;
+    private final Type voidType;
+    private final Type intArrayType;
+    private final Type stringArrayType;
+    private final Type unknownType;
+
+    public JmmInterner() {
+        this.identifiers = new ConcurrentHashMap<>();
+        this.scalarTypes = new ConcurrentHashMap<>();
+        this.arrayTypes = new ConcurrentHashMap<>();
+        this.symbols = new ArrayList<>();
+        this.symbolIds = new IdentityHashMap<>();
+
+        this.intType = type("int", false);
+        this.booleanType = type("boolean", false);
+        this.voidType = type("void", false);
+        this.intArrayType = type("int", true);
+        this.stringArrayType = type("String", true);
+        this.unknownType = type("unknown", false);
+    }
+
+    /**
+     * Returns the canonical instance of the given identifier.
+     */
+    public String intern(String identifier) {
+        if (identifier == null) {
+            return null;
+        }
+        return identifiers.computeIfAbsent(identifier, id -> id);
+    }
+
+    /**
+     * Returns the canonical {@link Type} for the given name and array flag.
+     */
+    public Type type(String name, boolean isArray) {
+        var variants = isArray ? arrayTypes : scalarTypes;
+        return variants.computeIfAbsent(intern(name), canonicalName -> new Type(canonicalName, isArray));
+    }
+
+    /**
+     * Returns the canonical instance equal to the given type (or null, if the type is null).
+     */
+    public Type type(Type type) {
+        if (type == null) {
+            return null;
+        }
+        return type(type.getName(), type.isArray());
+    }
+
+    /**
+     * Returns the canonical element type of an array type.
+     */
+    public Type elementType(Type arrayType) {
+        return type(arrayType.getName(), false);
+    }
+
+    /**
+     * Returns the canonical array type whose elements have the given type.
+     */
+    public Type arrayOf(Type elementType) {
+        return type(elementType.getName(), true);
+    }
+
+    public Type intType() {
+        return intType;
+    }
+
+    public Type booleanType() {
+        return booleanType;
+    }
+
+    public Type voidType() {
+        return voidType;
+    }
+
+    public Type intArrayType() {
+        return intArrayType;
+    }
+
+    public Type stringArrayType() {
+        return stringArrayType;
+    }
+
+    public Type unknownType() {
+        return unknownType;
+    }
+
+    /**
+     * Creates a symbol with a canonical type and name, and assigns it the next dense id.
+     */
+    public synchronized Symbol symbol(Type type, String name) {
+        Symbol symbol = new Symbol(type(type), intern(name));
+        symbolIds.put(symbol, symbols.size());
+        symbols.add(symbol);
+        return symbol;
+    }
+
+    /**
+     * Returns the dense id of a symbol created by this interner, or -1 if the symbol is unknown.
+     */
+    public synchronized int idOf(Symbol symbol) {
+        Integer id = symbolIds.get(symbol);
+        return id != null ? id : -1;
+    }
+
+    public synchronized Symbol symbolOf(int id) {
+        return symbols.get(id);
+    }
+
+    /**
+     * Number of symbols registered so far; every id is in the range [0, symbolCount()).
+     */
+    public synchronized int symbolCount() {
+        return symbols.size();
+    }
+
+    public synchronized List<Symbol> getSymbols() {
+        return Collections.unmodifiableList(new ArrayList<>(symbols));
+    }
+}
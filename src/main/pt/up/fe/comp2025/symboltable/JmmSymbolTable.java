@@ -19,6 +19,9 @@ public class JmmSymbolTable extends AJmmSymbolTable {
     private final Map<String, List<Symbol>> params;
     private final Map<String, List<Symbol>> locals;
     private final List<String> imports;
+    private final Set<String> varargsMethods;
+    private final JmmInterner interner;
+    private final ClassFileIndex classIndex;
 
 
     public JmmSymbolTable(String className,
@@ -28,7 +31,10 @@ public class JmmSymbolTable extends AJmmSymbolTable {
                           Map<String, Type> returnTypes,
                           Map<String, List<Symbol>> params,
                           Map<String, List<Symbol>> locals,
-                          List<String> imports) {
+                          List<String> imports,
+                          Set<String> varargsMethods,
+                          JmmInterner interner,
+                          ClassFileIndex classIndex) {
 
         this.className = className;
         this.extendedClass = extendedClass;
@@ -38,6 +44,51 @@ public class JmmSymbolTable extends AJmmSymbolTable {
         this.params = params;
         this.locals = locals;
         this.imports = imports;
+        this.varargsMethods = varargsMethods;
+        this.interner = interner;
+        this.classIndex = classIndex;
+    }
+
+    public JmmSymbolTable(String className,
+                          String extendedClass,
+                          List<Symbol> fields,
+                          List<String> methods,
+                          Map<String, Type> returnTypes,
+                          Map<String, List<Symbol>> params,
+                          Map<String, List<Symbol>> locals,
+                          List<String> imports,
+                          JmmInterner interner) {
+
+        this(className, extendedClass, fields, methods, returnTypes, params, locals, imports, Set.of(), interner,
+                ClassFileIndex.getDefault());
+    }
+
+    /**
+     * The interner shared by every stage of the compilation that uses this table.
+     */
+    public JmmInterner getInterner() {
+        return interner;
+    }
+
+    /**
+     * Checks if the last parameter of the method was declared as varargs ("int...").
+     */
+    public boolean isVarargs(String methodSignature) {
+        return varargsMethods.contains(methodSignature);
+    }
+
+    /**
+     * Signatures of the compiled library classes this class may import or extend.
+     */
+    public ClassFileIndex getClassIndex() {
+        return classIndex;
+    }
+
+    /**
+     * Looks up an imported (or extended) library class by the name it has in this class.
+     */
+    public Optional<LibraryClass> getLibraryClass(String name) {
+        return classIndex.resolve(name, imports);
     }
 
     @Override
@@ -11,6 +11,7 @@ import pt.up.fe.specs.util.SpecsCheck;
 import pt.up.fe.specs.util.exceptions.NotImplementedException;
 
 import java.util.*;
+import java.util.stream.Collectors;
 
 import static pt.up.fe.comp2025.ast.Kind.*;
 
@@ -19,6 +20,8 @@ public class JmmSymbolTableBuilder {
     // In case we want to already check for some semantic errors during symbol table building.
     private List<Report> reports;
 
+    private JmmInterner interner;
+
     public List<Report> getReports() {
         return reports;
     }
@@ -33,7 +36,15 @@ public class JmmSymbolTableBuilder {
     }
 
     public JmmSymbolTable build(JmmNode root) {
+        return build(root, ClassFileIndex.getDefault());
+    }
+
+    /**
+     * Builds the symbol table, resolving imported classes with the given index.
+     */
+    public JmmSymbolTable build(JmmNode root, ClassFileIndex classIndex) {
         reports = new ArrayList<>();
+        interner = new JmmInterner();
 
         // Instead of using root.getChild(0), filter the children to find the class declaration.
         Optional<JmmNode> maybeClassDecl = root.getChildren().stream()
@@ -44,11 +55,11 @@ public class JmmSymbolTableBuilder {
         SpecsCheck.checkArgument(maybeClassDecl.isPresent(),
                 () -> "Expected a class declaration, but got: " + root.getChildren());
         JmmNode classDecl = maybeClassDecl.get();
-        String className = classDecl.get("name");
+        String className = interner.intern(classDecl.get("name"));
 
         String extendedClass = "";
         if (classDecl.hasAttribute("extendedClass")){
-            extendedClass = classDecl.get("extendedClass");
+            extendedClass = interner.intern(classDecl.get("extendedClass"));
         }
 
 
@@ -58,9 +69,11 @@ public class JmmSymbolTableBuilder {
         var params = buildParams(classDecl);
         var locals = buildLocals(classDecl);
         var imports = buildImports(root);
+        var varargsMethods = buildVarargsMethods(classDecl);
 
 
-        return new JmmSymbolTable(className, extendedClass, fields, methods, returnTypes, params, locals, imports);
+        return new JmmSymbolTable(className, extendedClass, fields, methods, returnTypes, params, locals, imports,
+                varargsMethods, interner, classIndex);
     }
 
     private boolean hasValidReturnType(JmmNode method) {
@@ -73,9 +86,9 @@ public class JmmSymbolTableBuilder {
     private String extractMethodName(JmmNode method) {
         String name = method.get("name");
         if (name.equals("args") || name.equals("main")) {
-            return "main";
+            return interner.intern("main");
         }
-        return name;
+        return interner.intern(name);
     }
 
     private Map<String, Type> buildReturnTypes(JmmNode classDecl) {
@@ -93,9 +106,9 @@ public class JmmSymbolTableBuilder {
                         .orElseThrow(() -> new NotImplementedException("Expected a valid return type for method: " + methodName));
 
                 // Use TypeUtils.convertType to get the method's return type.
-                returnTypes.put(methodName, TypeUtils.convertType(returnTypeNode));
+                returnTypes.put(methodName, TypeUtils.convertType(returnTypeNode, interner));
             } else {
-                returnTypes.put(methodName, new Type("void", false));
+                returnTypes.put(methodName, interner.voidType());
             }
         }
 
@@ -110,13 +123,13 @@ public class JmmSymbolTableBuilder {
 
             for (JmmNode param : method.getChildren("ParamExp")) {
                 JmmNode typeNode = param.getChild(0);
-                paramsList.add(new Symbol(TypeUtils.convertType(typeNode), param.get("name")));
+                paramsList.add(interner.symbol(TypeUtils.convertType(typeNode, interner), param.get("name")));
             }
             
             // Special handling for the main method - ensure it always has the "args" parameter
             if ("main".equals(methodName) && paramsList.isEmpty()) {
                 // Add the String[] args parameter for main method if not present
-                paramsList.add(new Symbol(new Type("String", true), "args"));
+                paramsList.add(interner.symbol(interner.stringArrayType(), "args"));
             }
             
             paramsMap.put(methodName, paramsList);
@@ -130,7 +143,7 @@ public class JmmSymbolTableBuilder {
                 
                 // Special handling for main method
                 if ("main".equals(methodName)) {
-                    paramsList.add(new Symbol(new Type("String", true), "args"));
+                    paramsList.add(interner.symbol(interner.stringArrayType(), "args"));
                 }
                 
                 paramsMap.put(methodName, paramsList);
@@ -159,7 +172,7 @@ public class JmmSymbolTableBuilder {
                     continue;
                 }
                 JmmNode typeNode = varDecl.getChild(0);
-                localsList.add(new Symbol(TypeUtils.convertType(typeNode), varDecl.get("name")));
+                localsList.add(interner.symbol(TypeUtils.convertType(typeNode, interner), varDecl.get("name")));
             }
             localsMap.put(methodName, localsList);
         }
@@ -183,6 +196,17 @@ public class JmmSymbolTableBuilder {
         return localsMap;
     }
 
+    private Set<String> buildVarargsMethods(JmmNode classDecl) {
+        Set<String> varargsMethods = new HashSet<>();
+        for (JmmNode method : classDecl.getChildren(METHOD_DECL)) {
+            List<JmmNode> params = method.getChildren("ParamExp");
+            if (!params.isEmpty() && VAR_ARGS.check(params.get(params.size() - 1).getChild(0))) {
+                varargsMethods.add(extractMethodName(method));
+            }
+        }
+        return varargsMethods;
+    }
+
     private List<String> buildMethods(JmmNode classDecl) {
         List<String> methods = new ArrayList<>();
         for (JmmNode method : classDecl.getChildren(METHOD_DECL)) {
@@ -191,28 +215,27 @@ public class JmmSymbolTableBuilder {
         return methods;
     }
 
-    private static List<String> buildImports(JmmNode root) {
+    private List<String> buildImports(JmmNode root) {
         List<String> imports = new ArrayList<>();
         for (JmmNode child : root.getChildren()) {
             if ("ImportStmt".equals(child.getKind())) {
-                StringBuilder importBuilder = new StringBuilder();
-                importBuilder.append(child.get("ID"));
-                for (JmmNode subNode : child.getChildren()) {
-                    importBuilder.append(".").append(subNode.get("ID"));
-                }
-                imports.add(importBuilder.toString());
+                // The qualified name is kept, so that the class can be found in the library folders
+                String qualifiedName = child.getObjectAsList("name").stream()
+                        .map(Object::toString)
+                        .collect(Collectors.joining("."));
+                imports.add(interner.intern(qualifiedName));
             }
         }
         return imports;
     }
 
-    private static List<Symbol> getFieldsList(JmmNode methodDecl) {
+    private List<Symbol> getFieldsList(JmmNode methodDecl) {
         List<Symbol> fields = new ArrayList<>();
 
         for (JmmNode varDecl : methodDecl.getChildren(VAR_DECL)) {
             if (varDecl.getChildren().isEmpty()) continue;
             JmmNode typeNode = varDecl.getChild(0);
-            fields.add(new Symbol(TypeUtils.convertType(typeNode), varDecl.get("name")));
+            fields.add(interner.symbol(TypeUtils.convertType(typeNode, interner), varDecl.get("name")));
         }
 
         return fields;
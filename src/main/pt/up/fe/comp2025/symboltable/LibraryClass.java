@@ -0,0 +1,66 @@
+package pt.up.fe.comp2025.symboltable;
+
+import java.util.Collections;
+import java.util.List;
+import java.util.Optional;
+
+/**
+ * Signatures of a compiled library class, as read from its class file.
+ */
+public class LibraryClass {
+
+    private final String name;
+    private final String superName;
+    private final List<LibraryField> fields;
+    private final List<LibraryMethod> methods;
+
+    public LibraryClass(String name, String superName, List<LibraryField> fields, List<LibraryMethod> methods) {
+        this.name = name;
+        this.superName = superName;
+        this.fields = Collections.unmodifiableList(fields);
+        this.methods = Collections.unmodifiableList(methods);
+    }
+
+    /**
+     * @return the fully qualified name of the class, with '.' as separator
+     */
+    public String getName() {
+        return name;
+    }
+
+    public String getSimpleName() {
+        return name.substring(name.lastIndexOf('.') + 1);
+    }
+
+    /**
+     * @return the fully qualified name of the super class, or null for java.lang.Object
+     */
+    public String getSuperName() {
+        return superName;
+    }
+
+    public List<LibraryField> getFields() {
+        return fields;
+    }
+
+    public List<LibraryMethod> getMethods() {
+        return methods;
+    }
+
+    public List<LibraryMethod> getMethods(String methodName) {
+        return methods.stream()
+                .filter(method -> method.getName().equals(methodName))
+                .toList();
+    }
+
+    public Optional<LibraryField> getField(String fieldName) {
+        return fields.stream()
+                .filter(field -> field.getName().equals(fieldName))
+                .findFirst();
+    }
+
+    @Override
+    public String toString() {
+        return "LibraryClass [name=" + name + ", super=" + superName + ", fields=" + fields + ", methods=" + methods + "]";
+    }
+}
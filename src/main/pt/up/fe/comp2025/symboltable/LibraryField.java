@@ -0,0 +1,40 @@
+package pt.up.fe.comp2025.symboltable;
+
+import pt.up.fe.comp.jmm.analysis.table.Type;
+
+/**
+ * Signature of a field declared in a compiled library class.
+ */
+public class LibraryField {
+
+    private final String name;
+    private final String descriptor;
+    private final boolean isStatic;
+
+    public LibraryField(String name, String descriptor, boolean isStatic) {
+        this.name = name;
+        this.descriptor = descriptor;
+        this.isStatic = isStatic;
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public String getDescriptor() {
+        return descriptor;
+    }
+
+    public boolean isStatic() {
+        return isStatic;
+    }
+
+    public Type getType(JmmInterner interner) {
+        return LibraryMethod.descriptorToType(descriptor, 0, interner);
+    }
+
+    @Override
+    public String toString() {
+        return (isStatic ? "static " : "") + name + " " + descriptor;
+    }
+}
@@ -0,0 +1,129 @@
+package pt.up.fe.comp2025.symboltable;
+
+import pt.up.fe.comp.jmm.analysis.table.Type;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Signature of a method declared in a compiled library class.
+ * <p>
+ * The signature is kept as a JVM descriptor (e.g. "(II)I"), which does not depend on any compilation. It is converted
+ * to {@link Type}s of a given compilation on request.
+ */
+public class LibraryMethod {
+
+    private final String name;
+    private final String descriptor;
+    private final boolean isStatic;
+    private final boolean isVarargs;
+    private final List<String> paramDescriptors;
+    private final String returnDescriptor;
+
+    public LibraryMethod(String name, String descriptor, boolean isStatic, boolean isVarargs) {
+        this.name = name;
+        this.descriptor = descriptor;
+        this.isStatic = isStatic;
+        this.isVarargs = isVarargs;
+
+        int closeParen = descriptor.indexOf(')');
+        this.paramDescriptors = Collections.unmodifiableList(splitParams(descriptor.substring(1, closeParen)));
+        this.returnDescriptor = descriptor.substring(closeParen + 1);
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public String getDescriptor() {
+        return descriptor;
+    }
+
+    public boolean isStatic() {
+        return isStatic;
+    }
+
+    public boolean isVarargs() {
+        return isVarargs;
+    }
+
+    public int getNumParams() {
+        return paramDescriptors.size();
+    }
+
+    public List<Type> getParamTypes(JmmInterner interner) {
+        List<Type> types = new ArrayList<>(paramDescriptors.size());
+        for (String param : paramDescriptors) {
+            types.add(descriptorToType(param, 0, interner));
+        }
+        return types;
+    }
+
+    public Type getReturnType(JmmInterner interner) {
+        return descriptorToType(returnDescriptor, 0, interner);
+    }
+
+    /**
+     * Checks if the method accepts the given number of arguments, taking varargs into account.
+     */
+    public boolean acceptsArity(int numArgs) {
+        if (isVarargs) {
+            return numArgs >= paramDescriptors.size() - 1;
+        }
+        return numArgs == paramDescriptors.size();
+    }
+
+    @Override
+    public String toString() {
+        return (isStatic ? "static " : "") + name + descriptor;
+    }
+
+    private static List<String> splitParams(String params) {
+        List<String> result = new ArrayList<>();
+        int i = 0;
+        while (i < params.length()) {
+            int start = i;
+            while (params.charAt(i) == '[') {
+                i++;
+            }
+            if (params.charAt(i) == 'L') {
+                i = params.indexOf(';', i);
+            }
+            i++;
+            result.add(params.substring(start, i));
+        }
+        return result;
+    }
+
+    /**
+     * Converts a field descriptor into the equivalent Java-- type. Class types use their simple name, since that is
+     * how imported classes are referred to in Java-- code. Multi-dimensional arrays are reported as one-dimensional.
+     */
+    static Type descriptorToType(String descriptor, int index, JmmInterner interner) {
+        boolean isArray = false;
+        while (descriptor.charAt(index) == '[') {
+            isArray = true;
+            index++;
+        }
+
+        String name = switch (descriptor.charAt(index)) {
+            case 'I' -> "int";
+            case 'Z' -> "boolean";
+            case 'V' -> "void";
+            case 'B' -> "byte";
+            case 'C' -> "char";
+            case 'S' -> "short";
+            case 'J' -> "long";
+            case 'F' -> "float";
+            case 'D' -> "double";
+            case 'L' -> {
+                String className = descriptor.substring(index + 1, descriptor.indexOf(';', index));
+                yield className.substring(className.lastIndexOf('/') + 1);
+            }
+            default -> throw new RuntimeException("Invalid type descriptor: " + descriptor);
+        };
+
+        return interner.type(name, isArray);
+    }
+}
@@ -0,0 +1,145 @@
+package pt.up.fe.comp.cp1;
+
+import org.junit.Test;
+import pt.up.fe.comp.TestUtils;
+import pt.up.fe.comp2025.symboltable.ClassFileIndex;
+import pt.up.fe.comp2025.symboltable.ClassFileReader;
+import pt.up.fe.comp2025.symboltable.JmmInterner;
+import pt.up.fe.comp2025.symboltable.LibraryMethod;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.Assert.*;
+
+/**
+ * Test the index of the signatures of compiled library classes.
+ */
+public class ClassFileIndexTest {
+
+    private static ByteBuffer readJdkClass(String name) throws IOException {
+        try (InputStream stream = Object.class.getResourceAsStream("/" + name.replace('.', '/') + ".class")) {
+            assertNotNull(name, stream);
+            return ByteBuffer.wrap(stream.readAllBytes());
+        }
+    }
+
+    @Test
+    public void readLibraryClass() {
+        var io = ClassFileIndex.getDefault().getClass("io");
+        assertTrue(io.isPresent());
+        assertEquals("java.lang.Object", io.get().getSuperName());
+
+        var println = io.get().getMethods("println");
+        assertFalse(println.isEmpty());
+
+        LibraryMethod printInt = println.stream()
+                .filter(method -> method.getDescriptor().equals("(I)V"))
+                .findFirst()
+                .orElseThrow();
+        var interner = new JmmInterner();
+        assertTrue(printInt.isStatic());
+        assertEquals(List.of(interner.intType()), printInt.getParamTypes(interner));
+        assertSame(interner.voidType(), printInt.getReturnType(interner));
+    }
+
+    @Test
+    public void readJdkClass() throws IOException {
+        // A class of the JDK has every kind of constant pool entry a recent compiler emits
+        var integer = new ClassFileReader(readJdkClass("java.lang.Integer")).read();
+
+        assertEquals("java.lang.Integer", integer.getName());
+        assertEquals("java.lang.Number", integer.getSuperName());
+        assertTrue(integer.getMethods("parseInt").stream()
+                .anyMatch(method -> method.isStatic() && method.getDescriptor().equals("(Ljava/lang/String;)I")));
+        assertTrue(integer.getField("MAX_VALUE").isPresent());
+
+        var interner = new JmmInterner();
+        var valueOf = integer.getMethods("valueOf").stream()
+                .filter(method -> method.getDescriptor().equals("(I)Ljava/lang/Integer;"))
+                .findFirst()
+                .orElseThrow();
+        assertSame(interner.type("Integer", false), valueOf.getReturnType(interner));
+    }
+
+    @Test
+    public void readVarargs() throws IOException {
+        var string = new ClassFileReader(readJdkClass("java.lang.String")).read();
+
+        var format = string.getMethods("format").stream()
+                .filter(method -> method.getDescriptor().equals("(Ljava/lang/String;[Ljava/lang/Object;)Ljava/lang/String;"))
+                .findFirst()
+                .orElseThrow();
+        assertTrue(format.isVarargs());
+        assertTrue(format.acceptsArity(1));
+        assertTrue(format.acceptsArity(3));
+    }
+
+    @Test
+    public void invalidClassFile() {
+        var buffer = ByteBuffer.wrap(new byte[]{0, 1, 2, 3, 4, 5, 6, 7});
+        try {
+            new ClassFileReader(buffer).read();
+            fail("Expected an exception for an invalid class file");
+        } catch (RuntimeException e) {
+            assertTrue(e.getMessage().contains("magic"));
+        }
+    }
+
+    @Test
+    public void superClassMethods() {
+        var index = ClassFileIndex.getDefault();
+
+        var b = index.getClass("inheritanceAB.B");
+        assertTrue(b.isPresent());
+        assertEquals("inheritanceAB.A", b.get().getSuperName());
+
+        // Methods of the class come before those of its super classes
+        var methods = index.findMethods("inheritanceAB.B", "a");
+        assertFalse(methods.isEmpty());
+        assertSame(b.get().getMethods("a").get(0), methods.get(0));
+    }
+
+    @Test
+    public void resolveImports() {
+        var index = ClassFileIndex.getDefault();
+
+        assertTrue(index.resolve("B", List.of("io", "inheritanceAB.B")).isPresent());
+        assertTrue(index.resolve("io", List.of("io")).isPresent());
+        assertTrue(index.resolve("Missing", List.of("io")).isEmpty());
+        assertTrue(index.getClass("Missing").isEmpty());
+    }
+
+    @Test
+    public void signaturesShared() {
+        // Decoded signatures are cached by file contents, across indexes
+        var first = ClassFileIndex.getDefault().getClass("io").orElseThrow();
+        var second = ClassFileIndex.getDefault().getClass("io").orElseThrow();
+        assertSame(first, second);
+    }
+
+    @Test
+    public void signaturesCacheBounded() throws IOException {
+        var io = ClassFileIndex.getDefault().getClass("io").orElseThrow();
+
+        // Bytes after the end of a class file change its hash, but not its signatures
+        byte[] ioBytes = Files.readAllBytes(Paths.get(TestUtils.getLibsClasspath(), "io.class"));
+        Path folder = Files.createTempDirectory("classes");
+        Path copy = folder.resolve("io.class");
+        for (int i = 0; i < 600; i++) {
+            Files.write(copy, Arrays.copyOf(ioBytes, ioBytes.length + 1 + i));
+            new ClassFileIndex(List.of(folder)).getClass("io").orElseThrow();
+        }
+        Files.delete(copy);
+        Files.delete(folder);
+
+        // Reading more classes than the cache keeps dropped the least recently used ones
+        assertNotSame(io, ClassFileIndex.getDefault().getClass("io").orElseThrow());
+    }
+}
@@ -0,0 +1,134 @@
+package pt.up.fe.comp.cp1;
+
+import org.junit.Test;
+import pt.up.fe.comp.TestUtils;
+import pt.up.fe.comp.jmm.analysis.JmmSemanticsResult;
+import pt.up.fe.comp.jmm.report.Report;
+import pt.up.fe.comp2025.ConfigOptions;
+import pt.up.fe.comp2025.analysis.IncrementalAnalysis;
+import pt.up.fe.comp2025.analysis.JmmAnalysisImpl;
+import pt.up.fe.specs.util.SpecsIo;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.Assert.*;
+
+/**
+ * Test that the analysis of a class reuses the reports of the methods that did not change.
+ */
+public class IncrementalAnalysisTest {
+
+    private static final String BASE_PATH = "pt/up/fe/comp/cp1/incremental/";
+
+    /**
+     * Analyses the code as a separate compilation (a new analysis stage) that shares the given cache.
+     */
+    static JmmSemanticsResult analyse(IncrementalAnalysis cache, String code, Map<String, String> config) {
+        var parserResult = TestUtils.parse(code, config);
+        TestUtils.noErrors(parserResult.getReports());
+        return new JmmAnalysisImpl(cache).semanticAnalysis(parserResult);
+    }
+
+    static JmmSemanticsResult analyse(IncrementalAnalysis cache, String code) {
+        return analyse(cache, code, new HashMap<>());
+    }
+
+    @Test
+    public void secondCompilationReusesMethods() {
+        var cache = new IncrementalAnalysis();
+        String code = SpecsIo.getResource(BASE_PATH + "Counter.jmm");
+
+        var first = analyse(cache, code);
+        TestUtils.noErrors(first);
+        assertEquals(3, cache.getLastAnalyzedMethods());
+        assertEquals(0, cache.getLastReusedMethods());
+
+        var second = analyse(cache, code);
+        TestUtils.noErrors(second);
+        assertEquals(0, cache.getLastAnalyzedMethods());
+        assertEquals(3, cache.getLastReusedMethods());
+    }
+
+    @Test
+    public void changedBodyIsAnalysed() {
+        var cache = new IncrementalAnalysis();
+        String code = SpecsIo.getResource(BASE_PATH + "Counter.jmm");
+        analyse(cache, code);
+
+        // Same line count, so only the changed method has different positions
+        var changed = analyse(cache, code.replace("return count < 1;", "return count;"));
+        TestUtils.mustFail(changed);
+        assertEquals(1, cache.getLastAnalyzedMethods());
+        assertEquals(2, cache.getLastReusedMethods());
+
+        // The cached reports are not those of the previous version
+        var fixed = analyse(cache, code);
+        TestUtils.noErrors(fixed);
+        assertEquals(1, cache.getLastAnalyzedMethods());
+    }
+
+    @Test
+    public void changedCalleeSignature() {
+        var cache = new IncrementalAnalysis();
+        String code = SpecsIo.getResource(BASE_PATH + "Counter.jmm");
+        analyse(cache, code);
+
+        // Both 'add' and its caller 'twice' depend on the signature of 'add'
+        var changed = analyse(cache, code.replace("public int add(int n)", "public int add(boolean n)"));
+        TestUtils.mustFail(changed);
+        assertEquals(2, cache.getLastAnalyzedMethods());
+        assertEquals(1, cache.getLastReusedMethods());
+    }
+
+    @Test
+    public void changedLibrarySignature() throws IOException {
+        Path libraries = Files.createTempDirectory("jmmi");
+        Path lib = libraries.resolve("Lib.jmmi");
+        Files.writeString(lib, "jmmi 1\nclass Lib\nmethod compute (I)I\n");
+
+        Map<String, String> config = new HashMap<>();
+        config.put(ConfigOptions.getInterfacePath(), libraries.toString());
+
+        var cache = new IncrementalAnalysis();
+        String code = SpecsIo.getResource(BASE_PATH + "UsesLibrary.jmm");
+
+        var first = analyse(cache, code, config);
+        TestUtils.noErrors(first);
+        assertEquals(2, cache.getLastAnalyzedMethods());
+
+        analyse(cache, code, config);
+        assertEquals(2, cache.getLastReusedMethods());
+
+        // The source did not change, but the method it calls now returns a boolean
+        Files.writeString(lib, "jmmi 1\nclass Lib\nmethod compute (I)Z\nmethod other ()V\n");
+        var changed = analyse(cache, code, config);
+        assertEquals(1, cache.getLastAnalyzedMethods());
+        assertEquals(1, cache.getLastReusedMethods());
+        TestUtils.mustFail(changed);
+    }
+
+    @Test
+    public void sameReportsAsFreshAnalysis() {
+        String code = SpecsIo.getResource(BASE_PATH + "Counter.jmm").replace("return count < 1;", "return count;");
+
+        var cache = new IncrementalAnalysis();
+        analyse(cache, code);
+        var reused = analyse(cache, code);
+        var fresh = analyse(new IncrementalAnalysis(), code);
+        assertEquals(messages(fresh.getReports()), messages(reused.getReports()));
+
+        // Without a cache, the passes run over the whole class at once
+        var parserResult = TestUtils.parse(code);
+        var uncached = new JmmAnalysisImpl().semanticAnalysis(parserResult);
+        assertEquals(messages(fresh.getReports()), messages(uncached.getReports()));
+    }
+
+    private static List<String> messages(List<Report> reports) {
+        return reports.stream().map(Report::toString).sorted().toList();
+    }
+}
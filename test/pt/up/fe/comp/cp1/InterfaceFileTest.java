@@ -0,0 +1,109 @@
+package pt.up.fe.comp.cp1;
+
+import org.junit.Test;
+import pt.up.fe.comp.TestUtils;
+import pt.up.fe.comp2025.ConfigOptions;
+import pt.up.fe.comp2025.symboltable.InterfaceFile;
+import pt.up.fe.comp2025.symboltable.JmmSymbolTable;
+import pt.up.fe.comp2025.symboltable.LibraryClass;
+import pt.up.fe.comp2025.symboltable.LibraryMethod;
+import pt.up.fe.specs.util.SpecsIo;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.HashMap;
+import java.util.Map;
+
+import static org.junit.Assert.*;
+
+/**
+ * Test the interface files written for compiled classes and their use when importing those classes.
+ */
+public class InterfaceFileTest {
+
+    private static final String BASE_PATH = "pt/up/fe/comp/cp1/interfaces/";
+
+    private static JmmSymbolTable getTable(String filename) {
+        var result = TestUtils.analyse(SpecsIo.getResource(BASE_PATH + filename));
+        TestUtils.noErrors(result);
+        return (JmmSymbolTable) result.getSymbolTable();
+    }
+
+    private static LibraryMethod getMethod(LibraryClass libraryClass, String name) {
+        var methods = libraryClass.getMethods(name);
+        assertEquals(name, 1, methods.size());
+        return methods.get(0);
+    }
+
+    @Test
+    public void roundTrip() {
+        var table = getTable("Shape.jmm");
+        String contents = InterfaceFile.toString(table);
+        var shape = InterfaceFile.read(ByteBuffer.wrap(contents.getBytes(StandardCharsets.UTF_8)));
+
+        assertEquals("Shape", shape.getName());
+        assertEquals("inheritanceAB.A", shape.getSuperName());
+
+        assertEquals("I", shape.getField("sides").orElseThrow().getDescriptor());
+        assertEquals("[Z", shape.getField("flags").orElseThrow().getDescriptor());
+        assertEquals("LShape;", shape.getField("next").orElseThrow().getDescriptor());
+
+        assertEquals("(II)I", getMethod(shape, "area").getDescriptor());
+        assertTrue(getMethod(shape, "sum").isVarargs());
+        assertEquals("(LShape;[I)LShape;", getMethod(shape, "link").getDescriptor());
+        assertTrue(getMethod(shape, "main").isStatic());
+        assertEquals("([Ljava/lang/String;)V", getMethod(shape, "main").getDescriptor());
+
+        // The types read back are those of the source
+        var interner = table.getInterner();
+        assertSame(table.getReturnType("link"), getMethod(shape, "link").getReturnType(interner));
+        assertEquals(table.getParameters("area").stream().map(param -> param.getType()).toList(),
+                getMethod(shape, "area").getParamTypes(interner));
+    }
+
+    @Test
+    public void invalidInterfaceFile() {
+        try {
+            InterfaceFile.read(ByteBuffer.wrap("class Shape\n".getBytes(StandardCharsets.UTF_8)));
+            fail("Expected an exception for a file without header");
+        } catch (RuntimeException e) {
+            // Expected
+        }
+    }
+
+    @Test
+    public void importFromInterfaceFile() throws IOException {
+        Path folder = Files.createTempDirectory("jmmi");
+        Path file = InterfaceFile.write(getTable("Shape.jmm"), folder);
+        assertEquals(folder.resolve("Shape" + InterfaceFile.EXTENSION), file);
+
+        Map<String, String> config = new HashMap<>();
+        config.put(ConfigOptions.getInterfacePath(), folder.toString());
+
+        var result = TestUtils.analyse(SpecsIo.getResource(BASE_PATH + "UsesShape.jmm"), config);
+        TestUtils.noErrors(result);
+
+        // The wrong number of arguments is only known from the interface file
+        var wrongCall = TestUtils.analyse(SpecsIo.getResource(BASE_PATH + "UsesShape.jmm")
+                .replace("s.area(2, 3)", "s.area(2)"), config);
+        TestUtils.mustFail(wrongCall);
+    }
+
+    @Test
+    public void outputOnlyWhenGiven() {
+        Map<String, String> config = new HashMap<>();
+        config.put(ConfigOptions.getInputFile(), "some/folder/Shape.jmm");
+
+        // Without an explicit output folder nothing is written, but imports are still looked up next to the input
+        assertTrue(ConfigOptions.getOutputDir(config).isEmpty());
+        assertEquals(new File("some/folder").getAbsoluteFile(), ConfigOptions.getInterfacePath(config).get(0));
+
+        config.put(ConfigOptions.getOutputDir(), "out");
+        assertEquals(new File("out"), ConfigOptions.getOutputDir(config).orElseThrow());
+        assertEquals(new File("out"), ConfigOptions.getInterfacePath(config).get(0));
+    }
+}
@@ -0,0 +1,182 @@
+package pt.up.fe.comp.cp1;
+
+import org.junit.Test;
+import pt.up.fe.comp.TestUtils;
+import pt.up.fe.comp.jmm.analysis.table.SymbolTable;
+import pt.up.fe.comp.jmm.ast.JmmNode;
+import pt.up.fe.comp.jmm.report.Report;
+import pt.up.fe.comp.jmm.report.ReportType;
+import pt.up.fe.comp.jmm.report.Stage;
+import pt.up.fe.comp2025.ConfigOptions;
+import pt.up.fe.comp2025.analysis.AnalysisFact;
+import pt.up.fe.comp2025.analysis.AnalysisPass;
+import pt.up.fe.comp2025.analysis.PassScheduler;
+import pt.up.fe.comp2025.ast.Kind;
+import pt.up.fe.specs.util.SpecsIo;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import static org.junit.Assert.*;
+
+/**
+ * Test the scheduling of analysis passes from the facts they produce and need.
+ */
+public class PassSchedulerTest {
+
+    private static final String CODE = "class A { public int foo(int a) { return a; } }";
+
+    /**
+     * A pass that records that it ran, and reports an error if asked to.
+     */
+    private static AnalysisPass pass(String name, Set<AnalysisFact> produces, Set<AnalysisFact> needs,
+                                     Set<Kind> reads, boolean fails, List<String> ran) {
+        return new AnalysisPass() {
+            @Override
+            public List<Report> analyze(JmmNode root, SymbolTable table) {
+                synchronized (ran) {
+                    ran.add(name);
+                }
+                return fails ? List.of(Report.newError(Stage.SEMANTIC, -1, -1, name, null)) : List.of();
+            }
+
+            @Override
+            public String getName() {
+                return name;
+            }
+
+            @Override
+            public Set<AnalysisFact> produces() {
+                return produces;
+            }
+
+            @Override
+            public Set<AnalysisFact> needs() {
+                return needs;
+            }
+
+            @Override
+            public Set<Kind> reads() {
+                return reads;
+            }
+        };
+    }
+
+    private static AnalysisPass pass(String name, Set<AnalysisFact> produces, Set<AnalysisFact> needs,
+                                     List<String> ran) {
+        return pass(name, produces, needs, Set.of(), false, ran);
+    }
+
+    private static List<String> names(List<AnalysisPass> wave) {
+        return wave.stream().map(AnalysisPass::getName).toList();
+    }
+
+    @Test
+    public void wavesFollowDependencies() {
+        List<String> ran = new ArrayList<>();
+        var declarations = pass("declarations", Set.of(AnalysisFact.UNIQUE_DECLARATIONS), Set.of(), ran);
+        var types = pass("types", Set.of(AnalysisFact.WELL_FORMED_TYPES), Set.of(), ran);
+        var names = pass("names", Set.of(AnalysisFact.RESOLVED_NAMES), Set.of(AnalysisFact.UNIQUE_DECLARATIONS), ran);
+        var expressions = pass("expressions", Set.of(AnalysisFact.TYPED_EXPRESSIONS),
+                Set.of(AnalysisFact.RESOLVED_NAMES, AnalysisFact.WELL_FORMED_TYPES), ran);
+
+        // The order of the list does not matter, only the facts
+        var scheduler = new PassScheduler(List.of(expressions, names, types, declarations), false);
+        var waves = scheduler.getWaves();
+
+        assertEquals(3, waves.size());
+        assertEquals(List.of("types", "declarations"), names(waves.get(0)));
+        assertEquals(List.of("names"), names(waves.get(1)));
+        assertEquals(List.of("expressions"), names(waves.get(2)));
+
+        scheduler.run(TestUtils.parse(CODE).getRootNode(), null);
+        assertEquals(List.of("types", "declarations", "names", "expressions"), ran);
+    }
+
+    @Test
+    public void missingProducer() {
+        List<String> ran = new ArrayList<>();
+        var names = pass("names", Set.of(AnalysisFact.RESOLVED_NAMES), Set.of(AnalysisFact.UNIQUE_DECLARATIONS), ran);
+
+        try {
+            new PassScheduler(List.of(names), false);
+            fail("Expected an exception for a fact no pass produces");
+        } catch (RuntimeException e) {
+            assertTrue(e.getMessage().contains("no pass produces it"));
+        }
+    }
+
+    @Test
+    public void cyclicDependency() {
+        List<String> ran = new ArrayList<>();
+        var first = pass("first", Set.of(AnalysisFact.RESOLVED_NAMES), Set.of(AnalysisFact.VALID_CALLS), ran);
+        var second = pass("second", Set.of(AnalysisFact.VALID_CALLS), Set.of(AnalysisFact.RESOLVED_NAMES), ran);
+
+        try {
+            new PassScheduler(List.of(first, second), false);
+            fail("Expected an exception for a cycle between passes");
+        } catch (RuntimeException e) {
+            assertTrue(e.getMessage().contains("Cyclic"));
+        }
+    }
+
+    @Test
+    public void errorsSkipDependentPasses() {
+        List<String> ran = new ArrayList<>();
+        var declarations = pass("declarations", Set.of(AnalysisFact.UNIQUE_DECLARATIONS), Set.of(), Set.of(),
+                true, ran);
+        var types = pass("types", Set.of(AnalysisFact.WELL_FORMED_TYPES), Set.of(), ran);
+        var names = pass("names", Set.of(AnalysisFact.RESOLVED_NAMES), Set.of(AnalysisFact.UNIQUE_DECLARATIONS), ran);
+        var expressions = pass("expressions", Set.of(AnalysisFact.TYPED_EXPRESSIONS),
+                Set.of(AnalysisFact.RESOLVED_NAMES), ran);
+        var wellFormed = pass("wellFormed", Set.of(), Set.of(AnalysisFact.WELL_FORMED_TYPES), ran);
+
+        var scheduler = new PassScheduler(List.of(declarations, types, names, expressions, wellFormed), false);
+        var reports = scheduler.run(TestUtils.parse(CODE).getRootNode(), null);
+
+        // Skipping 'names' also leaves its own facts unestablished, so 'expressions' is skipped as well
+        assertEquals(List.of("declarations", "types", "wellFormed"), ran);
+        assertEquals(1, reports.size());
+        assertEquals("declarations", reports.get(0).getMessage());
+    }
+
+    @Test
+    public void absentKindsSkipPass() {
+        List<String> ran = new ArrayList<>();
+        var arrays = pass("arrays", Set.of(), Set.of(), Set.of(Kind.ARRAY_ACCESS_EXPR), false, ran);
+        var methods = pass("methods", Set.of(), Set.of(), Set.of(Kind.METHOD_DECL), false, ran);
+
+        new PassScheduler(List.of(arrays, methods), false).run(TestUtils.parse(CODE).getRootNode(), null);
+
+        assertEquals(List.of("methods"), ran);
+    }
+
+    @Test
+    public void errorsHideDependentReports() {
+        var result = TestUtils.analyse(SpecsIo.getResource("pt/up/fe/comp/cp1/scheduling/DuplicateAndTypeError.jmm"));
+        TestUtils.mustFail(result);
+
+        // The type error is only checked once the declarations are known to be unique
+        assertTrue(result.getReports().stream()
+                .filter(report -> report.getType() == ReportType.ERROR)
+                .allMatch(report -> report.getMessage().startsWith("Duplicate")));
+    }
+
+    @Test
+    public void parallelSameReports() {
+        String code = SpecsIo.getResource("pt/up/fe/comp/cp1/scheduling/SeveralErrors.jmm");
+
+        var sequential = TestUtils.analyse(code, new HashMap<>(Map.of(ConfigOptions.getParallelAnalysis(), "false")));
+        var parallel = TestUtils.analyse(code, new HashMap<>(Map.of(ConfigOptions.getParallelAnalysis(), "true")));
+
+        TestUtils.mustFail(sequential);
+        assertEquals(messages(sequential.getReports()), messages(parallel.getReports()));
+    }
+
+    private static List<String> messages(List<Report> reports) {
+        return reports.stream().map(Report::getMessage).toList();
+    }
+}
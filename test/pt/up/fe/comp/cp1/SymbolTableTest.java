@@ -3,8 +3,16 @@ package pt.up.fe.comp.cp1;
 import org.junit.Test;
 import pt.up.fe.comp.TestUtils;
 import pt.up.fe.comp.jmm.analysis.JmmSemanticsResult;
+import pt.up.fe.comp.jmm.analysis.table.Symbol;
+import pt.up.fe.comp.jmm.analysis.table.Type;
+import pt.up.fe.comp2025.ast.Kind;
+import pt.up.fe.comp2025.ast.TypeUtils;
+import pt.up.fe.comp2025.symboltable.JmmSymbolTable;
 import pt.up.fe.specs.util.SpecsIo;
 
+import java.util.ArrayList;
+import java.util.List;
+
 import static org.junit.Assert.*;
 
 /**
@@ -164,5 +172,68 @@ public class SymbolTableTest {
 
     }
 
+    @Test
+    public void CanonicalTypes() {
+        var semantics = test("customsymboltable/Canonical.jmm", false);
+        var st = (JmmSymbolTable) semantics.getSymbolTable();
+        var interner = st.getInterner();
+
+        // Equal types must be the same instance, since the semantic checks compare types by reference
+        List<Symbol> symbols = new ArrayList<>(st.getFields());
+        for (var method : st.getMethods()) {
+            symbols.addAll(st.getParameters(method));
+            symbols.addAll(st.getLocalVariables(method));
+            assertSame(interner.type(st.getReturnType(method)), st.getReturnType(method));
+        }
+        for (var symbol : symbols) {
+            assertSame(symbol.getName(), interner.type(symbol.getType()), symbol.getType());
+        }
+
+        assertSame(interner.intArrayType(), st.getParameters("sum").get(0).getType());
+        assertSame(st.getFields().get(0).getType(), st.getLocalVariables("sum").get(2).getType());
+        assertSame(st.getFields().get(1).getType(), st.getReturnType("link"));
+        assertSame(interner.intType(), interner.elementType(interner.intArrayType()));
+    }
+
+    @Test
+    public void CanonicalExpressionTypes() {
+        var semantics = test("customsymboltable/Canonical.jmm", false);
+        var types = new TypeUtils(semantics.getSymbolTable());
+        var interner = types.getInterner();
+
+        for (var method : semantics.getRootNode().getDescendants(Kind.METHOD_DECL)) {
+            String methodName = method.get("name").equals("args") ? "main" : method.get("name");
+            for (var expr : method.getDescendants()) {
+                if (!expr.getKind().endsWith("Expr") && !expr.getKind().endsWith("Literal")) {
+                    continue;
+                }
+                Type type = types.getExprType(expr, methodName);
+                if (type != null) {
+                    assertSame(expr.toString(), interner.type(type), type);
+                }
+            }
+        }
+    }
+
+    @Test
+    public void DenseSymbolIds() {
+        var semantics = test("customsymboltable/Canonical.jmm", false);
+        var st = (JmmSymbolTable) semantics.getSymbolTable();
+        var interner = st.getInterner();
+
+        List<Symbol> symbols = new ArrayList<>(st.getFields());
+        for (var method : st.getMethods()) {
+            symbols.addAll(st.getParameters(method));
+            symbols.addAll(st.getLocalVariables(method));
+        }
 
+        // Every symbol of the table has its own id, and the ids are 0, 1, 2, ...
+        assertEquals(symbols.size(), interner.symbolCount());
+        for (var symbol : symbols) {
+            int id = interner.idOf(symbol);
+            assertTrue(symbol.getName(), id >= 0 && id < interner.symbolCount());
+            assertSame(symbol, interner.symbolOf(id));
+        }
+        assertEquals(-1, interner.idOf(new Symbol(interner.intType(), "other")));
+    }
 }
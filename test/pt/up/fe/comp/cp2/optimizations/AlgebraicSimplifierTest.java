@@ -0,0 +1,50 @@
+package pt.up.fe.comp.cp2.optimizations;
+
+import org.junit.Test;
+import org.specs.comp.ollir.OperationType;
+import org.specs.comp.ollir.inst.CallInstruction;
+import pt.up.fe.comp.CpUtils;
+
+import static pt.up.fe.comp.cp2.optimizations.OptimizationTestUtils.*;
+
+/**
+ * Test the algebraic simplification of expressions with some constant operands.
+ */
+public class AlgebraicSimplifierTest {
+
+    @Test
+    public void algebraicIdentities() {
+        var optimized = assertSameOutputOpt("algebraic/Simplify.jmm");
+
+        // (x + 0) * 1 + (x - x) and !!(b == true) && true
+        CpUtils.assertEquals("Expected 'identities' to return x", 1,
+                CpUtils.getMethod(optimized, "identities").getInstructions().size(), optimized);
+        CpUtils.assertEquals("Expected 'logic' to return b", 1,
+                CpUtils.getMethod(optimized, "logic").getInstructions().size(), optimized);
+    }
+
+    @Test
+    public void algebraicOverflow() {
+        var optimized = assertSameOutputOpt("algebraic/Simplify.jmm");
+
+        // 65536 * 65536 wraps around to 0
+        CpUtils.assertLiteralReturn("0", CpUtils.getMethod(optimized, "mulChainOverflow"), optimized);
+
+        // MAX_VALUE + 1 is MIN_VALUE, which has no literal, so the chain stays
+        CpUtils.assertNumberOfOperations(OperationType.ADD, 2, CpUtils.getMethod(optimized, "addChainOverflow"),
+                optimized);
+
+        var subChain = CpUtils.getMethod(optimized, "subChain");
+        CpUtils.assertNumberOfOperations(OperationType.ADD, 1, subChain, optimized);
+        CpUtils.assertFindLiteral("2147483646", subChain, optimized);
+    }
+
+    @Test
+    public void algebraicKeepsEffects() {
+        var optimized = assertSameOutputOpt("algebraic/Simplify.jmm");
+
+        // x * 0 is only 0 when computing x has no effects and cannot throw
+        CpUtils.assertInstExists(CallInstruction.class, CpUtils.getMethod(optimized, "zeroKeepsCall"), optimized);
+        CpUtils.assertHasOperation(OperationType.DIV, CpUtils.getMethod(optimized, "zeroKeepsDivision"), optimized);
+    }
+}
@@ -0,0 +1,63 @@
+package pt.up.fe.comp.cp2.optimizations;
+
+import org.junit.Test;
+import org.specs.comp.ollir.VarScope;
+import pt.up.fe.comp.CpUtils;
+import pt.up.fe.comp.TestUtils;
+import pt.up.fe.comp2025.ast.TypeUtils;
+import pt.up.fe.comp2025.optimization.MethodBindings;
+import pt.up.fe.specs.util.SpecsIo;
+
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static pt.up.fe.comp.cp2.optimizations.OptimizationTestUtils.*;
+
+/**
+ * Test the resolution of the names of a method through its bindings.
+ */
+public class BindingsTest {
+
+    @Test
+    public void bindingsResolveShadowedNames() {
+        var semantics = TestUtils.analyse(SpecsIo.getResource(BASE_PATH + "bindings/Shadowing.jmm"));
+        var table = semantics.getSymbolTable();
+        var interner = new TypeUtils(table).getInterner();
+
+        var local = MethodBindings.of(table, "local", interner).get("x");
+        assertEquals(VarScope.LOCAL, local.scope());
+        assertEquals(interner.booleanType(), local.type());
+
+        var parameter = MethodBindings.of(table, "parameter", interner).get("v");
+        assertEquals(VarScope.PARAMETER, parameter.scope());
+        assertEquals(0, parameter.parameterIndex());
+
+        var field = MethodBindings.of(table, "fields", interner).get("data");
+        assertTrue(field.isField());
+        assertEquals(interner.intArrayType(), field.type());
+    }
+
+    @Test
+    public void bindingsLocalsShadowFields() {
+        var original = getOllirResult("bindings/Shadowing.jmm");
+
+        // Locals and parameters hide the fields of the same name, whatever their types
+        for (String methodName : List.of("local", "parameter")) {
+            String code = getMethodCode(original, methodName);
+            CpUtils.assertTrue("Expected '" + methodName + "' not to use the fields",
+                    !code.contains("getfield") && !code.contains("putfield"), original);
+        }
+        CpUtils.assertTrue("Expected the local x of 'local' to be a boolean",
+                getMethodCode(original, "local").contains("x.bool :=.bool"), original);
+
+        String fields = getMethodCode(original, "fields");
+        CpUtils.assertEquals("Expected 'fields' to store x, v and data", 3, countOccurrences(fields, "putfield"),
+                original);
+        CpUtils.assertTrue("Expected the array of 'fields' to be read from its field",
+                fields.contains("getfield(this.Shadowing, data.array.i32)"), original);
+
+        assertEquals("9\n11\n5\n1\n3", run(original));
+        assertSameOutputOpt("bindings/Shadowing.jmm");
+    }
+}
@@ -0,0 +1,43 @@
+package pt.up.fe.comp.cp2.optimizations;
+
+import org.junit.Test;
+import pt.up.fe.comp.CpUtils;
+
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+import static pt.up.fe.comp.cp2.optimizations.OptimizationTestUtils.*;
+
+/**
+ * Test the lowering of if and while conditions to jumps.
+ */
+public class ConditionLoweringTest {
+
+    @Test
+    public void conditionsBranchWithoutTemporaries() {
+        var original = getOllirResult("conditions/Jumps.jmm");
+
+        // Nested &&, || and ! in if and while conditions branch straight to their targets
+        for (String methodName : List.of("branches", "loop", "shortCircuit")) {
+            String code = getMethodCode(original, methodName);
+            CpUtils.assertEquals("Expected no boolean values in '" + methodName + "' but the results of calls",
+                    countOccurrences(code, "invokevirtual"), countOccurrences(code, ":=.bool"), original);
+            CpUtils.assertTrue("Expected the negations of '" + methodName + "' to swap the targets",
+                    !code.contains("!.bool"), original);
+        }
+
+        // Booleans that are stored or passed are still values
+        String values = getMethodCode(original, "values");
+        CpUtils.assertTrue("Expected the stored conditions to be materialised",
+                values.contains("lt.bool :=.bool") && values.contains("any.bool :=.bool"), original);
+        CpUtils.assertTrue("Expected the negated argument to be materialised", values.contains("!.bool lt.bool"),
+                original);
+    }
+
+    @Test
+    public void conditionsShortCircuit() {
+        // Calls in conditions run only while the result is unknown
+        assertEquals("1\n1\n11\n8\n0\n102\n3\n2\n11\n110\n0", run(getOllirResult("conditions/Jumps.jmm")));
+        assertSameOutputOpt("conditions/Jumps.jmm");
+    }
+}
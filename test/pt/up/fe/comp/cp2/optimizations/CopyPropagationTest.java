@@ -0,0 +1,34 @@
+package pt.up.fe.comp.cp2.optimizations;
+
+import org.junit.Test;
+import org.specs.comp.ollir.OperationType;
+import pt.up.fe.comp.CpUtils;
+
+import static pt.up.fe.comp.cp2.optimizations.OptimizationTestUtils.*;
+
+/**
+ * Test the copy propagation and the coalescing of temporaries of the SSA IR.
+ */
+public class CopyPropagationTest {
+
+    @Test
+    public void copiesChain() {
+        var original = getOllirResult("copies/Copies.jmm");
+        var optimized = assertSameOutputOpt("copies/Copies.jmm");
+
+        // c := a; d := c; e := d + b; f := e; return f becomes f := a + b; return f
+        var chain = CpUtils.getMethod(optimized, "chain");
+        CpUtils.assertEquals("Expected the copies of 'chain' to be removed", 2, chain.getInstructions().size(),
+                optimized);
+        CpUtils.assertHasOperation(OperationType.ADD, chain, optimized);
+        CpUtils.assertTrue("Expected fewer registers than with -O0",
+                CpUtils.countRegisters(chain) < CpUtils.countRegisters(CpUtils.getMethod(original, "chain")),
+                optimized);
+    }
+
+    @Test
+    public void copiesSwapInLoop() {
+        // Propagating t := a; a := b; b := t must not make a and b read the value of the same iteration
+        assertSameOutputOpt("copies/Copies.jmm");
+    }
+}
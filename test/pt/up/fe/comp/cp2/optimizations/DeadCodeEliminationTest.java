@@ -0,0 +1,36 @@
+package pt.up.fe.comp.cp2.optimizations;
+
+import org.junit.Test;
+import org.specs.comp.ollir.OperationType;
+import org.specs.comp.ollir.inst.CallInstruction;
+import pt.up.fe.comp.CpUtils;
+
+import static pt.up.fe.comp.cp2.optimizations.OptimizationTestUtils.*;
+
+/**
+ * Test the dead code elimination of the SSA IR.
+ */
+public class DeadCodeEliminationTest {
+
+    @Test
+    public void dceUnusedValues() {
+        var optimized = assertSameOutputOpt("dce/Dead.jmm");
+
+        var unused = CpUtils.getMethod(optimized, "unused");
+        CpUtils.assertEquals("Expected the unused product to be removed", 0,
+                CpUtils.getOperationInstances(OperationType.MUL, unused, optimized).size(), optimized);
+        CpUtils.assertEquals("Expected the unused sum to be removed", 0,
+                CpUtils.getOperationInstances(OperationType.ADD, unused, optimized).size(), optimized);
+    }
+
+    @Test
+    public void dceKeepsEffects() {
+        var optimized = assertSameOutputOpt("dce/Dead.jmm");
+
+        // A call whose result is unused, and instructions that may throw, stay
+        CpUtils.assertInstExists(CallInstruction.class, CpUtils.getMethod(optimized, "keepsCall"), optimized);
+        CpUtils.assertHasOperation(OperationType.DIV, CpUtils.getMethod(optimized, "keepsDivision"), optimized);
+        CpUtils.assertTrue("Expected the array load to stay",
+                optimized.getOllirCode().contains("v.array.i32[2.i32].i32"), optimized);
+    }
+}
@@ -0,0 +1,39 @@
+package pt.up.fe.comp.cp2.optimizations;
+
+import org.junit.Test;
+import org.specs.comp.ollir.OperationType;
+import pt.up.fe.comp.CpUtils;
+
+import static pt.up.fe.comp.cp2.optimizations.OptimizationTestUtils.*;
+
+/**
+ * Test the global value numbering of the SSA IR.
+ */
+public class GlobalValueNumberingTest {
+
+    @Test
+    public void gvnRedundantExpressions() {
+        var optimized = assertSameOutputOpt("gvn/Redundant.jmm");
+
+        // (a + b) * (a - b) and (b + a) * (a - b) are the same value
+        var twice = CpUtils.getMethod(optimized, "twice");
+        CpUtils.assertNumberOfOperations(OperationType.MUL, 1, twice, optimized);
+        CpUtils.assertNumberOfOperations(OperationType.SUB, 1, twice, optimized);
+
+        CpUtils.assertEquals("Expected the second load of a[i] to be reused", 1,
+                countOccurrences(getMethodCode(optimized, "sameLoad"), "a.array.i32[i.i32].i32"), optimized);
+    }
+
+    @Test
+    public void gvnMemoryInvalidation() {
+        var optimized = assertSameOutputOpt("gvn/Redundant.jmm");
+
+        // a[j] may be a[i], and the called methods write the field and the array
+        CpUtils.assertEquals("Expected a[i] to be loaded again after storing to a[j]", 2,
+                countOccurrences(getMethodCode(optimized, "loadAfterStore"), "a.array.i32[i.i32].i32"), optimized);
+        CpUtils.assertEquals("Expected a[0] to be loaded again after the call", 2,
+                countOccurrences(getMethodCode(optimized, "loadAfterCall"), "a.array.i32[0.i32].i32"), optimized);
+        CpUtils.assertTrue("Expected f to be read again after the call",
+                getMethodCode(optimized, "fieldAfterCall").contains("getfield(this.Redundant, f.i32)"), optimized);
+    }
+}
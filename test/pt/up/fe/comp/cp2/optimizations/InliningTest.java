@@ -0,0 +1,36 @@
+package pt.up.fe.comp.cp2.optimizations;
+
+import org.junit.Test;
+import pt.up.fe.comp.CpUtils;
+
+import java.util.List;
+
+import static pt.up.fe.comp.cp2.optimizations.OptimizationTestUtils.*;
+
+/**
+ * Test the inlining of small methods of the compiled class.
+ */
+public class InliningTest {
+
+    @Test
+    public void inliningSmallMethods() {
+        var optimized = assertSameOutputOpt("inlining/Aliasing.jmm");
+
+        String main = getMethodCode(optimized, "main");
+        for (String callee : List.of("square", "bump", "store", "copyFirst")) {
+            CpUtils.assertTrue("Expected '" + callee + "' to be inlined", !main.contains("\"" + callee + "\""),
+                    optimized);
+        }
+
+        // Recursive methods and methods that access fields stay calls
+        CpUtils.assertTrue("Expected 'fact' to be called", main.contains("\"fact\""), optimized);
+        CpUtils.assertTrue("Expected 'getF' to be called", main.contains("\"getF\""), optimized);
+    }
+
+    @Test
+    public void inliningAliasing() {
+        // The inlined bodies write their parameter x, and arrays that the caller also reaches through another
+        // variable (b is a, and copyFirst gets a as both arguments)
+        assertSameOutputOpt("inlining/Aliasing.jmm");
+    }
+}
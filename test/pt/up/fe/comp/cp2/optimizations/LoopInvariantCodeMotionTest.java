@@ -0,0 +1,58 @@
+package pt.up.fe.comp.cp2.optimizations;
+
+import org.junit.Test;
+import pt.up.fe.comp.CpUtils;
+
+import java.util.List;
+import java.util.regex.Pattern;
+
+import static pt.up.fe.comp.cp2.optimizations.OptimizationTestUtils.*;
+
+/**
+ * Test the loop-invariant code motion of the SSA IR.
+ */
+public class LoopInvariantCodeMotionTest {
+
+    /**
+     * @return the position of the first label of the method, where its first loop starts, or its length if it has no
+     * labels
+     */
+    static int getFirstLabel(String methodCode) {
+        var label = Pattern.compile("\\n\\s*\\w+:").matcher(methodCode);
+        return label.find() ? label.start() : methodCode.length();
+    }
+
+    static boolean isBeforeFirstLabel(String methodCode, String text) {
+        int position = methodCode.indexOf(text);
+        return position >= 0 && position < getFirstLabel(methodCode);
+    }
+
+    @Test
+    public void licmHoistsInvariants() {
+        var optimized = assertSameOutputOpt("licm/Invariant.jmm");
+
+        String hoist = getMethodCode(optimized, "hoist");
+        CpUtils.assertTrue("Expected k * 7 to be computed before the loop", isBeforeFirstLabel(hoist, "*.i32"),
+                optimized);
+        CpUtils.assertTrue("Expected a.length to be computed before the loop",
+                isBeforeFirstLabel(hoist, "arraylength"), optimized);
+
+        // k changes in the loop
+        CpUtils.assertTrue("Expected k * 7 to stay in the loop",
+                !isBeforeFirstLabel(getMethodCode(optimized, "writtenInLoop"), "*.i32"), optimized);
+    }
+
+    @Test
+    public void licmZeroTripLoops() {
+        // 100 / d and a[5] would throw, so they are only hoisted behind a test that the loop runs
+        var optimized = assertSameOutputOpt("licm/Invariant.jmm");
+
+        for (String methodName : List.of("zeroTripDivision", "zeroTripLoad")) {
+            String code = getMethodCode(optimized, methodName);
+            int guard = code.indexOf("if (");
+            int hoisted = methodName.equals("zeroTripDivision") ? code.indexOf("/.i32") : code.indexOf("[5.i32]");
+            CpUtils.assertTrue("Expected the invariant of '" + methodName + "' to be hoisted behind a guard",
+                    guard >= 0 && guard < hoisted && hoisted < getFirstLabel(code), optimized);
+        }
+    }
+}
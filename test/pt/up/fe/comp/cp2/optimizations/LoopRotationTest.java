@@ -0,0 +1,61 @@
+package pt.up.fe.comp.cp2.optimizations;
+
+import org.junit.Test;
+import org.specs.comp.ollir.inst.CondBranchInstruction;
+import org.specs.comp.ollir.inst.GotoInstruction;
+import pt.up.fe.comp.CpUtils;
+import pt.up.fe.comp.TestUtils;
+import pt.up.fe.comp.jmm.ollir.OllirResult;
+
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+import static pt.up.fe.comp.cp2.optimizations.OptimizationTestUtils.*;
+
+/**
+ * Test the rotation of while loops, which test their condition at the bottom.
+ */
+public class LoopRotationTest {
+
+    /**
+     * Checks that each loop of the method enters with a jump to its test, and ends with the test branching back.
+     */
+    static void assertRotated(OllirResult ollirResult, String methodName, int loops) {
+        var method = CpUtils.getMethod(ollirResult, methodName);
+        CpUtils.assertEquals("Expected one conditional branch per loop of '" + methodName + "'", loops,
+                CpUtils.getInstructions(CondBranchInstruction.class, method).size(), ollirResult);
+        CpUtils.assertEquals("Expected one jump into each loop of '" + methodName + "'", loops,
+                CpUtils.getInstructions(GotoInstruction.class, method).size(), ollirResult);
+    }
+
+    @Test
+    public void rotationTestsAtTheBottom() {
+        var original = getOllirResult("rotation/Loops.jmm");
+        var optimized = assertSameOutputOpt("rotation/Loops.jmm");
+
+        for (var ollirResult : List.of(original, optimized)) {
+            assertRotated(ollirResult, "count", 1);
+            assertRotated(ollirResult, "nested", 2);
+
+            // The test is the last instruction of the loop, right before the return
+            var instructions = CpUtils.getMethod(ollirResult, "count").getInstructions();
+            CpUtils.assertTrue("Expected the loop of 'count' to end with its test",
+                    instructions.get(instructions.size() - 2) instanceof CondBranchInstruction, ollirResult);
+        }
+
+        // One compare-and-branch per iteration, and one goto to enter the loop
+        String jasmin = TestUtils.backend(optimized).getJasminCode();
+        String count = jasmin.substring(jasmin.indexOf(".method count("));
+        count = count.substring(0, count.indexOf(".end method"));
+        CpUtils.assertEquals("Expected a single goto in 'count'", 1, countOccurrences(count, "goto"), optimized);
+        CpUtils.assertEquals("Expected a single conditional branch in 'count'", 1,
+                countOccurrences(count, "if_icmplt"), optimized);
+    }
+
+    @Test
+    public void rotationEdgeCases() {
+        // Tests with calls run once more than the body, loops that never run do not, and && stops at the first false
+        assertEquals("45\n34\n0\n120\n23\n0", run(getOllirResult("rotation/Loops.jmm")));
+        assertSameOutputOpt("rotation/Loops.jmm");
+    }
+}
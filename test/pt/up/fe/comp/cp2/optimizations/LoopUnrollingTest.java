@@ -0,0 +1,51 @@
+package pt.up.fe.comp.cp2.optimizations;
+
+import org.junit.Test;
+import org.specs.comp.ollir.OperationType;
+import org.specs.comp.ollir.inst.CondBranchInstruction;
+import pt.up.fe.comp.CpUtils;
+import pt.up.fe.comp.jmm.ollir.OllirResult;
+import pt.up.fe.comp2025.ConfigOptions;
+
+import static pt.up.fe.comp.cp2.optimizations.OptimizationTestUtils.*;
+
+/**
+ * Test the unrolling of loops with a number of iterations known when compiling.
+ */
+public class LoopUnrollingTest {
+
+    static OllirResult assertSameOutputUnrolled(String filename) {
+        return assertSameOutputOpt(filename, ConfigOptions.getUnrollGrowth(), "64");
+    }
+
+    @Test
+    public void unrollingFullAndPartial() {
+        var optimized = assertSameOutputUnrolled("unrolling/Counted.jmm");
+
+        CpUtils.assertEquals("Expected the 4 iterations of 'small' to be unrolled fully", 0,
+                CpUtils.getInstructions(CondBranchInstruction.class, CpUtils.getMethod(optimized, "small")).size(),
+                optimized);
+
+        // 1003 iterations: groups of 8, then the 3 left in a copy of the loop
+        CpUtils.assertEquals("Expected the body of 'big' to be copied 8 times, plus the remainder loop", 9,
+                countOccurrences(getMethodCode(optimized, "big"), "s.i32 +.i32 k.i32"), optimized);
+    }
+
+    @Test
+    public void unrollingEdgeCases() {
+        var optimized = assertSameOutputUnrolled("unrolling/Counted.jmm");
+
+        // The loop of 'zeroTrip' never runs, so its division by zero must not either
+        CpUtils.assertNumberOfOperations(OperationType.DIV, 0, CpUtils.getMethod(optimized, "zeroTrip"), optimized);
+
+        // The counter of 'nearMax' only leaves the loop by wrapping around, which the trip count does not model
+        CpUtils.assertInstExists(CondBranchInstruction.class, CpUtils.getMethod(optimized, "nearMax"), optimized);
+    }
+
+    @Test
+    public void unrollingIsOptIn() {
+        // Without a growth budget loops are left alone
+        var optimized = assertSameOutputOpt("unrolling/Counted.jmm");
+        CpUtils.assertInstExists(CondBranchInstruction.class, CpUtils.getMethod(optimized, "small"), optimized);
+    }
+}
@@ -0,0 +1,92 @@
+package pt.up.fe.comp.cp2.optimizations;
+
+import org.junit.Test;
+import pt.up.fe.comp.CpUtils;
+import pt.up.fe.comp.TestUtils;
+import pt.up.fe.comp2025.ConfigOptions;
+import pt.up.fe.comp2025.ast.Kind;
+import pt.up.fe.comp2025.optimization.ssa.IrBuilder;
+import pt.up.fe.comp2025.optimization.ssa.IrMethod;
+import pt.up.fe.comp2025.optimization.ssa.MethodSummaries;
+import pt.up.fe.comp2025.optimization.ssa.MethodSummaries.Effect;
+import pt.up.fe.specs.util.SpecsIo;
+
+import java.util.EnumSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static pt.up.fe.comp.cp2.optimizations.OptimizationTestUtils.*;
+
+/**
+ * Test the summaries of the effects of methods, and the optimizations that use them to see through calls.
+ */
+public class MethodSummariesTest {
+
+    /**
+     * Builds the IR of every method of the file, and summarizes their effects.
+     */
+    static MethodSummaries summarize(String filename, List<String> pureImports) {
+        var semantics = TestUtils.analyse(SpecsIo.getResource(BASE_PATH + filename));
+        TestUtils.noErrors(semantics);
+
+        Map<String, IrMethod> methods = new LinkedHashMap<>();
+        for (var methodDecl : semantics.getRootNode().getDescendants(Kind.METHOD_DECL)) {
+            methods.put(IrBuilder.getMethodName(methodDecl),
+                    new IrBuilder(semantics.getSymbolTable()).build(methodDecl));
+        }
+
+        var summaries = new MethodSummaries(semantics.getSymbolTable(), pureImports);
+        summaries.apply(methods);
+        return summaries;
+    }
+
+    @Test
+    public void summariesOfMethods() {
+        var summaries = summarize("summaries/Effects.jmm", List.of("MathUtils.random"));
+
+        assertEquals(EnumSet.noneOf(Effect.class), summaries.getSummary("square"));
+        assertEquals(EnumSet.of(Effect.READS_FIELDS), summaries.getSummary("get"));
+        assertEquals(EnumSet.of(Effect.READS_FIELDS, Effect.WRITES_FIELDS), summaries.getSummary("inc"));
+        assertEquals(EnumSet.of(Effect.MAY_THROW), summaries.getSummary("div"));
+        assertEquals(EnumSet.of(Effect.MAY_NOT_RETURN), summaries.getSummary("fib"));
+        assertTrue(summaries.getSummary("sum").containsAll(
+                EnumSet.of(Effect.READS_ARRAYS, Effect.MAY_THROW, Effect.MAY_NOT_RETURN)));
+
+        // Calling a recursive method may not return either
+        assertEquals(EnumSet.of(Effect.MAY_NOT_RETURN), summaries.getSummary("wrapsSpin"));
+
+        // Imported methods are unknown unless they are allowed
+        assertEquals(EnumSet.noneOf(Effect.class), summaries.getSummary("random"));
+        assertEquals(EnumSet.of(Effect.CALLS_UNKNOWN),
+                summarize("summaries/Effects.jmm", List.of()).getSummary("random"));
+    }
+
+    @Test
+    public void summariesRemoveAndReuseCalls() {
+        var optimized = assertSameOutputOpt("summaries/Effects.jmm", ConfigOptions.getInlineBudget(), "0",
+                ConfigOptions.getPureMethods(), "MathUtils.random");
+
+        CpUtils.assertEquals("Expected the second call of 'square' to be reused", 1,
+                countOccurrences(getMethodCode(optimized, "twice"), "\"square\""), optimized);
+
+        // inc writes the field that get reads
+        CpUtils.assertEquals("Expected 'get' to be called again only after 'inc'", 2,
+                countOccurrences(getMethodCode(optimized, "fields"), "\"get\""), optimized);
+
+        // Unused calls are removed, unless they may throw or not return
+        String unused = getMethodCode(optimized, "unused");
+        CpUtils.assertTrue("Expected the unused calls of 'square' and 'random' to be removed",
+                !unused.contains("\"square\"") && !unused.contains("\"random\""), optimized);
+        CpUtils.assertTrue("Expected the calls of 'fib' and 'div' to stay",
+                unused.contains("\"fib\"") && unused.contains("\"div\""), optimized);
+    }
+
+    @Test
+    public void summariesRecursiveCallees() {
+        // zeroTrip runs its loop args.length times, that is, never: a call that never returns must not be hoisted
+        assertSameOutputOpt("summaries/Effects.jmm");
+    }
+}
@@ -0,0 +1,83 @@
+package pt.up.fe.comp.cp2.optimizations;
+
+import pt.up.fe.comp.CpUtils;
+import pt.up.fe.comp.TestUtils;
+import pt.up.fe.comp.jmm.ollir.OllirResult;
+import pt.up.fe.comp2025.ConfigOptions;
+import pt.up.fe.specs.util.SpecsIo;
+import pt.up.fe.specs.util.SpecsStrings;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.regex.Pattern;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Helpers shared by the tests of the optimizations: compiling a file of this folder with given options, running it,
+ * and checking that the optimized program prints the same as the program compiled with -O0.
+ */
+public class OptimizationTestUtils {
+
+    public static final String BASE_PATH = "pt/up/fe/comp/cp2/optimizations/";
+
+    /**
+     * @param options pairs of configuration keys and values
+     */
+    public static OllirResult getOllirResult(String filename, String... options) {
+        // Like OllirTest, the semantic reports are not checked (the analysis rejects stores such as a[0] = 1)
+        return CpUtils.getOllirResult(SpecsIo.getResource(BASE_PATH + filename), TestUtils.toConfig(options), false);
+    }
+
+    public static OllirResult getOllirResultOpt(String filename, String... options) {
+        return getOllirResult(filename, withOptimize(options));
+    }
+
+    public static String run(OllirResult ollirResult) {
+        var jasminResult = TestUtils.backend(ollirResult);
+        var runOutput = jasminResult.runWithFullOutput();
+        assertEquals("Error while running compiled Jasmin: " + runOutput.getOutput() + "\n\nJasmin code:\n"
+                + jasminResult.getJasminCode(), 0, runOutput.getReturnValue());
+        return SpecsStrings.normalizeFileContents(runOutput.getOutput(), true);
+    }
+
+    /**
+     * Compiles the file with -O0 and with the given options, and checks that both programs print the same.
+     *
+     * @return the optimized OLLIR
+     */
+    public static OllirResult assertSameOutput(String filename, String... options) {
+        var original = getOllirResult(filename);
+        var optimized = getOllirResult(filename, options);
+
+        String expected = run(original);
+        CpUtils.assertEquals("Expected the optimized program to print the same as with -O0", expected,
+                run(optimized), optimized);
+        return optimized;
+    }
+
+    public static OllirResult assertSameOutputOpt(String filename, String... options) {
+        return assertSameOutput(filename, withOptimize(options));
+    }
+
+    /**
+     * @return the OLLIR code of the method, from its header to its closing brace
+     */
+    public static String getMethodCode(OllirResult ollirResult, String methodName) {
+        String code = ollirResult.getOllirCode();
+        int start = code.indexOf(" " + methodName + "(");
+        assertTrue("Could not find method '" + methodName + "'", start >= 0);
+        return code.substring(start, code.indexOf("\n}", start));
+    }
+
+    public static int countOccurrences(String code, String text) {
+        return code.split(Pattern.quote(text), -1).length - 1;
+    }
+
+    private static String[] withOptimize(String... options) {
+        List<String> config = new ArrayList<>(List.of(ConfigOptions.getOptimize(), "true"));
+        config.addAll(List.of(options));
+        return config.toArray(String[]::new);
+    }
+}
@@ -0,0 +1,85 @@
+package pt.up.fe.comp.cp2.optimizations;
+
+import org.junit.Test;
+import org.specs.comp.ollir.inst.CondBranchInstruction;
+import pt.up.fe.comp.CpUtils;
+import pt.up.fe.comp2025.CompilerConfig;
+import pt.up.fe.comp2025.ConfigOptions;
+import pt.up.fe.comp2025.optimization.PassManager;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.util.Map;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static pt.up.fe.comp.cp2.optimizations.OptimizationTestUtils.*;
+
+/**
+ * Test the selection of the optimization passes by level and by the {@code passes} option.
+ */
+public class PassManagerTest {
+
+    @Test
+    public void levelsOfTheCommandLine() throws IOException {
+        File input = File.createTempFile("Levels", ".jmm");
+        input.deleteOnExit();
+        Files.writeString(input.toPath(), "class Levels {}");
+
+        // -O alone is -O2, -o is -O2 as well, and the level may follow -O directly
+        assertEquals(2, ConfigOptions.getOptLevel(CompilerConfig.parseArgs(new String[]{"-i=" + input, "-O"})));
+        assertEquals(2, ConfigOptions.getOptLevel(CompilerConfig.parseArgs(new String[]{"-i=" + input, "-o"})));
+        assertEquals(3, ConfigOptions.getOptLevel(CompilerConfig.parseArgs(new String[]{"-i=" + input, "-O3"})));
+        assertEquals(0, ConfigOptions.getOptLevel(CompilerConfig.parseArgs(new String[]{"-i=" + input})));
+    }
+
+    @Test
+    public void passesOverrideTheLevel() {
+        var passes = new PassManager(Map.of(ConfigOptions.getOptLevel(), "1",
+                ConfigOptions.getPasses(), "+inlining,-dce"));
+
+        assertTrue(passes.isEnabled("inlining"));
+        assertFalse(passes.isEnabled("dce"));
+        assertTrue(passes.isEnabled("copy-propagation"));
+        assertFalse(passes.isEnabled("gvn"));
+
+        var inlined = assertSameOutput("inlining/Aliasing.jmm", ConfigOptions.getOptLevel(), "1",
+                ConfigOptions.getPasses(), "+inlining");
+        CpUtils.assertTrue("Expected 'square' to be inlined at -O1 when enabled",
+                !getMethodCode(inlined, "main").contains("\"square\""), inlined);
+
+        var notInlined = assertSameOutput("inlining/Aliasing.jmm", ConfigOptions.getOptLevel(), "2",
+                ConfigOptions.getPasses(), "-inlining,-scalar-replacement,-specialization");
+        CpUtils.assertTrue("Expected 'square' to be called at -O2 when inlining is disabled",
+                getMethodCode(notInlined, "main").contains("\"square\""), notInlined);
+    }
+
+    @Test
+    public void highestLevelHasLargerBudgets() {
+        var o2 = Map.of(ConfigOptions.getOptLevel(), "2");
+        var o3 = Map.of(ConfigOptions.getOptLevel(), "3");
+
+        assertEquals(0, ConfigOptions.getUnrollGrowth(o2));
+        assertEquals(64, ConfigOptions.getUnrollGrowth(o3));
+        assertTrue(ConfigOptions.getInlineBudget(o3) > ConfigOptions.getInlineBudget(o2));
+        assertTrue(ConfigOptions.getSpecializeBudget(o3) > ConfigOptions.getSpecializeBudget(o2));
+        assertTrue(ConfigOptions.getPassIterations(o3) > ConfigOptions.getPassIterations(o2));
+    }
+
+    @Test
+    public void highestLevelUnrollsLoops() {
+        var o2 = assertSameOutput("unrolling/Counted.jmm", ConfigOptions.getOptLevel(), "2");
+        CpUtils.assertInstExists(CondBranchInstruction.class, CpUtils.getMethod(o2, "small"), o2);
+
+        var o3 = assertSameOutput("unrolling/Counted.jmm", ConfigOptions.getOptLevel(), "3");
+        CpUtils.assertEquals("Expected the loop of 'small' to be unrolled at -O3", 0,
+                CpUtils.getInstructions(CondBranchInstruction.class, CpUtils.getMethod(o3, "small")).size(), o3);
+
+        // The growth budget still bounds unrolling, and 0 turns it off
+        var noGrowth = assertSameOutput("unrolling/Counted.jmm", ConfigOptions.getOptLevel(), "3",
+                ConfigOptions.getUnrollGrowth(), "0");
+        CpUtils.assertInstExists(CondBranchInstruction.class, CpUtils.getMethod(noGrowth, "small"), noGrowth);
+    }
+}
@@ -0,0 +1,113 @@
+package pt.up.fe.comp.cp2.optimizations;
+
+import org.junit.Test;
+import pt.up.fe.comp.CpUtils;
+import pt.up.fe.comp.TestUtils;
+import pt.up.fe.comp.jmm.ollir.OllirResult;
+import pt.up.fe.comp2025.ConfigOptions;
+import pt.up.fe.specs.util.SpecsIo;
+import pt.up.fe.specs.util.SpecsStrings;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static pt.up.fe.comp.cp2.optimizations.OptimizationTestUtils.*;
+
+/**
+ * Test the instrumentation of a class and the use of its profile by a later build.
+ */
+public class ProfileTest {
+
+    /**
+     * Runs the compiled program with the profile file in the {@code jmm.profile} system property.
+     *
+     * @return what the program printed
+     */
+    static String runWithProfile(OllirResult ollirResult, File profile) throws IOException, InterruptedException {
+        var classFile = TestUtils.backend(ollirResult).compile();
+        String classpath = classFile.getParentFile().getAbsolutePath() + File.pathSeparator
+                + new File(TestUtils.getLibsClasspath()).getAbsolutePath();
+
+        var process = new ProcessBuilder("java", "-Djmm.profile=" + profile.getAbsolutePath(), "-cp", classpath,
+                SpecsIo.removeExtension(classFile.getName())).redirectErrorStream(true).start();
+        String output = new String(process.getInputStream().readAllBytes());
+        assertEquals("Error while running the instrumented program: " + output, 0, process.waitFor());
+        return SpecsStrings.normalizeFileContents(output, true);
+    }
+
+    /**
+     * Instruments pgo/Branches.jmm with the options and runs it.
+     *
+     * @return the profile it wrote
+     */
+    static File recordProfile(String... options) throws IOException, InterruptedException {
+        File profile = File.createTempFile("jmm", ".profile");
+        profile.deleteOnExit();
+        assertTrue(profile.delete());
+
+        var instrumented = getOllirResult("pgo/Branches.jmm", withProfileGenerate(options));
+        assertEquals("100", runWithProfile(instrumented, profile));
+        assertTrue("Expected the program to write the profile", profile.isFile());
+        return profile;
+    }
+
+    private static String[] withProfileGenerate(String... options) {
+        String[] all = new String[options.length + 2];
+        all[0] = ConfigOptions.getProfileGenerate();
+        all[1] = "true";
+        System.arraycopy(options, 0, all, 2, options.length);
+        return all;
+    }
+
+    /**
+     * @return true if the block that subtracts, which never runs, is laid out after the return of 'classify'
+     */
+    static boolean isColdBlockLast(OllirResult ollirResult) {
+        String classify = getMethodCode(ollirResult, "classify");
+        return classify.indexOf("-.i32 1.i32") > classify.indexOf("ret.i32");
+    }
+
+    @Test
+    public void profileFromAnotherLevel() throws IOException, InterruptedException {
+        // Instrumented with -O0, while the optimized builds fold the constant conditions of the AST first
+        File profile = recordProfile();
+
+        for (String level : List.of("1", "2")) {
+            var optimized = assertSameOutput("pgo/Branches.jmm", ConfigOptions.getOptLevel(), level,
+                    ConfigOptions.getProfileUse(), profile.getAbsolutePath());
+            CpUtils.assertTrue("Expected the block that never ran to be laid out last at -O" + level,
+                    isColdBlockLast(optimized), optimized);
+        }
+    }
+
+    @Test
+    public void profileKeepsThePassesOption() throws IOException, InterruptedException {
+        File profile = recordProfile(ConfigOptions.getOptLevel(), "2");
+
+        // Without folding, the test of 'limit', which is always 10, stays in the code
+        var optimized = assertSameOutput("pgo/Branches.jmm", ConfigOptions.getOptLevel(), "2",
+                ConfigOptions.getPasses(),
+                "-constant-propagation,-algebraic-simplification,-constant-folding,-value-range",
+                ConfigOptions.getProfileUse(), profile.getAbsolutePath());
+        CpUtils.assertTrue("Expected the disabled folding passes not to run with a profile",
+                getMethodCode(optimized, "classify").contains("5.i32"), optimized);
+        CpUtils.assertTrue("Expected the block that never ran to be laid out last", isColdBlockLast(optimized),
+                optimized);
+    }
+
+    @Test
+    public void profileOfAnotherVersion() throws IOException {
+        File profile = File.createTempFile("jmm", ".profile");
+        profile.deleteOnExit();
+        Files.writeString(profile.toPath(), "12345 0 7\n12345 1 3\n");
+
+        var optimized = getOllirResult("pgo/Branches.jmm", ConfigOptions.getOptLevel(), "2",
+                ConfigOptions.getProfileUse(), profile.getAbsolutePath());
+        CpUtils.assertTrue("Expected the counts of another class to be ignored", !isColdBlockLast(optimized),
+                optimized);
+    }
+}
@@ -0,0 +1,27 @@
+package pt.up.fe.comp.cp2.optimizations;
+
+import org.junit.Test;
+import pt.up.fe.comp.CpUtils;
+
+import static pt.up.fe.comp.cp2.optimizations.OptimizationTestUtils.*;
+
+/**
+ * Test the replacement of objects of the class that do not escape by locals.
+ */
+public class ScalarReplacementTest {
+
+    @Test
+    public void escapeAliasedObjects() {
+        // f is also reached through g, and p through the parameter of an inlined method
+        var optimized = assertSameOutputOpt("escape/Counter.jmm");
+
+        String main = getMethodCode(optimized, "main");
+        CpUtils.assertTrue("Expected the fields of f to become locals", main.contains("f_count.i32"), optimized);
+        CpUtils.assertTrue("Expected the fields of p to become locals", main.contains("p_count.i32"), optimized);
+
+        // e is created again in a loop and h escapes through self(), so 3 of the 5 objects stay
+        CpUtils.assertEquals("Expected only the objects that escape to be created", 3,
+                countOccurrences(main, "new(Counter)"), optimized);
+        CpUtils.assertTrue("Expected 'self' to be called", main.contains("\"self\""), optimized);
+    }
+}
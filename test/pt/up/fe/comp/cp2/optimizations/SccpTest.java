@@ -0,0 +1,48 @@
+package pt.up.fe.comp.cp2.optimizations;
+
+import org.junit.Test;
+import org.specs.comp.ollir.OperationType;
+import org.specs.comp.ollir.inst.CondBranchInstruction;
+import pt.up.fe.comp.CpUtils;
+
+import static pt.up.fe.comp.cp2.optimizations.OptimizationTestUtils.*;
+
+/**
+ * Test the conditional constant propagation of the AST.
+ */
+public class SccpTest {
+
+    @Test
+    public void sccpDeadBranch() {
+        var optimized = assertSameOutputOpt("sccp/DeadBranch.jmm");
+
+        var pick = CpUtils.getMethod(optimized, "pick");
+        CpUtils.assertLiteralReturn("5", pick, optimized);
+        CpUtils.assertEquals("Expected the constant branch of 'pick' to be removed", 0,
+                CpUtils.getInstructions(CondBranchInstruction.class, pick).size(), optimized);
+    }
+
+    @Test
+    public void sccpLoopConstant() {
+        var optimized = assertSameOutputOpt("sccp/DeadBranch.jmm");
+
+        // The value assigned in the loop is the same constant as before it
+        CpUtils.assertLiteralReturn("3", CpUtils.getMethod(optimized, "loop"), optimized);
+    }
+
+    @Test
+    public void sccpOverflow() {
+        var optimized = assertSameOutputOpt("sccp/DeadBranch.jmm");
+
+        // Folding wraps around like the JVM: (MAX_VALUE + 1) * 3
+        CpUtils.assertLiteralReturn("-2147483648", CpUtils.getMethod(optimized, "overflow"), optimized);
+    }
+
+    @Test
+    public void sccpDivisionByZeroKept() {
+        var optimized = assertSameOutputOpt("sccp/DeadBranch.jmm");
+
+        // The division would throw, so it is not folded
+        CpUtils.assertHasOperation(OperationType.DIV, CpUtils.getMethod(optimized, "divByZero"), optimized);
+    }
+}
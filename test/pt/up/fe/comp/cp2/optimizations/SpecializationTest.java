@@ -0,0 +1,75 @@
+package pt.up.fe.comp.cp2.optimizations;
+
+import org.junit.Test;
+import org.specs.comp.ollir.inst.CondBranchInstruction;
+import pt.up.fe.comp.CpUtils;
+import pt.up.fe.comp.jmm.ollir.OllirResult;
+import pt.up.fe.comp2025.ConfigOptions;
+
+import java.util.List;
+import java.util.regex.Pattern;
+
+import static pt.up.fe.comp.cp2.optimizations.OptimizationTestUtils.*;
+
+/**
+ * Test the specialization of methods of the class for constant call arguments.
+ */
+public class SpecializationTest {
+
+    private static final Pattern BOOL_LITERAL = Pattern.compile("\\b([01])\\.bool;");
+
+    /**
+     * Compiles without inlining, which would replace the calls to the copies by their bodies.
+     */
+    static OllirResult assertSameOutputSpecialized(String filename) {
+        return assertSameOutputOpt(filename, ConfigOptions.getInlineBudget(), "0");
+    }
+
+    /**
+     * @return the last boolean literal the code assigns or returns
+     */
+    static String lastBoolLiteral(String code) {
+        var literal = BOOL_LITERAL.matcher(code);
+        String last = null;
+        while (literal.find()) {
+            last = literal.group(1);
+        }
+        return last;
+    }
+
+    @Test
+    public void ipcpSpecializedCopies() {
+        var optimized = assertSameOutputSpecialized("ipcp/Specialize.jmm");
+
+        // Every method may be called from outside the class, so the originals stay
+        CpUtils.assertEquals("Expected 'scale' to keep its parameters", 2,
+                CpUtils.getMethod(optimized, "scale").getParams().size(), optimized);
+
+        // pick(true, 2) and pick(false, 2) fold into copies that return a constant
+        String main = getMethodCode(optimized, "main");
+        CpUtils.assertTrue("Expected main to call the copies of 'pick'",
+                !main.contains("\"pick\"") && main.contains("\"pick_spec"), optimized);
+        var pickCopies = optimized.getOllirClass().getMethods().stream()
+                .filter(method -> method.getMethodName().startsWith("pick_spec"))
+                .toList();
+        for (var copy : pickCopies) {
+            CpUtils.assertEquals("Expected the branch of '" + copy.getMethodName() + "' to be folded", 0,
+                    CpUtils.getInstructions(CondBranchInstruction.class, copy).size(), optimized);
+        }
+        List<String> pickResults = pickCopies.stream()
+                .map(copy -> lastBoolLiteral(getMethodCode(optimized, copy.getMethodName())))
+                .sorted()
+                .toList();
+        CpUtils.assertEquals("Expected the copies of 'pick' to compute constants", List.of("0", "1"), pickResults,
+                optimized);
+    }
+
+    @Test
+    public void ipcpConstantOnOnePath() {
+        var optimized = assertSameOutputSpecialized("ipcp/Specialize.jmm");
+
+        // k is 2 or 5 depending on n, so the call passes both arguments
+        CpUtils.assertTrue("Expected 'notConstant' to call the original 'scale'",
+                getMethodCode(optimized, "notConstant").contains("\"scale\", n.i32, k.i32"), optimized);
+    }
+}
@@ -0,0 +1,77 @@
+package pt.up.fe.comp.cp2.optimizations;
+
+import org.junit.Test;
+import pt.up.fe.comp.TestUtils;
+import pt.up.fe.comp2025.ast.Kind;
+import pt.up.fe.comp2025.optimization.ssa.BasicBlock;
+import pt.up.fe.comp2025.optimization.ssa.Instruction;
+import pt.up.fe.comp2025.optimization.ssa.IrBuilder;
+import pt.up.fe.comp2025.optimization.ssa.IrMethod;
+import pt.up.fe.comp2025.optimization.ssa.IrVerifier;
+import pt.up.fe.comp2025.optimization.ssa.Local;
+import pt.up.fe.comp2025.optimization.ssa.OutOfSsa;
+import pt.up.fe.comp2025.optimization.ssa.SsaConstruction;
+import pt.up.fe.specs.util.SpecsIo;
+
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static pt.up.fe.comp.cp2.optimizations.OptimizationTestUtils.*;
+
+/**
+ * Test the construction of the SSA form and the way out of it.
+ */
+public class SsaTest {
+
+    /**
+     * Builds the IR of a method of the file.
+     */
+    static IrMethod buildIr(String filename, String methodName) {
+        var semantics = TestUtils.analyse(SpecsIo.getResource(BASE_PATH + filename));
+        TestUtils.noErrors(semantics);
+
+        var methodDecl = semantics.getRootNode().getDescendants(Kind.METHOD_DECL).stream()
+                .filter(method -> IrBuilder.getMethodName(method).equals(methodName))
+                .findFirst()
+                .orElseThrow();
+        return new IrBuilder(semantics.getSymbolTable()).build(methodDecl);
+    }
+
+    @Test
+    public void ssaSingleDefinitions() {
+        for (String methodName : List.of("swap", "lostCopy", "nested", "oneSide")) {
+            IrMethod method = buildIr("ssa/Swap.jmm", methodName);
+            SsaConstruction.apply(method);
+            IrVerifier.verify(method, "ssa");
+
+            Set<Local> defined = new HashSet<>();
+            int phis = 0;
+            for (BasicBlock block : method.getBlocks()) {
+                phis += block.getPhis().size();
+                for (Instruction instruction : block.getAllInstructions()) {
+                    if (instruction.getDest() != null) {
+                        assertTrue(methodName + ": " + instruction.getDest() + " defined twice",
+                                defined.add(instruction.getDest()));
+                    }
+                }
+            }
+            assertTrue(methodName + ": expected phis where values merge", phis > 0);
+
+            OutOfSsa.apply(method);
+            assertFalse(method.isSsa());
+            IrVerifier.verify(method, "out-of-ssa");
+            for (BasicBlock block : method.getBlocks()) {
+                assertTrue(methodName + ": phis left after leaving SSA", block.getPhis().isEmpty());
+            }
+        }
+    }
+
+    @Test
+    public void ssaSwapInLoop() {
+        // The swap and lost-copy problems: the copies that replace the phis must not overwrite each other
+        assertSameOutputOpt("ssa/Swap.jmm");
+    }
+}
@@ -0,0 +1,34 @@
+package pt.up.fe.comp.cp2.optimizations;
+
+import org.junit.Test;
+import pt.up.fe.comp.CpUtils;
+import pt.up.fe.comp.TestUtils;
+
+import static pt.up.fe.comp.cp2.optimizations.OptimizationTestUtils.*;
+
+/**
+ * Test the strength reduction of induction variables and of multiplications by powers of two.
+ */
+public class StrengthReductionTest {
+
+    @Test
+    public void strengthReducesMultiplications() {
+        var original = TestUtils.backend(getOllirResult("strength/Induction.jmm"));
+        var optimized = TestUtils.backend(assertSameOutputOpt("strength/Induction.jmm"));
+
+        // i * 3 + 1 becomes a value that grows by 3, only the multiplication by k is left
+        CpUtils.assertEquals("Expected one multiplication less in 'scaled'",
+                countOccurrences(CpUtils.getJasminMethod(original, "scaled"), "imul") - 1,
+                countOccurrences(CpUtils.getJasminMethod(optimized, "scaled"), "imul"), optimized);
+    }
+
+    @Test
+    public void strengthShiftsMultiplications() {
+        // x * 8 is x << 3, also for negative x and when the product overflows
+        var jasmin = TestUtils.backend(assertSameOutputOpt("strength/Induction.jmm"));
+
+        String times8 = CpUtils.getJasminMethod(jasmin, "times8");
+        CpUtils.matches(times8, "ishl");
+        CpUtils.assertTrue("Expected no imul in 'times8'", !times8.contains("imul"), jasmin);
+    }
+}
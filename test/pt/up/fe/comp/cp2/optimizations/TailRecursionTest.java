@@ -0,0 +1,38 @@
+package pt.up.fe.comp.cp2.optimizations;
+
+import org.junit.Test;
+import pt.up.fe.comp.CpUtils;
+
+import java.util.List;
+
+import static pt.up.fe.comp.cp2.optimizations.OptimizationTestUtils.*;
+
+/**
+ * Test the elimination of self-recursive tail calls.
+ */
+public class TailRecursionTest {
+
+    @Test
+    public void treSwappedArguments() {
+        // The arguments of swap(b, a) and rotate(b, c, a) read parameters that the jump back assigns
+        var optimized = assertSameOutputOpt("tre/Tail.jmm");
+
+        for (String methodName : List.of("sumTo", "swap", "rotate", "gcd", "count")) {
+            CpUtils.assertTrue("Expected the recursion of '" + methodName + "' to become a loop",
+                    !getMethodCode(optimized, methodName).contains("\"" + methodName + "\""), optimized);
+        }
+
+        // The result of the call is still used after it returns
+        CpUtils.assertTrue("Expected 'notTail' to call itself",
+                getMethodCode(optimized, "notTail").contains("\"notTail\""), optimized);
+    }
+
+    @Test
+    public void treDeepRecursion() {
+        // A million calls overflow the stack without -o
+        var optimized = getOllirResultOpt("tre/Deep.jmm");
+
+        CpUtils.assertEquals("Expected the sum to wrap around like an int", "1784293664", run(optimized),
+                optimized);
+    }
+}
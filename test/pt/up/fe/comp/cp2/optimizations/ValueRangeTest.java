@@ -0,0 +1,58 @@
+package pt.up.fe.comp.cp2.optimizations;
+
+import org.junit.Test;
+import org.specs.comp.ollir.OperationType;
+import org.specs.comp.ollir.inst.CondBranchInstruction;
+import pt.up.fe.comp.CpUtils;
+import pt.up.fe.comp.TestUtils;
+import pt.up.fe.comp.jmm.ollir.OllirResult;
+import pt.up.fe.comp2025.ConfigOptions;
+
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static pt.up.fe.comp.cp2.optimizations.OptimizationTestUtils.*;
+
+/**
+ * Test the value range analysis, which removes comparisons that cannot fail and turns divisions into shifts.
+ */
+public class ValueRangeTest {
+
+    static OllirResult assertSameOutputRanges(String filename) {
+        return assertSameOutput(filename, ConfigOptions.getOptLevel(), "1", ConfigOptions.getPasses(), "value-range");
+    }
+
+    @Test
+    public void rangesRemoveComparisons() {
+        var optimized = assertSameOutputRanges("ranges/Bounds.jmm");
+
+        // i < n again inside the loop it guards, and i < 0 for i counting up from 0
+        CpUtils.assertEquals("Expected only the loop test to remain in 'guarded'", 1,
+                CpUtils.getInstructions(CondBranchInstruction.class, CpUtils.getMethod(optimized, "guarded")).size(),
+                optimized);
+
+        // x + 2000000000 overflows for large x, so its sign is unknown
+        CpUtils.assertEquals("Expected both tests of 'wraps' to remain", 2,
+                CpUtils.getInstructions(CondBranchInstruction.class, CpUtils.getMethod(optimized, "wraps")).size(),
+                optimized);
+    }
+
+    @Test
+    public void rangesShiftDivisions() {
+        var optimized = assertSameOutputRanges("ranges/Bounds.jmm");
+
+        // i only counts up from 0 while i < n, so i / 4 is i >> 2
+        CpUtils.assertNumberOfOperations(OperationType.SHR, 1, CpUtils.getMethod(optimized, "quarters"), optimized);
+        CpUtils.assertNumberOfOperations(OperationType.DIV, 0, CpUtils.getMethod(optimized, "quarters"), optimized);
+
+        // -7 / 4 is -1, while -7 >> 2 is -2, so counters that start negative and unknown values keep the division
+        CpUtils.assertNumberOfOperations(OperationType.DIV, 1, CpUtils.getMethod(optimized, "negativeQuarters"),
+                optimized);
+        CpUtils.assertNumberOfOperations(OperationType.DIV, 1, CpUtils.getMethod(optimized, "quarter"), optimized);
+
+        // Only the ranges decide which divisions are shifts, so -O0 shifts none
+        String original = TestUtils.backend(getOllirResult("ranges/Bounds.jmm")).getJasminCode();
+        assertFalse("Expected no shifts without the value range analysis", original.contains("ishr"));
+        String quarters = CpUtils.getJasminMethod(TestUtils.backend(optimized), "quarters");
+        assertTrue("Expected the division of 'quarters' to be a shift", quarters.contains("ishr"));
+    }
+}